@@ -0,0 +1,72 @@
+package ru.lazarenko.warehouse.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.hibernate.cache.jcache.internal.JCacheRegionFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ru.lazarenko.warehouse.entity.Category;
+import ru.lazarenko.warehouse.entity.Region;
+import ru.lazarenko.warehouse.entity.Storage;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.time.Duration;
+import java.util.List;
+import java.util.OptionalLong;
+import java.util.UUID;
+
+/**
+ * Second-level cache of the reference data. Every entity has an entity region and a natural-id region,
+ * both bounded by size and time to live. Statistics of the regions are published as JCache MBeans.
+ */
+@Configuration
+public class ReferenceCacheConfig {
+    static final List<Class<?>> CACHED_ENTITIES = List.of(Category.class, Region.class, Storage.class);
+    private static final String NATURAL_ID_REGION_SUFFIX = "##NaturalId";
+
+    @Value("${my.cache.reference.max-size:10000}")
+    private Long maxSize;
+
+    @Value("${my.cache.reference.ttl:1h}")
+    private Duration ttl;
+
+    /**
+     * The manager gets its own URI, so that every application context owns and closes its caches.
+     */
+    @Bean(destroyMethod = "close")
+    public CacheManager referenceCacheManager() {
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager(URI.create("warehouse-reference-" + UUID.randomUUID()), getClass().getClassLoader());
+
+        for (Class<?> entity : CACHED_ENTITIES) {
+            cacheManager.createCache(entity.getName(), regionConfiguration());
+            cacheManager.createCache(entity.getName() + NATURAL_ID_REGION_SUFFIX, regionConfiguration());
+        }
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer referenceCacheCustomizer(CacheManager referenceCacheManager) {
+        return properties -> {
+            properties.put(AvailableSettings.USE_SECOND_LEVEL_CACHE, true);
+            properties.put(AvailableSettings.CACHE_REGION_FACTORY, JCacheRegionFactory.class.getName());
+            properties.put(ConfigSettings.CACHE_MANAGER, referenceCacheManager);
+            properties.put(ConfigSettings.MISSING_CACHE_STRATEGY, "fail");
+        };
+    }
+
+    private CaffeineConfiguration<Object, Object> regionConfiguration() {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        configuration.setMaximumSize(OptionalLong.of(maxSize));
+        configuration.setExpireAfterWrite(OptionalLong.of(ttl.toNanos()));
+        configuration.setStoreByValue(false);
+        configuration.setStatisticsEnabled(true);
+        return configuration;
+    }
+}
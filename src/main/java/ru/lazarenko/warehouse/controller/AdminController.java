@@ -1,17 +1,25 @@
 package ru.lazarenko.warehouse.controller;
 
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
-import ru.lazarenko.warehouse.dto.ReportDto;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.lazarenko.warehouse.dto.KeysetPageDto;
+import ru.lazarenko.warehouse.dto.PageFilterDto;
+import ru.lazarenko.warehouse.dto.ReportFilterDto;
 import ru.lazarenko.warehouse.dto.UserDto;
-import ru.lazarenko.warehouse.entity.ManufactureAnalysis;
+import ru.lazarenko.warehouse.model.ReportSnapshot;
 import ru.lazarenko.warehouse.scheduled.ManufactureAnalysisService;
+import ru.lazarenko.warehouse.scheduled.ReportSnapshotService;
 import ru.lazarenko.warehouse.service.UserService;
 
-import java.util.List;
+import javax.validation.Valid;
 
 @RestController
 @RequiredArgsConstructor
@@ -19,15 +27,33 @@ import java.util.List;
 @RequestMapping("/api/admin")
 public class AdminController {
     private final UserService userService;
+    private final ReportSnapshotService reportSnapshotService;
     private final ManufactureAnalysisService manufactureAnalysisService;
+    private final KeysetPagination keysetPagination;
+
+    @GetMapping(value = "/users", params = {"!cursor", "!size"})
+    private ResponseEntity<StreamingResponseBody> getAllUsers() {
+        return keysetPagination.streamAll(userService::getUsersAfter, UserDto::getId);
+    }
 
     @GetMapping("/users")
-    private List<UserDto> getAllUsers() {
-        return userService.getAllUsers();
+    private KeysetPageDto<UserDto> getUserPage(@Valid PageFilterDto request) {
+        return keysetPagination.getPage("users", request, userService::getUsersAfter, UserDto::getId);
     }
 
     @GetMapping("/report")
-    private List<ReportDto> getReport() {
-        return manufactureAnalysisService.getReport();
+    private ResponseEntity<?> getReport(@Valid ReportFilterDto filter, WebRequest request) {
+        if (!filter.isEmpty()) {
+            return ResponseEntity.ok(manufactureAnalysisService.getReportPage(filter));
+        }
+
+        ReportSnapshot snapshot = reportSnapshotService.getSnapshot();
+        if (request.checkNotModified(snapshot.getEtag())) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(snapshot.getEtag()).build();
+        }
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .eTag(snapshot.getEtag())
+                .body(snapshot.getBody());
     }
 }
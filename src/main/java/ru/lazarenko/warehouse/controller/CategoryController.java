@@ -3,20 +3,25 @@ package ru.lazarenko.warehouse.controller;
 import javax.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import ru.lazarenko.warehouse.dto.CategoryDto;
+import ru.lazarenko.warehouse.dto.KeysetPageDto;
+import ru.lazarenko.warehouse.dto.PageFilterDto;
 import ru.lazarenko.warehouse.dto.info.ResponseDto;
 import ru.lazarenko.warehouse.service.CategoryService;
 
-import java.util.List;
-
 @Slf4j
 @RequiredArgsConstructor
 @RestController
 @RequestMapping("/api/categories")
 public class CategoryController {
     private final CategoryService categoryService;
+    private final KeysetPagination keysetPagination;
+    private final ResponseBodyCache responseBodyCache;
 
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     @PostMapping
@@ -24,10 +29,17 @@ public class CategoryController {
         return categoryService.createCategory(request);
     }
 
+    @PreAuthorize("hasAnyRole('ROLE_MANAGER', 'ROLE_ADMIN')")
+    @GetMapping(params = {"!cursor", "!size"})
+    public ResponseEntity<StreamingResponseBody> getAllCategories(WebRequest request) {
+        return responseBodyCache.getOrStream("categories", "all", request,
+                () -> keysetPagination.streamAll(categoryService::getCategoriesAfter, CategoryDto::getId));
+    }
+
     @PreAuthorize("hasAnyRole('ROLE_MANAGER', 'ROLE_ADMIN')")
     @GetMapping
-    public List<CategoryDto> getAllCategories() {
-        return categoryService.getAllCategories();
+    public KeysetPageDto<CategoryDto> getCategoryPage(@Valid PageFilterDto request) {
+        return keysetPagination.getPage("categories", request, categoryService::getCategoriesAfter, CategoryDto::getId);
     }
 
 }
\ No newline at end of file
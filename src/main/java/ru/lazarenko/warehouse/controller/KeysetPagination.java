@@ -0,0 +1,104 @@
+package ru.lazarenko.warehouse.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.lazarenko.warehouse.dto.KeysetPageDto;
+import ru.lazarenko.warehouse.dto.PageFilterDto;
+import ru.lazarenko.warehouse.exception.InvalidPageCursorException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Seek pagination on id for the list endpoints. The cursor is the last id of the previous page together
+ * with the resource name, encoded so that clients treat it as opaque.
+ */
+@Component
+@RequiredArgsConstructor
+public class KeysetPagination {
+    static final int DEFAULT_PAGE_SIZE = 100;
+    static final int STREAM_PAGE_SIZE = 500;
+
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Serves the page after the cursor. The next cursor is set when the page is full.
+     */
+    public <T> KeysetPageDto<T> getPage(String resource, PageFilterDto filter,
+                                        BiFunction<Integer, Integer, List<T>> loader, Function<T, Integer> idGetter) {
+        int size = filter.getSize() == null ? DEFAULT_PAGE_SIZE : filter.getSize();
+        List<T> items = loader.apply(decode(resource, filter.getCursor()), size);
+
+        KeysetPageDto<T> page = KeysetPageDto.<T>builder()
+                .items(items)
+                .build();
+        if (items.size() == size) {
+            page.setNext(encode(resource, idGetter.apply(items.get(items.size() - 1))));
+        }
+        return page;
+    }
+
+    /**
+     * Writes the whole list as a JSON array page by page for clients of the unpaged API, so memory is bounded
+     * by one page. The first page is loaded before the response is committed, so lookup failures still map
+     * to their error status.
+     *
+     * @param loader loads up to {@code limit} items with ids greater than {@code afterId}, ordered by id
+     */
+    public <T> ResponseEntity<StreamingResponseBody> streamAll(BiFunction<Integer, Integer, List<T>> loader,
+                                                               Function<T, Integer> idGetter) {
+        List<T> firstPage = loader.apply(0, STREAM_PAGE_SIZE);
+        StreamingResponseBody body = output -> {
+            JsonGenerator generator = objectMapper.getFactory().createGenerator(output);
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.writeStartArray();
+            List<T> items = firstPage;
+            while (true) {
+                for (T item : items) {
+                    objectMapper.writeValue(generator, item);
+                }
+                generator.flush();
+                if (items.size() < STREAM_PAGE_SIZE) {
+                    break;
+                }
+                items = loader.apply(idGetter.apply(items.get(items.size() - 1)), STREAM_PAGE_SIZE);
+            }
+            generator.writeEndArray();
+            generator.close();
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(body);
+    }
+
+    String encode(String resource, Integer id) {
+        String cursor = resource + ":" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(cursor.getBytes(StandardCharsets.UTF_8));
+    }
+
+    Integer decode(String resource, String cursor) {
+        if (cursor == null) {
+            return 0;
+        }
+        try {
+            String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            if (decoded.startsWith(resource + ":")) {
+                int id = Integer.parseInt(decoded.substring(resource.length() + 1));
+                if (id >= 0) {
+                    return id;
+                }
+            }
+        } catch (IllegalArgumentException ignored) {
+            // reported below together with cursors of other resources
+        }
+        throw new InvalidPageCursorException("Cursor='%s' is not valid for %s".formatted(cursor, resource));
+    }
+}
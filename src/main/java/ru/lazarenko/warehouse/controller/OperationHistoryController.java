@@ -0,0 +1,41 @@
+package ru.lazarenko.warehouse.controller;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.lazarenko.warehouse.dto.HistoryFilterDto;
+import ru.lazarenko.warehouse.dto.OperationTrendDto;
+import ru.lazarenko.warehouse.dto.TrendFilterDto;
+import ru.lazarenko.warehouse.model.HistoryFormat;
+import ru.lazarenko.warehouse.scheduled.OperationRollupService;
+import ru.lazarenko.warehouse.service.OperationHistoryService;
+
+import javax.validation.Valid;
+import java.util.List;
+
+@RestController
+@RequiredArgsConstructor
+@PreAuthorize("hasAnyRole('ROLE_MANAGER', 'ROLE_ADMIN')")
+@RequestMapping("/api/history")
+public class OperationHistoryController {
+    private final OperationRollupService operationRollupService;
+    private final OperationHistoryService operationHistoryService;
+
+    @GetMapping
+    public ResponseEntity<StreamingResponseBody> getHistory(@Valid HistoryFilterDto request) {
+        HistoryFormat format = request.getFormat() == null ? HistoryFormat.NDJSON : request.getFormat();
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(format.getMediaType()))
+                .body(output -> operationHistoryService.exportHistory(request, output));
+    }
+
+    @GetMapping("/trends")
+    public List<OperationTrendDto> getTrends(@Valid TrendFilterDto request) {
+        return operationRollupService.getTrends(request);
+    }
+}
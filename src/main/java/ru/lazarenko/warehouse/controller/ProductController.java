@@ -2,9 +2,13 @@ package ru.lazarenko.warehouse.controller;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.lazarenko.warehouse.dto.KeysetPageDto;
+import ru.lazarenko.warehouse.dto.PageFilterDto;
 import ru.lazarenko.warehouse.dto.info.ResponseDto;
 import ru.lazarenko.warehouse.dto.product.PriceRangeDto;
 import ru.lazarenko.warehouse.dto.product.ProductDto;
@@ -19,6 +23,8 @@ import java.util.List;
 @RequestMapping("/api/products")
 public class ProductController {
     private final ProductService productService;
+    private final KeysetPagination keysetPagination;
+    private final ResponseBodyCache responseBodyCache;
 
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     @PostMapping
@@ -26,13 +32,21 @@ public class ProductController {
         return productService.createProduct(request);
     }
 
+    @PreAuthorize("hasAnyRole('ROLE_MANAGER', 'ROLE_ADMIN')")
+    @GetMapping(params = {"!cursor", "!size"})
+    public ResponseEntity<StreamingResponseBody> getAllProducts(
+            @RequestParam(required = false, name = "category") String category, WebRequest request) {
+        return responseBodyCache.getOrStream("products", "category=" + category, request,
+                () -> keysetPagination.streamAll(
+                        (afterId, limit) -> productService.getProductsAfter(category, afterId, limit), ProductDto::getId));
+    }
+
     @PreAuthorize("hasAnyRole('ROLE_MANAGER', 'ROLE_ADMIN')")
     @GetMapping
-    public List<ProductDto> getAllProducts(@RequestParam(required = false, name = "category") String category) {
-        if (!StringUtils.hasLength(category)) {
-            return productService.getAllProducts();
-        }
-        return productService.getProductsByCategory(category);
+    public KeysetPageDto<ProductDto> getProductPage(@RequestParam(required = false, name = "category") String category,
+                                                    @Valid PageFilterDto request) {
+        return keysetPagination.getPage("products", request,
+                (afterId, limit) -> productService.getProductsAfter(category, afterId, limit), ProductDto::getId);
     }
 
     @PreAuthorize("hasAnyRole('ROLE_MANAGER', 'ROLE_ADMIN')")
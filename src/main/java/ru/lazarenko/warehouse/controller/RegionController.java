@@ -2,14 +2,18 @@ package ru.lazarenko.warehouse.controller;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.lazarenko.warehouse.dto.KeysetPageDto;
+import ru.lazarenko.warehouse.dto.PageFilterDto;
 import ru.lazarenko.warehouse.dto.RegionDto;
 import ru.lazarenko.warehouse.dto.info.ResponseDto;
 import ru.lazarenko.warehouse.service.RegionService;
 
 import javax.validation.Valid;
-import java.util.List;
 
 @Slf4j
 @RequiredArgsConstructor
@@ -17,6 +21,8 @@ import java.util.List;
 @RequestMapping("/api/regions")
 public class RegionController {
     private final RegionService regionService;
+    private final KeysetPagination keysetPagination;
+    private final ResponseBodyCache responseBodyCache;
 
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     @PostMapping
@@ -24,10 +30,17 @@ public class RegionController {
         return regionService.createRegion(request);
     }
 
+    @PreAuthorize("hasAnyRole('ROLE_MANAGER', 'ROLE_ADMIN')")
+    @GetMapping(params = {"!cursor", "!size"})
+    public ResponseEntity<StreamingResponseBody> getAllRegions(WebRequest request) {
+        return responseBodyCache.getOrStream("regions", "all", request,
+                () -> keysetPagination.streamAll(regionService::getRegionsAfter, RegionDto::getId));
+    }
+
     @PreAuthorize("hasAnyRole('ROLE_MANAGER', 'ROLE_ADMIN')")
     @GetMapping
-    public List<RegionDto> getAllRegions() {
-        return regionService.getAllRegions();
+    public KeysetPageDto<RegionDto> getRegionPage(@Valid PageFilterDto request) {
+        return keysetPagination.getPage("regions", request, regionService::getRegionsAfter, RegionDto::getId);
     }
 
 }
@@ -0,0 +1,152 @@
+package ru.lazarenko.warehouse.controller;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.lazarenko.warehouse.model.CachedBody;
+import ru.lazarenko.warehouse.service.ResourceChangedEvent;
+import ru.lazarenko.warehouse.service.ResourceVersionService;
+
+import javax.annotation.PostConstruct;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Keeps the encoded JSON of the unpaged list endpoints, which handhelds poll every few seconds. A cached body
+ * is written to the response as it is. Bodies larger than {@code max-entry-size} are streamed without being kept.
+ * <p>
+ * Every response carries an ETag made from the version of its resource, which is bumped by every create on any
+ * node and read through the in-memory copy of {@link ResourceVersionService}. A polling client whose copy is
+ * current gets {@code 304 Not Modified} without a database round trip, and bodies are keyed with the version,
+ * so a body of an older version is never served. A create on another node may be answered with the previous
+ * version for up to {@code my.cache.versions.ttl}. Bodies of older versions are dropped when a create commits
+ * on this node and expire after the time to live otherwise.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ResponseBodyCache {
+    private final ResourceVersionService resourceVersionService;
+
+    @Value("${my.cache.responses.max-size:64MB}")
+    private DataSize maxSize;
+
+    @Value("${my.cache.responses.max-entry-size:8MB}")
+    private DataSize maxEntrySize;
+
+    @Value("${my.cache.responses.ttl:10s}")
+    private Duration ttl;
+
+    private Cache<String, CachedBody> bodies;
+
+    @PostConstruct
+    public void init() {
+        bodies = Caffeine.newBuilder()
+                .maximumWeight(maxSize.toBytes())
+                .weigher((String key, CachedBody cached) -> cached.getBody().length)
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    /**
+     * Answers {@code 304} when the client has the current version, serves the cached body of the version, or
+     * streams the response of {@code streamer} and keeps its body. The version is read before the body is loaded,
+     * so a body is never older than its tag.
+     */
+    public ResponseEntity<StreamingResponseBody> getOrStream(String resource, String key, WebRequest request,
+                                                             Supplier<ResponseEntity<StreamingResponseBody>> streamer) {
+        long version = resourceVersionService.getVersion(resource);
+        String etag = "\"%s-%s\"".formatted(resource, version);
+        if (request.checkNotModified(etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+        }
+
+        String cacheKey = resource + ":" + version + ":" + key;
+        CachedBody cached = bodies.getIfPresent(cacheKey);
+        if (cached != null) {
+            return ResponseEntity.ok()
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .contentLength(cached.getBody().length)
+                    .eTag(etag)
+                    .body(output -> output.write(cached.getBody()));
+        }
+
+        ResponseEntity<StreamingResponseBody> response = streamer.get();
+        StreamingResponseBody body = response.getBody();
+        return ResponseEntity.status(response.getStatusCode())
+                .headers(response.getHeaders())
+                .eTag(etag)
+                .body(output -> {
+                    CapturingOutputStream capturing = new CapturingOutputStream(output, maxEntrySize.toBytes());
+                    body.writeTo(capturing);
+                    if (capturing.isComplete()) {
+                        bodies.put(cacheKey, new CachedBody(capturing.toByteArray()));
+                    }
+                });
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onResourceChanged(ResourceChangedEvent event) {
+        String resource = event.getResource();
+        bodies.asMap().keySet().removeIf(key -> key.startsWith(resource + ":"));
+        log.debug("Cached responses of '{}' invalidated", resource);
+    }
+
+    /**
+     * Copies the written bytes until they exceed the limit.
+     */
+    private static class CapturingOutputStream extends FilterOutputStream {
+        private final long limit;
+        private ByteArrayOutputStream captured = new ByteArrayOutputStream();
+
+        CapturingOutputStream(OutputStream out, long limit) {
+            super(out);
+            this.limit = limit;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            capture(new byte[]{(byte) b}, 0, 1);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            capture(b, off, len);
+        }
+
+        boolean isComplete() {
+            return captured != null;
+        }
+
+        byte[] toByteArray() {
+            return captured.toByteArray();
+        }
+
+        private void capture(byte[] b, int off, int len) {
+            if (captured == null) {
+                return;
+            }
+            if (captured.size() + len > limit) {
+                captured = null;
+                return;
+            }
+            captured.write(b, off, len);
+        }
+    }
+}
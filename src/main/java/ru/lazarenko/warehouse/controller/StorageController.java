@@ -2,14 +2,22 @@ package ru.lazarenko.warehouse.controller;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.lazarenko.warehouse.dto.KeysetPageDto;
+import ru.lazarenko.warehouse.dto.PageFilterDto;
 import ru.lazarenko.warehouse.dto.info.ResponseDto;
 import ru.lazarenko.warehouse.dto.product.ProductDto;
 import ru.lazarenko.warehouse.dto.storage.ChangeItemStorageRequest;
+import ru.lazarenko.warehouse.dto.storage.InventoryFilterDto;
+import ru.lazarenko.warehouse.dto.storage.InventoryPageDto;
 import ru.lazarenko.warehouse.dto.storage.LoadingShipmentRequest;
 import ru.lazarenko.warehouse.dto.storage.LoadingShipmentResponse;
+import ru.lazarenko.warehouse.dto.storage.StockMovementBatchRequest;
 import ru.lazarenko.warehouse.dto.storage.StorageDto;
 import ru.lazarenko.warehouse.service.ItemStorageService;
 import ru.lazarenko.warehouse.service.StorageService;
@@ -24,6 +32,8 @@ import java.util.List;
 public class StorageController {
     private final StorageService storageService;
     private final ItemStorageService itemStorageService;
+    private final KeysetPagination keysetPagination;
+    private final ResponseBodyCache responseBodyCache;
 
     @PreAuthorize("hasRole('ROLE_ADMIN')")
     @PostMapping
@@ -32,10 +42,17 @@ public class StorageController {
         return storageService.createStorage(request);
     }
 
+    @PreAuthorize("hasAnyRole('ROLE_MANAGER', 'ROLE_ADMIN')")
+    @GetMapping(params = {"!cursor", "!size"})
+    public ResponseEntity<StreamingResponseBody> getAllStorages(WebRequest request) {
+        return responseBodyCache.getOrStream("storages", "all", request,
+                () -> keysetPagination.streamAll(storageService::getStoragesAfter, StorageDto::getId));
+    }
+
     @PreAuthorize("hasAnyRole('ROLE_MANAGER', 'ROLE_ADMIN')")
     @GetMapping
-    public List<StorageDto> getAllStorages() {
-        return storageService.getAllStorages();
+    public KeysetPageDto<StorageDto> getStoragePage(@Valid PageFilterDto request) {
+        return keysetPagination.getPage("storages", request, storageService::getStoragesAfter, StorageDto::getId);
     }
 
     @PreAuthorize("hasAnyRole('ROLE_MANAGER', 'ROLE_ADMIN')")
@@ -50,6 +67,12 @@ public class StorageController {
         return storageService.decreaseProductInStorage(request);
     }
 
+    @PreAuthorize("hasAnyRole('ROLE_MANAGER', 'ROLE_ADMIN')")
+    @PostMapping("/movements/batch")
+    public List<ResponseDto> applyMovementBatch(@RequestBody @Valid StockMovementBatchRequest request) {
+        return storageService.applyMovementBatch(request);
+    }
+
     @PreAuthorize("hasAnyRole('ROLE_MANAGER', 'ROLE_ADMIN')")
     @GetMapping("/{storageId}/products")
     public List<ProductDto> getAllProductsByStorage(@RequestParam(required = false, name = "category") String category,
@@ -60,6 +83,12 @@ public class StorageController {
         return storageService.getAllProductsByStorageIdAndCategory(storageId, category);
     }
 
+    @PreAuthorize("hasAnyRole('ROLE_MANAGER', 'ROLE_ADMIN')")
+    @GetMapping("/{storageId}/inventory")
+    public InventoryPageDto getInventory(@PathVariable Integer storageId, @Valid InventoryFilterDto request) {
+        return storageService.getInventoryPage(storageId, request);
+    }
+
     @PreAuthorize("hasAnyRole('ROLE_MANAGER', 'ROLE_ADMIN')")
     @GetMapping("/find")
     public LoadingShipmentResponse getStorageForLoadingShipment(LoadingShipmentRequest request) {
@@ -0,0 +1,25 @@
+package ru.lazarenko.warehouse.dto;
+
+import lombok.*;
+import ru.lazarenko.warehouse.model.OperationType;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class HistoryRecordDto {
+    private Integer id;
+
+    private LocalDateTime date;
+
+    private Integer productId;
+
+    private Integer storageId;
+
+    private OperationType operation;
+
+    private Integer count;
+}
@@ -0,0 +1,16 @@
+package ru.lazarenko.warehouse.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class KeysetPageDto<T> {
+    private List<T> items;
+
+    private String next;
+}
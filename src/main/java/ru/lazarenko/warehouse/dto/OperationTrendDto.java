@@ -0,0 +1,23 @@
+package ru.lazarenko.warehouse.dto;
+
+import lombok.*;
+import ru.lazarenko.warehouse.model.OperationType;
+
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class OperationTrendDto {
+    private LocalDateTime bucketStart;
+
+    private Integer storageId;
+
+    private OperationType operation;
+
+    private Long count;
+
+    private Long records;
+}
@@ -0,0 +1,19 @@
+package ru.lazarenko.warehouse.dto;
+
+import lombok.*;
+
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PageFilterDto {
+    private String cursor;
+
+    @Min(value = 1, message = "Size cannot be less than 1")
+    @Max(value = 1000, message = "Size cannot be more than 1000")
+    private Integer size;
+}
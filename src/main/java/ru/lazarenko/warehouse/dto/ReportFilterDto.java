@@ -0,0 +1,44 @@
+package ru.lazarenko.warehouse.dto;
+
+import lombok.*;
+import org.springframework.format.annotation.DateTimeFormat;
+import ru.lazarenko.warehouse.model.ChangeType;
+
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import java.time.LocalDate;
+
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReportFilterDto {
+    private Integer storageId;
+
+    private Integer productId;
+
+    private Integer regionId;
+
+    private ChangeType changeType;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate from;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate to;
+
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate afterDate;
+
+    private Integer afterId;
+
+    @Min(value = 1, message = "Size cannot be less than 1")
+    @Max(value = 1000, message = "Size cannot be more than 1000")
+    private Integer size;
+
+    public boolean isEmpty() {
+        return storageId == null && productId == null && regionId == null && changeType == null
+                && from == null && to == null && afterDate == null && afterId == null && size == null;
+    }
+}
@@ -0,0 +1,19 @@
+package ru.lazarenko.warehouse.dto;
+
+import lombok.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReportPageDto {
+    private List<ReportDto> items;
+
+    private LocalDate nextAfterDate;
+
+    private Integer nextAfterId;
+}
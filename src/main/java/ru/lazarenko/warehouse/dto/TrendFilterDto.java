@@ -0,0 +1,33 @@
+package ru.lazarenko.warehouse.dto;
+
+import lombok.*;
+import org.springframework.format.annotation.DateTimeFormat;
+import ru.lazarenko.warehouse.model.OperationType;
+import ru.lazarenko.warehouse.model.RollupGranularity;
+
+import javax.validation.constraints.NotNull;
+import java.time.LocalDate;
+
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TrendFilterDto {
+    @NotNull(message = "Granularity cannot be empty")
+    private RollupGranularity granularity;
+
+    @NotNull(message = "From date cannot be empty")
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate from;
+
+    @NotNull(message = "To date cannot be empty")
+    @DateTimeFormat(iso = DateTimeFormat.ISO.DATE)
+    private LocalDate to;
+
+    private Integer storageId;
+
+    private Integer productId;
+
+    private OperationType operation;
+}
@@ -2,8 +2,10 @@ package ru.lazarenko.warehouse.dto.product;
 
 import lombok.*;
 
+import javax.validation.constraints.Max;
 import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
+import java.math.BigDecimal;
 
 @Getter
 @Setter
@@ -19,4 +21,14 @@ public class PriceRangeDto {
     @NotNull(message = "Max price cannot be null")
     @Min(value = 100, message = "Max price cannot be less than 100")
     private Integer max;
+
+    private String category;
+
+    private BigDecimal afterPrice;
+
+    private Integer afterId;
+
+    @Min(value = 1, message = "Size cannot be less than 1")
+    @Max(value = 1000, message = "Size cannot be more than 1000")
+    private Integer size;
 }
@@ -0,0 +1,26 @@
+package ru.lazarenko.warehouse.dto.storage;
+
+import lombok.*;
+import ru.lazarenko.warehouse.model.InventorySort;
+
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class InventoryFilterDto {
+    private InventorySort sort;
+
+    private String afterName;
+
+    private Integer afterCount;
+
+    private Integer afterId;
+
+    @Min(value = 1, message = "Size cannot be less than 1")
+    @Max(value = 1000, message = "Size cannot be more than 1000")
+    private Integer size;
+}
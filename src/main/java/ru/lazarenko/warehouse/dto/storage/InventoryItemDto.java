@@ -0,0 +1,22 @@
+package ru.lazarenko.warehouse.dto.storage;
+
+import lombok.*;
+
+import java.math.BigDecimal;
+
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class InventoryItemDto {
+    private Integer productId;
+
+    private String name;
+
+    private BigDecimal price;
+
+    private String category;
+
+    private Integer count;
+}
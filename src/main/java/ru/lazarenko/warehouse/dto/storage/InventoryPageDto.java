@@ -0,0 +1,20 @@
+package ru.lazarenko.warehouse.dto.storage;
+
+import lombok.*;
+
+import java.util.List;
+
+@Getter
+@Setter
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class InventoryPageDto {
+    private List<InventoryItemDto> items;
+
+    private String nextAfterName;
+
+    private Integer nextAfterCount;
+
+    private Integer nextAfterId;
+}
@@ -0,0 +1,20 @@
+package ru.lazarenko.warehouse.dto.storage;
+
+import lombok.*;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotEmpty;
+import javax.validation.constraints.Size;
+import java.util.List;
+
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class StockMovementBatchRequest {
+    @Valid
+    @NotEmpty(message = "Movements cannot be empty or null")
+    @Size(max = 1000, message = "Movements cannot contain more than 1000 lines")
+    private List<StockMovementRequest> movements;
+}
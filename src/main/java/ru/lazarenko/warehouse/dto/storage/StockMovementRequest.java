@@ -0,0 +1,21 @@
+package ru.lazarenko.warehouse.dto.storage;
+
+import lombok.*;
+import ru.lazarenko.warehouse.model.OperationType;
+
+import javax.validation.Valid;
+import javax.validation.constraints.NotNull;
+
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class StockMovementRequest {
+    @NotNull(message = "Type of operation(loading / shipment) cannot be null")
+    private OperationType operation;
+
+    @Valid
+    @NotNull(message = "Item cannot be null")
+    private ChangeItemStorageRequest item;
+}
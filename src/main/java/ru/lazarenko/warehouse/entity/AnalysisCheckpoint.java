@@ -0,0 +1,24 @@
+package ru.lazarenko.warehouse.entity;
+
+import lombok.*;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "analysis_checkpoints")
+public class AnalysisCheckpoint {
+    @Id
+    private String name;
+
+    private LocalDateTime lastDate;
+
+    private Integer lastId;
+}
@@ -0,0 +1,24 @@
+package ru.lazarenko.warehouse.entity;
+
+import lombok.*;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import java.time.LocalDate;
+
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "history_archive_days")
+public class HistoryArchiveDay {
+    @Id
+    private LocalDate archiveDate;
+
+    private String location;
+
+    private Integer rowCount;
+}
@@ -9,14 +9,26 @@ import lombok.*;
 @AllArgsConstructor
 @NoArgsConstructor
 @Entity
-@Table(name = "items_storage")
+@Table(name = "items_storage",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"product_id", "storage_id"}),
+        indexes = {
+                @Index(name = "idx_items_storage_storage_count", columnList = "storage_id, count, product_id"),
+                @Index(name = "idx_items_storage_storage_product_name",
+                        columnList = "storage_id, product_name, product_id")})
 public class ItemStorage {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "items_storage_seq")
+    @SequenceGenerator(name = "items_storage_seq", allocationSize = 50)
     private Integer id;
 
     private Integer count;
 
+    /**
+     * Copy of the product name, the sort key of the inventory in name order. Products are never renamed.
+     */
+    @Column(name = "product_name")
+    private String productName;
+
     @ManyToOne(cascade = {CascadeType.PERSIST, CascadeType.MERGE})
     @JoinColumn(name = "product_id", referencedColumnName = "id")
     private Product product;
@@ -24,4 +36,11 @@ public class ItemStorage {
     @ManyToOne(cascade = {CascadeType.PERSIST, CascadeType.MERGE})
     @JoinColumn(name = "storage_id", referencedColumnName = "id")
     private Storage storage;
+
+    @PrePersist
+    void copyProductName() {
+        if (product != null) {
+            productName = product.getName();
+        }
+    }
 }
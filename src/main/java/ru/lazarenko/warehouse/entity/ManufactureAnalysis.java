@@ -13,10 +13,18 @@ import java.time.LocalDate;
 @NoArgsConstructor
 @AllArgsConstructor
 @Entity
-@Table(name = "manufacture_analyses")
+@Table(name = "manufacture_analyses",
+        uniqueConstraints = @UniqueConstraint(name = "uk_manufacture_analyses_date_storage_product_operation",
+                columnNames = {"reportDate", "storage_id", "product_id", "operation"}),
+        indexes = {
+                @Index(name = "idx_manufacture_analyses_date_id",
+                        columnList = "reportDate, id, storage_id, product_id, changeType"),
+                @Index(name = "idx_manufacture_analyses_storage_date_id", columnList = "storage_id, reportDate, id"),
+                @Index(name = "idx_manufacture_analyses_product_date_id", columnList = "product_id, reportDate, id")})
 public class ManufactureAnalysis {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "manufacture_analyses_seq")
+    @SequenceGenerator(name = "manufacture_analyses_seq", allocationSize = 50)
     private Integer id;
 
     @Enumerated(value = EnumType.STRING)
@@ -12,10 +12,20 @@ import java.time.LocalDateTime;
 @AllArgsConstructor
 @NoArgsConstructor
 @Entity
-@Table(name = "operation_histories")
+@Table(name = "operation_histories",
+        indexes = {
+                @Index(name = "idx_operation_histories_date_id",
+                        columnList = "date, id, product_id, storage_id, operation, count"),
+                @Index(name = "idx_operation_histories_storage_date_id",
+                        columnList = "storage_id, date, id, product_id, operation, count"),
+                @Index(name = "idx_operation_histories_product_date_id",
+                        columnList = "product_id, date, id, storage_id, operation, count"),
+                @Index(name = "idx_operation_histories_storage_product_date_id",
+                        columnList = "storage_id, product_id, date, id")})
 public class OperationHistory {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "operation_histories_seq")
+    @SequenceGenerator(name = "operation_histories_seq", allocationSize = 50)
     private Integer id;
 
     @Enumerated(value = EnumType.STRING)
@@ -0,0 +1,57 @@
+package ru.lazarenko.warehouse.entity;
+
+import lombok.*;
+import ru.lazarenko.warehouse.model.OperationType;
+import ru.lazarenko.warehouse.model.RollupGranularity;
+import ru.lazarenko.warehouse.model.RollupKey;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "operation_rollups",
+        uniqueConstraints = @UniqueConstraint(name = "uk_operation_rollups_bucket_product_storage_operation",
+                columnNames = {"granularity", "bucketStart", "product_id", "storage_id", "operation"}),
+        indexes = @Index(name = "idx_operation_rollups_storage_bucket",
+                columnList = "granularity, storage_id, bucketStart"))
+public class OperationRollup {
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "operation_rollups_seq")
+    @SequenceGenerator(name = "operation_rollups_seq", allocationSize = 50)
+    private Integer id;
+
+    @Enumerated(value = EnumType.STRING)
+    private RollupGranularity granularity;
+
+    private LocalDateTime bucketStart;
+
+    @Enumerated(value = EnumType.STRING)
+    private OperationType operation;
+
+    /**
+     * Sum of the moved product counts.
+     */
+    private Long count;
+
+    /**
+     * Number of operation histories behind the sum.
+     */
+    private Long records;
+
+    @ManyToOne
+    @JoinColumn(name = "product_id", referencedColumnName = "id")
+    private Product product;
+
+    @ManyToOne
+    @JoinColumn(name = "storage_id", referencedColumnName = "id")
+    private Storage storage;
+
+    public RollupKey getKey() {
+        return new RollupKey(granularity, bucketStart, product.getId(), storage.getId(), operation);
+    }
+}
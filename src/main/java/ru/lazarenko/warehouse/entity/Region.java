@@ -2,6 +2,10 @@ package ru.lazarenko.warehouse.entity;
 
 import javax.persistence.*;
 import lombok.*;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.NaturalId;
+import org.hibernate.annotations.NaturalIdCache;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -9,15 +13,20 @@ import java.util.List;
 @Getter
 @Setter
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@NaturalIdCache
 @Builder
 @AllArgsConstructor
 @NoArgsConstructor
 @Table(name = "regions")
 public class Region {
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "regions_seq")
+    @SequenceGenerator(name = "regions_seq", allocationSize = 50)
     private Integer id;
 
+    @NaturalId
     private String name;
 
     @OneToMany(mappedBy = "region", cascade = {CascadeType.PERSIST, CascadeType.MERGE})
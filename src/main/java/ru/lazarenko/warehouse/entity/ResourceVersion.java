@@ -0,0 +1,21 @@
+package ru.lazarenko.warehouse.entity;
+
+import lombok.*;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "resource_versions")
+public class ResourceVersion {
+    @Id
+    private String resource;
+
+    private Long version;
+}
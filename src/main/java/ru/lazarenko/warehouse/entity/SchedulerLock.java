@@ -0,0 +1,26 @@
+package ru.lazarenko.warehouse.entity;
+
+import lombok.*;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import java.time.LocalDateTime;
+
+@Getter
+@Setter
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+@Entity
+@Table(name = "scheduler_locks")
+public class SchedulerLock {
+    @Id
+    private String name;
+
+    private String owner;
+
+    private Long token;
+
+    private LocalDateTime expiresAt;
+}
@@ -100,6 +100,21 @@ public class ErrorHandler extends ResponseEntityExceptionHandler {
                 .body(response);
     }
 
+    @ExceptionHandler(value = {InvalidPageCursorException.class})
+    public ResponseEntity<Object> handleInvalidPageCursorException(final InvalidPageCursorException ex) {
+        Map<String, Object> response = new LinkedHashMap<>();
+
+        response.put("timestamp", LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss")));
+        response.put("status", HttpStatus.BAD_REQUEST.name());
+        response.put("message", ex.getMessage());
+
+        log.error(ex.getMessage());
+
+        return ResponseEntity
+                .status(HttpStatus.BAD_REQUEST)
+                .body(response);
+    }
+
     @ExceptionHandler(value = Exception.class)
     public ResponseEntity<Object> handleException(final Exception ex) {
         Map<String, Object> response = new LinkedHashMap<>();
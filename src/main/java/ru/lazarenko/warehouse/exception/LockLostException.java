@@ -0,0 +1,7 @@
+package ru.lazarenko.warehouse.exception;
+
+public class LockLostException extends RuntimeException {
+    public LockLostException(String message) {
+        super(message);
+    }
+}
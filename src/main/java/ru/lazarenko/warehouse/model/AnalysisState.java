@@ -0,0 +1,15 @@
+package ru.lazarenko.warehouse.model;
+
+import lombok.Value;
+
+@Value
+public class AnalysisState {
+    Integer id;
+    Integer productId;
+    Integer storageId;
+    ChangeType changeType;
+
+    public ItemStorageKey getKey() {
+        return new ItemStorageKey(productId, storageId);
+    }
+}
@@ -0,0 +1,8 @@
+package ru.lazarenko.warehouse.model;
+
+import lombok.Value;
+
+@Value
+public class CachedBody {
+    byte[] body;
+}
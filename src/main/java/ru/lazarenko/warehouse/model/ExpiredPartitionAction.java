@@ -0,0 +1,6 @@
+package ru.lazarenko.warehouse.model;
+
+public enum ExpiredPartitionAction {
+    ARCHIVE,
+    DROP
+}
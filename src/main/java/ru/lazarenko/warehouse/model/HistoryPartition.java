@@ -0,0 +1,14 @@
+package ru.lazarenko.warehouse.model;
+
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+/**
+ * Range partition of the operation histories; {@code upperBound} is exclusive and {@code null} for MAXVALUE.
+ */
+@Value
+public class HistoryPartition {
+    String name;
+    LocalDateTime upperBound;
+}
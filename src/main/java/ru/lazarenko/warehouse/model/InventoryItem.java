@@ -0,0 +1,14 @@
+package ru.lazarenko.warehouse.model;
+
+import lombok.Value;
+
+import java.math.BigDecimal;
+
+@Value
+public class InventoryItem {
+    Integer productId;
+    String name;
+    BigDecimal price;
+    String category;
+    Integer count;
+}
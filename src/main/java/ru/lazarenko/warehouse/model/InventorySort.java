@@ -0,0 +1,5 @@
+package ru.lazarenko.warehouse.model;
+
+public enum InventorySort {
+    NAME, COUNT
+}
@@ -0,0 +1,14 @@
+package ru.lazarenko.warehouse.model;
+
+import lombok.Value;
+
+@Value
+public class ItemStorageCount {
+    Integer productId;
+    Integer storageId;
+    Integer count;
+
+    public ItemStorageKey getKey() {
+        return new ItemStorageKey(productId, storageId);
+    }
+}
@@ -0,0 +1,9 @@
+package ru.lazarenko.warehouse.model;
+
+import lombok.Value;
+
+@Value
+public class ItemStorageKey {
+    Integer productId;
+    Integer storageId;
+}
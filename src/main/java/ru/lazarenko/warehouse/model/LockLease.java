@@ -0,0 +1,10 @@
+package ru.lazarenko.warehouse.model;
+
+import lombok.Value;
+
+@Value
+public class LockLease {
+    String name;
+    String owner;
+    Long token;
+}
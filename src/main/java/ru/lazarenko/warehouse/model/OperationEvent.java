@@ -0,0 +1,15 @@
+package ru.lazarenko.warehouse.model;
+
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+@Value
+public class OperationEvent {
+    Integer id;
+    Integer productId;
+    Integer storageId;
+    OperationType operation;
+    Integer count;
+    LocalDateTime date;
+}
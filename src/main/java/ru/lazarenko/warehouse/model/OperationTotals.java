@@ -0,0 +1,41 @@
+package ru.lazarenko.warehouse.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Loading and shipment totals of one product in one storage.
+ */
+@Getter
+@AllArgsConstructor
+public class OperationTotals {
+    /*
+    if shipments > 50% of loadings, then we increase loadings
+    if shipments < 30% of loadings, then we decrease loadings
+     */
+    private static final double INCREASE_SHIPMENT_SHARE = 0.5;
+    private static final double DECREASE_SHIPMENT_SHARE = 0.3;
+
+    private final Integer productId;
+    private final Integer storageId;
+    private final Long loading;
+    private final Long shipment;
+
+    /**
+     * @return recommended change of loadings or {@code null} if loadings should stay as they are
+     */
+    public ChangeType getRecommendation() {
+        if (loading == 0) {
+            return shipment > 0 ? ChangeType.INCREASE : null;
+        }
+
+        double shipmentShare = (double) shipment / loading;
+        if (shipmentShare > INCREASE_SHIPMENT_SHARE) {
+            return ChangeType.INCREASE;
+        }
+        if (shipmentShare < DECREASE_SHIPMENT_SHARE) {
+            return ChangeType.DECREASE;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,12 @@
+package ru.lazarenko.warehouse.model;
+
+import lombok.Value;
+
+import java.math.BigDecimal;
+
+@Value
+public class PriceEntry {
+    Integer productId;
+    BigDecimal price;
+    Integer categoryId;
+}
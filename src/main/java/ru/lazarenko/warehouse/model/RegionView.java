@@ -0,0 +1,12 @@
+package ru.lazarenko.warehouse.model;
+
+import lombok.Value;
+
+import java.util.List;
+
+@Value
+public class RegionView {
+    Integer id;
+    String name;
+    List<StorageView> storages;
+}
@@ -0,0 +1,15 @@
+package ru.lazarenko.warehouse.model;
+
+import lombok.Value;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Value
+public class ReportSnapshot {
+    byte[] body;
+    Long version;
+    String etag;
+    LocalDate reportDate;
+    LocalDateTime builtAt;
+}
@@ -0,0 +1,19 @@
+package ru.lazarenko.warehouse.model;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+public enum RollupGranularity {
+    HOUR(ChronoUnit.HOURS),
+    DAY(ChronoUnit.DAYS);
+
+    private final ChronoUnit unit;
+
+    RollupGranularity(ChronoUnit unit) {
+        this.unit = unit;
+    }
+
+    public LocalDateTime getBucketStart(LocalDateTime date) {
+        return date.truncatedTo(unit);
+    }
+}
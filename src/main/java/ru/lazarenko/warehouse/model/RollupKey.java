@@ -0,0 +1,14 @@
+package ru.lazarenko.warehouse.model;
+
+import lombok.Value;
+
+import java.time.LocalDateTime;
+
+@Value
+public class RollupKey {
+    RollupGranularity granularity;
+    LocalDateTime bucketStart;
+    Integer productId;
+    Integer storageId;
+    OperationType operation;
+}
@@ -0,0 +1,10 @@
+package ru.lazarenko.warehouse.model;
+
+import lombok.Value;
+
+@Value
+public class StorageView {
+    Integer id;
+    String name;
+    Integer regionId;
+}
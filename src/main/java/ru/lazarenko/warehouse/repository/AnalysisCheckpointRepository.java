@@ -0,0 +1,9 @@
+package ru.lazarenko.warehouse.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+import ru.lazarenko.warehouse.entity.AnalysisCheckpoint;
+
+@Repository
+public interface AnalysisCheckpointRepository extends JpaRepository<AnalysisCheckpoint, String> {
+}
@@ -1,12 +1,19 @@
 package ru.lazarenko.warehouse.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 import ru.lazarenko.warehouse.entity.Category;
+import ru.lazarenko.warehouse.model.ReferenceView;
 
-import java.util.Optional;
+import java.util.List;
 
 @Repository
-public interface CategoryRepository extends JpaRepository<Category, Integer> {
-    Optional<Category> findByName(String name);
+public interface CategoryRepository extends JpaRepository<Category, Integer>, CategoryRepositoryCustom {
+    @Query(value = "select c from Category c where c.id > :afterId order by c.id")
+    List<Category> findPageAfter(Integer afterId, Pageable pageable);
+
+    @Query(value = "select new ru.lazarenko.warehouse.model.ReferenceView(c.id, c.name) from Category c order by c.id")
+    List<ReferenceView> findViews(Pageable pageable);
 }
@@ -0,0 +1,13 @@
+package ru.lazarenko.warehouse.repository;
+
+import ru.lazarenko.warehouse.entity.Category;
+
+import java.util.Optional;
+
+public interface CategoryRepositoryCustom {
+
+    /**
+     * Resolves the name as the natural id of the category, so a cached category is returned without a statement.
+     */
+    Optional<Category> findByName(String name);
+}
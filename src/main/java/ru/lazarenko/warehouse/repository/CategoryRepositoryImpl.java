@@ -0,0 +1,22 @@
+package ru.lazarenko.warehouse.repository;
+
+import org.hibernate.Session;
+import org.springframework.transaction.annotation.Transactional;
+import ru.lazarenko.warehouse.entity.Category;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.Optional;
+
+public class CategoryRepositoryImpl implements CategoryRepositoryCustom {
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<Category> findByName(String name) {
+        return entityManager.unwrap(Session.class)
+                .bySimpleNaturalId(Category.class)
+                .loadOptional(name);
+    }
+}
@@ -0,0 +1,21 @@
+package ru.lazarenko.warehouse.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import ru.lazarenko.warehouse.entity.HistoryArchiveDay;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface HistoryArchiveDayRepository extends JpaRepository<HistoryArchiveDay, LocalDate> {
+
+    @Query(value = "select max(d.archiveDate) from HistoryArchiveDay d")
+    Optional<LocalDate> findLastArchiveDate();
+
+    @Query(value = "select d from HistoryArchiveDay d where d.archiveDate >= :from and d.archiveDate < :to " +
+            "order by d.archiveDate")
+    List<HistoryArchiveDay> findAllInPeriod(LocalDate from, LocalDate to);
+}
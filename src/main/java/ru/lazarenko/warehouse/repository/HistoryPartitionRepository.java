@@ -0,0 +1,100 @@
+package ru.lazarenko.warehouse.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.stereotype.Repository;
+import ru.lazarenko.warehouse.model.HistoryPartition;
+
+import java.sql.DatabaseMetaData;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+/**
+ * Partition DDL of {@code operation_histories}. Only MySQL partitions the table; on other databases
+ * (H2 in tests) {@link #supportsPartitions()} is {@code false} and the table is a single heap.
+ */
+@Repository
+@RequiredArgsConstructor
+public class HistoryPartitionRepository {
+    public static final String FUTURE_PARTITION = "p_future";
+    private static final String TABLE = "operation_histories";
+    private static final DateTimeFormatter BOUND_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private static final String FIND_PARTITIONS_SQL = "select partition_name, partition_description " +
+            "from information_schema.partitions where table_schema = database() and table_name = ? " +
+            "and partition_name is not null order by partition_ordinal_position";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private Boolean partitionsSupported;
+
+    public boolean supportsPartitions() {
+        if (partitionsSupported == null) {
+            try {
+                String product = JdbcUtils.extractDatabaseMetaData(jdbcTemplate.getDataSource(),
+                        DatabaseMetaData::getDatabaseProductName);
+                partitionsSupported = "MySQL".equalsIgnoreCase(product);
+            } catch (MetaDataAccessException e) {
+                return false;
+            }
+        }
+        return partitionsSupported;
+    }
+
+    public List<HistoryPartition> findPartitions() {
+        return jdbcTemplate.query(FIND_PARTITIONS_SQL, (rs, rowNum) ->
+                new HistoryPartition(rs.getString(1), toBound(rs.getString(2))), TABLE);
+    }
+
+    /**
+     * @return date of the oldest row in {@link #FUTURE_PARTITION}, empty when it holds no rows
+     */
+    public Optional<LocalDateTime> findFirstDateInFuturePartition() {
+        return Optional.ofNullable(jdbcTemplate.queryForObject("select min(date) from " + TABLE +
+                " partition (" + FUTURE_PARTITION + ")", LocalDateTime.class));
+    }
+
+    /**
+     * Splits {@link #FUTURE_PARTITION} in one statement so the given partitions, in bound order, end before it.
+     * Rows already in it are copied once into their new partitions.
+     */
+    public void addPartitions(List<HistoryPartition> partitions) {
+        String definitions = partitions.stream()
+                .map(partition -> "partition " + partition.getName() + " values less than ('" +
+                        BOUND_FORMAT.format(partition.getUpperBound()) + "'), ")
+                .collect(Collectors.joining());
+        jdbcTemplate.execute("alter table " + TABLE + " reorganize partition " + FUTURE_PARTITION + " into (" +
+                definitions + "partition " + FUTURE_PARTITION + " values less than (maxvalue))");
+    }
+
+    public void dropPartition(String name) {
+        jdbcTemplate.execute("alter table " + TABLE + " drop partition " + name);
+    }
+
+    /**
+     * Swaps the rows of the partition into a new standalone table and drops the then empty partition;
+     * both steps only change metadata.
+     *
+     * @return name of the archive table
+     */
+    public String archivePartition(String name) {
+        String archive = TABLE + "_" + name;
+        jdbcTemplate.execute("create table " + archive + " like " + TABLE);
+        jdbcTemplate.execute("alter table " + archive + " remove partitioning");
+        jdbcTemplate.execute("alter table " + TABLE + " exchange partition " + name + " with table " + archive);
+        dropPartition(name);
+        return archive;
+    }
+
+    private LocalDateTime toBound(String description) {
+        if (description == null || "MAXVALUE".equalsIgnoreCase(description)) {
+            return null;
+        }
+        return LocalDateTime.parse(description.replace("'", ""), BOUND_FORMAT);
+    }
+}
@@ -0,0 +1,239 @@
+package ru.lazarenko.warehouse.repository;
+
+import ru.lazarenko.warehouse.model.OperationEvent;
+import ru.lazarenko.warehouse.model.OperationType;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Binary layout of one day of archived operation histories.
+ * <pre>
+ * header:    magic int, version short, day long (epoch day), storage count int
+ * directory: per storage - storage id int, rows int, offset long, compressed length int, raw length int
+ * blocks:    per storage - deflated columns: ids, dates (micros), product ids, operations, counts
+ * </pre>
+ * Rows of a block are sorted by (date, id); ids, dates and product ids are delta encoded,
+ * all numbers are zigzag varints and operations are one byte each.
+ */
+final class HistorySegmentFormat {
+    static final int MAGIC = 0x57485331;
+    static final short VERSION = 1;
+    static final int HEADER_SIZE = Integer.BYTES + Short.BYTES + Long.BYTES + Integer.BYTES;
+    static final int DIRECTORY_ENTRY_SIZE = Integer.BYTES * 2 + Long.BYTES + Integer.BYTES * 2;
+
+    private static final OperationType[] OPERATIONS = OperationType.values();
+
+    private HistorySegmentFormat() {
+    }
+
+    static byte[] encode(LocalDate day, Map<Integer, List<OperationEvent>> rowsByStorage) {
+        List<byte[]> blocks = new ArrayList<>();
+        List<int[]> lengths = new ArrayList<>();
+        for (List<OperationEvent> rows : rowsByStorage.values()) {
+            byte[] raw = encodeColumns(rows);
+            byte[] compressed = deflate(raw);
+            blocks.add(compressed);
+            lengths.add(new int[]{compressed.length, raw.length});
+        }
+
+        int size = HEADER_SIZE + DIRECTORY_ENTRY_SIZE * blocks.size()
+                + blocks.stream().mapToInt(block -> block.length).sum();
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.putInt(MAGIC).putShort(VERSION).putLong(day.toEpochDay()).putInt(blocks.size());
+
+        long offset = HEADER_SIZE + (long) DIRECTORY_ENTRY_SIZE * blocks.size();
+        int i = 0;
+        for (Map.Entry<Integer, List<OperationEvent>> entry : rowsByStorage.entrySet()) {
+            buffer.putInt(entry.getKey()).putInt(entry.getValue().size()).putLong(offset)
+                    .putInt(lengths.get(i)[0]).putInt(lengths.get(i)[1]);
+            offset += lengths.get(i)[0];
+            i++;
+        }
+        blocks.forEach(buffer::put);
+        return buffer.array();
+    }
+
+    static LocalDate readDay(ByteBuffer segment) {
+        if (segment.getInt(0) != MAGIC || segment.getShort(Integer.BYTES) != VERSION) {
+            throw new IllegalStateException("Not a history segment of version " + VERSION);
+        }
+        return LocalDate.ofEpochDay(segment.getLong(Integer.BYTES + Short.BYTES));
+    }
+
+    /**
+     * @return directory entries by storage id: rows, offset, compressed length, raw length
+     */
+    static Map<Integer, long[]> readDirectory(ByteBuffer segment) {
+        int storages = segment.getInt(Integer.BYTES + Short.BYTES + Long.BYTES);
+        Map<Integer, long[]> directory = new LinkedHashMap<>();
+        for (int i = 0; i < storages; i++) {
+            int position = HEADER_SIZE + DIRECTORY_ENTRY_SIZE * i;
+            directory.put(segment.getInt(position), new long[]{
+                    segment.getInt(position + Integer.BYTES),
+                    segment.getLong(position + Integer.BYTES * 2),
+                    segment.getInt(position + Integer.BYTES * 2 + Long.BYTES),
+                    segment.getInt(position + Integer.BYTES * 3 + Long.BYTES)});
+        }
+        return directory;
+    }
+
+    static List<OperationEvent> decodeBlock(ByteBuffer segment, int storageId, long[] entry) {
+        int rows = (int) entry[0];
+        ByteBuffer compressed = segment.duplicate()
+                .position((int) entry[1])
+                .limit((int) (entry[1] + entry[2]));
+        ByteBuffer raw = ByteBuffer.wrap(inflate(compressed, (int) entry[3]));
+
+        int[] ids = new int[rows];
+        long[] micros = new long[rows];
+        int[] productIds = new int[rows];
+        long previous = 0;
+        for (int i = 0; i < rows; i++) {
+            previous += readSignedVarLong(raw);
+            ids[i] = (int) previous;
+        }
+        previous = 0;
+        for (int i = 0; i < rows; i++) {
+            previous += readSignedVarLong(raw);
+            micros[i] = previous;
+        }
+        previous = 0;
+        for (int i = 0; i < rows; i++) {
+            previous += readSignedVarLong(raw);
+            productIds[i] = (int) previous;
+        }
+        byte[] operations = new byte[rows];
+        raw.get(operations);
+
+        List<OperationEvent> events = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            events.add(new OperationEvent(ids[i], productIds[i], storageId, OPERATIONS[operations[i]],
+                    (int) readSignedVarLong(raw), fromMicros(micros[i])));
+        }
+        return events;
+    }
+
+    private static byte[] encodeColumns(List<OperationEvent> rows) {
+        VarLongWriter writer = new VarLongWriter(rows.size() * 8);
+        long previous = 0;
+        for (OperationEvent row : rows) {
+            writer.writeSigned(row.getId() - previous);
+            previous = row.getId();
+        }
+        previous = 0;
+        for (OperationEvent row : rows) {
+            long micros = toMicros(row.getDate());
+            writer.writeSigned(micros - previous);
+            previous = micros;
+        }
+        previous = 0;
+        for (OperationEvent row : rows) {
+            writer.writeSigned(row.getProductId() - previous);
+            previous = row.getProductId();
+        }
+        for (OperationEvent row : rows) {
+            writer.writeByte(row.getOperation().ordinal());
+        }
+        for (OperationEvent row : rows) {
+            writer.writeSigned(row.getCount());
+        }
+        return writer.toByteArray();
+    }
+
+    private static long toMicros(LocalDateTime date) {
+        return date.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + date.getNano() / 1_000;
+    }
+
+    private static LocalDateTime fromMicros(long micros) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000),
+                (int) Math.floorMod(micros, 1_000_000) * 1_000, ZoneOffset.UTC);
+    }
+
+    private static byte[] deflate(byte[] raw) {
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            byte[] buffer = new byte[Math.max(64, raw.length)];
+            int length = 0;
+            while (!deflater.finished()) {
+                if (length == buffer.length) {
+                    buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                }
+                length += deflater.deflate(buffer, length, buffer.length - length);
+            }
+            return Arrays.copyOf(buffer, length);
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private static byte[] inflate(ByteBuffer compressed, int rawLength) {
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            byte[] raw = new byte[rawLength];
+            int length = 0;
+            while (length < rawLength && !inflater.finished()) {
+                length += inflater.inflate(raw, length, rawLength - length);
+            }
+            return raw;
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Corrupted history segment block", e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static long readSignedVarLong(ByteBuffer buffer) {
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = buffer.get();
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while ((b & 0x80) != 0);
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static class VarLongWriter {
+        private byte[] bytes;
+        private int length;
+
+        VarLongWriter(int capacity) {
+            bytes = new byte[Math.max(16, capacity)];
+        }
+
+        void writeSigned(long value) {
+            long zigzag = (value << 1) ^ (value >> 63);
+            while ((zigzag & ~0x7FL) != 0) {
+                writeByte((int) ((zigzag & 0x7F) | 0x80));
+                zigzag >>>= 7;
+            }
+            writeByte((int) zigzag);
+        }
+
+        void writeByte(int value) {
+            if (length == bytes.length) {
+                bytes = Arrays.copyOf(bytes, bytes.length * 2);
+            }
+            bytes[length++] = (byte) value;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(bytes, length);
+        }
+    }
+}
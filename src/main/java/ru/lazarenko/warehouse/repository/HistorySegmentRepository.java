@@ -0,0 +1,140 @@
+package ru.lazarenko.warehouse.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Repository;
+import ru.lazarenko.warehouse.model.OperationEvent;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Cold tier of the operation histories: immutable segment files of archived days in
+ * {@code my.archive.directory}. Which days are archived and which segment is in force for each of them is recorded
+ * in {@code history_archive_days}; segments are memory-mapped on first read and indexed in memory by storage,
+ * so a read only inflates the blocks of the requested storages on the requested days.
+ */
+@Repository
+public class HistorySegmentRepository {
+    private static final String SEGMENT_SUFFIX = ".seg";
+
+    private final Path directory;
+    private final Map<String, Segment> segments = new ConcurrentHashMap<>();
+
+    public HistorySegmentRepository(@Value("${my.archive.directory:archive}") String directory) {
+        this.directory = Path.of(directory);
+    }
+
+    /**
+     * Writes the rows of the day, grouped by storage and sorted by (date, id), as a new segment.
+     * The file is written aside and moved into place, so readers never see a partial segment.
+     * Every write of a day gets a file name of its own, so an existing segment of the day stays in force
+     * until the new location is recorded.
+     *
+     * @return location of the segment
+     */
+    public String write(LocalDate day, Map<Integer, List<OperationEvent>> rowsByStorage) {
+        Path temporary = directory.resolve(day + SEGMENT_SUFFIX + ".tmp");
+        Path file = null;
+        try {
+            Files.createDirectories(directory);
+            file = nextFile(day);
+            Files.write(temporary, HistorySegmentFormat.encode(day, rowsByStorage));
+            Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE);
+            segments.put(file.toString(), map(file));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write history segment of " + day, e);
+        }
+        return file.toString();
+    }
+
+    /**
+     * @return archived histories with {@code from <= date < to} in the segments at the locations, of one storage
+     * or of all when {@code storageId} is {@code null}, sorted by date
+     */
+    public List<OperationEvent> read(List<String> locations, LocalDateTime from, LocalDateTime to, Integer storageId) {
+        List<OperationEvent> result = new ArrayList<>();
+        forEach(locations, from, to, storageId, result::add);
+        return result;
+    }
+
+    /**
+     * Passes the archived histories of the segments, given in day order, to the consumer one decoded day at a time,
+     * so memory is bounded by the largest day rather than by the range.
+     *
+     * @throws IllegalStateException if a segment is missing at its location
+     */
+    public void forEach(List<String> locations, LocalDateTime from, LocalDateTime to, Integer storageId,
+                        Consumer<OperationEvent> consumer) {
+        for (String location : locations) {
+            Segment segment = getSegment(location);
+            List<OperationEvent> day = new ArrayList<>();
+            segment.directory.forEach((blockStorageId, entry) -> {
+                if (storageId == null || storageId.equals(blockStorageId)) {
+                    for (OperationEvent event : HistorySegmentFormat.decodeBlock(segment.buffer, blockStorageId, entry)) {
+                        if (!event.getDate().isBefore(from) && event.getDate().isBefore(to)) {
+                            day.add(event);
+                        }
+                    }
+                }
+            });
+            if (storageId == null) {
+                day.sort(Comparator.comparing(OperationEvent::getDate).thenComparing(OperationEvent::getId));
+            }
+            day.forEach(consumer);
+        }
+    }
+
+    /**
+     * The first segment of a day is {@code <day>.seg}, the next ones {@code <day>.1.seg}, {@code <day>.2.seg}
+     * and so on. Segments are only written under the archive lock, so the first free name stays free.
+     */
+    private Path nextFile(LocalDate day) {
+        Path file = directory.resolve(day + SEGMENT_SUFFIX).toAbsolutePath();
+        for (int version = 1; Files.exists(file); version++) {
+            file = directory.resolve(day + "." + version + SEGMENT_SUFFIX).toAbsolutePath();
+        }
+        return file;
+    }
+
+    private Segment getSegment(String location) {
+        return segments.computeIfAbsent(location, key -> {
+            Path file = Path.of(key);
+            if (!Files.exists(file)) {
+                throw new IllegalStateException("History segment '%s' is missing".formatted(key));
+            }
+            try {
+                return map(file);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot read history segment " + file, e);
+            }
+        });
+    }
+
+    private Segment map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new Segment(HistorySegmentFormat.readDay(buffer), buffer.asReadOnlyBuffer(),
+                    HistorySegmentFormat.readDirectory(buffer));
+        }
+    }
+
+    @RequiredArgsConstructor
+    private static class Segment {
+        private final LocalDate day;
+        private final ByteBuffer buffer;
+        private final Map<Integer, long[]> directory;
+    }
+}
@@ -1,28 +1,74 @@
 package ru.lazarenko.warehouse.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 import ru.lazarenko.warehouse.entity.ItemStorage;
 import ru.lazarenko.warehouse.entity.Product;
 import ru.lazarenko.warehouse.entity.Storage;
+import ru.lazarenko.warehouse.model.InventoryItem;
 
+import javax.persistence.LockModeType;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface ItemStorageRepository extends JpaRepository<ItemStorage, Integer> {
+public interface ItemStorageRepository extends JpaRepository<ItemStorage, Integer>, ItemStorageRepositoryCustom {
 
-    @Query(value = "select i from ItemStorage i where i.product.id=:productId and i.storage.id=:storageId")
-    Optional<ItemStorage> findByProductIdAndStorageId(Integer productId, Integer storageId);
-
-    @Query(value = "select p from ItemStorage its left join its.product p where its.storage.id=:storageId")
+    @Query(value = "select p from ItemStorage its join its.product p left join fetch p.category " +
+            "where its.storage.id=:storageId")
     List<Product> findProductsByStorageId(Integer storageId);
 
-    @Query(value = "select p from ItemStorage its left join its.product p where its.storage.id=:storageId and p.category.name=:category")
+    @Query(value = "select p from ItemStorage its join its.product p join fetch p.category c " +
+            "where its.storage.id=:storageId and c.name=:category")
     List<Product> findProductsByStorageIdAndCategory(Integer storageId, String category);
 
-    @Query(value = "select s from ItemStorage its inner join its.storage s " +
-            "where s.region.id = :regionId and its.product.id = :productId and its.count >= :count")
+    @Query(value = "select s from ItemStorage its inner join its.storage s join fetch s.region r " +
+            "where r.id = :regionId and its.product.id = :productId and its.count >= :count")
     List<Storage> findStorageForShipment(Integer productId, Integer regionId, Integer count);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query(value = "select i.count from ItemStorage i where i.product.id=:productId and i.storage.id=:storageId")
+    Optional<Integer> findCountForUpdate(Integer productId, Integer storageId);
+
+    @Modifying
+    @Query(value = "update ItemStorage i set i.count = i.count + :count " +
+            "where i.product.id=:productId and i.storage.id=:storageId")
+    int increaseCount(Integer productId, Integer storageId, Integer count);
+
+    @Modifying
+    @Query(value = "update ItemStorage i set i.count = i.count - :count " +
+            "where i.product.id=:productId and i.storage.id=:storageId and i.count >= :count")
+    int decreaseCount(Integer productId, Integer storageId, Integer count);
+
+    @Query(value = "select new ru.lazarenko.warehouse.model.InventoryItem(p.id, p.name, p.price, c.name, its.count) " +
+            "from ItemStorage its join its.product p left join p.category c " +
+            "where its.storage.id = :storageId " +
+            "order by its.productName, its.product.id")
+    List<InventoryItem> findFirstInventoryPageByName(Integer storageId, Pageable pageable);
+
+    @Query(value = "select new ru.lazarenko.warehouse.model.InventoryItem(p.id, p.name, p.price, c.name, its.count) " +
+            "from ItemStorage its join its.product p left join p.category c " +
+            "where its.storage.id = :storageId and (its.productName > :afterName " +
+            "or (its.productName = :afterName and its.product.id > :afterId)) " +
+            "order by its.productName, its.product.id")
+    List<InventoryItem> findInventoryPageByNameAfter(Integer storageId, String afterName, Integer afterId,
+                                                     Pageable pageable);
+
+    @Query(value = "select new ru.lazarenko.warehouse.model.InventoryItem(p.id, p.name, p.price, c.name, its.count) " +
+            "from ItemStorage its join its.product p left join p.category c " +
+            "where its.storage.id = :storageId " +
+            "order by its.count, its.product.id")
+    List<InventoryItem> findFirstInventoryPageByCount(Integer storageId, Pageable pageable);
+
+    @Query(value = "select new ru.lazarenko.warehouse.model.InventoryItem(p.id, p.name, p.price, c.name, its.count) " +
+            "from ItemStorage its join its.product p left join p.category c " +
+            "where its.storage.id = :storageId and (its.count > :afterCount " +
+            "or (its.count = :afterCount and its.product.id > :afterId)) " +
+            "order by its.count, its.product.id")
+    List<InventoryItem> findInventoryPageByCountAfter(Integer storageId, Integer afterCount, Integer afterId,
+                                                      Pageable pageable);
 }
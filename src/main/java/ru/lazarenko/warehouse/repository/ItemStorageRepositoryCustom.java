@@ -0,0 +1,27 @@
+package ru.lazarenko.warehouse.repository;
+
+import ru.lazarenko.warehouse.model.ItemStorageCount;
+import ru.lazarenko.warehouse.model.ItemStorageKey;
+
+import java.util.Collection;
+import java.util.List;
+
+public interface ItemStorageRepositoryCustom {
+
+    /**
+     * Adds the signed count of every element to the matching item in one JDBC batch.
+     * A change that would make the count negative is skipped and reported as 0 updated rows.
+     */
+    int[] changeCounts(List<ItemStorageCount> changes);
+
+    /**
+     * Counts of the items of exactly the given (product, storage) pairs, looked up on the unique key.
+     */
+    List<ItemStorageCount> findCounts(Collection<ItemStorageKey> keys);
+
+    /**
+     * Inserts an empty item for every pair in one JDBC batch; a pair that already has an item, also one
+     * inserted by a concurrent transaction, is skipped without an error.
+     */
+    void createMissingItems(Collection<ItemStorageKey> keys);
+}
@@ -0,0 +1,119 @@
+package ru.lazarenko.warehouse.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import ru.lazarenko.warehouse.entity.ItemStorage;
+import ru.lazarenko.warehouse.model.ItemStorageCount;
+import ru.lazarenko.warehouse.model.ItemStorageKey;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.sql.DatabaseMetaData;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+@RequiredArgsConstructor
+public class ItemStorageRepositoryImpl implements ItemStorageRepositoryCustom {
+    private static final String CHANGE_COUNT_SQL = "update items_storage set count = count + ? " +
+            "where product_id = ? and storage_id = ? and count + ? >= 0";
+    private static final String MYSQL_CREATE_ITEM_SQL = "insert ignore into items_storage " +
+            "(id, count, product_id, storage_id, product_name) select ?, 0, p.id, ?, p.name from products p " +
+            "where p.id = ?";
+    private static final String CREATE_ITEM_SQL = "merge into items_storage i using " +
+            "(select cast(? as integer) as id, p.id as product_id, cast(? as integer) as storage_id, " +
+            "p.name as product_name from products p where p.id = ?) n " +
+            "on i.product_id = n.product_id and i.storage_id = n.storage_id " +
+            "when not matched then insert (id, count, product_id, storage_id, product_name) " +
+            "values (n.id, 0, n.product_id, n.storage_id, n.product_name)";
+    private static final String FIND_COUNTS_SQL = "select product_id, storage_id, count from items_storage " +
+            "where (product_id, storage_id) in (%s)";
+    private static final int PAIRS_CHUNK_SIZE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private String createItemSql;
+
+    @Override
+    public int[] changeCounts(List<ItemStorageCount> changes) {
+        if (changes.isEmpty()) {
+            return new int[0];
+        }
+        entityManager.flush();
+
+        return jdbcTemplate.batchUpdate(CHANGE_COUNT_SQL, changes, changes.size(), (ps, change) -> {
+            ps.setInt(1, change.getCount());
+            ps.setInt(2, change.getProductId());
+            ps.setInt(3, change.getStorageId());
+            ps.setInt(4, change.getCount());
+        })[0];
+    }
+
+    @Override
+    public List<ItemStorageCount> findCounts(Collection<ItemStorageKey> keys) {
+        entityManager.flush();
+
+        List<ItemStorageKey> pairs = List.copyOf(keys);
+        List<ItemStorageCount> counts = new ArrayList<>();
+        for (int from = 0; from < pairs.size(); from += PAIRS_CHUNK_SIZE) {
+            List<ItemStorageKey> chunk = pairs.subList(from, Math.min(from + PAIRS_CHUNK_SIZE, pairs.size()));
+            Object[] args = new Object[chunk.size() * 2];
+            for (int i = 0; i < chunk.size(); i++) {
+                args[2 * i] = chunk.get(i).getProductId();
+                args[2 * i + 1] = chunk.get(i).getStorageId();
+            }
+
+            counts.addAll(jdbcTemplate.query(FIND_COUNTS_SQL.formatted(String.join(", ",
+                            Collections.nCopies(chunk.size(), "(?, ?)"))),
+                    (rs, rowNum) -> new ItemStorageCount(rs.getInt(1), rs.getInt(2), rs.getInt(3)), args));
+        }
+        return counts;
+    }
+
+    /**
+     * Ids come from the entity's own generator, so they never collide with items saved through JPA.
+     * The product name is copied from products in the same statement.
+     */
+    @Override
+    public void createMissingItems(Collection<ItemStorageKey> keys) {
+        if (keys.isEmpty()) {
+            return;
+        }
+        entityManager.flush();
+
+        SharedSessionContractImplementor session = entityManager.unwrap(SharedSessionContractImplementor.class);
+        IdentifierGenerator generator = session.getFactory().getMetamodel().entityPersister(ItemStorage.class)
+                .getIdentifierGenerator();
+        List<Object[]> rows = new ArrayList<>(keys.size());
+        for (ItemStorageKey key : keys) {
+            rows.add(new Object[]{generator.generate(session, null), key.getStorageId(), key.getProductId()});
+        }
+
+        jdbcTemplate.batchUpdate(getCreateItemSql(), rows);
+    }
+
+    /**
+     * MySQL skips an existing pair with {@code insert ignore}; other databases (H2 in tests) with a {@code merge}
+     * that only inserts.
+     */
+    private String getCreateItemSql() {
+        if (createItemSql == null) {
+            try {
+                String product = JdbcUtils.extractDatabaseMetaData(jdbcTemplate.getDataSource(),
+                        DatabaseMetaData::getDatabaseProductName);
+                createItemSql = "MySQL".equalsIgnoreCase(product) ? MYSQL_CREATE_ITEM_SQL : CREATE_ITEM_SQL;
+            } catch (MetaDataAccessException e) {
+                return CREATE_ITEM_SQL;
+            }
+        }
+        return createItemSql;
+    }
+}
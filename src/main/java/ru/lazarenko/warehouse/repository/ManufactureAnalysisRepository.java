@@ -1,16 +1,42 @@
 package ru.lazarenko.warehouse.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 import ru.lazarenko.warehouse.entity.ManufactureAnalysis;
+import ru.lazarenko.warehouse.model.AnalysisState;
+import ru.lazarenko.warehouse.model.ChangeType;
+import ru.lazarenko.warehouse.model.OperationType;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 
 @Repository
-public interface ManufactureAnalysisRepository extends JpaRepository<ManufactureAnalysis, Integer> {
+public interface ManufactureAnalysisRepository extends JpaRepository<ManufactureAnalysis, Integer>,
+        ManufactureAnalysisRepositoryCustom {
 
-    @Query(value = "select ma from ManufactureAnalysis ma where ma.reportDate > :fromDate and ma.reportDate < :toDate")
+    @Query(value = "select ma from ManufactureAnalysis ma " +
+            "join fetch ma.product p left join fetch p.category " +
+            "join fetch ma.storage s left join fetch s.region " +
+            "where ma.reportDate >= :fromDate and ma.reportDate <= :toDate order by ma.reportDate, ma.id")
     List<ManufactureAnalysis> findAllByReportDateInPeriod(LocalDate fromDate, LocalDate toDate);
+
+    @Query(value = "select new ru.lazarenko.warehouse.model.AnalysisState(ma.id, ma.product.id, ma.storage.id, " +
+            "ma.changeType) from ManufactureAnalysis ma " +
+            "where ma.reportDate = :reportDate and ma.operation = :operation and ma.storage.id in :storageIds")
+    List<AnalysisState> findStates(LocalDate reportDate, OperationType operation, Collection<Integer> storageIds);
+
+    @Modifying
+    @Query(value = "update ManufactureAnalysis ma set ma.changeType = :changeType where ma.id in :ids")
+    int updateChangeType(ChangeType changeType, Collection<Integer> ids);
+
+    @Query(value = "select ma.id from ManufactureAnalysis ma where ma.reportDate < :date order by ma.id")
+    List<Integer> findIdsByReportDateBefore(LocalDate date, Pageable pageable);
+
+    @Modifying
+    @Query(value = "delete from ManufactureAnalysis ma where ma.id in :ids")
+    int deleteAllByIds(Collection<Integer> ids);
 }
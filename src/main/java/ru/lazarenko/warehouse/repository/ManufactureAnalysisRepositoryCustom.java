@@ -0,0 +1,22 @@
+package ru.lazarenko.warehouse.repository;
+
+import org.springframework.data.domain.Pageable;
+import ru.lazarenko.warehouse.entity.ManufactureAnalysis;
+import ru.lazarenko.warehouse.model.ChangeType;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface ManufactureAnalysisRepositoryCustom {
+
+    /**
+     * Seeks the page after ({@code afterDate}, {@code afterId}) in (report date, id) order with product, category,
+     * storage and region fetched. Only the given filters become predicates, so the optimizer sees the exact
+     * query: a storage or product filter seeks on its (storage_id | product_id, report_date, id) index, other
+     * filters scan {@code idx_manufacture_analyses_date_id} and are checked on its columns before the row is read.
+     * None of the indexes is covering, the page rows and their joins are read from the tables.
+     */
+    List<ManufactureAnalysis> findPage(Integer storageId, Integer productId, Integer regionId, ChangeType changeType,
+                                       LocalDate fromDate, LocalDate toDate, LocalDate afterDate, Integer afterId,
+                                       Pageable pageable);
+}
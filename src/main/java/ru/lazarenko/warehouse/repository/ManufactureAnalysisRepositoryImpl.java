@@ -0,0 +1,66 @@
+package ru.lazarenko.warehouse.repository;
+
+import org.springframework.data.domain.Pageable;
+import ru.lazarenko.warehouse.entity.ManufactureAnalysis;
+import ru.lazarenko.warehouse.entity.Product;
+import ru.lazarenko.warehouse.entity.Region;
+import ru.lazarenko.warehouse.entity.Storage;
+import ru.lazarenko.warehouse.model.ChangeType;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.*;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+public class ManufactureAnalysisRepositoryImpl implements ManufactureAnalysisRepositoryCustom {
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<ManufactureAnalysis> findPage(Integer storageId, Integer productId, Integer regionId,
+                                              ChangeType changeType, LocalDate fromDate, LocalDate toDate,
+                                              LocalDate afterDate, Integer afterId, Pageable pageable) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ManufactureAnalysis> query = cb.createQuery(ManufactureAnalysis.class);
+        Root<ManufactureAnalysis> analysis = query.from(ManufactureAnalysis.class);
+        Fetch<ManufactureAnalysis, Product> product = analysis.fetch("product");
+        product.fetch("category", JoinType.LEFT);
+        Fetch<ManufactureAnalysis, Storage> storage = analysis.fetch("storage");
+        Fetch<Storage, Region> region = storage.fetch("region", JoinType.LEFT);
+
+        Path<LocalDate> reportDate = analysis.get("reportDate");
+        Path<Integer> id = analysis.get("id");
+        List<Predicate> predicates = new ArrayList<>();
+        predicates.add(cb.between(reportDate, fromDate, toDate));
+        if (storageId != null) {
+            predicates.add(cb.equal(analysis.get("storage").get("id"), storageId));
+        }
+        if (productId != null) {
+            predicates.add(cb.equal(analysis.get("product").get("id"), productId));
+        }
+        if (regionId != null) {
+            predicates.add(cb.equal(((Join<Storage, Region>) region).get("id"), regionId));
+        }
+        if (changeType != null) {
+            predicates.add(cb.equal(analysis.get("changeType"), changeType));
+        }
+        if (afterDate != null) {
+            predicates.add(cb.or(
+                    cb.greaterThan(reportDate, afterDate),
+                    cb.and(cb.equal(reportDate, afterDate), cb.greaterThan(id, afterId))));
+        }
+
+        query.select(analysis)
+                .where(predicates.toArray(Predicate[]::new))
+                .orderBy(cb.asc(reportDate), cb.asc(id));
+        TypedQuery<ManufactureAnalysis> typedQuery = entityManager.createQuery(query);
+        if (pageable.isPaged()) {
+            typedQuery.setFirstResult((int) pageable.getOffset())
+                    .setMaxResults(pageable.getPageSize());
+        }
+        return typedQuery.getResultList();
+    }
+}
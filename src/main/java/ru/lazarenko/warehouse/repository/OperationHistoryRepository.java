@@ -1,14 +1,46 @@
 package ru.lazarenko.warehouse.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 import ru.lazarenko.warehouse.entity.OperationHistory;
+import ru.lazarenko.warehouse.model.OperationEvent;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface OperationHistoryRepository extends JpaRepository<OperationHistory, Integer> {
+public interface OperationHistoryRepository extends JpaRepository<OperationHistory, Integer>,
+        OperationHistoryRepositoryCustom {
 
-    List<OperationHistory> findAllByDateIsAfter(LocalDateTime time);
+    @Query(value = "select new ru.lazarenko.warehouse.model.OperationEvent(h.id, h.product.id, h.storage.id, " +
+            "h.operation, h.count, h.date) from OperationHistory h " +
+            "where h.date >= :date and h.date <= :until and (h.date > :date or h.id > :id) order by h.date, h.id")
+    List<OperationEvent> findEventsAfterCheckpoint(LocalDateTime date, Integer id, LocalDateTime until, Pageable pageable);
+
+    @Query(value = "select new ru.lazarenko.warehouse.model.OperationEvent(h.id, h.product.id, h.storage.id, " +
+            "h.operation, h.count, h.date) from OperationHistory h " +
+            "where h.date >= :fromDate and h.date <= :date and (h.date > :fromDate or h.id > :fromId) " +
+            "and (h.date < :date or h.id <= :id) order by h.date, h.id")
+    List<OperationEvent> findEventsUpToCheckpoint(LocalDateTime fromDate, Integer fromId, LocalDateTime date,
+                                                  Integer id, Pageable pageable);
+
+    @Query(value = "select new ru.lazarenko.warehouse.model.OperationEvent(h.id, h.product.id, h.storage.id, " +
+            "h.operation, h.count, h.date) from OperationHistory h " +
+            "where h.date >= :from and h.date < :to and (:storageId is null or h.storage.id = :storageId) " +
+            "order by h.date, h.id")
+    List<OperationEvent> findEventsInPeriod(LocalDateTime from, LocalDateTime to, Integer storageId);
+
+    @Query(value = "select distinct h.storage.id from OperationHistory h where h.date >= :from and h.date < :to")
+    List<Integer> findStorageIdsInPeriod(LocalDateTime from, LocalDateTime to);
+
+    @Query(value = "select min(h.date) from OperationHistory h where h.date < :before")
+    Optional<LocalDateTime> findFirstDateBefore(LocalDateTime before);
+
+    @Modifying
+    @Query(value = "delete from OperationHistory h where h.date >= :from and h.date < :to")
+    int deleteAllInPeriod(LocalDateTime from, LocalDateTime to);
 }
@@ -0,0 +1,21 @@
+package ru.lazarenko.warehouse.repository;
+
+import ru.lazarenko.warehouse.model.OperationEvent;
+import ru.lazarenko.warehouse.model.OperationType;
+
+import java.time.LocalDateTime;
+import java.util.stream.Stream;
+
+public interface OperationHistoryRepositoryCustom {
+
+    /**
+     * Streams the histories with {@code from <= date < to} in (date, id) order through a cursor. Each filter
+     * combination gets its own statement, so every plan seeks an index ending in (date, id):
+     * {@code idx_operation_histories_date_id}, {@code idx_operation_histories_storage_date_id},
+     * {@code idx_operation_histories_product_date_id} or {@code idx_operation_histories_storage_product_date_id}.
+     * The operation has two values only and is checked on the index entries instead of getting indexes of its own.
+     * The stream has to be consumed and closed inside a transaction.
+     */
+    Stream<OperationEvent> streamEventsInPeriod(LocalDateTime from, LocalDateTime to, Integer storageId,
+                                                Integer productId, OperationType operation);
+}
@@ -0,0 +1,81 @@
+package ru.lazarenko.warehouse.repository;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import ru.lazarenko.warehouse.model.OperationEvent;
+import ru.lazarenko.warehouse.model.OperationType;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
+import java.sql.DatabaseMetaData;
+import java.time.LocalDateTime;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+
+@RequiredArgsConstructor
+public class OperationHistoryRepositoryImpl implements OperationHistoryRepositoryCustom {
+    private static final String SELECT_EVENTS = "select new ru.lazarenko.warehouse.model.OperationEvent(h.id, " +
+            "h.product.id, h.storage.id, h.operation, h.count, h.date) from OperationHistory h " +
+            "where h.date >= :from and h.date < :to";
+    private static final int FETCH_SIZE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private Integer streamFetchSize;
+
+    @Override
+    public Stream<OperationEvent> streamEventsInPeriod(LocalDateTime from, LocalDateTime to, Integer storageId,
+                                                       Integer productId, OperationType operation) {
+        StringBuilder jpql = new StringBuilder(SELECT_EVENTS);
+        if (storageId != null) {
+            jpql.append(" and h.storage.id = :storageId");
+        }
+        if (productId != null) {
+            jpql.append(" and h.product.id = :productId");
+        }
+        if (operation != null) {
+            jpql.append(" and h.operation = :operation");
+        }
+        jpql.append(" order by h.date, h.id");
+
+        TypedQuery<OperationEvent> query = entityManager.createQuery(jpql.toString(), OperationEvent.class)
+                .setParameter("from", from)
+                .setParameter("to", to)
+                .setHint(HINT_FETCH_SIZE, getStreamFetchSize());
+        if (storageId != null) {
+            query.setParameter("storageId", storageId);
+        }
+        if (productId != null) {
+            query.setParameter("productId", productId);
+        }
+        if (operation != null) {
+            query.setParameter("operation", operation);
+        }
+        return query.getResultStream();
+    }
+
+    /**
+     * MySQL streams rows one by one only for this statement when the fetch size is {@link Integer#MIN_VALUE},
+     * so the connection needs no {@code useCursorFetch} and other statements keep buffering their results.
+     * Other databases (H2 in tests) fetch in chunks.
+     */
+    private int getStreamFetchSize() {
+        if (streamFetchSize == null) {
+            try {
+                String product = JdbcUtils.extractDatabaseMetaData(jdbcTemplate.getDataSource(),
+                        DatabaseMetaData::getDatabaseProductName);
+                streamFetchSize = "MySQL".equalsIgnoreCase(product) ? Integer.MIN_VALUE : FETCH_SIZE;
+            } catch (MetaDataAccessException e) {
+                return FETCH_SIZE;
+            }
+        }
+        return streamFetchSize;
+    }
+}
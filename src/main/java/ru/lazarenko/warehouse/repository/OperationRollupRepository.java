@@ -0,0 +1,32 @@
+package ru.lazarenko.warehouse.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import ru.lazarenko.warehouse.dto.OperationTrendDto;
+import ru.lazarenko.warehouse.entity.OperationRollup;
+import ru.lazarenko.warehouse.model.OperationType;
+import ru.lazarenko.warehouse.model.RollupGranularity;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface OperationRollupRepository extends JpaRepository<OperationRollup, Integer> {
+
+    @Query(value = "select r from OperationRollup r " +
+            "where r.bucketStart in :bucketStarts and r.storage.id in :storageIds")
+    List<OperationRollup> findAllInBuckets(Collection<LocalDateTime> bucketStarts, Collection<Integer> storageIds);
+
+    @Query(value = "select new ru.lazarenko.warehouse.dto.OperationTrendDto(r.bucketStart, r.storage.id, " +
+            "r.operation, sum(r.count), sum(r.records)) from OperationRollup r " +
+            "where r.granularity = :granularity and r.bucketStart >= :from and r.bucketStart < :to " +
+            "and (:storageId is null or r.storage.id = :storageId) " +
+            "and (:productId is null or r.product.id = :productId) " +
+            "and (:operation is null or r.operation = :operation) " +
+            "group by r.bucketStart, r.storage.id, r.operation " +
+            "order by r.bucketStart, r.storage.id, r.operation")
+    List<OperationTrendDto> findTrends(RollupGranularity granularity, LocalDateTime from, LocalDateTime to,
+                                       Integer storageId, Integer productId, OperationType operation);
+}
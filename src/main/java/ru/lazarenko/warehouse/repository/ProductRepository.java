@@ -1,19 +1,44 @@
 package ru.lazarenko.warehouse.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 import ru.lazarenko.warehouse.entity.Product;
+import ru.lazarenko.warehouse.model.PriceEntry;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
+import java.util.Set;
 
 @Repository
 public interface ProductRepository extends JpaRepository<Product, Integer> {
-    @Query(value = "select p from Product p where p.category.id=:id")
-    List<Product> findAllByCategoryId(Integer id);
+    @Query(value = "select p from Product p left join fetch p.category where p.price >= :min and p.price <= :max " +
+            "and (:categoryId is null or p.category.id = :categoryId) " +
+            "and (:afterPrice is null or p.price > :afterPrice or (p.price = :afterPrice and p.id > :afterId)) " +
+            "order by p.price, p.id")
+    List<Product> findPriceRangePage(BigDecimal min, BigDecimal max, Integer categoryId,
+                                     BigDecimal afterPrice, Integer afterId, Pageable pageable);
 
-    @Query(value = "select p from Product p where p.price >= :min and p.price <= :max")
-    List<Product> findProductsByMinAndMaxPrice(BigDecimal min, BigDecimal max);
+    @Query(value = "select new ru.lazarenko.warehouse.model.PriceEntry(p.id, p.price, c.id) " +
+            "from Product p left join p.category c where p.price is not null " +
+            "order by p.price, p.id")
+    List<PriceEntry> findFirstPriceEntries(Pageable pageable);
 
+    @Query(value = "select new ru.lazarenko.warehouse.model.PriceEntry(p.id, p.price, c.id) " +
+            "from Product p left join p.category c " +
+            "where p.price > :afterPrice or (p.price = :afterPrice and p.id > :afterId) " +
+            "order by p.price, p.id")
+    List<PriceEntry> findPriceEntriesAfter(BigDecimal afterPrice, Integer afterId, Pageable pageable);
+
+    @Query(value = "select p from Product p left join fetch p.category where p.id in :ids")
+    List<Product> findAllWithCategoryByIdIn(Collection<Integer> ids);
+
+    @Query(value = "select p from Product p left join fetch p.category where p.id > :afterId " +
+            "and (:categoryId is null or p.category.id = :categoryId) order by p.id")
+    List<Product> findPageAfter(Integer afterId, Integer categoryId, Pageable pageable);
+
+    @Query(value = "select p.id from Product p where p.id in :ids")
+    Set<Integer> findExistingIds(Collection<Integer> ids);
 }
@@ -1,16 +1,23 @@
 package ru.lazarenko.warehouse.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 import ru.lazarenko.warehouse.entity.Region;
+import ru.lazarenko.warehouse.model.ReferenceView;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface RegionRepository extends JpaRepository<Region, Integer> {
-    Optional<Region> findByName(String name);
-
+public interface RegionRepository extends JpaRepository<Region, Integer>, RegionRepositoryCustom {
     @Query(value = "select r from Region r left join fetch r.storages where r.name=:name")
     Optional<Region> findWithStoragesByName(String name);
+
+    @Query(value = "select r from Region r where r.id > :afterId order by r.id")
+    List<Region> findPageAfter(Integer afterId, Pageable pageable);
+
+    @Query(value = "select new ru.lazarenko.warehouse.model.ReferenceView(r.id, r.name) from Region r order by r.id")
+    List<ReferenceView> findViews(Pageable pageable);
 }
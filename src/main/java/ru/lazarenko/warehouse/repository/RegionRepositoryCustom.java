@@ -0,0 +1,13 @@
+package ru.lazarenko.warehouse.repository;
+
+import ru.lazarenko.warehouse.entity.Region;
+
+import java.util.Optional;
+
+public interface RegionRepositoryCustom {
+
+    /**
+     * Resolves the name as the natural id of the region, so a cached region is returned without a statement.
+     */
+    Optional<Region> findByName(String name);
+}
@@ -0,0 +1,22 @@
+package ru.lazarenko.warehouse.repository;
+
+import org.hibernate.Session;
+import org.springframework.transaction.annotation.Transactional;
+import ru.lazarenko.warehouse.entity.Region;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.Optional;
+
+public class RegionRepositoryImpl implements RegionRepositoryCustom {
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<Region> findByName(String name) {
+        return entityManager.unwrap(Session.class)
+                .bySimpleNaturalId(Region.class)
+                .loadOptional(name);
+    }
+}
@@ -0,0 +1,20 @@
+package ru.lazarenko.warehouse.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import ru.lazarenko.warehouse.entity.ResourceVersion;
+
+import java.util.Optional;
+
+@Repository
+public interface ResourceVersionRepository extends JpaRepository<ResourceVersion, String> {
+
+    @Modifying
+    @Query(value = "update ResourceVersion v set v.version = v.version + 1 where v.resource = :resource")
+    int increment(String resource);
+
+    @Query(value = "select v.version from ResourceVersion v where v.resource = :resource")
+    Optional<Long> findVersion(String resource);
+}
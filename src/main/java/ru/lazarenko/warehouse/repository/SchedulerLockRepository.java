@@ -0,0 +1,34 @@
+package ru.lazarenko.warehouse.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import ru.lazarenko.warehouse.entity.SchedulerLock;
+
+import javax.persistence.LockModeType;
+import java.util.Optional;
+
+@Repository
+public interface SchedulerLockRepository extends JpaRepository<SchedulerLock, String> {
+
+    @Modifying
+    @Query(value = "update scheduler_locks set owner = :owner, token = token + 1, " +
+            "expires_at = timestampadd(microsecond, :leaseMicros, current_timestamp(6)) " +
+            "where name = :name and expires_at <= current_timestamp(6)", nativeQuery = true)
+    int acquire(String name, String owner, long leaseMicros);
+
+    @Modifying
+    @Query(value = "update scheduler_locks " +
+            "set expires_at = timestampadd(microsecond, :leaseMicros, current_timestamp(6)) " +
+            "where name = :name and owner = :owner and token = :token", nativeQuery = true)
+    int renew(String name, String owner, Long token, long leaseMicros);
+
+    @Lock(LockModeType.PESSIMISTIC_READ)
+    @Query(value = "select l.token from SchedulerLock l where l.name = :name and l.owner = :owner and l.token = :token")
+    Optional<Long> findHeldToken(String name, String owner, Long token);
+
+    @Query(value = "select l.token from SchedulerLock l where l.name = :name")
+    Optional<Long> findTokenByName(String name);
+}
@@ -1,13 +1,30 @@
 package ru.lazarenko.warehouse.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 import ru.lazarenko.warehouse.entity.Storage;
+import ru.lazarenko.warehouse.model.StorageView;
 
-import java.util.Optional;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
 
 @Repository
-public interface StorageRepository extends JpaRepository<Storage, Integer> {
+public interface StorageRepository extends JpaRepository<Storage, Integer>, StorageRepositoryCustom {
 
-    Optional<Storage> findByName(String name);
+    @Query(value = "select s from Storage s left join fetch s.region where s.id > :afterId order by s.id")
+    List<Storage> findPageAfter(Integer afterId, Pageable pageable);
+
+    @Query(value = "select s.id from Storage s where s.id in :ids")
+    Set<Integer> findExistingIds(Collection<Integer> ids);
+
+    @Query(value = "select new ru.lazarenko.warehouse.model.StorageView(s.id, s.name, s.region.id) " +
+            "from Storage s order by s.id")
+    List<StorageView> findViews(Pageable pageable);
+
+    @Query(value = "select new ru.lazarenko.warehouse.model.StorageView(s.id, s.name, s.region.id) " +
+            "from Storage s where s.region.id = :regionId order by s.id")
+    List<StorageView> findViewsByRegionId(Integer regionId);
 }
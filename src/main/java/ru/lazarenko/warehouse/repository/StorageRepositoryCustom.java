@@ -0,0 +1,13 @@
+package ru.lazarenko.warehouse.repository;
+
+import ru.lazarenko.warehouse.entity.Storage;
+
+import java.util.Optional;
+
+public interface StorageRepositoryCustom {
+
+    /**
+     * Resolves the name as the natural id of the storage, so a cached storage is returned without a statement.
+     */
+    Optional<Storage> findByName(String name);
+}
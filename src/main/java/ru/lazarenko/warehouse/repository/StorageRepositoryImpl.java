@@ -0,0 +1,22 @@
+package ru.lazarenko.warehouse.repository;
+
+import org.hibernate.Session;
+import org.springframework.transaction.annotation.Transactional;
+import ru.lazarenko.warehouse.entity.Storage;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.util.Optional;
+
+public class StorageRepositoryImpl implements StorageRepositoryCustom {
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    @Transactional(readOnly = true)
+    public Optional<Storage> findByName(String name) {
+        return entityManager.unwrap(Session.class)
+                .bySimpleNaturalId(Storage.class)
+                .loadOptional(name);
+    }
+}
@@ -1,10 +1,12 @@
 package ru.lazarenko.warehouse.repository;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 import ru.lazarenko.warehouse.entity.User;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -14,6 +16,9 @@ public interface UserRepository extends JpaRepository<User, Integer> {
     @Query(value = "select u from User u left join fetch u.roles where u.username=:username")
     Optional<User> findByUsername(String username);
 
-    @Query(value = "select u from User u left join fetch u.roles")
-    List<User> findAllWithRoles();
+    @Query(value = "select u.id from User u where u.id > :afterId order by u.id")
+    List<Integer> findIdPageAfter(Integer afterId, Pageable pageable);
+
+    @Query(value = "select distinct u from User u left join fetch u.roles where u.id in :ids order by u.id")
+    List<User> findAllWithRolesByIdIn(Collection<Integer> ids);
 }
@@ -0,0 +1,127 @@
+package ru.lazarenko.warehouse.scheduled;
+
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.lazarenko.warehouse.entity.AnalysisCheckpoint;
+import ru.lazarenko.warehouse.model.OperationEvent;
+import ru.lazarenko.warehouse.repository.OperationHistoryRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+/**
+ * Ids of the histories a checkpointed job has already processed within the overlap behind its checkpoint.
+ * The ids are kept as ranges of consecutive ids, so their count follows the gaps in the id sequence
+ * rather than the traffic, and ranges below the smallest id within the overlap are dropped after every re-scan.
+ */
+class FedHistoryIds {
+    private final OperationHistoryRepository operationHistoryRepository;
+
+    /**
+     * Ranges of fed ids, first id to last id inclusive.
+     */
+    private final TreeMap<Integer, Integer> ranges = new TreeMap<>();
+
+    FedHistoryIds(OperationHistoryRepository operationHistoryRepository) {
+        this.operationHistoryRepository = operationHistoryRepository;
+    }
+
+    /**
+     * Re-scans the histories dated after {@code from} and up to the checkpoint in chunks.
+     *
+     * @return the histories that were not fed yet, in (date, id) order
+     */
+    List<OperationEvent> findNotFed(LocalDateTime from, AnalysisCheckpoint checkpoint, int chunkSize) {
+        List<OperationEvent> notFed = new ArrayList<>();
+        Optional<Integer> minId = forEachUpToCheckpoint(from, checkpoint, chunkSize, event -> {
+            if (!contains(event.getId())) {
+                notFed.add(event);
+            }
+        });
+        minId.ifPresentOrElse(this::dropBelow, this::clear);
+        return notFed;
+    }
+
+    /**
+     * Passes the histories dated after {@code from} and up to the checkpoint to the action in (date, id) order,
+     * reading them in chunks.
+     *
+     * @return the smallest id passed, empty when there were no histories
+     */
+    Optional<Integer> forEachUpToCheckpoint(LocalDateTime from, AnalysisCheckpoint checkpoint, int chunkSize,
+                                            Consumer<OperationEvent> action) {
+        LocalDateTime lastDate = from;
+        Integer lastId = Integer.MAX_VALUE;
+        Integer minId = null;
+        List<OperationEvent> events;
+        do {
+            events = operationHistoryRepository.findEventsUpToCheckpoint(lastDate, lastId, checkpoint.getLastDate(),
+                    checkpoint.getLastId(), PageRequest.of(0, chunkSize));
+            for (OperationEvent event : events) {
+                action.accept(event);
+                minId = minId == null ? event.getId() : Math.min(minId, event.getId());
+            }
+            if (!events.isEmpty()) {
+                OperationEvent last = events.get(events.size() - 1);
+                lastDate = last.getDate();
+                lastId = last.getId();
+            }
+        } while (events.size() == chunkSize);
+        return Optional.ofNullable(minId);
+    }
+
+    /**
+     * Adds the ids once the current transaction commits, or right away without a transaction.
+     */
+    void addAfterCommit(Collection<OperationEvent> events) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            events.forEach(event -> add(event.getId()));
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                events.forEach(event -> add(event.getId()));
+            }
+        });
+    }
+
+    synchronized boolean contains(Integer id) {
+        Map.Entry<Integer, Integer> range = ranges.floorEntry(id);
+        return range != null && range.getValue() >= id;
+    }
+
+    /**
+     * Adds the id to its range, joining the ranges that end right before it and start right after it.
+     */
+    synchronized void add(Integer id) {
+        Map.Entry<Integer, Integer> before = ranges.floorEntry(id);
+        if (before != null && before.getValue() >= id) {
+            return;
+        }
+
+        int first = before != null && before.getValue() == id - 1 ? before.getKey() : id;
+        Integer after = ranges.remove(id + 1);
+        ranges.put(first, after != null ? after : id);
+    }
+
+    synchronized void clear() {
+        ranges.clear();
+    }
+
+    /**
+     * Drops the ranges that end below the id. Ids below the smallest one within the overlap belong to histories
+     * dated before the overlap, which are never re-scanned again.
+     */
+    private synchronized void dropBelow(Integer id) {
+        ranges.headMap(id).entrySet().removeIf(range -> range.getValue() < id);
+    }
+}
@@ -0,0 +1,84 @@
+package ru.lazarenko.warehouse.scheduled;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.lazarenko.warehouse.entity.HistoryArchiveDay;
+import ru.lazarenko.warehouse.model.OperationEvent;
+import ru.lazarenko.warehouse.repository.HistoryArchiveDayRepository;
+import ru.lazarenko.warehouse.repository.HistorySegmentRepository;
+import ru.lazarenko.warehouse.repository.OperationHistoryRepository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * Moves one day of operation histories from the table into a segment file in the day's own transaction.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class HistoryArchiveWriter {
+    private final OperationHistoryRepository operationHistoryRepository;
+    private final HistorySegmentRepository historySegmentRepository;
+    private final HistoryArchiveDayRepository historyArchiveDayRepository;
+
+    /**
+     * The segment is written before the rows are deleted and the day is recorded as archived in the same
+     * transaction as the delete, so readers see the day in exactly one tier. Rows of an already archived day that
+     * arrived later are merged with its segment into a new segment file; the recorded location only moves to it
+     * when the transaction commits. If the transaction does not commit, the rows stay in the table, the recorded
+     * segment stays in force and the new file is left unused. Rows already in the segment are not merged again.
+     *
+     * @return count of archived histories
+     */
+    @Transactional
+    public int archiveDay(LocalDate day) {
+        LocalDateTime from = day.atStartOfDay();
+        LocalDateTime to = day.plusDays(1).atStartOfDay();
+
+        Map<Integer, List<OperationEvent>> rowsByStorage = new TreeMap<>();
+        for (Integer storageId : operationHistoryRepository.findStorageIdsInPeriod(from, to)) {
+            rowsByStorage.put(storageId, operationHistoryRepository.findEventsInPeriod(from, to, storageId));
+        }
+        if (rowsByStorage.isEmpty()) {
+            return 0;
+        }
+        Optional<HistoryArchiveDay> archived = historyArchiveDayRepository.findById(day);
+        if (archived.isPresent()) {
+            rowsByStorage = mergeArchivedRows(archived.get(), rowsByStorage);
+        }
+        int rowCount = rowsByStorage.values().stream()
+                .mapToInt(List::size)
+                .sum();
+
+        String location = historySegmentRepository.write(day, rowsByStorage);
+        int deleted = operationHistoryRepository.deleteAllInPeriod(from, to);
+        historyArchiveDayRepository.save(HistoryArchiveDay.builder()
+                .archiveDate(day)
+                .location(location)
+                .rowCount(rowCount)
+                .build());
+        log.info("Operation histories of '{}' archived: {}", day, deleted);
+        return deleted;
+    }
+
+    private Map<Integer, List<OperationEvent>> mergeArchivedRows(HistoryArchiveDay archiveDay,
+                                                                Map<Integer, List<OperationEvent>> rowsByStorage) {
+        Map<Integer, List<OperationEvent>> merged = new TreeMap<>();
+        Set<Integer> archivedIds = new HashSet<>();
+        LocalDateTime from = archiveDay.getArchiveDate().atStartOfDay();
+        historySegmentRepository.forEach(List.of(archiveDay.getLocation()), from, from.plusDays(1), null, event -> {
+            archivedIds.add(event.getId());
+            merged.computeIfAbsent(event.getStorageId(), storageId -> new ArrayList<>()).add(event);
+        });
+        rowsByStorage.forEach((storageId, rows) -> rows.stream()
+                .filter(row -> !archivedIds.contains(row.getId()))
+                .forEach(row -> merged.computeIfAbsent(storageId, id -> new ArrayList<>()).add(row)));
+        merged.values().forEach(rows ->
+                rows.sort(Comparator.comparing(OperationEvent::getDate).thenComparing(OperationEvent::getId)));
+        return merged;
+    }
+}
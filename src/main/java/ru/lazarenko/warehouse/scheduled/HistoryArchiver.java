@@ -0,0 +1,86 @@
+package ru.lazarenko.warehouse.scheduled;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import ru.lazarenko.warehouse.entity.AnalysisCheckpoint;
+import ru.lazarenko.warehouse.repository.AnalysisCheckpointRepository;
+import ru.lazarenko.warehouse.repository.OperationHistoryRepository;
+
+import javax.annotation.PostConstruct;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class HistoryArchiver {
+    static final String ARCHIVE_LOCK = "history-archive";
+
+    private final OperationHistoryRepository operationHistoryRepository;
+    private final AnalysisCheckpointRepository analysisCheckpointRepository;
+    private final HistoryArchiveWriter historyArchiveWriter;
+    private final LockedJobRunner lockedJobRunner;
+
+    @Value("${my.archive.age-days:180}")
+    private Integer ageDays;
+
+    @Value("${my.archive.shared-storage:false}")
+    private Boolean sharedStorage;
+
+    @Value("${my.archive.cron:0 0 4 * * *}")
+    private String cron;
+
+    @Value("${my.archive.hold-at-least-seconds:0}")
+    private Long holdAtLeastSeconds;
+
+    @Value("${my.scheduler.overlap-seconds:300}")
+    private Long overlapSeconds;
+
+    @PostConstruct
+    public void init() {
+        lockedJobRunner.registerJob(ARCHIVE_LOCK, Duration.ofSeconds(holdAtLeastSeconds),
+                LockedJobRunner.getCronInterval(cron));
+    }
+
+    @Scheduled(cron = "${my.archive.cron:0 0 4 * * *}")
+    /**
+     * Segments are read by every node, so archiving is refused unless the directory is marked as shared storage.
+     */
+    public void archive() {
+        if (!sharedStorage) {
+            log.warn("Archive directory is not marked as shared storage (my.archive.shared-storage), " +
+                    "histories are not archived");
+            return;
+        }
+        lockedJobRunner.run(ARCHIVE_LOCK, lease -> archiveExpiredDays());
+    }
+
+    /**
+     * Archives whole days, oldest first, that are older than the age and already rolled up. A day counts as
+     * rolled up once the overlap the rollup still re-scans for late histories has passed it.
+     */
+    private void archiveExpiredDays() {
+        Optional<LocalDate> rolledUpTo = analysisCheckpointRepository.findById(OperationRollupWriter.CHECKPOINT_NAME)
+                .map(AnalysisCheckpoint::getLastDate)
+                .map(lastDate -> lastDate.minusSeconds(overlapSeconds).toLocalDate());
+        if (rolledUpTo.isEmpty()) {
+            return;
+        }
+        LocalDate cutoff = LocalDate.now().minusDays(ageDays);
+        if (rolledUpTo.get().isBefore(cutoff)) {
+            cutoff = rolledUpTo.get();
+        }
+
+        int archived = 0;
+        Optional<LocalDateTime> oldest;
+        while ((oldest = operationHistoryRepository.findFirstDateBefore(cutoff.atStartOfDay())).isPresent()) {
+            archived += historyArchiveWriter.archiveDay(oldest.get().toLocalDate());
+        }
+        log.info("Operation histories before '{}' archived: {}", cutoff, archived);
+    }
+}
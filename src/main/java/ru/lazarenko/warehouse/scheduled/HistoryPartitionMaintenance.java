@@ -0,0 +1,132 @@
+package ru.lazarenko.warehouse.scheduled;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import ru.lazarenko.warehouse.entity.AnalysisCheckpoint;
+import ru.lazarenko.warehouse.model.ExpiredPartitionAction;
+import ru.lazarenko.warehouse.model.HistoryPartition;
+import ru.lazarenko.warehouse.repository.AnalysisCheckpointRepository;
+import ru.lazarenko.warehouse.repository.HistoryPartitionRepository;
+
+import javax.annotation.PostConstruct;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Keeps monthly partitions of the operation histories ahead of the clock and removes expired months.
+ * A month is only removed once the rollups have consumed all of it, so trends survive the raw rows.
+ * The first run happens during startup, before the web server accepts requests.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class HistoryPartitionMaintenance {
+    static final String PARTITION_LOCK = "history-partitions";
+    private static final DateTimeFormatter PARTITION_NAME_FORMAT = DateTimeFormatter.ofPattern("'p'yyyyMM");
+
+    private final HistoryPartitionRepository historyPartitionRepository;
+    private final AnalysisCheckpointRepository analysisCheckpointRepository;
+    private final LockedJobRunner lockedJobRunner;
+
+    @Value("${my.partitions.months-ahead:3}")
+    private Integer monthsAhead;
+
+    @Value("${my.partitions.retention-months:12}")
+    private Integer retentionMonths;
+
+    @Value("${my.partitions.expired-action:ARCHIVE}")
+    private ExpiredPartitionAction expiredAction;
+
+    @Value("${my.partitions.cron:0 30 2 * * *}")
+    private String cron;
+
+    @Value("${my.partitions.hold-at-least-seconds:0}")
+    private Long holdAtLeastSeconds;
+
+    @PostConstruct
+    public void init() {
+        lockedJobRunner.registerJob(PARTITION_LOCK, Duration.ofSeconds(holdAtLeastSeconds),
+                LockedJobRunner.getCronInterval(cron));
+        maintainPartitions();
+    }
+
+    @Scheduled(cron = "${my.partitions.cron:0 30 2 * * *}")
+    public void maintainPartitions() {
+        if (!historyPartitionRepository.supportsPartitions()) {
+            log.debug("Operation histories are not partitioned in this database");
+            return;
+        }
+        lockedJobRunner.run(PARTITION_LOCK, lease -> {
+            LocalDate thisMonth = LocalDate.now().withDayOfMonth(1);
+            createFuturePartitions(thisMonth);
+            removeExpiredPartitions(thisMonth);
+        });
+    }
+
+    /**
+     * Adds the missing months up to {@code monthsAhead} in one split of the future partition. Rows already in it,
+     * as all rows from 2023 on are after the V2 migration, get partitions from their oldest month on, so each row
+     * lands in its own month instead of the whole backlog in the current one.
+     */
+    private void createFuturePartitions(LocalDate thisMonth) {
+        List<HistoryPartition> partitions = historyPartitionRepository.findPartitions();
+        LocalDateTime lastBound = partitions.stream()
+                .map(HistoryPartition::getUpperBound)
+                .filter(Objects::nonNull)
+                .max(LocalDateTime::compareTo)
+                .orElse(LocalDateTime.MIN);
+        LocalDate fromMonth = historyPartitionRepository.findFirstDateInFuturePartition()
+                .map(date -> date.toLocalDate().withDayOfMonth(1))
+                .filter(month -> month.isBefore(thisMonth))
+                .orElse(thisMonth);
+
+        List<HistoryPartition> created = new ArrayList<>();
+        for (LocalDate month = fromMonth; !month.isAfter(thisMonth.plusMonths(monthsAhead));
+             month = month.plusMonths(1)) {
+            LocalDateTime upperBound = month.plusMonths(1).atStartOfDay();
+            if (upperBound.isAfter(lastBound)) {
+                created.add(new HistoryPartition(PARTITION_NAME_FORMAT.format(month), upperBound));
+            }
+        }
+        if (!created.isEmpty()) {
+            historyPartitionRepository.addPartitions(created);
+            log.info("Operation history partitions created: {}", created.stream()
+                    .map(HistoryPartition::getName)
+                    .toList());
+        }
+    }
+
+    private void removeExpiredPartitions(LocalDate thisMonth) {
+        LocalDateTime rolledUpTo = analysisCheckpointRepository.findById(OperationRollupWriter.CHECKPOINT_NAME)
+                .map(AnalysisCheckpoint::getLastDate)
+                .orElse(null);
+        if (rolledUpTo == null) {
+            return;
+        }
+        LocalDateTime expiredBefore = thisMonth.minusMonths(retentionMonths).atStartOfDay();
+
+        List<HistoryPartition> expired = historyPartitionRepository.findPartitions().stream()
+                .filter(partition -> partition.getUpperBound() != null)
+                .filter(partition -> !partition.getUpperBound().isAfter(expiredBefore))
+                .filter(partition -> !partition.getUpperBound().isAfter(rolledUpTo))
+                .toList();
+
+        for (HistoryPartition partition : expired) {
+            if (expiredAction == ExpiredPartitionAction.ARCHIVE) {
+                String archive = historyPartitionRepository.archivePartition(partition.getName());
+                log.info("Operation history partition '{}' archived to '{}'", partition.getName(), archive);
+            } else {
+                historyPartitionRepository.dropPartition(partition.getName());
+                log.info("Operation history partition '{}' dropped", partition.getName());
+            }
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package ru.lazarenko.warehouse.scheduled;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.scheduling.support.CronExpression;
+import org.springframework.stereotype.Component;
+import ru.lazarenko.warehouse.exception.LockLostException;
+import ru.lazarenko.warehouse.model.LockLease;
+import ru.lazarenko.warehouse.service.SchedulerLockService;
+
+import javax.annotation.PreDestroy;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Runs scheduled jobs on one node at a time. The lease is renewed by a heartbeat while the job runs
+ * and is kept for at least the hold registered for the job, so nodes firing later in the same interval skip it.
+ */
+@Slf4j
+@Component
+public class LockedJobRunner {
+    private static final int CRON_RUNS_CHECKED = 24;
+
+    private final SchedulerLockService schedulerLockService;
+    private final Duration leaseTime;
+    private final Map<String, Duration> holdsAtLeast = new ConcurrentHashMap<>();
+    private final String owner;
+    private final ScheduledExecutorService heartbeatExecutor =
+            Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("lock-heartbeat-"));
+
+    public LockedJobRunner(SchedulerLockService schedulerLockService,
+                           @Value("${my.scheduler.lock.lease-seconds:60}") Long leaseSeconds) {
+        this.schedulerLockService = schedulerLockService;
+        this.leaseTime = Duration.ofSeconds(leaseSeconds);
+        this.owner = getHostName() + "-" + UUID.randomUUID();
+    }
+
+    /**
+     * Sets how long the lock of the job is kept after a run has started. A hold reaching the interval of the job
+     * would still block the next run of the holder itself, so every other run would be skipped.
+     *
+     * @throws IllegalStateException if the hold is not shorter than the interval
+     */
+    public void registerJob(String name, Duration holdAtLeast, Duration interval) {
+        if (holdAtLeast.compareTo(interval) >= 0) {
+            throw new IllegalStateException("Hold of lock '%s' (%ss) must be shorter than the job interval (%ss)"
+                    .formatted(name, holdAtLeast.toSeconds(), interval.toSeconds()));
+        }
+        holdsAtLeast.put(name, holdAtLeast);
+    }
+
+    /**
+     * @return the shortest gap between the next runs of the cron expression
+     */
+    public static Duration getCronInterval(String cron) {
+        CronExpression expression = CronExpression.parse(cron);
+        Duration shortest = null;
+        LocalDateTime previous = expression.next(LocalDateTime.now());
+        for (int i = 0; i < CRON_RUNS_CHECKED && previous != null; i++) {
+            LocalDateTime next = expression.next(previous);
+            if (next != null) {
+                Duration gap = Duration.between(previous, next);
+                shortest = shortest == null || gap.compareTo(shortest) < 0 ? gap : shortest;
+            }
+            previous = next;
+        }
+        return shortest == null ? ChronoUnit.FOREVER.getDuration() : shortest;
+    }
+
+    /**
+     * @return {@code true} if the lock was acquired and the job ran, {@code false} if another node holds it
+     */
+    public boolean run(String name, Consumer<LockLease> job) {
+        createLockIfAbsent(name);
+        Optional<LockLease> acquired = schedulerLockService.tryAcquire(name, owner, leaseTime);
+        if (acquired.isEmpty()) {
+            log.debug("Lock '{}' is held by another node, job skipped", name);
+            return false;
+        }
+
+        LockLease lease = acquired.get();
+        long acquiredAt = System.nanoTime();
+        long heartbeatMillis = leaseTime.toMillis() / 3;
+        ScheduledFuture<?> heartbeat = heartbeatExecutor.scheduleAtFixedRate(() -> heartbeat(lease),
+                heartbeatMillis, heartbeatMillis, TimeUnit.MILLISECONDS);
+
+        try {
+            job.accept(lease);
+        } finally {
+            heartbeat.cancel(false);
+            Duration holdFor = holdsAtLeast.getOrDefault(name, Duration.ZERO)
+                    .minusNanos(System.nanoTime() - acquiredAt);
+            schedulerLockService.release(lease, holdFor.isNegative() ? Duration.ZERO : holdFor);
+        }
+        return true;
+    }
+
+    /**
+     * Renews the lease inside the caller's transaction, fencing its writes with the lease token.
+     */
+    public void renew(LockLease lease) {
+        schedulerLockService.renew(lease, leaseTime);
+    }
+
+    /**
+     * Fences the caller's transaction with the lease token without extending the lease.
+     */
+    public void checkHeld(LockLease lease) {
+        schedulerLockService.checkHeld(lease);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        heartbeatExecutor.shutdownNow();
+    }
+
+    private void heartbeat(LockLease lease) {
+        try {
+            schedulerLockService.renew(lease, leaseTime);
+        } catch (LockLostException e) {
+            log.warn(e.getMessage());
+        } catch (RuntimeException e) {
+            log.warn("Heartbeat of lock '{}' failed", lease.getName(), e);
+        }
+    }
+
+    private void createLockIfAbsent(String name) {
+        try {
+            schedulerLockService.createLockIfAbsent(name);
+        } catch (DataIntegrityViolationException e) {
+            log.info("Lock '{}' already created concurrently", name);
+        }
+    }
+
+    private static String getHostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return "unknown";
+        }
+    }
+}
@@ -0,0 +1,10 @@
+package ru.lazarenko.warehouse.scheduled;
+
+import lombok.Value;
+
+import java.time.LocalDate;
+
+@Value
+public class ManufactureAnalysisCompletedEvent {
+    LocalDate reportDate;
+}
@@ -1,55 +1,103 @@
 package ru.lazarenko.warehouse.scheduled;
 
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.lazarenko.warehouse.dto.ReportDto;
+import ru.lazarenko.warehouse.dto.ReportFilterDto;
+import ru.lazarenko.warehouse.dto.ReportPageDto;
 import ru.lazarenko.warehouse.entity.ManufactureAnalysis;
-import ru.lazarenko.warehouse.entity.OperationHistory;
-import ru.lazarenko.warehouse.entity.Product;
-import ru.lazarenko.warehouse.entity.Storage;
-import ru.lazarenko.warehouse.model.ChangeType;
-import ru.lazarenko.warehouse.model.OperationType;
+import ru.lazarenko.warehouse.model.LockLease;
+import ru.lazarenko.warehouse.model.OperationTotals;
 import ru.lazarenko.warehouse.repository.ManufactureAnalysisRepository;
-import ru.lazarenko.warehouse.repository.OperationHistoryRepository;
-import ru.lazarenko.warehouse.service.mapper.ProductMapper;
 import ru.lazarenko.warehouse.service.mapper.ReportMapper;
-import ru.lazarenko.warehouse.service.mapper.StorageMapper;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import java.time.DayOfWeek;
 import java.time.Duration;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class ManufactureAnalysisService {
+    static final String ANALYSIS_LOCK = "manufacture-analysis";
+    static final String RETENTION_LOCK = "manufacture-analysis-retention";
+    private static final int DEFAULT_PAGE_SIZE = 100;
+
     private final ManufactureAnalysisRepository manufactureAnalysisRepository;
-    private final OperationHistoryRepository operationHistoryRepository;
+    private final ManufactureAnalysisWriter manufactureAnalysisWriter;
     private final ReportMapper reportMapper;
+    private final OperationWindowCounters operationWindowCounters;
+    private final OperationHistoryFeed operationHistoryFeed;
+    private final LockedJobRunner lockedJobRunner;
+    private final ApplicationEventPublisher eventPublisher;
 
-    @Value("${my.scheduler.period-report-analyses}")
-    private Long periodReportAnalyses;
+    @Value("${my.scheduler.interval}")
+    private Long interval;
 
-    @Scheduled(fixedDelayString = "${my.scheduler.interval}", timeUnit = TimeUnit.MINUTES)
-    @Transactional
-    public void createNotice() {
-        /*
-        if shipments > 50% of deliveries, then we increase deliveries
-        if shipments are < 20% of deliveries, then we reduce deliveries
-         */
-        List<OperationHistory> sliceData = makeDataSlice();
+    @Value("${my.scheduler.hold-at-least-seconds:0}")
+    private Long holdAtLeastSeconds;
+
+    @Value("${my.scheduler.retention-cron:0 0 3 * * *}")
+    private String retentionCron;
+
+    @Value("${my.scheduler.retention-hold-at-least-seconds:0}")
+    private Long retentionHoldAtLeastSeconds;
+
+    @Value("${my.scheduler.parallelism:4}")
+    private Integer parallelism;
+
+    @Value("${my.scheduler.retention-days:35}")
+    private Integer retentionDays;
+
+    @Value("${my.scheduler.retention-batch-size:1000}")
+    private Integer retentionBatchSize;
+
+    private ExecutorService analysisExecutor;
 
-        List<ManufactureAnalysis> result = makeAnalysis(sliceData);
+    private Long lastLockToken;
 
-        manufactureAnalysisRepository.saveAll(result);
+    @PostConstruct
+    public void init() {
+        lockedJobRunner.registerJob(ANALYSIS_LOCK, Duration.ofSeconds(holdAtLeastSeconds),
+                Duration.ofMinutes(interval));
+        lockedJobRunner.registerJob(RETENTION_LOCK, Duration.ofSeconds(retentionHoldAtLeastSeconds),
+                LockedJobRunner.getCronInterval(retentionCron));
+        analysisExecutor = Executors.newFixedThreadPool(parallelism, new CustomizableThreadFactory("analysis-"));
     }
 
+    @PreDestroy
+    public void shutdown() {
+        analysisExecutor.shutdown();
+    }
+
+    @Scheduled(fixedDelayString = "${my.scheduler.interval}", initialDelayString = "${my.scheduler.initial-delay:0}",
+            timeUnit = TimeUnit.MINUTES)
+    public void createNotice() {
+        lockedJobRunner.run(ANALYSIS_LOCK, this::analyse);
+    }
+
+    @Scheduled(cron = "${my.scheduler.retention-cron:0 0 3 * * *}")
+    public void deleteExpiredAnalyses() {
+        lockedJobRunner.run(RETENTION_LOCK, this::deleteAnalysesInBatches);
+    }
+
+    @Transactional(readOnly = true)
     public List<ReportDto> getReport() {
         LocalDate from = getDatePreviousMonday();
         LocalDate to = LocalDate.now();
@@ -57,74 +105,102 @@ public class ManufactureAnalysisService {
         return reportMapper.toReportDtoList(result);
     }
 
-    private List<OperationHistory> makeDataSlice() {
-        LocalDateTime time = LocalDateTime.now().minus(Duration.ofMinutes(periodReportAnalyses));
-        return operationHistoryRepository.findAllByDateIsAfter(time);
+    /**
+     * Seeks the next page after ({@code afterDate}, {@code afterId}) in (report date, id) order.
+     * Without a date range the report period from the previous Monday to today is used, both ends inclusive.
+     */
+    @Transactional(readOnly = true)
+    public ReportPageDto getReportPage(ReportFilterDto filter) {
+        LocalDate from = filter.getFrom() == null ? getDatePreviousMonday() : filter.getFrom();
+        LocalDate to = filter.getTo() == null ? LocalDate.now() : filter.getTo();
+        int size = filter.getSize() == null ? DEFAULT_PAGE_SIZE : filter.getSize();
+        Integer afterId = filter.getAfterId() == null ? 0 : filter.getAfterId();
+
+        List<ManufactureAnalysis> page = manufactureAnalysisRepository.findPage(filter.getStorageId(),
+                filter.getProductId(), filter.getRegionId(), filter.getChangeType(), from, to,
+                filter.getAfterDate(), afterId, PageRequest.of(0, size));
+
+        ReportPageDto result = ReportPageDto.builder()
+                .items(reportMapper.toReportDtoList(page))
+                .build();
+        if (page.size() == size) {
+            ManufactureAnalysis last = page.get(page.size() - 1);
+            result.setNextAfterDate(last.getReportDate());
+            result.setNextAfterId(last.getId());
+        }
+        return result;
     }
 
-    private List<ManufactureAnalysis> makeAnalysis(List<OperationHistory> data) {
-        List<ManufactureAnalysis> result = new ArrayList<>();
-
-        int countLoading;
-        int countShipment;
-
-        for (int i = 0; i < data.size(); i++) {
-            Product currentProduct = data.get(i).getProduct();
-            Storage currentStorage = data.get(i).getStorage();
-
-            countLoading = calculateCountLoadingByProductAndStorage(currentProduct, currentStorage, data);
-            countShipment = calculateCountShipmentByProductAndStorage(currentProduct, currentStorage, data);
-
-            if (countShipment != 0 && (countLoading / countShipment * 100) > 50) {
-                writeNoticeIncrease(currentProduct, currentStorage, result);
-                continue;
-            }
-
-            if (countLoading != 0 && (countShipment / countLoading * 100) < 30) {
-                writeNoticeDecrease(currentProduct, currentStorage, result);
-            }
+    /**
+     * The windows are rebuilt from the database whenever another node may have held the lock since this node's
+     * previous run, because only the holder feeds them.
+     * <p>
+     * Every partition commits on its own, so a failed run may leave the notices of some storages saved and of
+     * others not. The run waits for all partitions before failing and the completion event is not published;
+     * saving is idempotent per (product, storage, report date), so the next run completes the missing storages.
+     */
+    private void analyse(LockLease lease) {
+        if (lastLockToken == null || lease.getToken() != lastLockToken + 1) {
+            operationHistoryFeed.rebuildWindows();
         }
-
-        return result;
+        lastLockToken = lease.getToken();
+
+        operationHistoryFeed.feedLateHistories(lease);
+        int fed;
+        do {
+            fed = operationHistoryFeed.feedNextChunk(lease);
+        } while (fed == operationHistoryFeed.getChunkSize());
+
+        List<OperationTotals> sliceData = makeDataSlice();
+        LocalDate reportDate = LocalDate.now();
+
+        List<CompletableFuture<Integer>> partitions = partitionByStorage(sliceData).stream()
+                .filter(partition -> !partition.isEmpty())
+                .map(partition -> CompletableFuture.supplyAsync(
+                        () -> manufactureAnalysisWriter.saveNotices(partition, reportDate, lease), analysisExecutor))
+                .toList();
+
+        CompletableFuture.allOf(partitions.toArray(CompletableFuture[]::new)).join();
+        int saved = partitions.stream()
+                .mapToInt(CompletableFuture::join)
+                .sum();
+        log.info("Manufacture analysis: {} pairs in {} partitions, {} notices saved",
+                sliceData.size(), partitions.size(), saved);
+        eventPublisher.publishEvent(new ManufactureAnalysisCompletedEvent(reportDate));
     }
 
-    private int calculateCountLoadingByProductAndStorage(Product product, Storage storage, List<OperationHistory> data) {
-        return data.stream()
-                .filter(el -> el.getProduct().getId().equals(product.getId())
-                        && el.getStorage().getId().equals(storage.getId())
-                        && el.getOperation().equals(OperationType.LOADING))
-                .mapToInt(OperationHistory::getCount).sum();
+    private void deleteAnalysesInBatches(LockLease lease) {
+        LocalDate before = LocalDate.now().minusDays(retentionDays);
+        int deleted = 0;
+        int batch;
+        do {
+            batch = manufactureAnalysisWriter.deleteAnalysesBefore(before, retentionBatchSize, lease);
+            deleted += batch;
+        } while (batch == retentionBatchSize);
+        log.info("Manufacture analyses before '{}' deleted: {}", before, deleted);
+        if (deleted > 0) {
+            eventPublisher.publishEvent(new ManufactureAnalysisCompletedEvent(LocalDate.now()));
+        }
     }
 
-    private int calculateCountShipmentByProductAndStorage(Product product, Storage storage, List<OperationHistory> data) {
-        return data.stream()
-                .filter(el -> el.getProduct().getId().equals(product.getId())
-                        && el.getStorage().getId().equals(storage.getId())
-                        && el.getOperation().equals(OperationType.SHIPMENT))
-                .mapToInt(OperationHistory::getCount).sum();
+    private List<OperationTotals> makeDataSlice() {
+        return operationWindowCounters.getTotals(LocalDateTime.now());
     }
 
+    /**
+     * Splits the totals so that all pairs of a storage land in the same partition.
+     */
+    private List<List<OperationTotals>> partitionByStorage(List<OperationTotals> totals) {
+        List<List<OperationTotals>> partitions = new ArrayList<>(parallelism);
+        for (int i = 0; i < parallelism; i++) {
+            partitions.add(new ArrayList<>());
+        }
 
-    private void writeNoticeIncrease(Product product, Storage storage, List<ManufactureAnalysis> result) {
-        ManufactureAnalysis notice = ManufactureAnalysis.builder()
-                .product(product)
-                .storage(storage)
-                .operation(OperationType.LOADING)
-                .changeType(ChangeType.DECREASE)
-                .reportDate(LocalDate.now())
-                .build();
-        result.add(notice);
-    }
+        for (OperationTotals pairTotals : totals) {
+            partitions.get(Math.floorMod(pairTotals.getStorageId(), parallelism)).add(pairTotals);
+        }
 
-    private void writeNoticeDecrease(Product product, Storage storage, List<ManufactureAnalysis> result) {
-        ManufactureAnalysis notice = ManufactureAnalysis.builder()
-                .product(product)
-                .storage(storage)
-                .operation(OperationType.LOADING)
-                .changeType(ChangeType.INCREASE)
-                .reportDate(LocalDate.now())
-                .build();
-        result.add(notice);
+        return partitions;
     }
 
     private LocalDate getDatePreviousMonday() {
@@ -137,4 +213,4 @@ public class ManufactureAnalysisService {
 
         return previousMonday;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,120 @@
+package ru.lazarenko.warehouse.scheduled;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.lazarenko.warehouse.entity.ManufactureAnalysis;
+import ru.lazarenko.warehouse.model.AnalysisState;
+import ru.lazarenko.warehouse.model.ChangeType;
+import ru.lazarenko.warehouse.model.ItemStorageKey;
+import ru.lazarenko.warehouse.model.LockLease;
+import ru.lazarenko.warehouse.model.OperationTotals;
+import ru.lazarenko.warehouse.model.OperationType;
+import ru.lazarenko.warehouse.repository.ManufactureAnalysisRepository;
+import ru.lazarenko.warehouse.repository.ProductRepository;
+import ru.lazarenko.warehouse.repository.StorageRepository;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Turns the totals of one analysis partition into notices and saves them in the partition's own transaction.
+ * A run is therefore partial per storage when a partition fails, and retrying it only writes what is missing.
+ */
+@Service
+@RequiredArgsConstructor
+public class ManufactureAnalysisWriter {
+    private final ManufactureAnalysisRepository manufactureAnalysisRepository;
+    private final ProductRepository productRepository;
+    private final StorageRepository storageRepository;
+    private final LockedJobRunner lockedJobRunner;
+
+    /**
+     * Stores the recommendations of the partition as one row per (product, storage, report date, operation):
+     * new pairs are inserted, pairs whose recommendation changed are updated, unchanged pairs are left alone.
+     * Notices of pairs that have totals but no recommendation any more are deleted; notices of pairs without
+     * totals were not re-evaluated and are kept.
+     * Nothing is written unless the lease is still held.
+     *
+     * @return count of inserted, updated and deleted notices
+     */
+    @Transactional
+    public int saveNotices(List<OperationTotals> totals, LocalDate reportDate, LockLease lease) {
+        Map<ItemStorageKey, ChangeType> recommendations = new HashMap<>();
+        Set<ItemStorageKey> evaluated = new HashSet<>();
+        for (OperationTotals pairTotals : totals) {
+            evaluated.add(new ItemStorageKey(pairTotals.getProductId(), pairTotals.getStorageId()));
+            ChangeType recommendation = pairTotals.getRecommendation();
+            if (recommendation != null) {
+                recommendations.put(new ItemStorageKey(pairTotals.getProductId(), pairTotals.getStorageId()),
+                        recommendation);
+            }
+        }
+        if (totals.isEmpty()) {
+            return 0;
+        }
+        lockedJobRunner.checkHeld(lease);
+
+        Set<Integer> storageIds = totals.stream()
+                .map(OperationTotals::getStorageId)
+                .collect(Collectors.toSet());
+        Map<ItemStorageKey, AnalysisState> existing = manufactureAnalysisRepository
+                .findStates(reportDate, OperationType.LOADING, storageIds).stream()
+                .collect(Collectors.toMap(AnalysisState::getKey, Function.identity()));
+
+        List<ManufactureAnalysis> created = new ArrayList<>();
+        Map<ChangeType, List<Integer>> changed = new EnumMap<>(ChangeType.class);
+        recommendations.forEach((key, recommendation) -> {
+            AnalysisState state = existing.get(key);
+            if (state == null) {
+                created.add(toNotice(key, recommendation, reportDate));
+            } else if (state.getChangeType() != recommendation) {
+                changed.computeIfAbsent(recommendation, changeType -> new ArrayList<>()).add(state.getId());
+            }
+        });
+        List<Integer> withdrawn = existing.values().stream()
+                .filter(state -> evaluated.contains(state.getKey()) && !recommendations.containsKey(state.getKey()))
+                .map(AnalysisState::getId)
+                .sorted()
+                .toList();
+
+        int updated = 0;
+        for (Map.Entry<ChangeType, List<Integer>> entry : changed.entrySet()) {
+            updated += manufactureAnalysisRepository.updateChangeType(entry.getKey(), entry.getValue());
+        }
+        int deleted = withdrawn.isEmpty() ? 0 : manufactureAnalysisRepository.deleteAllByIds(withdrawn);
+        if (!created.isEmpty()) {
+            manufactureAnalysisRepository.saveAll(created);
+        }
+
+        return created.size() + updated + deleted;
+    }
+
+    /**
+     * Deletes up to {@code limit} analyses with report date before the given one while the lease is held.
+     *
+     * @return count of deleted analyses, less than the limit when nothing is left to delete
+     */
+    @Transactional
+    public int deleteAnalysesBefore(LocalDate date, int limit, LockLease lease) {
+        lockedJobRunner.checkHeld(lease);
+        List<Integer> ids = manufactureAnalysisRepository.findIdsByReportDateBefore(date, PageRequest.of(0, limit));
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        return manufactureAnalysisRepository.deleteAllByIds(ids);
+    }
+
+    private ManufactureAnalysis toNotice(ItemStorageKey key, ChangeType recommendation, LocalDate reportDate) {
+        return ManufactureAnalysis.builder()
+                .product(productRepository.getReferenceById(key.getProductId()))
+                .storage(storageRepository.getReferenceById(key.getStorageId()))
+                .operation(OperationType.LOADING)
+                .changeType(recommendation)
+                .reportDate(reportDate)
+                .build();
+    }
+}
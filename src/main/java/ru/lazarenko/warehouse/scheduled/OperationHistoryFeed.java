@@ -0,0 +1,164 @@
+package ru.lazarenko.warehouse.scheduled;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.lazarenko.warehouse.entity.AnalysisCheckpoint;
+import ru.lazarenko.warehouse.model.LockLease;
+import ru.lazarenko.warehouse.model.OperationEvent;
+import ru.lazarenko.warehouse.repository.AnalysisCheckpointRepository;
+import ru.lazarenko.warehouse.repository.OperationHistoryRepository;
+
+import javax.annotation.PostConstruct;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Moves operation histories into the {@link OperationWindowCounters} in (date, id) order
+ * behind a persisted high-watermark, so every row is counted exactly once across runs and restarts.
+ * <p>
+ * The date of a history is assigned by the application before its transaction commits, so a row of a long
+ * transaction or of a node with a skewed clock can commit behind the watermark. Every run re-scans
+ * {@code overlap-seconds} behind the watermark in chunks and feeds the rows whose ids were not fed yet.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OperationHistoryFeed {
+    static final String CHECKPOINT_NAME = "manufacture-analysis";
+
+    private final OperationHistoryRepository operationHistoryRepository;
+    private final AnalysisCheckpointRepository analysisCheckpointRepository;
+    private final OperationWindowCounters operationWindowCounters;
+    private final LockedJobRunner lockedJobRunner;
+
+    @Value("${my.scheduler.period-report-analyses}")
+    private Long periodReportAnalyses;
+
+    @Value("${my.scheduler.chunk-size:1000}")
+    private Integer chunkSize;
+
+    @Value("${my.scheduler.settle-delay-seconds:5}")
+    private Long settleDelaySeconds;
+
+    @Value("${my.scheduler.overlap-seconds:300}")
+    private Long overlapSeconds;
+
+    private FedHistoryIds fedIds;
+
+    @PostConstruct
+    public void init() {
+        fedIds = new FedHistoryIds(operationHistoryRepository);
+    }
+
+    /**
+     * Reads the next chunk of histories after the checkpoint and moves the checkpoint past it.
+     * Rows newer than the settle delay are left for the next run, so most transactions still in flight
+     * commit before the watermark passes them. The checkpoint is only moved while the lease is still held.
+     *
+     * @return count of processed histories, less than the chunk size when the feed has caught up
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public int feedNextChunk(LockLease lease) {
+        LocalDateTime now = LocalDateTime.now();
+        AnalysisCheckpoint checkpoint = getCheckpoint(now);
+
+        List<OperationEvent> events = operationHistoryRepository.findEventsAfterCheckpoint(checkpoint.getLastDate(),
+                checkpoint.getLastId(), now.minusSeconds(settleDelaySeconds), PageRequest.of(0, chunkSize));
+        if (events.isEmpty()) {
+            return 0;
+        }
+
+        OperationEvent last = events.get(events.size() - 1);
+        checkpoint.setLastDate(last.getDate());
+        checkpoint.setLastId(last.getId());
+        lockedJobRunner.renew(lease);
+        analysisCheckpointRepository.save(checkpoint);
+
+        recordAfterCommit(events);
+        log.info("Operation histories fed to analysis: {}, checkpoint: date='{}', id='{}'",
+                events.size(), last.getDate(), last.getId());
+        return events.size();
+    }
+
+    /**
+     * Feeds the histories that committed behind the checkpoint within the overlap and were not fed yet.
+     *
+     * @return count of the late histories
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public int feedLateHistories(LockLease lease) {
+        Optional<AnalysisCheckpoint> checkpoint = analysisCheckpointRepository.findById(CHECKPOINT_NAME);
+        if (checkpoint.isEmpty()) {
+            return 0;
+        }
+
+        List<OperationEvent> late = fedIds.findNotFed(getOverlapStart(checkpoint.get()), checkpoint.get(),
+                chunkSize);
+        if (late.isEmpty()) {
+            return 0;
+        }
+
+        lockedJobRunner.renew(lease);
+        recordAfterCommit(late);
+        log.warn("Operation histories committed behind the checkpoint fed to analysis: {}", late.size());
+        return late.size();
+    }
+
+    /**
+     * Refills the windows with the histories of the last period that are already behind the checkpoint.
+     */
+    @Transactional(readOnly = true)
+    public void rebuildWindows() {
+        operationWindowCounters.clear();
+        fedIds.clear();
+
+        analysisCheckpointRepository.findById(CHECKPOINT_NAME)
+                .ifPresent(checkpoint -> {
+                    LocalDateTime overlapStart = getOverlapStart(checkpoint);
+                    fedIds.forEachUpToCheckpoint(getWindowStart(LocalDateTime.now()), checkpoint, chunkSize,
+                            event -> {
+                                operationWindowCounters.record(event);
+                                if (event.getDate().isAfter(overlapStart)) {
+                                    fedIds.add(event.getId());
+                                }
+                            });
+                });
+    }
+
+    public Integer getChunkSize() {
+        return chunkSize;
+    }
+
+    private void recordAfterCommit(List<OperationEvent> events) {
+        operationWindowCounters.recordAfterCommit(events);
+        fedIds.addAfterCommit(events);
+    }
+
+    private LocalDateTime getOverlapStart(AnalysisCheckpoint checkpoint) {
+        return checkpoint.getLastDate().minusSeconds(overlapSeconds);
+    }
+
+    private AnalysisCheckpoint getCheckpoint(LocalDateTime now) {
+        LocalDateTime windowStart = getWindowStart(now);
+        AnalysisCheckpoint checkpoint = analysisCheckpointRepository.findById(CHECKPOINT_NAME)
+                .orElseGet(() -> AnalysisCheckpoint.builder().name(CHECKPOINT_NAME).build());
+
+        if (checkpoint.getLastDate() == null || checkpoint.getLastDate().isBefore(windowStart)) {
+            checkpoint.setLastDate(windowStart);
+            checkpoint.setLastId(0);
+        }
+
+        return checkpoint;
+    }
+
+    private LocalDateTime getWindowStart(LocalDateTime now) {
+        return now.minus(Duration.ofMinutes(periodReportAnalyses));
+    }
+}
@@ -0,0 +1,78 @@
+package ru.lazarenko.warehouse.scheduled;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.lazarenko.warehouse.dto.OperationTrendDto;
+import ru.lazarenko.warehouse.dto.TrendFilterDto;
+import ru.lazarenko.warehouse.model.LockLease;
+import ru.lazarenko.warehouse.repository.OperationRollupRepository;
+
+import javax.annotation.PostConstruct;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OperationRollupService {
+    static final String ROLLUP_LOCK = "operation-rollup";
+
+    private final OperationRollupRepository operationRollupRepository;
+    private final OperationRollupWriter operationRollupWriter;
+    private final LockedJobRunner lockedJobRunner;
+
+    @Value("${my.scheduler.rollup-interval:1}")
+    private Long interval;
+
+    @Value("${my.scheduler.rollup-hold-at-least-seconds:0}")
+    private Long holdAtLeastSeconds;
+
+    private Long lastLockToken;
+
+    @PostConstruct
+    public void init() {
+        lockedJobRunner.registerJob(ROLLUP_LOCK, Duration.ofSeconds(holdAtLeastSeconds), Duration.ofMinutes(interval));
+    }
+
+    @Scheduled(fixedDelayString = "${my.scheduler.rollup-interval:1}",
+            initialDelayString = "${my.scheduler.initial-delay:0}", timeUnit = TimeUnit.MINUTES)
+    public void rollUp() {
+        lockedJobRunner.run(ROLLUP_LOCK, this::rollUpChunks);
+    }
+
+    /**
+     * Reads the rollups only, summed over the products of each storage; both dates are inclusive.
+     */
+    @Transactional(readOnly = true)
+    public List<OperationTrendDto> getTrends(TrendFilterDto filter) {
+        return operationRollupRepository.findTrends(filter.getGranularity(), filter.getFrom().atStartOfDay(),
+                filter.getTo().plusDays(1).atStartOfDay(), filter.getStorageId(), filter.getProductId(),
+                filter.getOperation());
+    }
+
+    /**
+     * Only the holder knows which histories behind the checkpoint it rolled up, so a node that may not have held
+     * the lock since its previous run takes the overlap for rolled up instead of re-scanning it.
+     */
+    private void rollUpChunks(LockLease lease) {
+        if (lastLockToken == null || lease.getToken() != lastLockToken + 1) {
+            operationRollupWriter.markOverlapRolledUp();
+        } else {
+            operationRollupWriter.rollUpLateHistories(lease);
+        }
+        lastLockToken = lease.getToken();
+
+        int rolledUp = 0;
+        int chunk;
+        do {
+            chunk = operationRollupWriter.rollUpNextChunk(lease);
+            rolledUp += chunk;
+        } while (chunk == operationRollupWriter.getChunkSize());
+        log.info("Operation rollup finished, histories rolled up: {}", rolledUp);
+    }
+}
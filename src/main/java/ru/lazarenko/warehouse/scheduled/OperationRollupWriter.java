@@ -0,0 +1,208 @@
+package ru.lazarenko.warehouse.scheduled;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.lazarenko.warehouse.entity.AnalysisCheckpoint;
+import ru.lazarenko.warehouse.entity.OperationRollup;
+import ru.lazarenko.warehouse.model.LockLease;
+import ru.lazarenko.warehouse.model.OperationEvent;
+import ru.lazarenko.warehouse.model.RollupGranularity;
+import ru.lazarenko.warehouse.model.RollupKey;
+import ru.lazarenko.warehouse.repository.AnalysisCheckpointRepository;
+import ru.lazarenko.warehouse.repository.OperationHistoryRepository;
+import ru.lazarenko.warehouse.repository.OperationRollupRepository;
+import ru.lazarenko.warehouse.repository.ProductRepository;
+import ru.lazarenko.warehouse.repository.StorageRepository;
+
+import javax.annotation.PostConstruct;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Adds operation histories to the hourly and daily rollups in (date, id) order behind its own checkpoint.
+ * <p>
+ * A history can commit behind the checkpoint, as described for {@link OperationHistoryFeed}, so every run also
+ * re-scans {@code overlap-seconds} behind the checkpoint and adds the rows whose ids were not rolled up yet.
+ * The rolled up ids are only known to the node that added them; a node taking the job over treats the whole
+ * overlap as rolled up.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class OperationRollupWriter {
+    static final String CHECKPOINT_NAME = "operation-rollup";
+    private static final LocalDateTime ROLLUP_START = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private final OperationHistoryRepository operationHistoryRepository;
+    private final OperationRollupRepository operationRollupRepository;
+    private final AnalysisCheckpointRepository analysisCheckpointRepository;
+    private final ProductRepository productRepository;
+    private final StorageRepository storageRepository;
+    private final LockedJobRunner lockedJobRunner;
+
+    @Value("${my.scheduler.chunk-size:1000}")
+    private Integer chunkSize;
+
+    @Value("${my.scheduler.settle-delay-seconds:5}")
+    private Long settleDelaySeconds;
+
+    @Value("${my.scheduler.overlap-seconds:300}")
+    private Long overlapSeconds;
+
+    private FedHistoryIds rolledUpIds;
+
+    @PostConstruct
+    public void init() {
+        rolledUpIds = new FedHistoryIds(operationHistoryRepository);
+    }
+
+    /**
+     * Adds the next chunk of histories after the checkpoint to the rollups of their hour and day
+     * and moves the checkpoint past it in the same transaction.
+     *
+     * @return count of processed histories, less than the chunk size when the rollups have caught up
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public int rollUpNextChunk(LockLease lease) {
+        AnalysisCheckpoint checkpoint = analysisCheckpointRepository.findById(CHECKPOINT_NAME)
+                .orElseGet(() -> AnalysisCheckpoint.builder()
+                        .name(CHECKPOINT_NAME)
+                        .lastDate(ROLLUP_START)
+                        .lastId(0)
+                        .build());
+
+        List<OperationEvent> events = operationHistoryRepository.findEventsAfterCheckpoint(checkpoint.getLastDate(),
+                checkpoint.getLastId(), LocalDateTime.now().minusSeconds(settleDelaySeconds),
+                PageRequest.of(0, chunkSize));
+        if (events.isEmpty()) {
+            return 0;
+        }
+
+        Map<RollupKey, long[]> increments = toIncrements(events);
+        int created = addIncrements(increments);
+
+        OperationEvent last = events.get(events.size() - 1);
+        checkpoint.setLastDate(last.getDate());
+        checkpoint.setLastId(last.getId());
+        lockedJobRunner.renew(lease);
+        analysisCheckpointRepository.save(checkpoint);
+        rolledUpIds.addAfterCommit(events);
+
+        log.info("Operation histories rolled up: {}, rollups created: {}, updated: {}",
+                events.size(), created, increments.size() - created);
+        return events.size();
+    }
+
+    /**
+     * Adds the histories that committed behind the checkpoint within the overlap and were not rolled up yet.
+     *
+     * @return count of the late histories
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public int rollUpLateHistories(LockLease lease) {
+        Optional<AnalysisCheckpoint> checkpoint = analysisCheckpointRepository.findById(CHECKPOINT_NAME);
+        if (checkpoint.isEmpty()) {
+            return 0;
+        }
+
+        List<OperationEvent> late = rolledUpIds.findNotFed(getOverlapStart(checkpoint.get()), checkpoint.get(),
+                chunkSize);
+        if (late.isEmpty()) {
+            return 0;
+        }
+
+        addIncrements(toIncrements(late));
+        lockedJobRunner.renew(lease);
+        rolledUpIds.addAfterCommit(late);
+
+        log.warn("Operation histories committed behind the rollup checkpoint rolled up: {}", late.size());
+        return late.size();
+    }
+
+    /**
+     * Takes every history within the overlap behind the checkpoint for rolled up, for a node that did not hold
+     * the job in its previous run.
+     */
+    @Transactional(readOnly = true)
+    public void markOverlapRolledUp() {
+        rolledUpIds.clear();
+        analysisCheckpointRepository.findById(CHECKPOINT_NAME)
+                .ifPresent(checkpoint -> rolledUpIds.forEachUpToCheckpoint(getOverlapStart(checkpoint), checkpoint,
+                        chunkSize, event -> rolledUpIds.add(event.getId())));
+    }
+
+    public Integer getChunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * Sums of counts and records of the histories per rollup bucket, for every granularity.
+     */
+    private Map<RollupKey, long[]> toIncrements(List<OperationEvent> events) {
+        Map<RollupKey, long[]> increments = new HashMap<>();
+        for (OperationEvent event : events) {
+            for (RollupGranularity granularity : RollupGranularity.values()) {
+                RollupKey key = new RollupKey(granularity, granularity.getBucketStart(event.getDate()),
+                        event.getProductId(), event.getStorageId(), event.getOperation());
+                long[] increment = increments.computeIfAbsent(key, k -> new long[2]);
+                increment[0] += event.getCount();
+                increment[1]++;
+            }
+        }
+        return increments;
+    }
+
+    /**
+     * Existing rollups are updated through the persistence context, missing ones are inserted.
+     *
+     * @return count of inserted rollups
+     */
+    private int addIncrements(Map<RollupKey, long[]> increments) {
+        Set<LocalDateTime> bucketStarts = increments.keySet().stream()
+                .map(RollupKey::getBucketStart)
+                .collect(Collectors.toSet());
+        Set<Integer> storageIds = increments.keySet().stream()
+                .map(RollupKey::getStorageId)
+                .collect(Collectors.toSet());
+        Map<RollupKey, OperationRollup> existing = operationRollupRepository
+                .findAllInBuckets(bucketStarts, storageIds).stream()
+                .collect(Collectors.toMap(OperationRollup::getKey, Function.identity()));
+
+        List<OperationRollup> created = new ArrayList<>();
+        increments.forEach((key, increment) -> {
+            OperationRollup rollup = existing.get(key);
+            if (rollup == null) {
+                created.add(toRollup(key, increment));
+            } else {
+                rollup.setCount(rollup.getCount() + increment[0]);
+                rollup.setRecords(rollup.getRecords() + increment[1]);
+            }
+        });
+        operationRollupRepository.saveAll(created);
+
+        return created.size();
+    }
+
+    private LocalDateTime getOverlapStart(AnalysisCheckpoint checkpoint) {
+        return checkpoint.getLastDate().minusSeconds(overlapSeconds);
+    }
+
+    private OperationRollup toRollup(RollupKey key, long[] increment) {
+        return OperationRollup.builder()
+                .granularity(key.getGranularity())
+                .bucketStart(key.getBucketStart())
+                .product(productRepository.getReferenceById(key.getProductId()))
+                .storage(storageRepository.getReferenceById(key.getStorageId()))
+                .operation(key.getOperation())
+                .count(increment[0])
+                .records(increment[1])
+                .build();
+    }
+}
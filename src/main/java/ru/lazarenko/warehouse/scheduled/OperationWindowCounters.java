@@ -0,0 +1,144 @@
+package ru.lazarenko.warehouse.scheduled;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.lazarenko.warehouse.model.OperationEvent;
+import ru.lazarenko.warehouse.model.OperationTotals;
+import ru.lazarenko.warehouse.model.OperationType;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Loading and shipment totals per (product, storage) over the last analysis period.
+ * Every pair keeps a ring of time buckets; a pair is only ever changed inside
+ * {@link ConcurrentHashMap#compute}, so concurrent movements of different pairs do not contend.
+ */
+@Component
+public class OperationWindowCounters {
+    private final ConcurrentHashMap<Long, PairWindow> windows = new ConcurrentHashMap<>();
+    private final int bucketCount;
+    private final long bucketMillis;
+
+    public OperationWindowCounters(@Value("${my.scheduler.period-report-analyses}") Long periodReportAnalyses,
+                                   @Value("${my.scheduler.window-buckets:60}") Integer bucketCount) {
+        this.bucketCount = bucketCount;
+        this.bucketMillis = Math.max(1, Duration.ofMinutes(periodReportAnalyses).toMillis() / bucketCount);
+    }
+
+    public void record(OperationEvent event) {
+        long bucket = toBucket(event.getDate());
+        windows.compute(key(event.getProductId(), event.getStorageId()), (key, window) -> {
+            PairWindow result = window == null ? new PairWindow(bucketCount) : window;
+            result.add(bucket, event.getOperation(), event.getCount());
+            return result;
+        });
+    }
+
+    /**
+     * Records the events once the current transaction commits, or right away without a transaction.
+     */
+    public void recordAfterCommit(Collection<OperationEvent> events) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            events.forEach(this::record);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                events.forEach(OperationWindowCounters.this::record);
+            }
+        });
+    }
+
+    public List<OperationTotals> getTotals(LocalDateTime now) {
+        long lastBucket = toBucket(now);
+        List<OperationTotals> result = new ArrayList<>(windows.size());
+
+        for (Long key : windows.keySet()) {
+            windows.computeIfPresent(key, (pairKey, window) -> {
+                long[] sums = window.sum(lastBucket);
+                if (sums == null) {
+                    return null;
+                }
+                result.add(new OperationTotals((int) (pairKey >> 32), pairKey.intValue(), sums[0], sums[1]));
+                return window;
+            });
+        }
+
+        return result;
+    }
+
+    public void clear() {
+        windows.clear();
+    }
+
+    private long toBucket(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() / bucketMillis;
+    }
+
+    private static long key(int productId, int storageId) {
+        return ((long) productId << 32) | (storageId & 0xFFFFFFFFL);
+    }
+
+    private static class PairWindow {
+        private final long[] buckets;
+        private final long[] loading;
+        private final long[] shipment;
+
+        PairWindow(int bucketCount) {
+            buckets = new long[bucketCount];
+            loading = new long[bucketCount];
+            shipment = new long[bucketCount];
+            Arrays.fill(buckets, Long.MIN_VALUE);
+        }
+
+        void add(long bucket, OperationType operation, long count) {
+            int slot = (int) Math.floorMod(bucket, (long) buckets.length);
+            if (buckets[slot] > bucket) {
+                return;
+            }
+            if (buckets[slot] != bucket) {
+                buckets[slot] = bucket;
+                loading[slot] = 0;
+                shipment[slot] = 0;
+            }
+
+            if (operation == OperationType.LOADING) {
+                loading[slot] += count;
+            } else {
+                shipment[slot] += count;
+            }
+        }
+
+        /**
+         * @return loading and shipment sums of the buckets inside the window, or {@code null} if there are none
+         */
+        long[] sum(long lastBucket) {
+            long firstBucket = lastBucket - buckets.length;
+            long[] sums = new long[2];
+            boolean active = false;
+
+            for (int slot = 0; slot < buckets.length; slot++) {
+                if (buckets[slot] > firstBucket && buckets[slot] <= lastBucket) {
+                    sums[0] += loading[slot];
+                    sums[1] += shipment[slot];
+                    active = true;
+                } else if (buckets[slot] > lastBucket) {
+                    active = true;
+                }
+            }
+
+            return active ? sums : null;
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package ru.lazarenko.warehouse.scheduled;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.util.DigestUtils;
+import ru.lazarenko.warehouse.model.ReportSnapshot;
+
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the weekly report serialised in memory. The snapshot is rebuilt when an analysis run completes,
+ * when the day changes, and after one scheduler interval at the latest: runs made by other nodes are not
+ * announced to this one.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ReportSnapshotService {
+    private final ManufactureAnalysisService manufactureAnalysisService;
+    private final ObjectMapper objectMapper;
+    private final AtomicLong versions = new AtomicLong();
+
+    @Value("${my.scheduler.interval}")
+    private Long interval;
+
+    private volatile ReportSnapshot snapshot;
+
+    public ReportSnapshot getSnapshot() {
+        ReportSnapshot current = snapshot;
+        if (current == null || isStale(current)) {
+            return refreshIfStale();
+        }
+        return current;
+    }
+
+    @EventListener
+    public void onAnalysisCompleted(ManufactureAnalysisCompletedEvent event) {
+        rebuild();
+    }
+
+    private synchronized ReportSnapshot refreshIfStale() {
+        ReportSnapshot current = snapshot;
+        if (current != null && !isStale(current)) {
+            return current;
+        }
+        return rebuild();
+    }
+
+    private synchronized ReportSnapshot rebuild() {
+        byte[] body = serialize();
+        String etag = "\"" + DigestUtils.md5DigestAsHex(body) + "\"";
+        ReportSnapshot rebuilt = new ReportSnapshot(body, versions.incrementAndGet(), etag,
+                LocalDate.now(), LocalDateTime.now());
+        snapshot = rebuilt;
+        log.info("Report snapshot version '{}' built: {} bytes", rebuilt.getVersion(), body.length);
+        return rebuilt;
+    }
+
+    private boolean isStale(ReportSnapshot current) {
+        return !current.getReportDate().equals(LocalDate.now())
+                || current.getBuiltAt().isBefore(LocalDateTime.now().minus(Duration.ofMinutes(interval)));
+    }
+
+    private byte[] serialize() {
+        try {
+            return objectMapper.writeValueAsBytes(manufactureAnalysisService.getReport());
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -2,7 +2,9 @@ package ru.lazarenko.warehouse.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.lazarenko.warehouse.dto.CategoryDto;
@@ -10,6 +12,7 @@ import ru.lazarenko.warehouse.dto.info.ResponseDto;
 import ru.lazarenko.warehouse.entity.Category;
 import ru.lazarenko.warehouse.exception.NoFoundElementException;
 import ru.lazarenko.warehouse.exception.NoUniqueObjectException;
+import ru.lazarenko.warehouse.model.ReferenceView;
 import ru.lazarenko.warehouse.repository.CategoryRepository;
 import ru.lazarenko.warehouse.service.mapper.CategoryMapper;
 
@@ -22,6 +25,8 @@ import java.util.Optional;
 public class CategoryService {
     private final CategoryRepository categoryRepository;
     private final CategoryMapper categoryMapper;
+    private final ReferenceNameIndex referenceNameIndex;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional
     public ResponseDto createCategory(CategoryDto request) {
@@ -29,6 +34,8 @@ public class CategoryService {
 
         Category category = categoryMapper.toCategory(request);
         Category savedCategory = categoryRepository.save(category);
+        eventPublisher.publishEvent(new ResourceChangedEvent("categories"));
+        referenceNameIndex.putCategory(new ReferenceView(savedCategory.getId(), savedCategory.getName()));
 
         log.error("Category successful created: {}", savedCategory);
         return ResponseDto.builder()
@@ -38,23 +45,34 @@ public class CategoryService {
     }
 
     @Transactional(readOnly = true)
-    public List<CategoryDto> getAllCategories() {
-        List<Category> categories = categoryRepository.findAll();
+    public List<CategoryDto> getCategoriesAfter(Integer afterId, int limit) {
+        List<Category> categories = categoryRepository.findPageAfter(afterId, PageRequest.of(0, limit));
         return categoryMapper.toCategoryDtoList(categories);
     }
 
     @Transactional(readOnly = true)
     public void checkUniqueName(String name) {
-        Optional<Category> foundWarehouse = categoryRepository.findByName(name);
-        if (foundWarehouse.isPresent()) {
+        if (referenceNameIndex.getCategory(name).isPresent() || categoryRepository.findByName(name).isPresent()) {
             log.error("Category with name='{}' already exist", name);
             throw new NoUniqueObjectException("Category with name='%s' already exist".formatted(name));
         }
     }
 
+    /**
+     * Resolves the name through the name index. The category itself is read by id, which the second-level cache
+     * serves. Names missing from the index are looked up in the database and indexed.
+     */
     @Transactional(readOnly = true)
     public Category checkExistAndGetCategoryByName(String name) {
-        return categoryRepository.findByName(name)
+        return referenceNameIndex.getCategory(name)
+                .flatMap(category -> categoryRepository.findById(category.getId()))
+                .or(() -> findAndIndexByName(name))
                 .orElseThrow(() -> new NoFoundElementException("Category with name='%s' not found".formatted(name)));
     }
-}
\ No newline at end of file
+
+    private Optional<Category> findAndIndexByName(String name) {
+        Optional<Category> category = categoryRepository.findByName(name);
+        category.ifPresent(found -> referenceNameIndex.putCategory(new ReferenceView(found.getId(), found.getName())));
+        return category;
+    }
+}
@@ -2,24 +2,30 @@ package ru.lazarenko.warehouse.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.http.HttpStatus;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.lazarenko.warehouse.dto.product.ProductDto;
-import ru.lazarenko.warehouse.dto.info.ResponseDto;
+import ru.lazarenko.warehouse.dto.storage.InventoryFilterDto;
+import ru.lazarenko.warehouse.dto.storage.InventoryItemDto;
 import ru.lazarenko.warehouse.dto.storage.LoadingShipmentRequest;
 import ru.lazarenko.warehouse.dto.storage.LoadingShipmentResponse;
 import ru.lazarenko.warehouse.dto.storage.StorageDto;
-import ru.lazarenko.warehouse.entity.ItemStorage;
 import ru.lazarenko.warehouse.entity.Product;
-import ru.lazarenko.warehouse.entity.Region;
 import ru.lazarenko.warehouse.entity.Storage;
 import ru.lazarenko.warehouse.exception.NoFoundElementException;
+import ru.lazarenko.warehouse.model.InventoryItem;
+import ru.lazarenko.warehouse.model.InventorySort;
+import ru.lazarenko.warehouse.model.ItemStorageCount;
+import ru.lazarenko.warehouse.model.ItemStorageKey;
 import ru.lazarenko.warehouse.model.OperationType;
+import ru.lazarenko.warehouse.model.RegionView;
 import ru.lazarenko.warehouse.repository.ItemStorageRepository;
+import ru.lazarenko.warehouse.repository.StorageRepository;
 import ru.lazarenko.warehouse.service.mapper.ProductMapper;
 import ru.lazarenko.warehouse.service.mapper.StorageMapper;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -28,42 +34,90 @@ import java.util.Optional;
 @RequiredArgsConstructor
 public class ItemStorageService {
     private final ItemStorageRepository itemStorageRepository;
+    private final StorageRepository storageRepository;
     private final ProductService productService;
     private final RegionService regionService;
     private final ProductMapper productMapper;
     private final StorageMapper storageMapper;
+    private final SingleFlight singleFlight;
 
-    @Transactional(readOnly = true)
-    public Optional<ItemStorage> getItemByProductIdAndStorageId(Integer productId, Integer storageId) {
-        return itemStorageRepository.findByProductIdAndStorageId(productId, storageId);
+    /**
+     * Reads the count and locks the item until the end of the caller's transaction.
+     */
+    @Transactional
+    public Optional<Integer> lockCount(Integer productId, Integer storageId) {
+        return itemStorageRepository.findCountForUpdate(productId, storageId);
     }
 
     @Transactional
-    public ResponseDto createItem(ItemStorage itemStorage) {
-        ItemStorage savedItem = itemStorageRepository.save(itemStorage);
-
-        log.info("Total count of product with id='{}' on storage with id='{}': {}",
-                savedItem.getProduct().getId(), savedItem.getStorage().getId(), savedItem.getCount());
+    public int increaseCount(Integer productId, Integer storageId, Integer count) {
+        return itemStorageRepository.increaseCount(productId, storageId, count);
+    }
 
-        return ResponseDto.builder()
-                .status(HttpStatus.CREATED.name())
-                .message("Total count of product with id='%s' on storage with id='%s': %s"
-                        .formatted(savedItem.getProduct().getId(), savedItem.getStorage().getId(),
-                                savedItem.getCount()))
-                .build();
+    @Transactional
+    public int decreaseCount(Integer productId, Integer storageId, Integer count) {
+        return itemStorageRepository.decreaseCount(productId, storageId, count);
     }
 
     @Transactional(readOnly = true)
+    public List<ItemStorageCount> getCounts(Collection<ItemStorageKey> keys) {
+        return itemStorageRepository.findCounts(keys);
+    }
+
+    @Transactional
+    public int[] changeCounts(List<ItemStorageCount> changes) {
+        return itemStorageRepository.changeCounts(changes);
+    }
+
+    /**
+     * Inserts an empty item for every pair without one, in the caller's transaction.
+     */
+    @Transactional
+    public void createEmptyItems(Collection<ItemStorageKey> keys) {
+        itemStorageRepository.createMissingItems(keys);
+        log.info("Empty items created where missing: {}", keys);
+    }
+
+    /**
+     * Concurrent calls for the same storage share one query, the returned list must not be modified.
+     */
     public List<ProductDto> getProductsByStorageId(Integer id) {
-        List<Product> products = itemStorageRepository.findProductsByStorageId(id);
-        return productMapper.toProductDtoList(products);
+        return singleFlight.read("storage-products:%s".formatted(id), () -> {
+            List<Product> products = itemStorageRepository.findProductsByStorageId(id);
+            return productMapper.toProductDtoList(products);
+        });
     }
 
+    public List<ProductDto> getProductsByStorageIdAndCategory(Integer id, String category) {
+        return singleFlight.read("storage-products:%s:%s".formatted(id, category), () -> {
+            List<Product> products = itemStorageRepository.findProductsByStorageIdAndCategory(id, category);
+            return productMapper.toProductDtoList(products);
+        });
+    }
 
+    /**
+     * Seeks the page of the storage inventory after the filter's cursor, in (name, product id) order
+     * or (count, product id) order. The first page and the next pages are separate queries, so each of them
+     * is a plain range over the storage's index of the order.
+     */
     @Transactional(readOnly = true)
-    public List<ProductDto> getProductsByStorageIdAndCategory(Integer id, String category) {
-        List<Product> products = itemStorageRepository.findProductsByStorageIdAndCategory(id, category);
-        return productMapper.toProductDtoList(products);
+    public List<InventoryItemDto> getInventory(Integer storageId, InventoryFilterDto filter, int size) {
+        Integer afterId = filter.getAfterId() == null ? 0 : filter.getAfterId();
+        PageRequest page = PageRequest.of(0, size);
+
+        List<InventoryItem> items;
+        if (filter.getSort() == InventorySort.COUNT) {
+            items = filter.getAfterCount() == null
+                    ? itemStorageRepository.findFirstInventoryPageByCount(storageId, page)
+                    : itemStorageRepository.findInventoryPageByCountAfter(storageId, filter.getAfterCount(), afterId,
+                    page);
+        } else {
+            items = filter.getAfterName() == null
+                    ? itemStorageRepository.findFirstInventoryPageByName(storageId, page)
+                    : itemStorageRepository.findInventoryPageByNameAfter(storageId, filter.getAfterName(), afterId,
+                    page);
+        }
+        return storageMapper.toInventoryItemDtoList(items);
     }
 
     @Transactional(readOnly = true)
@@ -71,19 +125,11 @@ public class ItemStorageService {
         return itemStorageRepository.findStorageForShipment(productId, regionId, count);
     }
 
-    @Transactional
-    public ItemStorage updateItemAndGetSaved(ItemStorage item) {
-        ItemStorage savedItem = itemStorageRepository.save(item);
-        log.info("Item of storage successfully created: {}", savedItem);
-
-        return savedItem;
-    }
-
     @Transactional(readOnly = true)
     public LoadingShipmentResponse findStorageForLoadingOrShipment(LoadingShipmentRequest request)  {
         Product product = productService.checkExistAndGetProductById(request.getProductId());
 
-        Optional<Region> optionalRegion = regionService.getRegionWithStoragesByName(request.getRegion());
+        Optional<RegionView> optionalRegion = regionService.getRegionViewByName(request.getRegion());
         if (optionalRegion.isEmpty()) {
             throw new NoFoundElementException("Storage is missing in region %s. %s is not possible.".
                     formatted(request.getRegion(), request.getType().name()));
@@ -91,7 +137,7 @@ public class ItemStorageService {
 
         List<StorageDto> storageDtos;
         if (request.getType().equals(OperationType.LOADING)) {
-            storageDtos = storageMapper.toStorageDtoList(optionalRegion.get().getStorages());
+            storageDtos = storageMapper.toStorageDtoList(optionalRegion.get());
             return LoadingShipmentResponse.builder()
                     .storages(storageDtos)
                     .build();
@@ -1,20 +1,114 @@
 package ru.lazarenko.warehouse.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import ru.lazarenko.warehouse.dto.HistoryFilterDto;
+import ru.lazarenko.warehouse.dto.HistoryRecordDto;
 import ru.lazarenko.warehouse.dto.OperationHistoryDto;
+import ru.lazarenko.warehouse.entity.HistoryArchiveDay;
+import ru.lazarenko.warehouse.model.HistoryFormat;
+import ru.lazarenko.warehouse.model.OperationEvent;
+import ru.lazarenko.warehouse.repository.HistoryArchiveDayRepository;
+import ru.lazarenko.warehouse.repository.HistorySegmentRepository;
 import ru.lazarenko.warehouse.repository.OperationHistoryRepository;
 import ru.lazarenko.warehouse.service.mapper.OperationMapper;
 
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
 @Service
 @RequiredArgsConstructor
 public class OperationHistoryService {
+    private static final String CSV_HEADER = "id,date,productId,storageId,operation,count\n";
+
     private final OperationHistoryRepository operationHistoryRepository;
+    private final HistorySegmentRepository historySegmentRepository;
+    private final HistoryArchiveDayRepository historyArchiveDayRepository;
     private final OperationMapper operationMapper;
+    private final ObjectMapper objectMapper;
 
     @Transactional
     public void saveOperationHistory(OperationHistoryDto dto) {
         operationHistoryRepository.save(operationMapper.toOperationHistory(dto));
     }
+
+    @Transactional
+    public void saveOperationHistories(List<OperationHistoryDto> dtos) {
+        operationHistoryRepository.saveAll(operationMapper.toOperationHistoryList(dtos));
+    }
+
+    /**
+     * Writes histories of the inclusive date range to the output one record at a time: from the archive segments
+     * up to the last day recorded as archived and then from a cursor over the table, so a day is never read from
+     * both tiers and the whole range is never held in memory. Fails if a recorded segment is missing.
+     */
+    @Transactional(readOnly = true)
+    public void exportHistory(HistoryFilterDto filter, OutputStream output) throws IOException {
+        LocalDateTime from = filter.getFrom().atStartOfDay();
+        LocalDateTime to = filter.getTo().plusDays(1).atStartOfDay();
+        HistoryFormat format = filter.getFormat() == null ? HistoryFormat.NDJSON : filter.getFormat();
+
+        Writer writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+        if (format == HistoryFormat.CSV) {
+            writer.write(CSV_HEADER);
+        }
+
+        LocalDateTime hotFrom = from;
+        Optional<LocalDateTime> archivedUntil = historyArchiveDayRepository.findLastArchiveDate()
+                .map(day -> day.plusDays(1).atStartOfDay());
+        if (archivedUntil.isPresent() && from.isBefore(archivedUntil.get())) {
+            LocalDateTime coldTo = to.isBefore(archivedUntil.get()) ? to : archivedUntil.get();
+            List<String> locations = historyArchiveDayRepository.findAllInPeriod(from.toLocalDate(),
+                            coldTo.toLocalDate()).stream()
+                    .map(HistoryArchiveDay::getLocation)
+                    .toList();
+            try {
+                historySegmentRepository.forEach(locations, from, coldTo, filter.getStorageId(), event -> {
+                    if (matches(event, filter)) {
+                        writeRecord(writer, format, event);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            hotFrom = coldTo;
+        }
+        if (hotFrom.isBefore(to)) {
+            try (Stream<OperationEvent> events = operationHistoryRepository.streamEventsInPeriod(hotFrom, to,
+                    filter.getStorageId(), filter.getProductId(), filter.getOperation())) {
+                Iterator<OperationEvent> iterator = events.iterator();
+                while (iterator.hasNext()) {
+                    writeRecord(writer, format, iterator.next());
+                }
+            }
+        }
+        writer.flush();
+    }
+
+    private boolean matches(OperationEvent event, HistoryFilterDto filter) {
+        return (filter.getProductId() == null || filter.getProductId().equals(event.getProductId()))
+                && (filter.getOperation() == null || filter.getOperation() == event.getOperation());
+    }
+
+    private void writeRecord(Writer writer, HistoryFormat format, OperationEvent event) {
+        HistoryRecordDto record = operationMapper.toHistoryRecordDto(event);
+        try {
+            if (format == HistoryFormat.CSV) {
+                writer.write(record.getId() + "," + record.getDate() + "," + record.getProductId() + ","
+                        + record.getStorageId() + "," + record.getOperation() + "," + record.getCount() + "\n");
+            } else {
+                writer.write(objectMapper.writeValueAsString(record));
+                writer.write('\n');
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
 }
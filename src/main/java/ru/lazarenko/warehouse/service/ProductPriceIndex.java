@@ -0,0 +1,315 @@
+package ru.lazarenko.warehouse.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.lazarenko.warehouse.model.PriceEntry;
+import ru.lazarenko.warehouse.repository.ProductRepository;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Product prices sorted by (price, id) in primitive arrays, so that a price range is found by binary search.
+ * Prices are held in minor units, products without a category have category id 0. About 16 bytes per product.
+ * <p>
+ * Products created on this node are added when their transaction commits, to a small sorted delta next to the
+ * arrays, which is merged into them on reload or once it holds {@code max-delta} products. Readers see a snapshot
+ * whose arrays never change and walk the arrays and the delta together. Products created by other nodes are found
+ * after the next reload. The index is not used before it is loaded and while the products outnumber
+ * {@code max-entries}, callers query the database then.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ProductPriceIndex {
+    private static final int LOAD_CHUNK_SIZE = 10_000;
+    private static final int NO_CATEGORY = 0;
+
+    private final ProductRepository productRepository;
+    private final Object reloadLock = new Object();
+
+    @Value("${my.cache.prices.max-entries:2000000}")
+    private Integer maxEntries;
+
+    @Value("${my.cache.prices.max-delta:10000}")
+    private Integer maxDelta;
+
+    private volatile Snapshot snapshot;
+
+    /**
+     * Products committed while a reload runs, inserted again into the reloaded snapshot.
+     */
+    private List<PriceEntry> addedDuringReload;
+
+    /**
+     * Ids of the products priced from {@code min} to {@code max} inclusive that follow ({@code afterPrice},
+     * {@code afterId}) in (price, id) order, or empty when the index is not usable.
+     */
+    public Optional<List<Integer>> findIds(BigDecimal min, BigDecimal max, Integer categoryId,
+                                           BigDecimal afterPrice, Integer afterId, int limit) {
+        Snapshot current = snapshot;
+        if (current == null) {
+            return Optional.empty();
+        }
+
+        long maxPrice = toMinorUnits(max, RoundingMode.FLOOR);
+        PriceKey start = new PriceKey(toMinorUnits(min, RoundingMode.CEILING), Integer.MIN_VALUE);
+        if (afterPrice != null) {
+            PriceKey after = new PriceKey(toMinorUnits(afterPrice, RoundingMode.FLOOR), afterId);
+            if (after.compareTo(start) > 0) {
+                start = after;
+            }
+        }
+
+        int category = categoryId == null ? NO_CATEGORY : categoryId;
+        List<Integer> ids = new ArrayList<>(Math.min(limit, 1024));
+        int i = current.firstAfter(start.getPrice(), start.getId());
+        Iterator<Map.Entry<PriceKey, Integer>> added = current.added.tailMap(start, false).entrySet().iterator();
+        Map.Entry<PriceKey, Integer> nextAdded = added.hasNext() ? added.next() : null;
+        while (ids.size() < limit) {
+            long price;
+            int id;
+            int entryCategory;
+            if (i < current.ids.length && (nextAdded == null || current.compareAt(i, nextAdded.getKey()) < 0)) {
+                price = current.prices[i];
+                id = current.ids[i];
+                entryCategory = current.categoryIds[i];
+                i++;
+            } else if (nextAdded != null) {
+                price = nextAdded.getKey().getPrice();
+                id = nextAdded.getKey().getId();
+                entryCategory = nextAdded.getValue();
+                nextAdded = added.hasNext() ? added.next() : null;
+            } else {
+                break;
+            }
+
+            if (price > maxPrice) {
+                break;
+            }
+            if (categoryId == null || entryCategory == category) {
+                ids.add(id);
+            }
+        }
+        return Optional.of(ids);
+    }
+
+    /**
+     * Products created by other nodes are not announced to this one, so the index is reloaded at startup
+     * and after every refresh interval.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${my.cache.prices.refresh-interval:5}",
+            initialDelayString = "${my.cache.prices.refresh-interval:5}", timeUnit = TimeUnit.MINUTES)
+    @Transactional(readOnly = true)
+    public void reload() {
+        synchronized (reloadLock) {
+            synchronized (this) {
+                addedDuringReload = new ArrayList<>();
+            }
+
+            Snapshot loaded = load();
+
+            synchronized (this) {
+                snapshot = loaded;
+                addedDuringReload.forEach(this::insert);
+                addedDuringReload = null;
+            }
+            log.info("Product prices indexed: {}", loaded == null ? "over " + maxEntries : loaded.ids.length);
+        }
+    }
+
+    /**
+     * Inserts the product once the current transaction commits, or right away without a transaction.
+     */
+    public void putProduct(Integer id, BigDecimal price, Integer categoryId) {
+        if (price == null) {
+            return;
+        }
+
+        PriceEntry entry = new PriceEntry(id, price, categoryId);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            add(entry);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                add(entry);
+            }
+        });
+    }
+
+    private synchronized void add(PriceEntry entry) {
+        if (addedDuringReload != null) {
+            addedDuringReload.add(entry);
+        }
+        insert(entry);
+    }
+
+    private void insert(PriceEntry entry) {
+        Snapshot current = snapshot;
+        if (current == null) {
+            return;
+        }
+
+        PriceKey key = new PriceKey(toMinorUnits(entry.getPrice(), RoundingMode.FLOOR), entry.getProductId());
+        if (current.contains(key)) {
+            return;
+        }
+        if (current.size() >= maxEntries) {
+            log.warn("Product prices are not indexed until reload: more than {} products", maxEntries);
+            snapshot = null;
+            return;
+        }
+        current.added.put(key, entry.getCategoryId() == null ? NO_CATEGORY : entry.getCategoryId());
+        if (current.added.size() >= maxDelta) {
+            snapshot = current.merge();
+        }
+    }
+
+    private Snapshot load() {
+        long[] prices = new long[LOAD_CHUNK_SIZE];
+        int[] ids = new int[LOAD_CHUNK_SIZE];
+        int[] categoryIds = new int[LOAD_CHUNK_SIZE];
+        int size = 0;
+
+        List<PriceEntry> chunk = productRepository.findFirstPriceEntries(PageRequest.of(0, LOAD_CHUNK_SIZE));
+        while (!chunk.isEmpty()) {
+            if (size + chunk.size() > maxEntries) {
+                log.warn("Product prices are not indexed: more than {} products", maxEntries);
+                return null;
+            }
+            if (size + chunk.size() > ids.length) {
+                int capacity = Math.min(Math.max(ids.length * 2, size + chunk.size()), maxEntries);
+                prices = Arrays.copyOf(prices, capacity);
+                ids = Arrays.copyOf(ids, capacity);
+                categoryIds = Arrays.copyOf(categoryIds, capacity);
+            }
+            for (PriceEntry entry : chunk) {
+                prices[size] = toMinorUnits(entry.getPrice(), RoundingMode.FLOOR);
+                ids[size] = entry.getProductId();
+                categoryIds[size] = entry.getCategoryId() == null ? NO_CATEGORY : entry.getCategoryId();
+                size++;
+            }
+
+            if (chunk.size() < LOAD_CHUNK_SIZE) {
+                break;
+            }
+            PriceEntry last = chunk.get(chunk.size() - 1);
+            chunk = productRepository.findPriceEntriesAfter(last.getPrice(), last.getProductId(),
+                    PageRequest.of(0, LOAD_CHUNK_SIZE));
+        }
+        return new Snapshot(Arrays.copyOf(prices, size), Arrays.copyOf(ids, size), Arrays.copyOf(categoryIds, size));
+    }
+
+    private long toMinorUnits(BigDecimal price, RoundingMode roundingMode) {
+        return price.movePointRight(2).setScale(0, roundingMode).longValueExact();
+    }
+
+    /**
+     * Sorted arrays of the last reload or merge, and the products added to them since.
+     */
+    private static class Snapshot {
+        private final long[] prices;
+        private final int[] ids;
+        private final int[] categoryIds;
+        private final ConcurrentNavigableMap<PriceKey, Integer> added = new ConcurrentSkipListMap<>();
+
+        Snapshot(long[] prices, int[] ids, int[] categoryIds) {
+            this.prices = prices;
+            this.ids = ids;
+            this.categoryIds = categoryIds;
+        }
+
+        int size() {
+            return ids.length + added.size();
+        }
+
+        boolean contains(PriceKey key) {
+            int position = firstAfter(key.getPrice(), key.getId());
+            return position > 0 && prices[position - 1] == key.getPrice() && ids[position - 1] == key.getId()
+                    || added.containsKey(key);
+        }
+
+        /**
+         * Binary search for the first position whose (price, id) is greater than the given one.
+         */
+        int firstAfter(long price, int id) {
+            int low = 0;
+            int high = ids.length;
+            while (low < high) {
+                int middle = (low + high) >>> 1;
+                if (prices[middle] < price || prices[middle] == price && ids[middle] <= id) {
+                    low = middle + 1;
+                } else {
+                    high = middle;
+                }
+            }
+            return low;
+        }
+
+        int compareAt(int position, PriceKey key) {
+            int byPrice = Long.compare(prices[position], key.getPrice());
+            return byPrice != 0 ? byPrice : Integer.compare(ids[position], key.getId());
+        }
+
+        /**
+         * Copies the arrays with the added products merged in, into a snapshot with an empty delta.
+         */
+        Snapshot merge() {
+            int size = size();
+            long[] mergedPrices = new long[size];
+            int[] mergedIds = new int[size];
+            int[] mergedCategoryIds = new int[size];
+
+            int i = 0;
+            int merged = 0;
+            for (Map.Entry<PriceKey, Integer> entry : added.entrySet()) {
+                while (i < ids.length && compareAt(i, entry.getKey()) < 0) {
+                    mergedPrices[merged] = prices[i];
+                    mergedIds[merged] = ids[i];
+                    mergedCategoryIds[merged++] = categoryIds[i++];
+                }
+                mergedPrices[merged] = entry.getKey().getPrice();
+                mergedIds[merged] = entry.getKey().getId();
+                mergedCategoryIds[merged++] = entry.getValue();
+            }
+            System.arraycopy(prices, i, mergedPrices, merged, ids.length - i);
+            System.arraycopy(ids, i, mergedIds, merged, ids.length - i);
+            System.arraycopy(categoryIds, i, mergedCategoryIds, merged, ids.length - i);
+            return new Snapshot(mergedPrices, mergedIds, mergedCategoryIds);
+        }
+    }
+
+    @lombok.Value
+    private static class PriceKey implements Comparable<PriceKey> {
+        long price;
+        int id;
+
+        @Override
+        public int compareTo(PriceKey other) {
+            int byPrice = Long.compare(price, other.price);
+            return byPrice != 0 ? byPrice : Integer.compare(id, other.id);
+        }
+    }
+}
@@ -2,9 +2,13 @@ package ru.lazarenko.warehouse.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
 import ru.lazarenko.warehouse.dto.product.PriceRangeDto;
 import ru.lazarenko.warehouse.dto.product.ProductDto;
 import ru.lazarenko.warehouse.dto.info.ResponseDto;
@@ -15,15 +19,25 @@ import ru.lazarenko.warehouse.repository.ProductRepository;
 import ru.lazarenko.warehouse.service.mapper.ProductMapper;
 
 import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class ProductService {
+    private static final int ID_CHUNK_SIZE = 1000;
+
     private final ProductRepository productRepository;
     private final CategoryService categoryService;
     private final ProductMapper productMapper;
+    private final SingleFlight singleFlight;
+    private final ProductPriceIndex productPriceIndex;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional
     public ResponseDto createProduct(ProductDto request) {
@@ -33,6 +47,8 @@ public class ProductService {
         product.setCategory(category);
 
         Product savedProduct = productRepository.save(product);
+        productPriceIndex.putProduct(savedProduct.getId(), savedProduct.getPrice(), category.getId());
+        eventPublisher.publishEvent(new ResourceChangedEvent("products"));
         log.info("Product successful created: {}", savedProduct);
 
         return ResponseDto.builder()
@@ -41,10 +57,18 @@ public class ProductService {
                 .build();
     }
 
-    @Transactional(readOnly = true)
-    public List<ProductDto> getAllProducts() {
-        List<Product> products = productRepository.findAll();
-        return productMapper.toProductDtoList(products);
+    /**
+     * Concurrent calls for the same page share one query, the returned list must not be modified.
+     */
+    public List<ProductDto> getProductsAfter(String category, Integer afterId, int limit) {
+        return singleFlight.read("products:%s:%s:%s".formatted(category, afterId, limit), () -> {
+            Integer categoryId = StringUtils.hasLength(category)
+                    ? categoryService.checkExistAndGetCategoryByName(category).getId()
+                    : null;
+
+            List<Product> products = productRepository.findPageAfter(afterId, categoryId, PageRequest.of(0, limit));
+            return productMapper.toProductDtoList(products);
+        });
     }
 
     @Transactional(readOnly = true)
@@ -54,17 +78,46 @@ public class ProductService {
     }
 
     @Transactional(readOnly = true)
-    public List<ProductDto> getProductsByCategory(String category) {
-        Category foundCategory = categoryService.checkExistAndGetCategoryByName(category);
+    public Set<Integer> getExistingProductIds(Collection<Integer> ids) {
+        return productRepository.findExistingIds(ids);
+    }
 
-        List<Product> products = productRepository.findAllByCategoryId(foundCategory.getId());
-        return productMapper.toProductDtoList(products);
+    @Transactional(readOnly = true)
+    public Product getProductReferenceById(Integer id) {
+        return productRepository.getReferenceById(id);
     }
 
+    /**
+     * Lists the products in (price, id) order. The price index finds the ids and the products are read by id.
+     * The next page follows the price and id of the last product, without a size the whole range is listed.
+     */
     @Transactional(readOnly = true)
     public List<ProductDto> getProductsByPriceRange(PriceRangeDto request) {
-        List<Product> products = productRepository
-                .findProductsByMinAndMaxPrice(new BigDecimal(request.getMin()), new BigDecimal(request.getMax()));
+        BigDecimal min = BigDecimal.valueOf(request.getMin());
+        BigDecimal max = BigDecimal.valueOf(request.getMax());
+        Integer categoryId = StringUtils.hasLength(request.getCategory())
+                ? categoryService.checkExistAndGetCategoryByName(request.getCategory()).getId()
+                : null;
+        Integer afterId = request.getAfterId() == null ? 0 : request.getAfterId();
+        int size = request.getSize() == null ? Integer.MAX_VALUE : request.getSize();
+
+        List<Product> products = productPriceIndex
+                .findIds(min, max, categoryId, request.getAfterPrice(), afterId, size)
+                .map(this::findAllInOrder)
+                .orElseGet(() -> productRepository.findPriceRangePage(min, max, categoryId, request.getAfterPrice(),
+                        afterId, request.getSize() == null ? Pageable.unpaged() : PageRequest.of(0, size)));
         return productMapper.toProductDtoList(products);
     }
+
+    private List<Product> findAllInOrder(List<Integer> ids) {
+        Map<Integer, Product> products = new HashMap<>();
+        for (int from = 0; from < ids.size(); from += ID_CHUNK_SIZE) {
+            productRepository.findAllWithCategoryByIdIn(ids.subList(from, Math.min(from + ID_CHUNK_SIZE, ids.size())))
+                    .forEach(product -> products.put(product.getId(), product));
+        }
+        return ids.stream()
+                .map(products::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
 }
@@ -0,0 +1,162 @@
+package ru.lazarenko.warehouse.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.With;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import ru.lazarenko.warehouse.model.ReferenceView;
+import ru.lazarenko.warehouse.model.StorageView;
+import ru.lazarenko.warehouse.repository.CategoryRepository;
+import ru.lazarenko.warehouse.repository.RegionRepository;
+import ru.lazarenko.warehouse.repository.StorageRepository;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * In-process index of category, region and storage names to their ids, matched case-insensitively like the MySQL
+ * collation does. Every kind holds at most {@code max-entries} names. Only names are held: anything that changes
+ * after a name is created, like the storages of a region, is read from the database by id.
+ * A miss is not trusted, callers look the name up in the database and put what they found.
+ * <p>
+ * Readers see an immutable snapshot. Writers replace it, which is cheap because the reference data rarely changes.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ReferenceNameIndex {
+    private final CategoryRepository categoryRepository;
+    private final RegionRepository regionRepository;
+    private final StorageRepository storageRepository;
+
+    @Value("${my.cache.names.max-entries:10000}")
+    private Integer maxEntries;
+
+    private volatile Snapshot snapshot = new Snapshot(Map.of(), Map.of(), Map.of());
+
+    public Optional<ReferenceView> getCategory(String name) {
+        return Optional.ofNullable(snapshot.getCategories().get(normalize(name)));
+    }
+
+    public Optional<ReferenceView> getRegion(String name) {
+        return Optional.ofNullable(snapshot.getRegions().get(normalize(name)));
+    }
+
+    public Optional<StorageView> getStorage(String name) {
+        return Optional.ofNullable(snapshot.getStorages().get(normalize(name)));
+    }
+
+    /**
+     * Names created by other nodes are not announced to this one, so the index is reloaded at startup
+     * and after every refresh interval.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${my.cache.names.refresh-interval:5}",
+            initialDelayString = "${my.cache.names.refresh-interval:5}", timeUnit = TimeUnit.MINUTES)
+    @Transactional(readOnly = true)
+    public synchronized void reload() {
+        PageRequest limit = PageRequest.of(0, maxEntries);
+
+        Map<String, ReferenceView> categories = new HashMap<>();
+        categoryRepository.findViews(limit)
+                .forEach(category -> categories.put(normalize(category.getName()), category));
+
+        Map<String, StorageView> storages = new HashMap<>();
+        storageRepository.findViews(limit)
+                .forEach(storage -> storages.put(normalize(storage.getName()), storage));
+
+        Map<String, ReferenceView> regions = new HashMap<>();
+        regionRepository.findViews(limit)
+                .forEach(region -> regions.put(normalize(region.getName()), region));
+
+        snapshot = new Snapshot(Map.copyOf(categories), Map.copyOf(regions), Map.copyOf(storages));
+        log.info("Reference names indexed: {} categories, {} regions, {} storages",
+                categories.size(), regions.size(), storages.size());
+    }
+
+    /**
+     * Puts the category once the current transaction commits, or right away without a transaction.
+     */
+    public void putCategory(ReferenceView category) {
+        afterCommit(() -> addCategory(category));
+    }
+
+    public void putRegion(ReferenceView region) {
+        afterCommit(() -> addRegion(region));
+    }
+
+    public void putStorage(StorageView storage) {
+        afterCommit(() -> addStorage(storage));
+    }
+
+    private synchronized void addCategory(ReferenceView category) {
+        Snapshot current = snapshot;
+        String key = normalize(category.getName());
+        if (fits(current.getCategories(), key)) {
+            snapshot = current.withCategories(copyWith(current.getCategories(), key, category));
+        }
+    }
+
+    private synchronized void addRegion(ReferenceView region) {
+        Snapshot current = snapshot;
+        String key = normalize(region.getName());
+        if (fits(current.getRegions(), key)) {
+            snapshot = current.withRegions(copyWith(current.getRegions(), key, region));
+        }
+    }
+
+    private synchronized void addStorage(StorageView storage) {
+        Snapshot current = snapshot;
+        String key = normalize(storage.getName());
+        if (fits(current.getStorages(), key)) {
+            snapshot = current.withStorages(copyWith(current.getStorages(), key, storage));
+        }
+    }
+
+    private void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private boolean fits(Map<String, ?> names, String key) {
+        return names.containsKey(key) || names.size() < maxEntries;
+    }
+
+    private <T> Map<String, T> copyWith(Map<String, T> names, String key, T value) {
+        Map<String, T> result = new HashMap<>(names);
+        result.put(key, value);
+        return Map.copyOf(result);
+    }
+
+    private String normalize(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    @lombok.Value
+    @With
+    private static class Snapshot {
+        Map<String, ReferenceView> categories;
+        Map<String, ReferenceView> regions;
+        Map<String, StorageView> storages;
+    }
+}
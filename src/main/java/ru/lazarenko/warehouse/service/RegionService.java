@@ -2,7 +2,9 @@ package ru.lazarenko.warehouse.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import ru.lazarenko.warehouse.dto.RegionDto;
@@ -10,7 +12,10 @@ import ru.lazarenko.warehouse.dto.info.ResponseDto;
 import ru.lazarenko.warehouse.entity.Region;
 import ru.lazarenko.warehouse.exception.NoFoundElementException;
 import ru.lazarenko.warehouse.exception.NoUniqueObjectException;
+import ru.lazarenko.warehouse.model.ReferenceView;
+import ru.lazarenko.warehouse.model.RegionView;
 import ru.lazarenko.warehouse.repository.RegionRepository;
+import ru.lazarenko.warehouse.repository.StorageRepository;
 import ru.lazarenko.warehouse.service.mapper.RegionMapper;
 
 import java.util.List;
@@ -21,7 +26,10 @@ import java.util.Optional;
 @Service
 public class RegionService {
     private final RegionRepository regionRepository;
+    private final StorageRepository storageRepository;
     private final RegionMapper regionMapper;
+    private final ReferenceNameIndex referenceNameIndex;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional
     public ResponseDto createRegion(RegionDto request) {
@@ -29,6 +37,8 @@ public class RegionService {
 
         Region region = regionMapper.toRegion(request);
         Region savedRegion = regionRepository.save(region);
+        eventPublisher.publishEvent(new ResourceChangedEvent("regions"));
+        referenceNameIndex.putRegion(new ReferenceView(savedRegion.getId(), savedRegion.getName()));
 
         log.error("Region successful created: {}", savedRegion);
         return ResponseDto.builder()
@@ -38,14 +48,19 @@ public class RegionService {
     }
 
     @Transactional(readOnly = true)
-    public List<RegionDto> getAllRegions() {
-        List<Region> regions = regionRepository.findAll();
+    public List<RegionDto> getRegionsAfter(Integer afterId, int limit) {
+        List<Region> regions = regionRepository.findPageAfter(afterId, PageRequest.of(0, limit));
         return regionMapper.toRegionDtoList(regions);
     }
 
+    /**
+     * Resolves the name through the name index and reads the region by id, falling back to the database.
+     */
     @Transactional(readOnly = true)
     public Region checkExistAndGetRegionByName(String name) {
-        return regionRepository.findByName(name)
+        return referenceNameIndex.getRegion(name)
+                .flatMap(region -> regionRepository.findById(region.getId()))
+                .or(() -> regionRepository.findByName(name))
                 .orElseThrow(() -> new NoFoundElementException("Region with name='%s' not found".formatted(name)));
     }
 
@@ -56,15 +71,28 @@ public class RegionService {
 
     @Transactional(readOnly = true)
     public void checkUniqueName(String name) {
-        Optional<Region> foundRegion = regionRepository.findByName(name);
-        if (foundRegion.isPresent()) {
+        if (referenceNameIndex.getRegion(name).isPresent() || regionRepository.findByName(name).isPresent()) {
             log.error("Region with name='{}' already exist", name);
             throw new NoUniqueObjectException("Region with name='%s' already exist".formatted(name));
         }
     }
 
+    /**
+     * Resolves the name through the name index and reads the storages of the region by its id, so storages
+     * created after the name was indexed are always listed. A region missing from the index is read with
+     * its storages and its name is indexed.
+     */
     @Transactional(readOnly = true)
-    public Optional<Region> getRegionWithStoragesByName(String name) {
-        return regionRepository.findWithStoragesByName(name);
+    public Optional<RegionView> getRegionViewByName(String name) {
+        return referenceNameIndex.getRegion(name)
+                .map(region -> new RegionView(region.getId(), region.getName(),
+                        storageRepository.findViewsByRegionId(region.getId())))
+                .or(() -> {
+                    Optional<RegionView> region = regionRepository.findWithStoragesByName(name)
+                            .map(regionMapper::toRegionView);
+                    region.ifPresent(view -> referenceNameIndex.putRegion(new ReferenceView(view.getId(),
+                            view.getName())));
+                    return region;
+                });
     }
-}
\ No newline at end of file
+}
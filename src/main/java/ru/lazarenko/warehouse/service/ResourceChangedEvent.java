@@ -0,0 +1,11 @@
+package ru.lazarenko.warehouse.service;
+
+import lombok.Value;
+
+/**
+ * Published when rows of a listed resource are created. The resource is named like its path under {@code /api}.
+ */
+@Value
+public class ResourceChangedEvent {
+    String resource;
+}
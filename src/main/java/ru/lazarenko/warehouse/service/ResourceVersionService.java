@@ -0,0 +1,66 @@
+package ru.lazarenko.warehouse.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.lazarenko.warehouse.repository.ResourceVersionRepository;
+
+import javax.annotation.PostConstruct;
+import java.time.Duration;
+
+/**
+ * Versions of the listed resources, kept in the database so that every node sees the same one.
+ * <p>
+ * Reads are served from memory for {@code my.cache.versions.ttl}, so a conditional GET of a current copy is
+ * answered without a database round trip. A create on this node drops its resource's version once it commits;
+ * a create on another node is seen here when the version expires, so a node may answer with the previous
+ * version for up to the time to live.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ResourceVersionService {
+    private final ResourceVersionRepository resourceVersionRepository;
+
+    @Value("${my.cache.versions.ttl:1s}")
+    private Duration ttl;
+
+    private Cache<String, Long> versions;
+
+    @PostConstruct
+    public void init() {
+        versions = Caffeine.newBuilder()
+                .expireAfterWrite(ttl)
+                .build();
+    }
+
+    /**
+     * Bumps the version inside the transaction that created the rows, so it commits or rolls back with them.
+     * Creates of one resource queue on its version row, which is fine for the rarely changing reference data.
+     */
+    @EventListener
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void onResourceChanged(ResourceChangedEvent event) {
+        if (resourceVersionRepository.increment(event.getResource()) == 0) {
+            throw new IllegalStateException("Resource '%s' has no version".formatted(event.getResource()));
+        }
+        log.debug("Version of '{}' increased", event.getResource());
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onResourceChangeCommitted(ResourceChangedEvent event) {
+        versions.invalidate(event.getResource());
+    }
+
+    public long getVersion(String resource) {
+        return versions.get(resource, key -> resourceVersionRepository.findVersion(key)
+                .orElseThrow(() -> new IllegalStateException("Resource '%s' has no version".formatted(key))));
+    }
+}
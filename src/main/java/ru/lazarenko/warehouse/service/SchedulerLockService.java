@@ -0,0 +1,98 @@
+package ru.lazarenko.warehouse.service;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.lazarenko.warehouse.entity.SchedulerLock;
+import ru.lazarenko.warehouse.exception.LockLostException;
+import ru.lazarenko.warehouse.model.LockLease;
+import ru.lazarenko.warehouse.repository.SchedulerLockRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+/**
+ * Lease locks stored as one row per lock in {@code scheduler_locks}. Every acquisition increments the token,
+ * so a holder whose lease expired and was taken over can no longer renew it.
+ */
+@Service
+@RequiredArgsConstructor
+public class SchedulerLockService {
+    private static final LocalDateTime NEVER_HELD = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private final SchedulerLockRepository schedulerLockRepository;
+
+    /**
+     * Inserts the row of the lock in its own transaction. Fails with {@code DataIntegrityViolationException}
+     * if another node inserted it concurrently.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void createLockIfAbsent(String name) {
+        if (!schedulerLockRepository.existsById(name)) {
+            schedulerLockRepository.saveAndFlush(SchedulerLock.builder()
+                    .name(name)
+                    .token(0L)
+                    .expiresAt(NEVER_HELD)
+                    .build());
+        }
+    }
+
+    /**
+     * Expiry is compared with the database clock, so the clocks of the nodes do not have to agree.
+     */
+    @Transactional
+    public Optional<LockLease> tryAcquire(String name, String owner, Duration leaseTime) {
+        if (schedulerLockRepository.acquire(name, owner, toMicros(leaseTime)) == 0) {
+            return Optional.empty();
+        }
+
+        return schedulerLockRepository.findTokenByName(name)
+                .map(token -> new LockLease(name, owner, token));
+    }
+
+    /**
+     * Extends the lease. Joins the caller's transaction, so writes guarded by it commit only while the lease is held.
+     *
+     * @throws LockLostException if the lease was taken over by another holder
+     */
+    @Transactional
+    public void renew(LockLease lease, Duration leaseTime) {
+        int renewed = schedulerLockRepository.renew(lease.getName(), lease.getOwner(), lease.getToken(),
+                toMicros(leaseTime));
+        if (renewed == 0) {
+            throw lockLost(lease);
+        }
+    }
+
+    /**
+     * Checks the lease token and keeps the lock row share-locked until the caller's transaction ends, so a takeover
+     * cannot commit in between. Unlike {@link #renew}, concurrent writers of one holder do not wait for each other.
+     *
+     * @throws LockLostException if the lease was taken over by another holder
+     */
+    @Transactional
+    public void checkHeld(LockLease lease) {
+        if (schedulerLockRepository.findHeldToken(lease.getName(), lease.getOwner(), lease.getToken()).isEmpty()) {
+            throw lockLost(lease);
+        }
+    }
+
+    /**
+     * Gives the lease up; other nodes can take the lock once {@code holdFor} has passed on the database clock.
+     */
+    @Transactional
+    public void release(LockLease lease, Duration holdFor) {
+        schedulerLockRepository.renew(lease.getName(), lease.getOwner(), lease.getToken(), toMicros(holdFor));
+    }
+
+    private static long toMicros(Duration duration) {
+        return duration.toNanos() / 1_000;
+    }
+
+    private static LockLostException lockLost(LockLease lease) {
+        return new LockLostException("Lock '%s' with token '%s' is no longer held by '%s'"
+                .formatted(lease.getName(), lease.getToken(), lease.getOwner()));
+    }
+}
@@ -0,0 +1,82 @@
+package ru.lazarenko.warehouse.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Lets concurrent identical reads share one load. The first caller of a key runs the loader, callers that arrive
+ * while it runs wait for its result or exception instead of querying themselves. The shared result is an
+ * unmodifiable copy, and callers must not modify its elements either.
+ * <p>
+ * The loader runs in a read-only transaction of its own, so waiting callers hold no database connection. A caller
+ * already in a transaction loads by itself in that transaction: it may see its own uncommitted writes, which must
+ * not reach other callers, and it must not wait on a load that runs in another transaction.
+ */
+@Component
+public class SingleFlight {
+    private final Map<String, CompletableFuture<Object>> flights = new ConcurrentHashMap<>();
+    private final TransactionTemplate readOnlyTransaction;
+
+    @Value("${my.single-flight.enabled:true}")
+    private Boolean enabled;
+
+    public SingleFlight(PlatformTransactionManager transactionManager) {
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> List<T> read(String key, Supplier<List<T>> loader) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return List.copyOf(loader.get());
+        }
+        if (!enabled) {
+            return load(loader);
+        }
+
+        CompletableFuture<Object> flight = new CompletableFuture<>();
+        CompletableFuture<Object> running = flights.putIfAbsent(key, flight);
+        if (running != null) {
+            return (List<T>) join(running);
+        }
+
+        try {
+            List<T> result = load(loader);
+            flight.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            flights.remove(key, flight);
+        }
+    }
+
+    private <T> List<T> load(Supplier<List<T>> loader) {
+        return readOnlyTransaction.execute(status -> List.copyOf(loader.get()));
+    }
+
+    private Object join(CompletableFuture<Object> flight) {
+        try {
+            return flight.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw e;
+        }
+    }
+}
@@ -2,29 +2,44 @@ package ru.lazarenko.warehouse.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.HttpStatus;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
 import org.springframework.transaction.annotation.Transactional;
 import ru.lazarenko.warehouse.dto.*;
 import ru.lazarenko.warehouse.dto.info.ResponseDto;
 import ru.lazarenko.warehouse.dto.product.ProductDto;
 import ru.lazarenko.warehouse.dto.storage.ChangeItemStorageRequest;
+import ru.lazarenko.warehouse.dto.storage.InventoryFilterDto;
+import ru.lazarenko.warehouse.dto.storage.InventoryItemDto;
+import ru.lazarenko.warehouse.dto.storage.InventoryPageDto;
+import ru.lazarenko.warehouse.dto.storage.StockMovementBatchRequest;
+import ru.lazarenko.warehouse.dto.storage.StockMovementRequest;
 import ru.lazarenko.warehouse.dto.storage.StorageDto;
 import ru.lazarenko.warehouse.entity.*;
 import ru.lazarenko.warehouse.exception.NoFoundElementException;
 import ru.lazarenko.warehouse.exception.NoUniqueObjectException;
 import ru.lazarenko.warehouse.exception.ProductCountException;
+import ru.lazarenko.warehouse.model.InventorySort;
+import ru.lazarenko.warehouse.model.ItemStorageCount;
+import ru.lazarenko.warehouse.model.ItemStorageKey;
 import ru.lazarenko.warehouse.model.OperationType;
+import ru.lazarenko.warehouse.model.StorageView;
 import ru.lazarenko.warehouse.repository.StorageRepository;
 import ru.lazarenko.warehouse.service.mapper.StorageMapper;
 
-import java.util.List;
-import java.util.Optional;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class StorageService {
+    private static final int DEFAULT_INVENTORY_PAGE_SIZE = 100;
+
     private final StorageRepository storageRepository;
     private final RegionService regionService;
     private final ProductService productService;
@@ -32,6 +47,8 @@ public class StorageService {
     private final CategoryService categoryService;
     private final StorageMapper storageMapper;
     private final OperationHistoryService operationHistoryService;
+    private final ReferenceNameIndex referenceNameIndex;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional
     public ResponseDto createStorage(StorageDto request) {
@@ -43,6 +60,8 @@ public class StorageService {
         storage.setRegion(region);
 
         Storage savedStorage = storageRepository.save(storage);
+        eventPublisher.publishEvent(new ResourceChangedEvent("storages"));
+        referenceNameIndex.putStorage(new StorageView(savedStorage.getId(), savedStorage.getName(), region.getId()));
         log.info("Storage successful created: {}", savedStorage);
 
         return ResponseDto.builder()
@@ -52,79 +71,159 @@ public class StorageService {
     }
 
     @Transactional(readOnly = true)
-    public List<StorageDto> getAllStorages() {
-        List<Storage> storages = storageRepository.findAll();
+    public List<StorageDto> getStoragesAfter(Integer afterId, int limit) {
+        List<Storage> storages = storageRepository.findPageAfter(afterId, PageRequest.of(0, limit));
 
         return storageMapper.toStorageDtoList(storages);
     }
 
-    @Transactional
+    /**
+     * Locks the item and reads its count before the update, so the total needs no further read. The first loading
+     * of a pair inserts the item in this transaction; read committed keeps the locking read of a missing item from
+     * taking a gap lock that a concurrent first loading of the pair would deadlock on.
+     */
+    @Transactional(isolation = Isolation.READ_COMMITTED)
     public ResponseDto increaseProductInStorage(ChangeItemStorageRequest request) {
-        Storage storage = checkExistAndGetStorageById(request.getStorageId());
-        Product product = productService.checkExistAndGetProductById(request.getProductId());
+        Integer productId = request.getProductId();
+        Integer storageId = request.getStorageId();
 
-        Optional<ItemStorage> optionalItem = itemStorageService.getItemByProductIdAndStorageId(product.getId(), storage.getId());
+        Optional<Integer> count = itemStorageService.lockCount(productId, storageId);
+        if (count.isEmpty()) {
+            checkExistAndGetStorageById(storageId);
+            productService.checkExistAndGetProductById(productId);
 
-        OperationHistoryDto operationHistoryDto = OperationHistoryDto.builder()
-                .product(product)
-                .storage(storage)
-                .count(request.getCount())
-                .operation(OperationType.LOADING)
-                .build();
-        operationHistoryService.saveOperationHistory(operationHistoryDto);
-
-        if (optionalItem.isEmpty()) {
-            ItemStorage itemStorage = ItemStorage.builder()
-                    .product(product)
-                    .storage(storage)
-                    .count(request.getCount())
-                    .build();
-
-            return itemStorageService.createItem(itemStorage);
+            itemStorageService.createEmptyItems(List.of(new ItemStorageKey(productId, storageId)));
+            count = itemStorageService.lockCount(productId, storageId);
         }
+        itemStorageService.increaseCount(productId, storageId, request.getCount());
 
-        ItemStorage item = optionalItem.get();
-
-        int newCount = item.getCount() + request.getCount();
-        item.setCount(newCount);
+        saveOperationHistory(request, OperationType.LOADING);
 
-        return itemStorageService.createItem(item);
+        return ResponseDto.builder()
+                .status(HttpStatus.CREATED.name())
+                .message("Total count of product with id='%s' on storage with id='%s': %s"
+                        .formatted(productId, storageId, count.orElseThrow() + request.getCount()))
+                .build();
     }
 
     @Transactional
     public ResponseDto decreaseProductInStorage(ChangeItemStorageRequest request) {
-        Storage storage = checkExistAndGetStorageById(request.getStorageId());
-        Product product = productService.checkExistAndGetProductById(request.getProductId());
+        Integer productId = request.getProductId();
+        Integer storageId = request.getStorageId();
 
-        ItemStorage foundItem = itemStorageService.getItemByProductIdAndStorageId(product.getId(), storage.getId())
-                .orElseThrow(() -> new NoFoundElementException("Product with id='%s' in storage with id='%s' not found"));
-
-        if (foundItem.getCount() < request.getCount()) {
+        Optional<Integer> count = itemStorageService.lockCount(productId, storageId);
+        if (count.isEmpty()) {
+            throw resolveMissingItem(request);
+        }
+        if (count.get() < request.getCount()) {
             throw new ProductCountException("Count of product with id='%s' less than %s. Actual count of product is %s"
-                    .formatted(foundItem.getProduct().getId(), request.getCount(), foundItem.getCount()));
+                    .formatted(productId, request.getCount(), count.get()));
         }
+        itemStorageService.decreaseCount(productId, storageId, request.getCount());
 
-        int newCount = foundItem.getCount() - request.getCount();
-        foundItem.setCount(newCount);
-
-        OperationHistoryDto operationHistoryDto = OperationHistoryDto.builder()
-                .product(product)
-                .storage(storage)
-                .count(request.getCount())
-                .operation(OperationType.SHIPMENT)
-                .build();
-        operationHistoryService.saveOperationHistory(operationHistoryDto);
-
-        ItemStorage savedItem = itemStorageService.updateItemAndGetSaved(foundItem);
+        saveOperationHistory(request, OperationType.SHIPMENT);
 
         return ResponseDto.builder()
                 .status(HttpStatus.OK.name())
                 .message("Total count of product with id='%s' on storage with id='%s': %s"
-                        .formatted(savedItem.getProduct().getId(), savedItem.getStorage().getId(),
-                                savedItem.getCount()))
+                        .formatted(productId, storageId, count.get() - request.getCount()))
                 .build();
     }
 
+    @Transactional
+    public List<ResponseDto> applyMovementBatch(StockMovementBatchRequest request) {
+        List<StockMovementRequest> movements = request.getMovements();
+        ResponseDto[] results = new ResponseDto[movements.size()];
+
+        Set<Integer> productIds = productService.getExistingProductIds(movements.stream()
+                .map(movement -> movement.getItem().getProductId())
+                .collect(Collectors.toSet()));
+        Set<Integer> storageIds = storageRepository.findExistingIds(movements.stream()
+                .map(movement -> movement.getItem().getStorageId())
+                .collect(Collectors.toSet()));
+
+        List<Integer> applicable = new ArrayList<>();
+        for (int i = 0; i < movements.size(); i++) {
+            ChangeItemStorageRequest item = movements.get(i).getItem();
+            if (!storageIds.contains(item.getStorageId())) {
+                results[i] = toMovementResult(HttpStatus.NOT_FOUND,
+                        "Storage with id='%s' not found".formatted(item.getStorageId()));
+            } else if (!productIds.contains(item.getProductId())) {
+                results[i] = toMovementResult(HttpStatus.NOT_FOUND,
+                        "Product with id='%s' not found".formatted(item.getProductId()));
+            } else {
+                applicable.add(i);
+            }
+        }
+
+        if (applicable.isEmpty()) {
+            return List.of(results);
+        }
+
+        Set<ItemStorageKey> keys = applicable.stream()
+                .map(i -> movements.get(i).getItem())
+                .map(item -> new ItemStorageKey(item.getProductId(), item.getStorageId()))
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        Set<ItemStorageKey> existingItems = itemStorageService.getCounts(keys).stream()
+                .map(ItemStorageCount::getKey)
+                .collect(Collectors.toSet());
+
+        List<ItemStorageCount> changes = new ArrayList<>(applicable.size());
+        Set<ItemStorageKey> missingItems = new LinkedHashSet<>();
+        for (Integer i : applicable) {
+            StockMovementRequest movement = movements.get(i);
+            ChangeItemStorageRequest item = movement.getItem();
+            int delta = movement.getOperation() == OperationType.LOADING ? item.getCount() : -item.getCount();
+            ItemStorageCount change = new ItemStorageCount(item.getProductId(), item.getStorageId(), delta);
+
+            if (movement.getOperation() == OperationType.LOADING && !existingItems.contains(change.getKey())) {
+                missingItems.add(change.getKey());
+            }
+            changes.add(change);
+        }
+        if (!missingItems.isEmpty()) {
+            itemStorageService.createEmptyItems(missingItems);
+        }
+
+        int[] updated = itemStorageService.changeCounts(changes);
+
+        // walk back from the final counts to get the count right after every line
+        Map<ItemStorageKey, Integer> counts = itemStorageService.getCounts(keys).stream()
+                .collect(Collectors.toMap(ItemStorageCount::getKey, ItemStorageCount::getCount));
+
+        List<OperationHistoryDto> histories = new ArrayList<>();
+        for (int j = applicable.size() - 1; j >= 0; j--) {
+            int i = applicable.get(j);
+            StockMovementRequest movement = movements.get(i);
+            ItemStorageCount change = changes.get(j);
+            Integer count = counts.get(change.getKey());
+
+            if (updated[j] == 0) {
+                results[i] = count == null
+                        ? toMovementResult(HttpStatus.NOT_FOUND,
+                        "Product with id='%s' in storage with id='%s' not found"
+                                .formatted(change.getProductId(), change.getStorageId()))
+                        : toMovementResult(HttpStatus.BAD_REQUEST,
+                        "Count of product with id='%s' less than %s. Actual count of product is %s"
+                                .formatted(change.getProductId(), movement.getItem().getCount(), count));
+                continue;
+            }
+
+            results[i] = toMovementResult(
+                    movement.getOperation() == OperationType.LOADING ? HttpStatus.CREATED : HttpStatus.OK,
+                    "Total count of product with id='%s' on storage with id='%s': %s"
+                            .formatted(change.getProductId(), change.getStorageId(), count));
+            counts.put(change.getKey(), count - change.getCount());
+            histories.add(toOperationHistoryDto(movement.getItem(), movement.getOperation()));
+        }
+
+        Collections.reverse(histories);
+        operationHistoryService.saveOperationHistories(histories);
+        log.info("Batch of {} movements applied, {} succeeded", movements.size(), histories.size());
+
+        return List.of(results);
+    }
+
     @Transactional(readOnly = true)
     public Storage checkExistAndGetStorageById(Integer id) {
         return storageRepository.findById(id)
@@ -133,24 +232,85 @@ public class StorageService {
 
     @Transactional(readOnly = true)
     public void checkUniqueName(String name) {
-        Optional<Storage> foundStorage = storageRepository.findByName(name);
-        if (foundStorage.isPresent()) {
+        if (referenceNameIndex.getStorage(name).isPresent() || storageRepository.findByName(name).isPresent()) {
             throw new NoUniqueObjectException("Storage with name='%s' already exist".formatted(name));
         }
     }
 
-    @Transactional(readOnly = true)
+    /**
+     * The storage is looked up only to tell an unknown storage from an empty one, so a non-empty list
+     * costs a single statement. No transaction is opened here: callers waiting for the same list
+     * in {@link ItemStorageService} would hold a connection each.
+     */
     public List<ProductDto> getAllProductsByStorageId(Integer storageId) {
-        Storage storage = checkExistAndGetStorageById(storageId);
+        List<ProductDto> products = itemStorageService.getProductsByStorageId(storageId);
+        if (products.isEmpty()) {
+            checkExistAndGetStorageById(storageId);
+        }
+        return products;
+    }
 
-        return itemStorageService.getProductsByStorageId(storage.getId());
+    public List<ProductDto> getAllProductsByStorageIdAndCategory(Integer storageId, String category) {
+        List<ProductDto> products = itemStorageService.getProductsByStorageIdAndCategory(storageId, category);
+        if (products.isEmpty()) {
+            checkExistAndGetStorageById(storageId);
+            categoryService.checkExistAndGetCategoryByName(category);
+        }
+        return products;
     }
 
+    /**
+     * The next cursor is set when the page is full. The storage is looked up only when the first page is empty.
+     */
     @Transactional(readOnly = true)
-    public List<ProductDto> getAllProductsByStorageIdAndCategory(Integer storageId, String category) {
-        Storage storage = checkExistAndGetStorageById(storageId);
-        Category foundCategory = categoryService.checkExistAndGetCategoryByName(category);
+    public InventoryPageDto getInventoryPage(Integer storageId, InventoryFilterDto filter) {
+        int size = filter.getSize() == null ? DEFAULT_INVENTORY_PAGE_SIZE : filter.getSize();
+        List<InventoryItemDto> items = itemStorageService.getInventory(storageId, filter, size);
+        if (items.isEmpty() && filter.getAfterName() == null && filter.getAfterCount() == null) {
+            checkExistAndGetStorageById(storageId);
+        }
 
-        return itemStorageService.getProductsByStorageIdAndCategory(storage.getId(), foundCategory.getName());
+        InventoryPageDto page = InventoryPageDto.builder()
+                .items(items)
+                .build();
+        if (items.size() == size) {
+            InventoryItemDto last = items.get(items.size() - 1);
+            if (filter.getSort() == InventorySort.COUNT) {
+                page.setNextAfterCount(last.getCount());
+            } else {
+                page.setNextAfterName(last.getName());
+            }
+            page.setNextAfterId(last.getProductId());
+        }
+        return page;
+    }
+
+    private NoFoundElementException resolveMissingItem(ChangeItemStorageRequest request) {
+        Storage storage = checkExistAndGetStorageById(request.getStorageId());
+        Product product = productService.checkExistAndGetProductById(request.getProductId());
+
+        return new NoFoundElementException("Product with id='%s' in storage with id='%s' not found"
+                .formatted(product.getId(), storage.getId()));
+    }
+
+    private void saveOperationHistory(ChangeItemStorageRequest request, OperationType operation) {
+        operationHistoryService.saveOperationHistory(toOperationHistoryDto(request, operation));
+    }
+
+    private OperationHistoryDto toOperationHistoryDto(ChangeItemStorageRequest request, OperationType operation) {
+        return OperationHistoryDto.builder()
+                .product(productService.getProductReferenceById(request.getProductId()))
+                .storage(storageRepository.getReferenceById(request.getStorageId()))
+                .count(request.getCount())
+                .operation(operation)
+                .date(LocalDateTime.now())
+                .build();
+    }
+
+    private ResponseDto toMovementResult(HttpStatus status, String message) {
+        return ResponseDto.builder()
+                .status(status.name())
+                .message(message)
+                .build();
     }
-}
\ No newline at end of file
+}
@@ -2,6 +2,7 @@ package ru.lazarenko.warehouse.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
@@ -58,8 +59,12 @@ public class UserService {
     }
 
     @Transactional(readOnly = true)
-    public List<UserDto> getAllUsers() {
-        List<User> users = userRepository.findAllWithRoles();
+    public List<UserDto> getUsersAfter(Integer afterId, int limit) {
+        List<Integer> ids = userRepository.findIdPageAfter(afterId, PageRequest.of(0, limit));
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        List<User> users = userRepository.findAllWithRolesByIdIn(ids);
         return userMapper.toUserDtoList(users);
     }
 
@@ -1,10 +1,18 @@
 package ru.lazarenko.warehouse.service.mapper;
 
 import org.mapstruct.Mapper;
+import ru.lazarenko.warehouse.dto.HistoryRecordDto;
 import ru.lazarenko.warehouse.dto.OperationHistoryDto;
 import ru.lazarenko.warehouse.entity.OperationHistory;
+import ru.lazarenko.warehouse.model.OperationEvent;
+
+import java.util.List;
 
 @Mapper(componentModel = "spring")
 public interface OperationMapper {
     OperationHistory toOperationHistory(OperationHistoryDto dto);
+
+    List<OperationHistory> toOperationHistoryList(List<OperationHistoryDto> dtos);
+
+    HistoryRecordDto toHistoryRecordDto(OperationEvent event);
 }
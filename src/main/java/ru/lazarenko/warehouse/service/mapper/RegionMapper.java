@@ -1,9 +1,13 @@
 package ru.lazarenko.warehouse.service.mapper;
 
 import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
 import org.mapstruct.MappingTarget;
 import ru.lazarenko.warehouse.dto.RegionDto;
 import ru.lazarenko.warehouse.entity.Region;
+import ru.lazarenko.warehouse.entity.Storage;
+import ru.lazarenko.warehouse.model.RegionView;
+import ru.lazarenko.warehouse.model.StorageView;
 
 import java.util.List;
 
@@ -15,4 +19,9 @@ public interface RegionMapper {
 
     List<RegionDto> toRegionDtoList(List<Region> regions);
 
+    RegionView toRegionView(Region region);
+
+    @Mapping(target = "regionId", source = "region.id")
+    StorageView toStorageView(Storage storage);
+
 }
@@ -1,8 +1,12 @@
 package ru.lazarenko.warehouse.service.mapper;
 
 import org.mapstruct.Mapper;
+import ru.lazarenko.warehouse.dto.RegionDto;
+import ru.lazarenko.warehouse.dto.storage.InventoryItemDto;
 import ru.lazarenko.warehouse.dto.storage.StorageDto;
 import ru.lazarenko.warehouse.entity.Storage;
+import ru.lazarenko.warehouse.model.InventoryItem;
+import ru.lazarenko.warehouse.model.RegionView;
 
 import java.util.List;
 
@@ -14,4 +18,12 @@ public interface StorageMapper {
 
     List<StorageDto> toStorageDtoList(List<Storage> storages);
 
+    List<InventoryItemDto> toInventoryItemDtoList(List<InventoryItem> items);
+
+    default List<StorageDto> toStorageDtoList(RegionView region) {
+        RegionDto regionDto = new RegionDto(region.getId(), region.getName());
+        return region.getStorages().stream()
+                .map(storage -> new StorageDto(storage.getId(), storage.getName(), regionDto))
+                .toList();
+    }
 }
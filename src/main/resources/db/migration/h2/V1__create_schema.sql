@@ -0,0 +1,64 @@
+create sequence categories_seq start with 1 increment by 50;
+create sequence regions_seq start with 1 increment by 50;
+create sequence products_seq start with 1 increment by 50;
+create sequence storages_seq start with 1 increment by 50;
+create sequence items_storage_seq start with 1 increment by 50;
+create sequence roles_seq start with 1 increment by 50;
+create sequence users_seq start with 1 increment by 50;
+create sequence operation_histories_seq start with 1 increment by 50;
+create sequence manufacture_analyses_seq start with 1 increment by 50;
+create sequence operation_rollups_seq start with 1 increment by 50;
+
+create table categories (id integer not null, name varchar(255), primary key (id));
+create table regions (id integer not null, name varchar(255), primary key (id));
+create table products (id integer not null, name varchar(255), price numeric(19,2), category_id integer,
+    primary key (id));
+create table storages (id integer not null, name varchar(255), region_id integer, primary key (id));
+create table items_storage (id integer not null, count integer, product_id integer, storage_id integer,
+    primary key (id));
+create table roles (id integer not null, name varchar(255), primary key (id));
+create table users (id integer not null, password varchar(255), registration_date date, username varchar(255),
+    primary key (id));
+create table users_roles (user_id integer not null, role_id integer not null);
+create table operation_histories (id integer not null, count integer, date timestamp, operation varchar(255),
+    product_id integer, storage_id integer, primary key (id));
+create table manufacture_analyses (id integer not null, change_type varchar(255), operation varchar(255),
+    report_date date, product_id integer, storage_id integer, primary key (id));
+create table operation_rollups (id integer not null, bucket_start timestamp, count bigint,
+    granularity varchar(255), operation varchar(255), records bigint, product_id integer, storage_id integer,
+    primary key (id));
+create table analysis_checkpoints (name varchar(255) not null, last_date timestamp, last_id integer,
+    primary key (name));
+create table scheduler_locks (name varchar(255) not null, expires_at timestamp, owner varchar(255), token bigint,
+    primary key (name));
+
+alter table items_storage add constraint uk_items_storage_product_storage unique (product_id, storage_id);
+alter table manufacture_analyses add constraint uk_manufacture_analyses_date_storage_product_operation
+    unique (report_date, storage_id, product_id, operation);
+alter table operation_rollups add constraint uk_operation_rollups_bucket_product_storage_operation
+    unique (granularity, bucket_start, product_id, storage_id, operation);
+
+create index idx_manufacture_analyses_date_id
+    on manufacture_analyses (report_date, id, storage_id, product_id, change_type);
+create index idx_operation_histories_date_product_storage
+    on operation_histories (date, product_id, storage_id, operation, count);
+create index idx_operation_rollups_storage_bucket on operation_rollups (granularity, storage_id, bucket_start);
+
+alter table products add constraint fk_products_category foreign key (category_id) references categories (id);
+alter table storages add constraint fk_storages_region foreign key (region_id) references regions (id);
+alter table items_storage add constraint fk_items_storage_product foreign key (product_id) references products (id);
+alter table items_storage add constraint fk_items_storage_storage foreign key (storage_id) references storages (id);
+alter table users_roles add constraint fk_users_roles_role foreign key (role_id) references roles (id);
+alter table users_roles add constraint fk_users_roles_user foreign key (user_id) references users (id);
+alter table operation_histories add constraint fk_operation_histories_product
+    foreign key (product_id) references products (id);
+alter table operation_histories add constraint fk_operation_histories_storage
+    foreign key (storage_id) references storages (id);
+alter table manufacture_analyses add constraint fk_manufacture_analyses_product
+    foreign key (product_id) references products (id);
+alter table manufacture_analyses add constraint fk_manufacture_analyses_storage
+    foreign key (storage_id) references storages (id);
+alter table operation_rollups add constraint fk_operation_rollups_product
+    foreign key (product_id) references products (id);
+alter table operation_rollups add constraint fk_operation_rollups_storage
+    foreign key (storage_id) references storages (id);
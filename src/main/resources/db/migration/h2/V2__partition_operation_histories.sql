@@ -0,0 +1,8 @@
+-- H2 has no table partitioning: the history keeps one table with the same keys as the MySQL layout,
+-- and range scans by date go through idx_operation_histories_date_product_storage.
+alter table operation_histories drop constraint fk_operation_histories_product;
+alter table operation_histories drop constraint fk_operation_histories_storage;
+
+alter table operation_histories alter column date set not null;
+alter table operation_histories drop primary key;
+alter table operation_histories add primary key (id, date);
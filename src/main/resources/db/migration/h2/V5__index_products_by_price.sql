@@ -0,0 +1,3 @@
+-- Price range searches and the price index load seek on (price, id).
+create index idx_products_price
+    on products (price, id);
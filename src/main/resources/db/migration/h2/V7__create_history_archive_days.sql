@@ -0,0 +1,3 @@
+-- Days moved to the archive tier with the location of their segment; readers take the tier of a day from here.
+create table history_archive_days (archive_date date not null, location varchar(1024) not null,
+    row_count integer not null, primary key (archive_date));
@@ -0,0 +1,6 @@
+-- Products are never renamed, so items keep a copy of the product name and the inventory of a storage can seek
+-- an index in name order instead of sorting all of its items.
+alter table items_storage add column product_name varchar(255);
+update items_storage set product_name = (select p.name from products p where p.id = items_storage.product_id);
+create index idx_items_storage_storage_product_name
+    on items_storage (storage_id, product_name, product_id);
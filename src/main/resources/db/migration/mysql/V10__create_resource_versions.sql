@@ -0,0 +1,9 @@
+-- Versions of the listed resources, bumped in every transaction that creates their rows; the list endpoints take
+-- their ETags from here, so every node answers with the same tag.
+create table resource_versions (resource varchar(64) not null, version bigint not null,
+    primary key (resource)) engine=InnoDB;
+insert into resource_versions (resource, version)
+values ('categories', 0),
+       ('products', 0),
+       ('regions', 0),
+       ('storages', 0);
@@ -0,0 +1,85 @@
+create table categories (id integer not null, name varchar(255), primary key (id)) engine=InnoDB;
+create table categories_seq (next_val bigint) engine=InnoDB;
+insert into categories_seq values (1);
+
+create table regions (id integer not null, name varchar(255), primary key (id)) engine=InnoDB;
+create table regions_seq (next_val bigint) engine=InnoDB;
+insert into regions_seq values (1);
+
+create table products (id integer not null, name varchar(255), price decimal(19,2), category_id integer,
+    primary key (id)) engine=InnoDB;
+create table products_seq (next_val bigint) engine=InnoDB;
+insert into products_seq values (1);
+
+create table storages (id integer not null, name varchar(255), region_id integer, primary key (id)) engine=InnoDB;
+create table storages_seq (next_val bigint) engine=InnoDB;
+insert into storages_seq values (1);
+
+create table items_storage (id integer not null, count integer, product_id integer, storage_id integer,
+    primary key (id)) engine=InnoDB;
+create table items_storage_seq (next_val bigint) engine=InnoDB;
+insert into items_storage_seq values (1);
+
+create table roles (id integer not null, name varchar(255), primary key (id)) engine=InnoDB;
+create table roles_seq (next_val bigint) engine=InnoDB;
+insert into roles_seq values (1);
+
+create table users (id integer not null, password varchar(255), registration_date date, username varchar(255),
+    primary key (id)) engine=InnoDB;
+create table users_seq (next_val bigint) engine=InnoDB;
+insert into users_seq values (1);
+
+create table users_roles (user_id integer not null, role_id integer not null) engine=InnoDB;
+
+create table operation_histories (id integer not null, count integer, date datetime(6), operation varchar(255),
+    product_id integer, storage_id integer, primary key (id)) engine=InnoDB;
+create table operation_histories_seq (next_val bigint) engine=InnoDB;
+insert into operation_histories_seq values (1);
+
+create table manufacture_analyses (id integer not null, change_type varchar(255), operation varchar(255),
+    report_date date, product_id integer, storage_id integer, primary key (id)) engine=InnoDB;
+create table manufacture_analyses_seq (next_val bigint) engine=InnoDB;
+insert into manufacture_analyses_seq values (1);
+
+create table operation_rollups (id integer not null, bucket_start datetime(6), count bigint,
+    granularity varchar(255), operation varchar(255), records bigint, product_id integer, storage_id integer,
+    primary key (id)) engine=InnoDB;
+create table operation_rollups_seq (next_val bigint) engine=InnoDB;
+insert into operation_rollups_seq values (1);
+
+create table analysis_checkpoints (name varchar(255) not null, last_date datetime(6), last_id integer,
+    primary key (name)) engine=InnoDB;
+
+create table scheduler_locks (name varchar(255) not null, expires_at datetime(6), owner varchar(255), token bigint,
+    primary key (name)) engine=InnoDB;
+
+alter table items_storage add constraint uk_items_storage_product_storage unique (product_id, storage_id);
+alter table manufacture_analyses add constraint uk_manufacture_analyses_date_storage_product_operation
+    unique (report_date, storage_id, product_id, operation);
+alter table operation_rollups add constraint uk_operation_rollups_bucket_product_storage_operation
+    unique (granularity, bucket_start, product_id, storage_id, operation);
+
+create index idx_manufacture_analyses_date_id
+    on manufacture_analyses (report_date, id, storage_id, product_id, change_type);
+create index idx_operation_histories_date_product_storage
+    on operation_histories (date, product_id, storage_id, operation, count);
+create index idx_operation_rollups_storage_bucket on operation_rollups (granularity, storage_id, bucket_start);
+
+alter table products add constraint fk_products_category foreign key (category_id) references categories (id);
+alter table storages add constraint fk_storages_region foreign key (region_id) references regions (id);
+alter table items_storage add constraint fk_items_storage_product foreign key (product_id) references products (id);
+alter table items_storage add constraint fk_items_storage_storage foreign key (storage_id) references storages (id);
+alter table users_roles add constraint fk_users_roles_role foreign key (role_id) references roles (id);
+alter table users_roles add constraint fk_users_roles_user foreign key (user_id) references users (id);
+alter table operation_histories add constraint fk_operation_histories_product
+    foreign key (product_id) references products (id);
+alter table operation_histories add constraint fk_operation_histories_storage
+    foreign key (storage_id) references storages (id);
+alter table manufacture_analyses add constraint fk_manufacture_analyses_product
+    foreign key (product_id) references products (id);
+alter table manufacture_analyses add constraint fk_manufacture_analyses_storage
+    foreign key (storage_id) references storages (id);
+alter table operation_rollups add constraint fk_operation_rollups_product
+    foreign key (product_id) references products (id);
+alter table operation_rollups add constraint fk_operation_rollups_storage
+    foreign key (storage_id) references storages (id);
@@ -0,0 +1,14 @@
+-- Partitioned InnoDB tables support neither foreign keys nor unique keys without the partitioning column,
+-- so the history keeps plain product/storage columns and its primary key becomes (id, date).
+-- Months are added ahead of time and expired months are dropped or archived by HistoryPartitionMaintenance;
+-- p_future stays empty so that splitting it never moves rows.
+alter table operation_histories drop foreign key fk_operation_histories_product;
+alter table operation_histories drop foreign key fk_operation_histories_storage;
+
+alter table operation_histories modify date datetime(6) not null;
+alter table operation_histories drop primary key, add primary key (id, date);
+
+alter table operation_histories partition by range columns (date) (
+    partition p_start values less than ('2023-01-01 00:00:00'),
+    partition p_future values less than (maxvalue)
+);
@@ -0,0 +1,5 @@
+-- Covering indexes for history reads filtered by storage or product within a date range.
+create index idx_operation_histories_storage_date
+    on operation_histories (storage_id, date, product_id, operation, count);
+create index idx_operation_histories_product_date
+    on operation_histories (product_id, date, storage_id, operation, count);
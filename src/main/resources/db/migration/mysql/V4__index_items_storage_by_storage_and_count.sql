@@ -0,0 +1,3 @@
+-- Covering index for the inventory of a storage in count order.
+create index idx_items_storage_storage_count
+    on items_storage (storage_id, count, product_id);
@@ -0,0 +1,5 @@
+-- Seeks for report pages filtered by storage or product in (report date, id) order.
+create index idx_manufacture_analyses_storage_date_id
+    on manufacture_analyses (storage_id, report_date, id);
+create index idx_manufacture_analyses_product_date_id
+    on manufacture_analyses (product_id, report_date, id);
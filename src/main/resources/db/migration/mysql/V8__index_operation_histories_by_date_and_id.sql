@@ -0,0 +1,13 @@
+-- History reads are ordered by (date, id); every filter combination of the export gets an index ending in
+-- (date, id), and the storage and product indexes keep the remaining columns to stay covering.
+drop index idx_operation_histories_date_product_storage on operation_histories;
+create index idx_operation_histories_date_id
+    on operation_histories (date, id, product_id, storage_id, operation, count);
+drop index idx_operation_histories_storage_date on operation_histories;
+create index idx_operation_histories_storage_date_id
+    on operation_histories (storage_id, date, id, product_id, operation, count);
+drop index idx_operation_histories_product_date on operation_histories;
+create index idx_operation_histories_product_date_id
+    on operation_histories (product_id, date, id, storage_id, operation, count);
+create index idx_operation_histories_storage_product_date_id
+    on operation_histories (storage_id, product_id, date, id);
@@ -6,10 +6,14 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import ru.lazarenko.warehouse.dto.ReportDto;
+import ru.lazarenko.warehouse.dto.ReportPageDto;
 import ru.lazarenko.warehouse.dto.UserDto;
 import ru.lazarenko.warehouse.dto.product.ProductDto;
 import ru.lazarenko.warehouse.dto.storage.StorageDto;
@@ -20,7 +24,9 @@ import ru.lazarenko.warehouse.entity.Storage;
 import ru.lazarenko.warehouse.model.ChangeType;
 import ru.lazarenko.warehouse.model.OperationType;
 import ru.lazarenko.warehouse.model.UserRole;
+import ru.lazarenko.warehouse.model.ReportSnapshot;
 import ru.lazarenko.warehouse.scheduled.ManufactureAnalysisService;
+import ru.lazarenko.warehouse.scheduled.ReportSnapshotService;
 import ru.lazarenko.warehouse.service.UserService;
 
 import java.math.BigDecimal;
@@ -33,12 +39,21 @@ import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.TimeUnit;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(AdminController.class)
+@Import({KeysetPagination.class, SynchronousAsyncConfig.class})
 class AdminControllerTest {
 
     @Autowired
@@ -47,6 +62,9 @@ class AdminControllerTest {
     @MockBean
     UserService userService;
 
+    @MockBean
+    ReportSnapshotService reportSnapshotService;
+
     @MockBean
     ManufactureAnalysisService manufactureAnalysisService;
 
@@ -57,10 +75,14 @@ class AdminControllerTest {
     @WithMockUser
     @DisplayName("get all users | status is ok and result list is empty | users don't exist")
     void getAllUsersCategories_statusOkAndEmptyResultList_usersDoNotExist() throws Exception {
-        when(userService.getAllUsers())
+        when(userService.getUsersAfter(0, 500))
                 .thenReturn(List.of());
 
-        mvc.perform(MockMvcRequestBuilders.get("/api/admin/users"))
+        MvcResult result = mvc.perform(MockMvcRequestBuilders.get("/api/admin/users"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(asyncDispatch(result))
                 .andDo(print())
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$").isEmpty())
@@ -86,10 +108,14 @@ class AdminControllerTest {
                 .roles(List.of(roleAdmin, roleManager))
                 .build();
 
-        when(userService.getAllUsers())
+        when(userService.getUsersAfter(0, 500))
                 .thenReturn(List.of(userDto));
 
-        mvc.perform(MockMvcRequestBuilders.get("/api/admin/users"))
+        MvcResult result = mvc.perform(MockMvcRequestBuilders.get("/api/admin/users"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(asyncDispatch(result))
                 .andDo(print())
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$").isNotEmpty())
@@ -103,8 +129,8 @@ class AdminControllerTest {
     @WithMockUser
     @DisplayName("get report | status is ok and result list is empty | notices don't exist")
     void getReport_statusOkAndEmptyResultList_noticesDoNotExist() throws Exception {
-        when(manufactureAnalysisService.getReport())
-                .thenReturn(List.of());
+        when(reportSnapshotService.getSnapshot())
+                .thenReturn(snapshot(List.of()));
 
         mvc.perform(MockMvcRequestBuilders.get("/api/admin/report"))
                 .andDo(print())
@@ -128,16 +154,99 @@ class AdminControllerTest {
                 .changeType(ChangeType.DECREASE)
                 .build();
 
-        when(manufactureAnalysisService.getReport())
-                .thenReturn(List.of(reportDto));
+        when(reportSnapshotService.getSnapshot())
+                .thenReturn(snapshot(List.of(reportDto)));
 
         mvc.perform(MockMvcRequestBuilders.get("/api/admin/report"))
                 .andDo(print())
                 .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"v1\""))
                 .andExpect(jsonPath("$").isNotEmpty())
                 .andExpect(jsonPath("$[0].id").exists())
                 .andExpect(jsonPath("$[0].storage.name").value("str-1"))
                 .andExpect(jsonPath("$[0].product.name").value("Coffee"))
                 .andExpect(jsonPath("$.size()").value(1));
     }
-}
\ No newline at end of file
+
+    @Test
+    @WithMockUser
+    @DisplayName("get report | status is not modified and body is empty | etag of the client matches snapshot")
+    void getReport_statusNotModifiedAndEmptyBody_etagMatches() throws Exception {
+        when(reportSnapshotService.getSnapshot())
+                .thenReturn(snapshot(List.of()));
+
+        mvc.perform(MockMvcRequestBuilders.get("/api/admin/report")
+                        .header(HttpHeaders.IF_NONE_MATCH, "\"v1\""))
+                .andDo(print())
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    @WithMockUser
+    @DisplayName("get report | status is ok and page with next cursor | filter params are given")
+    void getReport_statusOkAndPageWithNextCursor_filterParamsGiven() throws Exception {
+        ReportDto reportDto = ReportDto.builder()
+                .id(11)
+                .operation(OperationType.LOADING)
+                .changeType(ChangeType.INCREASE)
+                .build();
+
+        when(manufactureAnalysisService.getReportPage(any()))
+                .thenReturn(ReportPageDto.builder()
+                        .items(List.of(reportDto))
+                        .nextAfterDate(LocalDate.of(2023, 5, 2))
+                        .nextAfterId(11)
+                        .build());
+
+        mvc.perform(MockMvcRequestBuilders.get("/api/admin/report")
+                        .param("regionId", "2")
+                        .param("changeType", "INCREASE")
+                        .param("from", "2023-05-01")
+                        .param("size", "1"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.size()").value(1))
+                .andExpect(jsonPath("$.items[0].id").value(11))
+                .andExpect(jsonPath("$.nextAfterDate").value("2023-05-02"))
+                .andExpect(jsonPath("$.nextAfterId").value(11));
+
+        verify(manufactureAnalysisService).getReportPage(argThat(filter -> filter.getRegionId() == 2
+                && filter.getChangeType() == ChangeType.INCREASE
+                && filter.getFrom().equals(LocalDate.of(2023, 5, 1))
+                && filter.getSize() == 1));
+        verify(reportSnapshotService, never()).getSnapshot();
+    }
+
+    @Test
+    @WithMockUser
+    @DisplayName("get report | status is bad request | page size is too large")
+    void getReport_statusBadRequest_pageSizeTooLarge() throws Exception {
+        mvc.perform(MockMvcRequestBuilders.get("/api/admin/report")
+                        .param("size", "1001"))
+                .andDo(print())
+                .andExpect(status().isBadRequest());
+
+        verify(manufactureAnalysisService, never()).getReportPage(any());
+    }
+
+    private ReportSnapshot snapshot(List<ReportDto> report) throws Exception {
+        return new ReportSnapshot(objectMapper.writeValueAsBytes(report), 1L, "\"v1\"",
+                LocalDate.now(), LocalDateTime.now());
+    }
+
+    @Test
+    @WithMockUser
+    @DisplayName("get all users | status is ok and page without next cursor | page is not full")
+    void getAllUsers_statusOkAndPageWithoutNextCursor_pageNotFull() throws Exception {
+        when(userService.getUsersAfter(0, 100))
+                .thenReturn(List.of(UserDto.builder().id(1).username("admin").build()));
+
+        mvc.perform(MockMvcRequestBuilders.get("/api/admin/users")
+                        .param("size", "100"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items[0].username").value("admin"))
+                .andExpect(jsonPath("$.next").doesNotExist());
+    }
+}
@@ -1,6 +1,7 @@
 package ru.lazarenko.warehouse.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.jayway.jsonpath.JsonPath;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
@@ -8,33 +9,44 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import ru.lazarenko.warehouse.dto.CategoryDto;
 import ru.lazarenko.warehouse.dto.info.ResponseDto;
 import ru.lazarenko.warehouse.service.CategoryService;
+import ru.lazarenko.warehouse.service.ResourceVersionService;
 
 import javax.validation.ConstraintViolation;
 import javax.validation.Validation;
 import javax.validation.Validator;
 import javax.validation.ValidatorFactory;
+import java.nio.charset.StandardCharsets;
 import java.util.ArrayList;
+import java.util.Base64;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.assertAll;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(CategoryController.class)
+@Import({KeysetPagination.class, ResponseBodyCache.class, SynchronousAsyncConfig.class})
 class CategoryControllerTest {
     @Autowired
     MockMvc mvc;
@@ -42,6 +54,9 @@ class CategoryControllerTest {
     @MockBean
     CategoryService categoryService;
 
+    @MockBean
+    ResourceVersionService resourceVersionService;
+
     @Autowired
     ObjectMapper objectMapper;
 
@@ -123,10 +138,14 @@ class CategoryControllerTest {
     @WithMockUser
     @DisplayName("get all categories | status is ok and result list is empty | categories don't exist")
     void getAllCategories_statusOkAndEmptyResultList_regionsDontExist() throws Exception {
-        when(categoryService.getAllCategories())
+        when(categoryService.getCategoriesAfter(0, 500))
                 .thenReturn(List.of());
 
-        mvc.perform(MockMvcRequestBuilders.get("/api/categories"))
+        MvcResult result = mvc.perform(MockMvcRequestBuilders.get("/api/categories"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(asyncDispatch(result))
                 .andDo(print())
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$").isEmpty())
@@ -146,10 +165,14 @@ class CategoryControllerTest {
                 .name("coffee")
                 .build();
 
-        when(categoryService.getAllCategories())
+        when(categoryService.getCategoriesAfter(0, 500))
                 .thenReturn(List.of(category1, category2));
 
-        mvc.perform(MockMvcRequestBuilders.get("/api/categories"))
+        MvcResult result = mvc.perform(MockMvcRequestBuilders.get("/api/categories"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(asyncDispatch(result))
                 .andDo(print())
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$").isNotEmpty())
@@ -160,4 +183,61 @@ class CategoryControllerTest {
                 .andExpect(jsonPath("$.[1].id").exists())
                 .andExpect(jsonPath("$.[1].name").value("coffee"));
     }
-}
\ No newline at end of file
+
+    @Test
+    @WithMockUser
+    @DisplayName("get all categories | page with cursor of its last category | page size is given")
+    void getAllCategories_pageWithNextCursor_pageSizeGiven() throws Exception {
+        when(categoryService.getCategoriesAfter(0, 2))
+                .thenReturn(List.of(CategoryDto.builder().id(1).name("tea").build(),
+                        CategoryDto.builder().id(4).name("coffee").build()));
+        when(categoryService.getCategoriesAfter(4, 2))
+                .thenReturn(List.of(CategoryDto.builder().id(9).name("cocoa").build()));
+
+        String next = JsonPath.read(mvc.perform(MockMvcRequestBuilders.get("/api/categories")
+                        .param("size", "2"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.size()").value(2))
+                .andExpect(jsonPath("$.next").isNotEmpty())
+                .andReturn().getResponse().getContentAsString(), "$.next");
+
+        mvc.perform(MockMvcRequestBuilders.get("/api/categories")
+                        .param("cursor", next)
+                        .param("size", "2"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.size()").value(1))
+                .andExpect(jsonPath("$.items[0].id").value(9))
+                .andExpect(jsonPath("$.next").doesNotExist());
+    }
+
+    @Test
+    @WithMockUser
+    @DisplayName("get all categories | status is bad request | cursor is not valid")
+    void getAllCategories_statusBadRequest_cursorNotValid() throws Exception {
+        String cursorOfOtherResource = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString("products:4".getBytes(StandardCharsets.UTF_8));
+
+        mvc.perform(MockMvcRequestBuilders.get("/api/categories")
+                        .param("cursor", cursorOfOtherResource))
+                .andDo(print())
+                .andExpect(status().isBadRequest());
+        mvc.perform(MockMvcRequestBuilders.get("/api/categories")
+                        .param("cursor", "not a cursor"))
+                .andDo(print())
+                .andExpect(status().isBadRequest());
+
+        verify(categoryService, never()).getCategoriesAfter(anyInt(), anyInt());
+    }
+
+    @Test
+    @WithMockUser
+    @DisplayName("get all categories | status is bad request | page size is more than maximum")
+    void getAllCategories_statusBadRequest_pageSizeMoreThanMaximum() throws Exception {
+        mvc.perform(MockMvcRequestBuilders.get("/api/categories")
+                        .param("size", "1001"))
+                .andDo(print())
+                .andExpect(status().isBadRequest());
+    }
+}
@@ -0,0 +1,148 @@
+package ru.lazarenko.warehouse.controller;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import ru.lazarenko.warehouse.dto.OperationTrendDto;
+import ru.lazarenko.warehouse.model.HistoryFormat;
+import ru.lazarenko.warehouse.model.OperationType;
+import ru.lazarenko.warehouse.model.RollupGranularity;
+import ru.lazarenko.warehouse.scheduled.OperationRollupService;
+import ru.lazarenko.warehouse.service.OperationHistoryService;
+
+import java.io.OutputStream;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(OperationHistoryController.class)
+@Import(SynchronousAsyncConfig.class)
+class OperationHistoryControllerTest {
+    @Autowired
+    MockMvc mvc;
+
+    @MockBean
+    OperationRollupService operationRollupService;
+
+    @MockBean
+    OperationHistoryService operationHistoryService;
+
+    @Test
+    @WithMockUser
+    @DisplayName("get history | status is ok and csv is streamed | csv format requested")
+    void getHistory_statusOkAndCsvStreamed_csvFormatRequested() throws Exception {
+        doAnswer(invocation -> {
+            invocation.<OutputStream>getArgument(1).write("id,date\n7,2022-01-10T09:00\n".getBytes());
+            return null;
+        }).when(operationHistoryService).exportHistory(any(), any());
+
+        MvcResult result = mvc.perform(MockMvcRequestBuilders.get("/api/history")
+                        .param("from", "2022-01-01")
+                        .param("to", "2022-01-31")
+                        .param("storageId", "2")
+                        .param("operation", "LOADING")
+                        .param("format", "CSV"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(asyncDispatch(result))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("text/csv"))
+                .andExpect(content().string("id,date\n7,2022-01-10T09:00\n"));
+
+        verify(operationHistoryService).exportHistory(argThat(filter -> filter.getStorageId() == 2
+                && filter.getOperation() == OperationType.LOADING
+                && filter.getFormat() == HistoryFormat.CSV
+                && filter.getFrom().equals(LocalDate.of(2022, 1, 1))), any());
+    }
+
+    @Test
+    @WithMockUser
+    @DisplayName("get history | status is ok and content type is ndjson | format is not given")
+    void getHistory_statusOkAndNdjson_formatNotGiven() throws Exception {
+        MvcResult result = mvc.perform(MockMvcRequestBuilders.get("/api/history")
+                        .param("from", "2022-01-01")
+                        .param("to", "2022-01-31"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("application/x-ndjson"));
+    }
+
+    @Test
+    @WithMockUser
+    @DisplayName("get history | status is bad request | date range is not given")
+    void getHistory_statusBadRequest_dateRangeNotGiven() throws Exception {
+        mvc.perform(MockMvcRequestBuilders.get("/api/history")
+                        .param("storageId", "2"))
+                .andDo(print())
+                .andExpect(status().isBadRequest());
+
+        verify(operationHistoryService, never()).exportHistory(any(), any());
+    }
+
+    @Test
+    @WithMockUser
+    @DisplayName("get trends | status is ok and result list is not empty | rollups exist")
+    void getTrends_statusOkAndNotEmptyResultList_rollupsExist() throws Exception {
+        OperationTrendDto trend = OperationTrendDto.builder()
+                .bucketStart(LocalDate.of(2023, 5, 1).atStartOfDay())
+                .storageId(2)
+                .operation(OperationType.SHIPMENT)
+                .count(15L)
+                .records(2L)
+                .build();
+        when(operationRollupService.getTrends(any()))
+                .thenReturn(List.of(trend));
+
+        mvc.perform(MockMvcRequestBuilders.get("/api/history/trends")
+                        .param("granularity", "DAY")
+                        .param("from", "2023-05-01")
+                        .param("to", "2023-07-31")
+                        .param("operation", "SHIPMENT"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.size()").value(1))
+                .andExpect(jsonPath("$[0].storageId").value(2))
+                .andExpect(jsonPath("$[0].count").value(15));
+
+        verify(operationRollupService).getTrends(argThat(filter -> filter.getGranularity() == RollupGranularity.DAY
+                && filter.getTo().equals(LocalDate.of(2023, 7, 31))
+                && filter.getOperation() == OperationType.SHIPMENT));
+    }
+
+    @Test
+    @WithMockUser
+    @DisplayName("get trends | status is bad request | granularity is not given")
+    void getTrends_statusBadRequest_granularityNotGiven() throws Exception {
+        mvc.perform(MockMvcRequestBuilders.get("/api/history/trends")
+                        .param("from", "2023-05-01")
+                        .param("to", "2023-07-31"))
+                .andDo(print())
+                .andExpect(status().isBadRequest());
+
+        verify(operationRollupService, never()).getTrends(any());
+    }
+}
@@ -8,16 +8,19 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import ru.lazarenko.warehouse.dto.CategoryDto;
 import ru.lazarenko.warehouse.dto.info.ResponseDto;
 import ru.lazarenko.warehouse.dto.product.PriceRangeDto;
 import ru.lazarenko.warehouse.dto.product.ProductDto;
 import ru.lazarenko.warehouse.exception.NoFoundElementException;
 import ru.lazarenko.warehouse.service.ProductService;
+import ru.lazarenko.warehouse.service.ResourceVersionService;
 
 import javax.validation.ConstraintViolation;
 import javax.validation.Validation;
@@ -29,17 +32,21 @@ import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.when;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(ProductController.class)
+@Import({KeysetPagination.class, ResponseBodyCache.class, SynchronousAsyncConfig.class})
 class ProductControllerTest {
 
     @Autowired
@@ -48,6 +55,9 @@ class ProductControllerTest {
     @MockBean
     ProductService productService;
 
+    @MockBean
+    ResourceVersionService resourceVersionService;
+
     @Autowired
     ObjectMapper objectMapper;
 
@@ -319,10 +329,14 @@ class ProductControllerTest {
     @WithMockUser
     @DisplayName("get all products without category | status is ok and empty list result| products not founded")
     void getAllProductsWithoutCategory_statusOkAndEmptyListResult_productsNotFound() throws Exception {
-        when(productService.getAllProducts())
+        when(productService.getProductsAfter(null, 0, 500))
                 .thenReturn(List.of());
 
-        mvc.perform(get("/api/products"))
+        MvcResult result = mvc.perform(get("/api/products"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(asyncDispatch(result))
                 .andDo(print())
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$").isEmpty());
@@ -342,10 +356,14 @@ class ProductControllerTest {
                 .category(categoryDto)
                 .build();
 
-        when(productService.getAllProducts())
+        when(productService.getProductsAfter(null, 0, 500))
                 .thenReturn(List.of(productDto));
 
-        mvc.perform(get("/api/products"))
+        MvcResult result = mvc.perform(get("/api/products"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(asyncDispatch(result))
                 .andDo(print())
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$").isNotEmpty())
@@ -357,11 +375,15 @@ class ProductControllerTest {
     @WithMockUser
     @DisplayName("get all products with category | status is ok and empty list result| products not founded")
     void getAllProductsWithCategory_statusOkAndEmptyListResult_productsNotFound() throws Exception {
-        when(productService.getAllProducts())
+        when(productService.getProductsAfter(anyString(), anyInt(), anyInt()))
                 .thenReturn(List.of());
 
-        mvc.perform(get("/api/products")
+        MvcResult result = mvc.perform(get("/api/products")
                         .param("category", "any category"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(asyncDispatch(result))
                 .andDo(print())
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$").isEmpty());
@@ -381,11 +403,15 @@ class ProductControllerTest {
                 .category(categoryDto)
                 .build();
 
-        when(productService.getProductsByCategory(anyString()))
+        when(productService.getProductsAfter(anyString(), anyInt(), anyInt()))
                 .thenReturn(List.of(productDto));
 
-        mvc.perform(get("/api/products")
+        MvcResult result = mvc.perform(get("/api/products")
                         .param("category", categoryDto.getName()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(asyncDispatch(result))
                 .andDo(print())
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$").isNotEmpty())
@@ -399,11 +425,28 @@ class ProductControllerTest {
     void getAllProductsWithCategory_statusMotFound_categoryDoNotExist() throws Exception {
         doThrow(NoFoundElementException.class)
                 .when(productService)
-                .getProductsByCategory(anyString());
+                .getProductsAfter(anyString(), anyInt(), anyInt());
 
         mvc.perform(get("/api/products")
                         .param("category", "unknown category"))
                 .andDo(print())
                 .andExpect(status().isNotFound());
     }
-}
\ No newline at end of file
+
+    @Test
+    @WithMockUser
+    @DisplayName("get all products with category | status is ok and page of the category | page size is given")
+    void getAllProductsWithCategory_statusOkAndPageOfCategory_pageSizeGiven() throws Exception {
+        when(productService.getProductsAfter("coffee", 0, 1))
+                .thenReturn(List.of(ProductDto.builder().id(3).name("americano").build()));
+
+        mvc.perform(get("/api/products")
+                        .param("category", "coffee")
+                        .param("size", "1"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.size()").value(1))
+                .andExpect(jsonPath("$.items[0].name").value("americano"))
+                .andExpect(jsonPath("$.next").isNotEmpty());
+    }
+}
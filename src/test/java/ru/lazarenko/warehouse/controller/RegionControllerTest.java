@@ -8,14 +8,17 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import ru.lazarenko.warehouse.dto.RegionDto;
 import ru.lazarenko.warehouse.dto.info.ResponseDto;
 import ru.lazarenko.warehouse.service.RegionService;
+import ru.lazarenko.warehouse.service.ResourceVersionService;
 
 import javax.validation.ConstraintViolation;
 import javax.validation.Validation;
@@ -29,12 +32,15 @@ import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.when;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(RegionController.class)
+@Import({KeysetPagination.class, ResponseBodyCache.class, SynchronousAsyncConfig.class})
 class RegionControllerTest {
     @Autowired
     MockMvc mvc;
@@ -42,6 +48,9 @@ class RegionControllerTest {
     @MockBean
     RegionService regionService;
 
+    @MockBean
+    ResourceVersionService resourceVersionService;
+
     @Autowired
     ObjectMapper objectMapper;
 
@@ -121,10 +130,14 @@ class RegionControllerTest {
     @WithMockUser
     @DisplayName("get all regions | status is ok and result list is empty | regions don't exist")
     void getAllRegions_statusOkAndEmptyResultList_regionsDontExist() throws Exception {
-        when(regionService.getAllRegions())
+        when(regionService.getRegionsAfter(0, 500))
                 .thenReturn(List.of());
 
-        mvc.perform(MockMvcRequestBuilders.get("/api/regions"))
+        MvcResult result = mvc.perform(MockMvcRequestBuilders.get("/api/regions"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(asyncDispatch(result))
                 .andDo(print())
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$").isEmpty())
@@ -144,10 +157,14 @@ class RegionControllerTest {
                 .name("Sochi")
                 .build();
 
-        when(regionService.getAllRegions())
+        when(regionService.getRegionsAfter(0, 500))
                 .thenReturn(List.of(region1, region2));
 
-        mvc.perform(MockMvcRequestBuilders.get("/api/regions"))
+        MvcResult result = mvc.perform(MockMvcRequestBuilders.get("/api/regions"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(asyncDispatch(result))
                 .andDo(print())
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$").isNotEmpty())
@@ -0,0 +1,210 @@
+package ru.lazarenko.warehouse.controller;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.test.context.support.WithMockUser;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
+import ru.lazarenko.warehouse.dto.CategoryDto;
+import ru.lazarenko.warehouse.service.CategoryService;
+import ru.lazarenko.warehouse.service.ResourceChangedEvent;
+import ru.lazarenko.warehouse.service.ResourceVersionService;
+
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+@WebMvcTest(CategoryController.class)
+@Import({KeysetPagination.class, ResponseBodyCache.class, SynchronousAsyncConfig.class})
+@TestPropertySource(properties = {"my.cache.responses.ttl=1m", "my.cache.responses.max-entry-size=100B"})
+class ResponseBodyCacheTest {
+    @Autowired
+    MockMvc mvc;
+
+    @Autowired
+    ResponseBodyCache underTest;
+
+    @MockBean
+    CategoryService categoryService;
+
+    @MockBean
+    ResourceVersionService resourceVersionService;
+
+    @BeforeEach
+    void prepare() {
+        underTest.onResourceChanged(new ResourceChangedEvent("categories"));
+        when(resourceVersionService.getVersion("categories"))
+                .thenReturn(1L);
+    }
+
+    @Test
+    @WithMockUser
+    @DisplayName("""
+            get or stream
+            | same body without loading categories again
+            | categories requested twice
+            """)
+    void getOrStream_sameBodyWithoutLoadingAgain_categoriesRequestedTwice() throws Exception {
+        when(categoryService.getCategoriesAfter(0, 500))
+                .thenReturn(List.of(CategoryDto.builder().id(1).name("tea").build()));
+
+        String first = getAllCategories();
+        String second = getAllCategories();
+
+        verify(categoryService, times(1)).getCategoriesAfter(0, 500);
+        assertAll(
+                () -> assertThat(first).isEqualTo("[{\"id\":1,\"name\":\"tea\"}]"),
+                () -> assertThat(second).isEqualTo(first)
+        );
+    }
+
+    @Test
+    @WithMockUser
+    @DisplayName("""
+            get or stream
+            | categories loaded again
+            | category created between requests
+            """)
+    void getOrStream_categoriesLoadedAgain_categoryCreatedBetweenRequests() throws Exception {
+        when(categoryService.getCategoriesAfter(0, 500))
+                .thenReturn(List.of(CategoryDto.builder().id(1).name("tea").build()))
+                .thenReturn(List.of(CategoryDto.builder().id(1).name("tea").build(),
+                        CategoryDto.builder().id(2).name("coffee").build()));
+
+        getAllCategories();
+        when(resourceVersionService.getVersion("categories"))
+                .thenReturn(2L);
+        String result = getAllCategories();
+
+        verify(categoryService, times(2)).getCategoriesAfter(0, 500);
+        assertThat(result).contains("coffee");
+    }
+
+    @Test
+    @WithMockUser
+    @DisplayName("""
+            get or stream
+            | cached body served
+            | other resource changed
+            """)
+    void getOrStream_cachedBodyServed_otherResourceChanged() throws Exception {
+        when(categoryService.getCategoriesAfter(0, 500))
+                .thenReturn(List.of(CategoryDto.builder().id(1).name("tea").build()));
+
+        getAllCategories();
+        underTest.onResourceChanged(new ResourceChangedEvent("products"));
+        getAllCategories();
+
+        verify(categoryService, times(1)).getCategoriesAfter(0, 500);
+    }
+
+    @Test
+    @WithMockUser
+    @DisplayName("""
+            get or stream
+            | categories loaded for every request
+            | body is larger than max entry size
+            """)
+    void getOrStream_categoriesLoadedForEveryRequest_bodyLargerThanMaxEntrySize() throws Exception {
+        when(categoryService.getCategoriesAfter(0, 500))
+                .thenReturn(IntStream.rangeClosed(1, 10)
+                        .mapToObj(id -> CategoryDto.builder().id(id).name("category-" + id).build())
+                        .toList());
+
+        String first = getAllCategories();
+        String second = getAllCategories();
+
+        verify(categoryService, times(2)).getCategoriesAfter(0, 500);
+        assertThat(second).isEqualTo(first);
+    }
+
+    @Test
+    @WithMockUser
+    @DisplayName("""
+            get or stream
+            | status is not modified and categories not loaded
+            | etag of the client matches current version
+            """)
+    void getOrStream_statusNotModifiedAndCategoriesNotLoaded_etagMatchesCurrentVersion() throws Exception {
+        when(categoryService.getCategoriesAfter(0, 500))
+                .thenReturn(List.of(CategoryDto.builder().id(1).name("tea").build()));
+
+        String etag = getAllCategoriesResponse().getHeader(HttpHeaders.ETAG);
+        underTest.onResourceChanged(new ResourceChangedEvent("categories"));
+
+        mvc.perform(MockMvcRequestBuilders.get("/api/categories")
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(content().string(""));
+
+        verify(categoryService, times(1)).getCategoriesAfter(0, 500);
+        assertThat(etag).isEqualTo("\"categories-1\"");
+    }
+
+    @Test
+    @WithMockUser
+    @DisplayName("""
+            get or stream
+            | new body and etag
+            | category created after the client got its etag
+            """)
+    void getOrStream_newBodyAndEtag_categoryCreatedAfterClientGotEtag() throws Exception {
+        when(categoryService.getCategoriesAfter(0, 500))
+                .thenReturn(List.of(CategoryDto.builder().id(1).name("tea").build()))
+                .thenReturn(List.of(CategoryDto.builder().id(1).name("tea").build(),
+                        CategoryDto.builder().id(2).name("coffee").build()));
+
+        String etag = getAllCategoriesResponse().getHeader(HttpHeaders.ETAG);
+        when(resourceVersionService.getVersion("categories"))
+                .thenReturn(2L);
+
+        MockHttpServletResponse result = getAllCategoriesResponse(etag);
+
+        assertAll(
+                () -> assertThat(result.getStatus()).isEqualTo(HttpStatus.OK.value()),
+                () -> assertThat(result.getContentAsString()).contains("coffee"),
+                () -> assertThat(result.getHeader(HttpHeaders.ETAG)).isEqualTo("\"categories-2\"")
+        );
+    }
+
+    private String getAllCategories() throws Exception {
+        return getAllCategoriesResponse().getContentAsString();
+    }
+
+    private MockHttpServletResponse getAllCategoriesResponse(String... etags) throws Exception {
+        MockHttpServletRequestBuilder get = MockMvcRequestBuilders.get("/api/categories");
+        for (String etag : etags) {
+            get.header(HttpHeaders.IF_NONE_MATCH, etag);
+        }
+        MvcResult result = mvc.perform(get)
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        return mvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse();
+    }
+}
@@ -8,23 +8,31 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 import org.springframework.test.web.servlet.request.MockMvcRequestBuilders;
 import ru.lazarenko.warehouse.dto.RegionDto;
 import ru.lazarenko.warehouse.dto.info.ResponseDto;
 import ru.lazarenko.warehouse.dto.product.ProductDto;
 import ru.lazarenko.warehouse.dto.storage.ChangeItemStorageRequest;
+import ru.lazarenko.warehouse.dto.storage.InventoryItemDto;
+import ru.lazarenko.warehouse.dto.storage.InventoryPageDto;
 import ru.lazarenko.warehouse.dto.storage.LoadingShipmentRequest;
 import ru.lazarenko.warehouse.dto.storage.LoadingShipmentResponse;
+import ru.lazarenko.warehouse.dto.storage.StockMovementBatchRequest;
+import ru.lazarenko.warehouse.dto.storage.StockMovementRequest;
 import ru.lazarenko.warehouse.dto.storage.StorageDto;
 import ru.lazarenko.warehouse.entity.Product;
 import ru.lazarenko.warehouse.exception.NoFoundElementException;
+import ru.lazarenko.warehouse.model.InventorySort;
 import ru.lazarenko.warehouse.model.OperationType;
 import ru.lazarenko.warehouse.service.ItemStorageService;
 import ru.lazarenko.warehouse.service.StorageService;
+import ru.lazarenko.warehouse.service.ResourceVersionService;
 
 import javax.validation.ConstraintViolation;
 import javax.validation.Validation;
@@ -40,13 +48,16 @@ import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.when;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultHandlers.print;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(StorageController.class)
+@Import({KeysetPagination.class, ResponseBodyCache.class, SynchronousAsyncConfig.class})
 class StorageControllerTest {
     @Autowired
     MockMvc mvc;
@@ -54,6 +65,9 @@ class StorageControllerTest {
     @MockBean
     StorageService storageService;
 
+    @MockBean
+    ResourceVersionService resourceVersionService;
+
     @MockBean
     ItemStorageService itemStorageService;
 
@@ -302,10 +316,14 @@ class StorageControllerTest {
     @WithMockUser
     @DisplayName("get all storages | status is ok and result list is empty | storages don't exist")
     void getAllRegions_statusOkAndEmptyResultList_regionsDoNotExist() throws Exception {
-        when(storageService.getAllStorages())
+        when(storageService.getStoragesAfter(0, 500))
                 .thenReturn(List.of());
 
-        mvc.perform(MockMvcRequestBuilders.get("/api/storages"))
+        MvcResult result = mvc.perform(MockMvcRequestBuilders.get("/api/storages"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(asyncDispatch(result))
                 .andDo(print())
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$").isEmpty())
@@ -326,10 +344,14 @@ class StorageControllerTest {
                 .region(region)
                 .build();
 
-        when(storageService.getAllStorages())
+        when(storageService.getStoragesAfter(0, 500))
                 .thenReturn(List.of(storage));
 
-        mvc.perform(MockMvcRequestBuilders.get("/api/storages"))
+        MvcResult result = mvc.perform(MockMvcRequestBuilders.get("/api/storages"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mvc.perform(asyncDispatch(result))
                 .andDo(print())
                 .andExpect(status().isOk())
                 .andExpect(jsonPath("$").isNotEmpty())
@@ -475,6 +497,61 @@ class StorageControllerTest {
                 .andExpect(jsonPath("$.message").doesNotExist());
     }
 
+    @Test
+    @WithMockUser
+    @DisplayName("apply movement batch | status is ok and result for every line | request is valid")
+    void applyMovementBatch_statusOkAndResultForEveryLine_requestIsValid() throws Exception {
+        StockMovementBatchRequest request = StockMovementBatchRequest.builder()
+                .movements(List.of(
+                        StockMovementRequest.builder()
+                                .operation(OperationType.LOADING)
+                                .item(ChangeItemStorageRequest.builder().productId(1).storageId(2).count(5).build())
+                                .build(),
+                        StockMovementRequest.builder()
+                                .operation(OperationType.SHIPMENT)
+                                .item(ChangeItemStorageRequest.builder().productId(1).storageId(2).count(50).build())
+                                .build()))
+                .build();
+
+        when(storageService.applyMovementBatch(any(StockMovementBatchRequest.class)))
+                .thenReturn(List.of(
+                        ResponseDto.builder()
+                                .status(HttpStatus.CREATED.name())
+                                .message("Total count of product with id='1' on storage with id='2': 5")
+                                .build(),
+                        ResponseDto.builder()
+                                .status(HttpStatus.BAD_REQUEST.name())
+                                .message("Count of product with id='1' less than 50. Actual count of product is 5")
+                                .build()));
+
+        mvc.perform(post("/api/storages/movements/batch")
+                        .with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON_VALUE)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.size()").value(2))
+                .andExpect(jsonPath("$[0].status").value("CREATED"))
+                .andExpect(jsonPath("$[1].status").value("BAD_REQUEST"));
+    }
+
+    @Test
+    @WithMockUser
+    @DisplayName("apply movement batch | status is bad request | movements are empty")
+    void applyMovementBatch_statusBadRequest_movementsAreEmpty() throws Exception {
+        StockMovementBatchRequest request = StockMovementBatchRequest.builder()
+                .movements(List.of())
+                .build();
+
+        mvc.perform(post("/api/storages/movements/batch")
+                        .with(csrf())
+                        .contentType(MediaType.APPLICATION_JSON_VALUE)
+                        .content(objectMapper.writeValueAsString(request)))
+                .andDo(print())
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$.errors.movements").value("Movements cannot be empty or null"));
+    }
+
     @Test
     @WithMockUser
     @DisplayName(""" 
@@ -665,4 +742,50 @@ class StorageControllerTest {
                 .andExpect(jsonPath("$.storages").doesNotExist());
     }
 
-}
\ No newline at end of file
+
+    @Test
+    @WithMockUser
+    @DisplayName("""
+            get inventory
+            | status is ok and page with next cursor
+            | inventory sorted by count
+            """)
+    void getInventory_statusOkAndPageWithNextCursor_sortedByCount() throws Exception {
+        InventoryPageDto page = InventoryPageDto.builder()
+                .items(List.of(InventoryItemDto.builder()
+                        .productId(1)
+                        .name("herbal tea")
+                        .price(new BigDecimal(150))
+                        .category("tea")
+                        .count(25)
+                        .build()))
+                .nextAfterCount(25)
+                .nextAfterId(1)
+                .build();
+        when(storageService.getInventoryPage(eq(2), argThat(filter -> filter.getSort() == InventorySort.COUNT
+                && filter.getAfterCount() == 10 && filter.getSize() == 1)))
+                .thenReturn(page);
+
+        mvc.perform(get("/api/storages/2/inventory")
+                        .param("sort", "COUNT")
+                        .param("afterCount", "10")
+                        .param("size", "1"))
+                .andDo(print())
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.size()").value(1))
+                .andExpect(jsonPath("$.items[0].category").value("tea"))
+                .andExpect(jsonPath("$.items[0].count").value(25))
+                .andExpect(jsonPath("$.nextAfterCount").value(25))
+                .andExpect(jsonPath("$.nextAfterId").value(1));
+    }
+
+    @Test
+    @WithMockUser
+    @DisplayName("get inventory | status is bad request | page size is more than maximum")
+    void getInventory_statusBadRequest_pageSizeMoreThanMaximum() throws Exception {
+        mvc.perform(get("/api/storages/2/inventory")
+                        .param("size", "1001"))
+                .andDo(print())
+                .andExpect(status().isBadRequest());
+    }
+}
@@ -0,0 +1,19 @@
+package ru.lazarenko.warehouse.controller;
+
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.scheduling.concurrent.ConcurrentTaskExecutor;
+import org.springframework.web.servlet.config.annotation.AsyncSupportConfigurer;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+/**
+ * Runs streaming response bodies on the request thread, so the mock response is not written by two threads
+ * while the filter chain unwinds.
+ */
+@TestConfiguration
+public class SynchronousAsyncConfig implements WebMvcConfigurer {
+    @Override
+    public void configureAsyncSupport(AsyncSupportConfigurer configurer) {
+        configurer.setTaskExecutor(new ConcurrentTaskExecutor(new SyncTaskExecutor()));
+    }
+}
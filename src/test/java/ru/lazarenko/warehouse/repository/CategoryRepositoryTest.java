@@ -4,6 +4,7 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.jdbc.Sql;
 import ru.lazarenko.warehouse.entity.Category;
@@ -41,4 +42,14 @@ class CategoryRepositoryTest {
 
         assertThat(optionalResult).isEmpty();
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("""
+            find page after
+            | empty result list
+            | cursor is the last category
+            """)
+    void findPageAfter_emptyResultList_cursorIsLastCategory() {
+        assertThat(underTest.findPageAfter(2, PageRequest.of(0, 10))).isEmpty();
+    }
+}
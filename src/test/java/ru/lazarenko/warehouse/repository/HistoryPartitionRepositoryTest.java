@@ -0,0 +1,38 @@
+package ru.lazarenko.warehouse.repository;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+
+@DataJpaTest
+@Import(HistoryPartitionRepository.class)
+class HistoryPartitionRepositoryTest {
+    @Autowired
+    HistoryPartitionRepository underTest;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Test
+    @DisplayName("supports partitions | false | h2 fallback layout")
+    void supportsPartitions_false_h2FallbackLayout() {
+        List<String> primaryKey = jdbcTemplate.queryForList("select k.column_name " +
+                "from information_schema.table_constraints c join information_schema.key_column_usage k " +
+                "on k.constraint_name = c.constraint_name and k.table_name = c.table_name " +
+                "where c.table_name = 'OPERATION_HISTORIES' and c.constraint_type = 'PRIMARY KEY' " +
+                "order by k.ordinal_position", String.class);
+
+        assertAll(
+                () -> assertThat(underTest.supportsPartitions()).isFalse(),
+                () -> assertThat(primaryKey).containsExactly("ID", "DATE")
+        );
+    }
+}
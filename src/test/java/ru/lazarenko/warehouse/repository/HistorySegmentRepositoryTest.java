@@ -0,0 +1,152 @@
+package ru.lazarenko.warehouse.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.lazarenko.warehouse.model.OperationEvent;
+import ru.lazarenko.warehouse.model.OperationType;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class HistorySegmentRepositoryTest {
+    private static final LocalDate DAY = LocalDate.of(2023, 5, 1);
+
+    @TempDir
+    Path directory;
+
+    HistorySegmentRepository underTest;
+
+    @BeforeEach
+    void prepare() {
+        underTest = new HistorySegmentRepository(directory.toString());
+    }
+
+    @Test
+    @DisplayName("""
+            read
+            | same histories as written, sorted by date
+            | segments of several days reloaded from disk
+            """)
+    void read_sameHistoriesAsWritten_segmentsReloadedFromDisk() {
+        List<OperationEvent> written = new ArrayList<>();
+        List<String> locations = new ArrayList<>();
+        Random random = new Random(42);
+        for (int day = 0; day < 3; day++) {
+            Map<Integer, List<OperationEvent>> rows = rows(DAY.plusDays(day), 1000 * day, random);
+            locations.add(underTest.write(DAY.plusDays(day), rows));
+            rows.values().forEach(written::addAll);
+        }
+
+        HistorySegmentRepository reloaded = new HistorySegmentRepository(directory.toString());
+        List<OperationEvent> result = reloaded.read(locations, DAY.atStartOfDay(), DAY.plusDays(3).atStartOfDay(),
+                null);
+
+        written.sort(Comparator.comparing(OperationEvent::getDate).thenComparing(OperationEvent::getId));
+        assertAll(
+                () -> assertThat(result).hasSize(1800),
+                () -> assertThat(result).usingRecursiveFieldByFieldElementComparator().containsExactlyElementsOf(written)
+        );
+    }
+
+    @Test
+    @DisplayName("""
+            read
+            | only histories of the storage inside the range
+            | range starts and ends inside archived days
+            """)
+    void read_onlyHistoriesOfStorageInsideRange_rangeInsideArchivedDays() {
+        Random random = new Random(7);
+        List<String> locations = List.of(
+                underTest.write(DAY, rows(DAY, 0, random)),
+                underTest.write(DAY.plusDays(1), rows(DAY.plusDays(1), 1000, random)));
+        LocalDateTime from = DAY.atTime(12, 0);
+        LocalDateTime to = DAY.plusDays(1).atTime(6, 0);
+
+        List<OperationEvent> result = underTest.read(locations, from, to, 2);
+
+        assertThat(result)
+                .isNotEmpty()
+                .allMatch(event -> event.getStorageId() == 2)
+                .allMatch(event -> !event.getDate().isBefore(from) && event.getDate().isBefore(to))
+                .extracting(OperationEvent::getDate)
+                .isSorted();
+    }
+
+    @Test
+    @DisplayName("""
+            write
+            | segment is less than half of the raw columns
+            | histories with increasing ids and dates
+            """)
+    void write_segmentSmallerThanRawColumns_increasingIdsAndDates() throws Exception {
+        Map<Integer, List<OperationEvent>> rows = rows(DAY, 0, new Random(1));
+
+        underTest.write(DAY, rows);
+
+        long rawSize = 200L * 3 * (Integer.BYTES * 3 + Long.BYTES + 1);
+        assertThat(Files.size(directory.resolve(DAY + ".seg"))).isLessThan(rawSize / 2);
+    }
+
+    @Test
+    @DisplayName("""
+            write
+            | new location, previous segment still readable with its own histories
+            | day written again
+            """)
+    void write_newLocationAndPreviousSegmentReadable_dayWrittenAgain() {
+        Map<Integer, List<OperationEvent>> first = rows(DAY, 0, new Random(5));
+        String firstLocation = underTest.write(DAY, first);
+
+        String secondLocation = underTest.write(DAY, rows(DAY, 1000, new Random(6)));
+
+        HistorySegmentRepository otherNode = new HistorySegmentRepository(directory.toString());
+        assertAll(
+                () -> assertThat(secondLocation).isNotEqualTo(firstLocation),
+                () -> assertThat(otherNode.read(List.of(firstLocation), DAY.atStartOfDay(),
+                        DAY.plusDays(1).atStartOfDay(), null))
+                        .extracting(OperationEvent::getId)
+                        .allMatch(id -> id <= 1000)
+                        .hasSize(600)
+        );
+    }
+
+    @Test
+    @DisplayName("read | exception thrown | segment is missing at its location")
+    void read_exceptionThrown_segmentMissing() throws Exception {
+        String location = underTest.write(DAY, rows(DAY, 0, new Random(3)));
+        Files.delete(Path.of(location));
+        HistorySegmentRepository otherNode = new HistorySegmentRepository(directory.toString());
+
+        assertThrows(IllegalStateException.class, () -> otherNode.read(List.of(location), DAY.atStartOfDay(),
+                DAY.plusDays(1).atStartOfDay(), null));
+    }
+
+    /**
+     * 200 histories per storage of storages 1-3, sorted by (date, id) like the archiver reads them.
+     */
+    private Map<Integer, List<OperationEvent>> rows(LocalDate day, int firstId, Random random) {
+        Map<Integer, List<OperationEvent>> rows = new TreeMap<>();
+        int id = firstId;
+        for (int storageId = 1; storageId <= 3; storageId++) {
+            List<OperationEvent> storageRows = new ArrayList<>();
+            LocalDateTime date = day.atStartOfDay();
+            for (int i = 0; i < 200; i++) {
+                date = date.plusNanos((1 + random.nextInt(400_000)) * 1_000_000L);
+                storageRows.add(new OperationEvent(++id, 1 + random.nextInt(4), storageId,
+                        random.nextBoolean() ? OperationType.LOADING : OperationType.SHIPMENT,
+                        1 + random.nextInt(100), date));
+            }
+            rows.put(storageId, storageRows);
+        }
+        return rows;
+    }
+}
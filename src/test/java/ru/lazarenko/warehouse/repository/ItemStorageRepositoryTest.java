@@ -4,16 +4,23 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.jdbc.Sql;
 import ru.lazarenko.warehouse.entity.ItemStorage;
 import ru.lazarenko.warehouse.entity.Product;
 import ru.lazarenko.warehouse.entity.Storage;
+import ru.lazarenko.warehouse.model.InventoryItem;
+import ru.lazarenko.warehouse.model.ItemStorageCount;
+import ru.lazarenko.warehouse.model.ItemStorageKey;
+
+import javax.persistence.EntityManagerFactory;
 
 import java.util.List;
-import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.junit.jupiter.api.Assertions.assertAll;
 import static org.springframework.test.annotation.DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD;
 
@@ -24,42 +31,11 @@ class ItemStorageRepositoryTest {
     @Autowired
     ItemStorageRepository underTest;
 
-    @Test
-    @DisplayName("""
-            find by productId and storageId
-            | optional result is empty
-            | itemStorage does not exist
-            """)
-    void findByProductIdAndStorageId_optionalResultIsEmpty_itemStorageDoesNotExist() {
-        Integer productId = 10;
-        Integer storageId = 10;
-
-        Optional<ItemStorage> optionalResult = underTest.findByProductIdAndStorageId(productId, storageId);
-
-        assertThat(optionalResult).isEmpty();
-    }
-
-    @Test
-    @DisplayName("""
-            find by productId and storageId
-            | optional result is not empty
-            | itemStorage does not exist
-            """)
-    void findByProductIdAndStorageId_optionalResultIsNotEmpty_itemStorageDoesNotExist() {
-        Integer productId = 1;
-        Integer storageId = 2;
-
-        Optional<ItemStorage> optionalResult = underTest.findByProductIdAndStorageId(productId, storageId);
-
-        assertThat(optionalResult).isNotEmpty();
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
 
-        ItemStorage result = optionalResult.get();
-        assertAll(
-                () -> assertThat(result.getProduct().getId()).isEqualTo(1),
-                () -> assertThat(result.getStorage().getId()).isEqualTo(2),
-                () -> assertThat(result.getCount()).isEqualTo(25)
-        );
-    }
+    @Autowired
+    TestEntityManager entityManager;
 
     @Test
     @DisplayName("""
@@ -158,4 +134,294 @@ class ItemStorageRepositoryTest {
                 () -> assertThat(result.get(0).getName()).isEqualTo("Sochi-str")
         );
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("""
+            increase count
+            | one row updated and count increased
+            | itemStorage exists
+            """)
+    void increaseCount_oneRowUpdatedAndCountIncreased_itemStorageExists() {
+        int updated = underTest.increaseCount(1, 2, 10);
+
+        assertAll(
+                () -> assertThat(updated).isEqualTo(1),
+                () -> assertThat(underTest.findCountForUpdate(1, 2)).contains(35)
+        );
+    }
+
+    @Test
+    @DisplayName("""
+            increase count
+            | no rows updated
+            | itemStorage does not exist
+            """)
+    void increaseCount_noRowsUpdated_itemStorageDoesNotExist() {
+        int updated = underTest.increaseCount(1, 3, 10);
+
+        assertAll(
+                () -> assertThat(updated).isEqualTo(0),
+                () -> assertThat(underTest.findCountForUpdate(1, 3)).isEmpty()
+        );
+    }
+
+    @Test
+    @DisplayName("""
+            decrease count
+            | one row updated and count decreased
+            | count in storage is enough
+            """)
+    void decreaseCount_oneRowUpdatedAndCountDecreased_countIsEnough() {
+        int updated = underTest.decreaseCount(1, 2, 25);
+
+        assertAll(
+                () -> assertThat(updated).isEqualTo(1),
+                () -> assertThat(underTest.findCountForUpdate(1, 2)).contains(0)
+        );
+    }
+
+    @Test
+    @DisplayName("""
+            decrease count
+            | no rows updated and count is not changed
+            | count in storage is not enough
+            """)
+    void decreaseCount_noRowsUpdatedAndCountNotChanged_countIsNotEnough() {
+        int updated = underTest.decreaseCount(1, 2, 26);
+
+        assertAll(
+                () -> assertThat(updated).isEqualTo(0),
+                () -> assertThat(underTest.findCountForUpdate(1, 2)).contains(25)
+        );
+    }
+
+    @Test
+    @DisplayName("""
+            change counts
+            | rows updated only for changes keeping count not negative
+            | items exist
+            """)
+    void changeCounts_rowsUpdatedOnlyForNotNegativeCount_itemsExist() {
+        int[] updated = underTest.changeCounts(List.of(
+                new ItemStorageCount(1, 1, 10),
+                new ItemStorageCount(1, 2, -30),
+                new ItemStorageCount(1, 2, -25),
+                new ItemStorageCount(1, 3, 5)));
+
+        List<ItemStorageCount> counts = underTest.findCounts(List.of(
+                new ItemStorageKey(1, 1), new ItemStorageKey(1, 2), new ItemStorageKey(1, 3)));
+
+        assertAll(
+                () -> assertThat(updated).containsExactly(1, 0, 1, 0),
+                () -> assertThat(counts).containsExactlyInAnyOrder(
+                        new ItemStorageCount(1, 1, 110),
+                        new ItemStorageCount(1, 2, 0))
+        );
+    }
+
+    @Test
+    @DisplayName("""
+            find count for update
+            | count of the item, nothing for a missing one
+            | items exist and do not exist
+            """)
+    void findCountForUpdate_countOfItem_itemsExistAndDoNotExist() {
+        assertAll(
+                () -> assertThat(underTest.findCountForUpdate(1, 2)).contains(25),
+                () -> assertThat(underTest.findCountForUpdate(1, 3)).isEmpty()
+        );
+    }
+
+    @Test
+    @DisplayName("""
+            find counts
+            | counts of exactly the given pairs
+            | products and storages of the pairs have other items
+            """)
+    void findCounts_countsOfExactlyGivenPairs_productsAndStoragesHaveOtherItems() {
+        List<ItemStorageCount> counts = underTest.findCounts(List.of(
+                new ItemStorageKey(1, 2), new ItemStorageKey(2, 3), new ItemStorageKey(1, 3)));
+
+        assertThat(counts).containsExactlyInAnyOrder(
+                new ItemStorageCount(1, 2, 25),
+                new ItemStorageCount(2, 3, 25));
+    }
+
+    @Test
+    @DisplayName("""
+            create missing items
+            | empty items inserted only for pairs without one
+            | existing and missing pairs are given
+            """)
+    void createMissingItems_emptyItemsOnlyForMissingPairs_existingAndMissingPairsGiven() {
+        underTest.createMissingItems(List.of(
+                new ItemStorageKey(1, 2),
+                new ItemStorageKey(1, 3),
+                new ItemStorageKey(3, 3)));
+
+        List<ItemStorageCount> counts = underTest.findCounts(List.of(
+                new ItemStorageKey(1, 2), new ItemStorageKey(3, 2), new ItemStorageKey(1, 3), new ItemStorageKey(3, 3)));
+
+        assertThat(counts).containsExactlyInAnyOrder(
+                new ItemStorageCount(1, 2, 25),
+                new ItemStorageCount(3, 2, 50),
+                new ItemStorageCount(1, 3, 0),
+                new ItemStorageCount(3, 3, 0));
+    }
+
+    @Test
+    @DisplayName("""
+            create missing items
+            | product name copied to the new items
+            | missing pairs are given
+            """)
+    void createMissingItems_productNameCopied_missingPairsGiven() {
+        underTest.createMissingItems(List.of(new ItemStorageKey(1, 3), new ItemStorageKey(3, 3)));
+
+        assertThat(underTest.findFirstInventoryPageByName(3, PageRequest.of(0, 10)))
+                .extracting(InventoryItem::getProductId, InventoryItem::getName, InventoryItem::getCount)
+                .containsExactly(
+                        tuple(3, "americano", 0),
+                        tuple(4, "cappuccino", 25),
+                        tuple(2, "green tea", 25),
+                        tuple(1, "herbal tea", 0));
+    }
+
+    @Test
+    @DisplayName("""
+            find products by storageId
+            | one statement with categories
+            | products of two categories exist in storage
+            """)
+    void findProductsByStorageId_oneStatementWithCategories_productsOfTwoCategoriesInStorage() {
+        StatementCounter statements = new StatementCounter(entityManagerFactory);
+
+        List<Product> result = underTest.findProductsByStorageId(1);
+
+        assertAll(
+                () -> assertThat(result).extracting(product -> product.getCategory().getName())
+                        .containsOnly("coffee", "tea"),
+                () -> assertThat(statements.count()).isEqualTo(1)
+        );
+    }
+
+    @Test
+    @DisplayName("""
+            find products by storageId and category
+            | one statement with category
+            | products of the category exist in storage
+            """)
+    void findProductsByStorageIdAndCategory_oneStatementWithCategory_productsExistInStorage() {
+        StatementCounter statements = new StatementCounter(entityManagerFactory);
+
+        List<Product> result = underTest.findProductsByStorageIdAndCategory(1, "coffee");
+
+        assertAll(
+                () -> assertThat(result).extracting(product -> product.getCategory().getName())
+                        .containsExactly("coffee", "coffee"),
+                () -> assertThat(statements.count()).isEqualTo(1)
+        );
+    }
+
+    @Test
+    @DisplayName("""
+            find storage for shipment
+            | one statement with region
+            | product exists in storages of the region
+            """)
+    void findStorageForShipment_oneStatementWithRegion_productExistsInRegionStorages() {
+        StatementCounter statements = new StatementCounter(entityManagerFactory);
+
+        List<Storage> result = underTest.findStorageForShipment(4, 2, 10);
+
+        assertAll(
+                () -> assertThat(result).extracting(storage -> storage.getRegion().getName())
+                        .containsExactly("Moscow"),
+                () -> assertThat(statements.count()).isEqualTo(1)
+        );
+    }
+
+    @Test
+    @DisplayName("""
+            find inventory page by name after
+            | one statement with names after the cursor, in name order
+            | cursor on the second product of the storage
+            """)
+    void findInventoryPageByNameAfter_oneStatementAfterCursorInNameOrder_cursorOnSecondProduct() {
+        StatementCounter statements = new StatementCounter(entityManagerFactory);
+
+        List<InventoryItem> result = underTest.findInventoryPageByNameAfter(1, "cappuccino", 4,
+                PageRequest.of(0, 10));
+
+        assertAll(
+                () -> assertThat(result)
+                        .extracting(InventoryItem::getProductId, InventoryItem::getName, InventoryItem::getCategory,
+                                InventoryItem::getCount)
+                        .containsExactly(
+                                tuple(2, "green tea", "tea", 100),
+                                tuple(1, "herbal tea", "tea", 100)),
+                () -> assertThat(statements.count()).isEqualTo(1)
+        );
+    }
+
+    @Test
+    @DisplayName("""
+            find inventory page by count
+            | pages follow each other in count order
+            | first page without cursor and next page after its last item
+            """)
+    void findInventoryPageByCount_pagesInCountOrder_firstAndNextPage() {
+        List<InventoryItem> first = underTest.findFirstInventoryPageByCount(2, PageRequest.of(0, 1));
+        List<InventoryItem> next = underTest.findInventoryPageByCountAfter(2, 25, 1, PageRequest.of(0, 1));
+
+        assertAll(
+                () -> assertThat(first).extracting(InventoryItem::getProductId, InventoryItem::getCount)
+                        .containsExactly(tuple(1, 25)),
+                () -> assertThat(next).extracting(InventoryItem::getProductId, InventoryItem::getCount)
+                        .containsExactly(tuple(3, 50))
+        );
+    }
+
+    @Test
+    @DisplayName("""
+            find inventory page by count after
+            | ties are resumed by product id
+            | all products of the storage have the same count
+            """)
+    void findInventoryPageByCountAfter_tiesResumedByProductId_sameCounts() {
+        List<InventoryItem> result = underTest.findInventoryPageByCountAfter(1, 100, 2, PageRequest.of(0, 10));
+
+        assertThat(result).extracting(InventoryItem::getProductId)
+                .containsExactly(3, 4);
+    }
+
+    @Test
+    @DisplayName("""
+            find first inventory page by name
+            | first products in name order
+            | storage has more products than the page
+            """)
+    void findFirstInventoryPageByName_firstProductsInNameOrder_storageHasMoreProducts() {
+        List<InventoryItem> result = underTest.findFirstInventoryPageByName(1, PageRequest.of(0, 2));
+
+        assertThat(result).extracting(InventoryItem::getName)
+                .containsExactly("americano", "cappuccino");
+    }
+
+    @Test
+    @DisplayName("""
+            save
+            | product name copied to the item
+            | new item of a product is saved
+            """)
+    void save_productNameCopied_newItemSaved() {
+        ItemStorage saved = underTest.save(ItemStorage.builder()
+                .product(entityManager.find(Product.class, 2))
+                .storage(entityManager.find(Storage.class, 2))
+                .count(5)
+                .build());
+        entityManager.flush();
+
+        assertThat(saved.getProductName()).isEqualTo("green tea");
+    }
+}
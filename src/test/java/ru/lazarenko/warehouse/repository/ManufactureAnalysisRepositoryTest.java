@@ -0,0 +1,250 @@
+package ru.lazarenko.warehouse.repository;
+
+import org.hibernate.BaseSessionEventListener;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.jdbc.Sql;
+import ru.lazarenko.warehouse.entity.ManufactureAnalysis;
+import ru.lazarenko.warehouse.entity.Product;
+import ru.lazarenko.warehouse.entity.Storage;
+import ru.lazarenko.warehouse.model.AnalysisState;
+import ru.lazarenko.warehouse.model.ChangeType;
+import ru.lazarenko.warehouse.model.OperationType;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.springframework.test.annotation.DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD;
+
+@DataJpaTest(properties = "spring.jpa.properties.hibernate.session.events.auto=" +
+        "ru.lazarenko.warehouse.repository.ManufactureAnalysisRepositoryTest$BatchCountingListener")
+@Sql("classpath:repository/data.sql")
+@DirtiesContext(classMode = AFTER_EACH_TEST_METHOD)
+class ManufactureAnalysisRepositoryTest {
+    @Autowired
+    ManufactureAnalysisRepository underTest;
+
+    @Autowired
+    TestEntityManager entityManager;
+
+    @Test
+    @DisplayName("save all | inserts are sent as jdbc batches | 10k analyses")
+    void saveAll_insertsAreSentAsJdbcBatches_tenThousandAnalyses() {
+        Product product = entityManager.find(Product.class, 1);
+        Storage storage = entityManager.find(Storage.class, 1);
+
+        List<ManufactureAnalysis> analyses = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) {
+            analyses.add(ManufactureAnalysis.builder()
+                    .product(product)
+                    .storage(storage)
+                    .operation(OperationType.LOADING)
+                    .changeType(ChangeType.INCREASE)
+                    .reportDate(LocalDate.now().minusDays(i))
+                    .build());
+        }
+
+        BatchCountingListener.BATCHES.set(0);
+        underTest.saveAll(analyses);
+        entityManager.flush();
+
+        assertAll(
+                () -> assertThat(underTest.count()).isEqualTo(10_000),
+                () -> assertThat(BatchCountingListener.BATCHES.get()).isEqualTo(10_000 / 50)
+        );
+    }
+
+    @Test
+    @DisplayName("""
+            save and flush
+            | data integrity violation
+            | analysis for same product, storage, date and operation exists
+            """)
+    void saveAndFlush_dataIntegrityViolation_sameKeyExists() {
+        underTest.saveAndFlush(analysis(1, 1, ChangeType.INCREASE, LocalDate.now()));
+
+        ManufactureAnalysis duplicate = analysis(1, 1, ChangeType.DECREASE, LocalDate.now());
+
+        assertThrows(DataIntegrityViolationException.class, () -> underTest.saveAndFlush(duplicate));
+    }
+
+    @Test
+    @DisplayName("""
+            find states
+            | states of requested date and storages only
+            | analyses of several dates and storages exist
+            """)
+    void findStates_statesOfRequestedDateAndStorages_severalDatesAndStorages() {
+        LocalDate today = LocalDate.now();
+        underTest.saveAll(List.of(
+                analysis(1, 1, ChangeType.INCREASE, today),
+                analysis(2, 2, ChangeType.DECREASE, today),
+                analysis(3, 3, ChangeType.INCREASE, today),
+                analysis(1, 1, ChangeType.DECREASE, today.minusDays(1))));
+
+        List<AnalysisState> result = underTest.findStates(today, OperationType.LOADING, List.of(1, 2));
+
+        assertThat(result)
+                .extracting(AnalysisState::getProductId, AnalysisState::getStorageId, AnalysisState::getChangeType)
+                .containsExactlyInAnyOrder(
+                        tuple(1, 1, ChangeType.INCREASE),
+                        tuple(2, 2, ChangeType.DECREASE));
+    }
+
+    @Test
+    @DisplayName("""
+            update change type
+            | only given analyses updated
+            | analyses exist
+            """)
+    void updateChangeType_onlyGivenAnalysesUpdated_analysesExist() {
+        ManufactureAnalysis first = underTest.save(analysis(1, 1, ChangeType.INCREASE, LocalDate.now()));
+        ManufactureAnalysis second = underTest.save(analysis(2, 1, ChangeType.INCREASE, LocalDate.now()));
+        entityManager.flush();
+
+        int result = underTest.updateChangeType(ChangeType.DECREASE, List.of(first.getId()));
+        entityManager.clear();
+
+        assertAll(
+                () -> assertThat(result).isEqualTo(1),
+                () -> assertThat(underTest.findById(first.getId()).orElseThrow().getChangeType())
+                        .isEqualTo(ChangeType.DECREASE),
+                () -> assertThat(underTest.findById(second.getId()).orElseThrow().getChangeType())
+                        .isEqualTo(ChangeType.INCREASE)
+        );
+    }
+
+    @Test
+    @DisplayName("""
+            find ids by report date before and delete all by ids
+            | only old analyses deleted, limited by page size
+            | old and new analyses exist
+            """)
+    void findIdsAndDeleteAllByIds_oldAnalysesDeletedByPage_oldAndNewAnalysesExist() {
+        LocalDate today = LocalDate.now();
+        underTest.saveAll(List.of(
+                analysis(1, 1, ChangeType.INCREASE, today.minusDays(40)),
+                analysis(2, 1, ChangeType.INCREASE, today.minusDays(40)),
+                analysis(3, 1, ChangeType.INCREASE, today.minusDays(36)),
+                analysis(1, 1, ChangeType.INCREASE, today)));
+        entityManager.flush();
+
+        List<Integer> firstPage = underTest.findIdsByReportDateBefore(today.minusDays(35), PageRequest.of(0, 2));
+        int deleted = underTest.deleteAllByIds(firstPage);
+        List<Integer> secondPage = underTest.findIdsByReportDateBefore(today.minusDays(35), PageRequest.of(0, 2));
+
+        assertAll(
+                () -> assertThat(firstPage).hasSize(2),
+                () -> assertThat(deleted).isEqualTo(2),
+                () -> assertThat(secondPage).hasSize(1),
+                () -> assertThat(underTest.count()).isEqualTo(2)
+        );
+    }
+
+    @Test
+    @DisplayName("""
+            find all by report date in period
+            | both ends of the period are included
+            | analyses on the first day, today and outside the period
+            """)
+    void findAllByReportDateInPeriod_bothEndsIncluded_analysesOnBoundaries() {
+        LocalDate today = LocalDate.now();
+        underTest.saveAll(List.of(
+                analysis(1, 1, ChangeType.INCREASE, today),
+                analysis(2, 1, ChangeType.INCREASE, today.minusDays(3)),
+                analysis(3, 1, ChangeType.INCREASE, today.minusDays(4))));
+        entityManager.flush();
+
+        List<ManufactureAnalysis> result = underTest.findAllByReportDateInPeriod(today.minusDays(3), today);
+
+        assertThat(result)
+                .extracting(ManufactureAnalysis::getReportDate)
+                .containsExactly(today.minusDays(3), today);
+    }
+
+    @Test
+    @DisplayName("""
+            find page
+            | pages follow each other without gaps or duplicates
+            | filter by region and change type
+            """)
+    void findPage_pagesWithoutGapsOrDuplicates_filterByRegionAndChangeType() {
+        LocalDate today = LocalDate.now();
+        List<ManufactureAnalysis> analyses = new ArrayList<>();
+        for (int day = 0; day < 3; day++) {
+            analyses.add(analysis(1, 2, ChangeType.INCREASE, today.minusDays(day)));
+            analyses.add(analysis(2, 3, ChangeType.INCREASE, today.minusDays(day)));
+            analyses.add(analysis(3, 3, ChangeType.DECREASE, today.minusDays(day)));
+            analyses.add(analysis(4, 1, ChangeType.INCREASE, today.minusDays(day)));
+        }
+        underTest.saveAll(analyses);
+        entityManager.flush();
+        entityManager.clear();
+
+        List<ManufactureAnalysis> firstPage = underTest.findPage(null, null, 2, ChangeType.INCREASE,
+                today.minusDays(2), today, null, 0, PageRequest.of(0, 4));
+        ManufactureAnalysis last = firstPage.get(firstPage.size() - 1);
+        List<ManufactureAnalysis> secondPage = underTest.findPage(null, null, 2, ChangeType.INCREASE,
+                today.minusDays(2), today, last.getReportDate(), last.getId(), PageRequest.of(0, 4));
+        List<ManufactureAnalysis> seen = new ArrayList<>(firstPage);
+        seen.addAll(secondPage);
+
+        assertAll(
+                () -> assertThat(secondPage).hasSize(2),
+                () -> assertThat(seen).hasSize(6),
+                () -> assertThat(seen).extracting(ManufactureAnalysis::getId).doesNotHaveDuplicates(),
+                () -> assertThat(seen).allMatch(analysis -> analysis.getStorage().getRegion().getId() == 2
+                        && analysis.getChangeType() == ChangeType.INCREASE),
+                () -> assertThat(seen).extracting(ManufactureAnalysis::getReportDate).isSorted()
+        );
+    }
+
+    @Test
+    @DisplayName("find page | only analyses of the product and storage | filter by product and storage")
+    void findPage_onlyAnalysesOfProductAndStorage_filterByProductAndStorage() {
+        LocalDate today = LocalDate.now();
+        underTest.saveAll(List.of(
+                analysis(1, 1, ChangeType.INCREASE, today),
+                analysis(1, 2, ChangeType.INCREASE, today),
+                analysis(2, 1, ChangeType.DECREASE, today)));
+        entityManager.flush();
+
+        List<ManufactureAnalysis> result = underTest.findPage(1, 1, null, null,
+                today, today, null, 0, PageRequest.of(0, 10));
+
+        assertThat(result)
+                .extracting(analysis -> analysis.getProduct().getId(), analysis -> analysis.getStorage().getId())
+                .containsExactly(tuple(1, 1));
+    }
+
+    private ManufactureAnalysis analysis(Integer productId, Integer storageId, ChangeType changeType, LocalDate date) {
+        return ManufactureAnalysis.builder()
+                .product(entityManager.find(Product.class, productId))
+                .storage(entityManager.find(Storage.class, storageId))
+                .operation(OperationType.LOADING)
+                .changeType(changeType)
+                .reportDate(date)
+                .build();
+    }
+
+    public static class BatchCountingListener extends BaseSessionEventListener {
+        static final AtomicInteger BATCHES = new AtomicInteger();
+
+        @Override
+        public void jdbcExecuteBatchStart() {
+            BATCHES.incrementAndGet();
+        }
+    }
+}
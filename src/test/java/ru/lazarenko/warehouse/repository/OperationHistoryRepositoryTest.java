@@ -4,16 +4,19 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.jdbc.Sql;
-import ru.lazarenko.warehouse.entity.OperationHistory;
+import ru.lazarenko.warehouse.model.OperationEvent;
 import ru.lazarenko.warehouse.model.OperationType;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
-import static org.junit.jupiter.api.Assertions.*;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.springframework.test.annotation.DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD;
 
 @DataJpaTest
@@ -23,27 +26,133 @@ class OperationHistoryRepositoryTest {
     @Autowired
     OperationHistoryRepository underTest;
 
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Test
+    @DisplayName("""
+            find events after checkpoint
+            | ordered chunk after checkpoint
+            | checkpoint in the middle of same date operations
+            """)
+    void findEventsAfterCheckpoint_orderedChunkAfterCheckpoint_checkpointInSameDate() {
+        LocalDateTime checkpointDate = LocalDateTime.of(2023, 6, 12, 10, 0, 0);
+        LocalDateTime until = LocalDateTime.of(2023, 6, 13, 10, 0, 0);
+
+        List<OperationEvent> result = underTest.findEventsAfterCheckpoint(checkpointDate, 5, until, PageRequest.of(0, 2));
+
+        assertThat(result)
+                .extracting(OperationEvent::getId, OperationEvent::getProductId, OperationEvent::getStorageId)
+                .containsExactly(
+                        tuple(6, 3, 2),
+                        tuple(7, 2, 3));
+    }
+
     @Test
-    @DisplayName("find all by date is after | empty result list | operations do not exist")
-    void findAllByDateIsAfter_emptyResultList_operationsDoNotExist() {
-        LocalDateTime date = LocalDateTime.now();
-        List<OperationHistory> result = underTest.findAllByDateIsAfter(date);
+    @DisplayName("""
+            find events after checkpoint
+            | empty result list
+            | operations are newer than until date
+            """)
+    void findEventsAfterCheckpoint_emptyResultList_operationsNewerThanUntil() {
+        LocalDateTime checkpointDate = LocalDateTime.of(2023, 6, 12, 10, 0, 0);
+        LocalDateTime until = LocalDateTime.of(2023, 6, 12, 12, 0, 0);
+
+        List<OperationEvent> result = underTest.findEventsAfterCheckpoint(checkpointDate, 6, until, PageRequest.of(0, 10));
 
         assertThat(result).isEmpty();
     }
 
     @Test
-    @DisplayName("find all by date is after | result list not empty| operations exist")
-    void findAllByDateIsAfter_resultListNotEmpty_operationsExist() {
-        LocalDateTime date = LocalDateTime.of(2023, 6, 12, 0, 0, 0);
-        List<OperationHistory> result = underTest.findAllByDateIsAfter(date);
+    @DisplayName("""
+            find events up to checkpoint
+            | only operations between window start and checkpoint
+            | checkpoint in the middle of same date operations
+            """)
+    void findEventsUpToCheckpoint_onlyBetweenWindowStartAndCheckpoint_checkpointInSameDate() {
+        LocalDateTime from = LocalDateTime.of(2023, 6, 11, 0, 0, 0);
+        LocalDateTime checkpointDate = LocalDateTime.of(2023, 6, 12, 10, 0, 0);
+
+        List<OperationEvent> result = underTest.findEventsUpToCheckpoint(from, Integer.MAX_VALUE, checkpointDate, 5,
+                PageRequest.of(0, 10));
+
+        assertThat(result)
+                .extracting(OperationEvent::getId)
+                .containsExactly(5);
+    }
+
+    @Test
+    @DisplayName("""
+            find events up to checkpoint
+            | first page after the previous page's last operation, in date and id order
+            | previous page ends in the middle of same date operations
+            """)
+    void findEventsUpToCheckpoint_pageAfterLastOperation_previousPageEndsInSameDate() {
+        LocalDateTime fromDate = LocalDateTime.of(2023, 6, 10, 10, 0, 0);
+        LocalDateTime checkpointDate = LocalDateTime.of(2023, 6, 12, 10, 0, 0);
+
+        List<OperationEvent> result = underTest.findEventsUpToCheckpoint(fromDate, 2, checkpointDate, 6,
+                PageRequest.of(0, 2));
+
+        assertThat(result)
+                .extracting(OperationEvent::getId)
+                .containsExactly(3, 4);
+    }
+
+    @Test
+    @DisplayName("""
+            stream events in period
+            | only operations of the product in the half-open range, in date order
+            | product filter given
+            """)
+    void streamEventsInPeriod_onlyProductOperationsInRange_productFilterGiven() {
+        try (Stream<OperationEvent> result = underTest.streamEventsInPeriod(LocalDateTime.of(2023, 6, 10, 0, 0),
+                LocalDateTime.of(2023, 6, 13, 10, 0), null, 1, OperationType.LOADING)) {
+            assertThat(result)
+                    .extracting(OperationEvent::getId, OperationEvent::getStorageId)
+                    .containsExactly(tuple(1, 1), tuple(5, 2));
+        }
+    }
+
+    @Test
+    @DisplayName("""
+            stream events in period
+            | empty stream
+            | no operations of the type in the storage
+            """)
+    void streamEventsInPeriod_emptyStream_noOperationsOfType() {
+        try (Stream<OperationEvent> result = underTest.streamEventsInPeriod(LocalDateTime.of(2023, 6, 1, 0, 0),
+                LocalDateTime.of(2023, 7, 1, 0, 0), 3, null, OperationType.SHIPMENT)) {
+            assertThat(result).isEmpty();
+        }
+    }
+
+    @Test
+    @DisplayName("""
+            stream events in period
+            | only operations of the product in the storage, in date order
+            | storage and product filters given
+            """)
+    void streamEventsInPeriod_onlyProductOperationsInStorage_storageAndProductFiltersGiven() {
+        try (Stream<OperationEvent> result = underTest.streamEventsInPeriod(LocalDateTime.of(2023, 6, 1, 0, 0),
+                LocalDateTime.of(2023, 7, 1, 0, 0), 2, 3, null)) {
+            assertThat(result)
+                    .extracting(OperationEvent::getId)
+                    .containsExactly(6);
+        }
+    }
+
+    @Test
+    @DisplayName("""
+            indexes
+            | storage and product index ends in date and id
+            | migrations are applied
+            """)
+    void indexes_storageAndProductIndexEndsInDateAndId_migrationsApplied() {
+        List<String> columns = jdbcTemplate.queryForList("select column_name from information_schema.index_columns " +
+                "where table_name = 'OPERATION_HISTORIES' and index_name = " +
+                "'IDX_OPERATION_HISTORIES_STORAGE_PRODUCT_DATE_ID' order by ordinal_position", String.class);
 
-        assertAll(
-                () -> assertThat(result).isNotEmpty(),
-                () -> assertThat(result.size()).isEqualTo(4),
-                () -> assertThat(result.stream()
-                        .filter(el -> el.getOperation().equals(OperationType.SHIPMENT)).toList()
-                        .size()).isEqualTo(0)
-                );
+        assertThat(columns).containsExactly("STORAGE_ID", "PRODUCT_ID", "DATE", "ID");
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,112 @@
+package ru.lazarenko.warehouse.repository;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.jdbc.Sql;
+import ru.lazarenko.warehouse.dto.OperationTrendDto;
+import ru.lazarenko.warehouse.entity.OperationRollup;
+import ru.lazarenko.warehouse.entity.Product;
+import ru.lazarenko.warehouse.entity.Storage;
+import ru.lazarenko.warehouse.model.OperationType;
+import ru.lazarenko.warehouse.model.RollupGranularity;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.springframework.test.annotation.DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD;
+
+@DataJpaTest
+@Sql("classpath:repository/data.sql")
+@DirtiesContext(classMode = AFTER_EACH_TEST_METHOD)
+class OperationRollupRepositoryTest {
+    private static final LocalDateTime DAY = LocalDateTime.of(2023, 5, 1, 0, 0);
+
+    @Autowired
+    OperationRollupRepository underTest;
+
+    @Autowired
+    TestEntityManager entityManager;
+
+    @Test
+    @DisplayName("""
+            find trends
+            | sums of the products per storage and day inside the range
+            | rollups of several products, storages, days and granularities
+            """)
+    void findTrends_sumsPerStorageAndDay_rollupsOfSeveralProductsAndStorages() {
+        underTest.saveAll(List.of(
+                rollup(RollupGranularity.DAY, DAY, 1, 1, OperationType.SHIPMENT, 10),
+                rollup(RollupGranularity.DAY, DAY, 2, 1, OperationType.SHIPMENT, 5),
+                rollup(RollupGranularity.DAY, DAY, 1, 2, OperationType.SHIPMENT, 7),
+                rollup(RollupGranularity.DAY, DAY, 1, 1, OperationType.LOADING, 100),
+                rollup(RollupGranularity.DAY, DAY.plusDays(1), 1, 1, OperationType.SHIPMENT, 3),
+                rollup(RollupGranularity.DAY, DAY.plusDays(2), 1, 1, OperationType.SHIPMENT, 1),
+                rollup(RollupGranularity.HOUR, DAY.plusHours(1), 1, 1, OperationType.SHIPMENT, 10)));
+        entityManager.flush();
+
+        List<OperationTrendDto> result = underTest.findTrends(RollupGranularity.DAY, DAY, DAY.plusDays(2),
+                null, null, OperationType.SHIPMENT);
+
+        assertThat(result)
+                .extracting(OperationTrendDto::getBucketStart, OperationTrendDto::getStorageId,
+                        OperationTrendDto::getCount, OperationTrendDto::getRecords)
+                .containsExactly(
+                        tuple(DAY, 1, 15L, 2L),
+                        tuple(DAY, 2, 7L, 1L),
+                        tuple(DAY.plusDays(1), 1, 3L, 1L));
+    }
+
+    @Test
+    @DisplayName("find trends | only rollups of the product and storage | filter by product and storage")
+    void findTrends_onlyRollupsOfProductAndStorage_filterByProductAndStorage() {
+        underTest.saveAll(List.of(
+                rollup(RollupGranularity.HOUR, DAY, 1, 1, OperationType.LOADING, 10),
+                rollup(RollupGranularity.HOUR, DAY, 2, 1, OperationType.LOADING, 5),
+                rollup(RollupGranularity.HOUR, DAY, 1, 2, OperationType.LOADING, 7)));
+        entityManager.flush();
+
+        List<OperationTrendDto> result = underTest.findTrends(RollupGranularity.HOUR, DAY, DAY.plusDays(1),
+                1, 1, null);
+
+        assertThat(result)
+                .extracting(OperationTrendDto::getStorageId, OperationTrendDto::getOperation, OperationTrendDto::getCount)
+                .containsExactly(tuple(1, OperationType.LOADING, 10L));
+    }
+
+    @Test
+    @DisplayName("find all in buckets | rollups of the given buckets and storages | rollups of other buckets exist")
+    void findAllInBuckets_rollupsOfGivenBucketsAndStorages_otherBucketsExist() {
+        underTest.saveAll(List.of(
+                rollup(RollupGranularity.DAY, DAY, 1, 1, OperationType.LOADING, 10),
+                rollup(RollupGranularity.HOUR, DAY, 1, 1, OperationType.LOADING, 10),
+                rollup(RollupGranularity.HOUR, DAY.plusHours(1), 1, 1, OperationType.LOADING, 10),
+                rollup(RollupGranularity.DAY, DAY, 1, 2, OperationType.LOADING, 10)));
+        entityManager.flush();
+
+        List<OperationRollup> result = underTest.findAllInBuckets(Set.of(DAY), Set.of(1));
+
+        assertThat(result)
+                .extracting(OperationRollup::getGranularity)
+                .containsExactlyInAnyOrder(RollupGranularity.DAY, RollupGranularity.HOUR);
+    }
+
+    private OperationRollup rollup(RollupGranularity granularity, LocalDateTime bucketStart, Integer productId,
+                                   Integer storageId, OperationType operation, long count) {
+        return OperationRollup.builder()
+                .granularity(granularity)
+                .bucketStart(bucketStart)
+                .product(entityManager.find(Product.class, productId))
+                .storage(entityManager.find(Storage.class, storageId))
+                .operation(operation)
+                .count(count)
+                .records(1L)
+                .build();
+    }
+}
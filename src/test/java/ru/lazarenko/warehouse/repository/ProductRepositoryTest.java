@@ -4,14 +4,20 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.jdbc.Sql;
 import ru.lazarenko.warehouse.entity.Product;
+import ru.lazarenko.warehouse.model.PriceEntry;
+
+import javax.persistence.EntityManagerFactory;
 
 import java.math.BigDecimal;
 import java.util.List;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.junit.jupiter.api.Assertions.assertAll;
 import static org.springframework.test.annotation.DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD;
 
@@ -22,17 +28,20 @@ class ProductRepositoryTest {
     @Autowired
     ProductRepository underTest;
 
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
     @Test
     @DisplayName("""
-            find products by price between min and max price
+            find price range page
             | result list not empty and contains two products
             | products found
             """)
-    void findProductsByMinAndMaxPrice_notEmptyResultList_productsFound() {
+    void findPriceRangePage_notEmptyResultList_productsFound() {
         BigDecimal minPrice = new BigDecimal(150);
         BigDecimal maxPrice = new BigDecimal(200);
 
-        List<Product> result = underTest.findProductsByMinAndMaxPrice(minPrice, maxPrice);
+        List<Product> result = underTest.findPriceRangePage(minPrice, maxPrice, null, null, 0, Pageable.unpaged());
 
         assertAll(
                 () -> assertThat(result.size()).isEqualTo(2),
@@ -43,47 +52,125 @@ class ProductRepositoryTest {
 
     @Test
     @DisplayName("""
-            find products by price between min and max price
+            find price range page
             | result list is empty
             | products not found
             """)
-    void findProductsByMinAndMaxPrice_emptyResultList_productsNotFound() {
+    void findPriceRangePage_emptyResultList_productsNotFound() {
         BigDecimal minPrice = new BigDecimal(1000);
         BigDecimal maxPrice = new BigDecimal(2000);
 
-        List<Product> result = underTest.findProductsByMinAndMaxPrice(minPrice, maxPrice);
+        List<Product> result = underTest.findPriceRangePage(minPrice, maxPrice, null, null, 0, Pageable.unpaged());
 
         assertThat(result).isEmpty();
     }
 
     @Test
     @DisplayName("""
-            find all by category id
-            | result list not empty and contains two products
-            | products found
+            find price range page
+            | products after the cursor of the category, limited by page size
+            | cursor and category are given
+            """)
+    void findPriceRangePage_productsAfterCursorOfCategoryLimited_cursorAndCategoryGiven() {
+        List<Product> result = underTest.findPriceRangePage(new BigDecimal(50), new BigDecimal(200), 1,
+                new BigDecimal(50), 3, PageRequest.of(0, 1));
+
+        assertThat(result)
+                .extracting(Product::getId)
+                .containsExactly(4);
+    }
+
+    @Test
+    @DisplayName("""
+            find first price entries
+            | cheapest entries in price and id order
+            | products of the same price exist
+            """)
+    void findFirstPriceEntries_cheapestEntriesInPriceAndIdOrder_productsOfSamePriceExist() {
+        List<PriceEntry> result = underTest.findFirstPriceEntries(PageRequest.of(0, 3));
+
+        assertThat(result)
+                .extracting(PriceEntry::getProductId)
+                .containsExactly(3, 2, 1);
+    }
+
+    @Test
+    @DisplayName("""
+            find price entries after
+            | entries in price and id order after the cursor
+            | cursor between products of the same price
+            """)
+    void findPriceEntriesAfter_entriesInPriceAndIdOrder_cursorBetweenSamePrice() {
+        List<PriceEntry> result = underTest.findPriceEntriesAfter(new BigDecimal(100), 2, PageRequest.of(0, 10));
+
+        assertThat(result)
+                .extracting(PriceEntry::getProductId, PriceEntry::getCategoryId)
+                .containsExactly(tuple(1, 2), tuple(4, 1));
+    }
+
+    @Test
+    @DisplayName("""
+            find page after
+            | products with greater ids in id order, limited by page size
+            | cursor in the middle of the table
             """)
-    void findAllByCategoryId_notEmptyResultList_productsFound() {
-        Integer categoryId = 1;
-        List<Product> result = underTest.findAllByCategoryId(categoryId);
+    void findPageAfter_greaterIdsInOrderLimited_cursorInMiddle() {
+        List<Product> result = underTest.findPageAfter(1, null, PageRequest.of(0, 2));
+
+        assertThat(result)
+                .extracting(Product::getId)
+                .containsExactly(2, 3);
+    }
+
+    @Test
+    @DisplayName("""
+            find page after
+            | only products of the category
+            | category is given
+            """)
+    void findPageAfter_onlyProductsOfCategory_categoryIsGiven() {
+        List<Product> result = underTest.findPageAfter(0, 1, PageRequest.of(0, 10));
 
         assertAll(
-                () -> assertThat(result.size()).isEqualTo(2),
-                () -> assertThat(result.get(0).getName()).isEqualTo("americano"),
-                () -> assertThat(result.get(1).getName()).isEqualTo("cappuccino")
+                () -> assertThat(result).extracting(Product::getId).containsExactly(3, 4),
+                () -> assertThat(result).allMatch(product -> product.getCategory().getName().equals("coffee"))
         );
     }
 
     @Test
     @DisplayName("""
-            find all by category id
-            | result list is empty
-            | products not found
+            find price range page
+            | one statement with categories
+            | products of two categories found
             """)
-    void findAllByCategoryId_emptyResultList_productsNotFound() {
-        Integer categoryId = 3;
-        List<Product> result = underTest.findAllByCategoryId(categoryId);
+    void findPriceRangePage_oneStatementWithCategories_productsOfTwoCategoriesFound() {
+        StatementCounter statements = new StatementCounter(entityManagerFactory);
 
-        assertThat(result).isEmpty();
+        List<Product> result = underTest.findPriceRangePage(new BigDecimal(0), new BigDecimal(1000), null, null, 0,
+                Pageable.unpaged());
+
+        assertAll(
+                () -> assertThat(result).extracting(product -> product.getCategory().getName())
+                        .containsOnly("coffee", "tea"),
+                () -> assertThat(statements.count()).isEqualTo(1)
+        );
     }
 
-}
\ No newline at end of file
+    @Test
+    @DisplayName("""
+            find page after
+            | one statement with categories
+            | products of two categories on the page
+            """)
+    void findPageAfter_oneStatementWithCategories_productsOfTwoCategories() {
+        StatementCounter statements = new StatementCounter(entityManagerFactory);
+
+        List<Product> result = underTest.findPageAfter(0, null, PageRequest.of(0, 10));
+
+        assertAll(
+                () -> assertThat(result).extracting(product -> product.getCategory().getName())
+                        .containsOnly("coffee", "tea"),
+                () -> assertThat(statements.count()).isEqualTo(1)
+        );
+    }
+}
@@ -0,0 +1,146 @@
+package ru.lazarenko.warehouse.repository;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.lazarenko.warehouse.config.ReferenceCacheConfig;
+import ru.lazarenko.warehouse.entity.Category;
+import ru.lazarenko.warehouse.entity.Region;
+import ru.lazarenko.warehouse.entity.Storage;
+
+import javax.persistence.EntityManagerFactory;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.springframework.test.annotation.DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD;
+
+@DataJpaTest
+@Import(ReferenceCacheConfig.class)
+@Sql("classpath:repository/data.sql")
+@DirtiesContext(classMode = AFTER_EACH_TEST_METHOD)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+/**
+ * Runs without a test transaction, so that every lookup has its own session like a request has. Entries cached
+ * after a session started are not visible to that session.
+ */
+class ReferenceCacheTest {
+    @Autowired
+    CategoryRepository categoryRepository;
+
+    @Autowired
+    RegionRepository regionRepository;
+
+    @Autowired
+    StorageRepository storageRepository;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    Statistics statistics;
+
+    @BeforeEach
+    void prepare() {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @Test
+    @DisplayName("""
+            find by name
+            | second lookup is served by the cache without statements
+            | category looked up in two sessions
+            """)
+    void findByName_secondLookupServedByCache_categoryLookedUpInTwoSessions() {
+        categoryRepository.findByName("coffee");
+        StatementCounter statements = new StatementCounter(entityManagerFactory);
+
+        Optional<Category> result = categoryRepository.findByName("coffee");
+
+        assertAll(
+                () -> assertThat(result).get().extracting(Category::getId).isEqualTo(1),
+                () -> assertThat(statements.count()).isZero(),
+                () -> assertThat(statistics.getNaturalIdCacheHitCount()).isEqualTo(1),
+                () -> assertThat(statistics.getDomainDataRegionStatistics(Category.class.getName()).getHitCount())
+                        .isEqualTo(1)
+        );
+    }
+
+    @Test
+    @DisplayName("""
+            find by name
+            | second lookup is served by the cache without statements
+            | region looked up in two sessions
+            """)
+    void findByName_secondLookupServedByCache_regionLookedUpInTwoSessions() {
+        regionRepository.findByName("Moscow");
+        StatementCounter statements = new StatementCounter(entityManagerFactory);
+
+        Optional<Region> result = regionRepository.findByName("Moscow");
+
+        assertAll(
+                () -> assertThat(result).get().extracting(Region::getId).isEqualTo(2),
+                () -> assertThat(statements.count()).isZero()
+        );
+    }
+
+    @Test
+    @DisplayName("""
+            find by id
+            | storage and its region are served by the cache without statements
+            | storage looked up in two sessions
+            """)
+    void findById_storageAndRegionServedByCache_storageLookedUpInTwoSessions() {
+        storageRepository.findById(2);
+        StatementCounter statements = new StatementCounter(entityManagerFactory);
+
+        Optional<Storage> result = storageRepository.findById(2);
+
+        assertAll(
+                () -> assertThat(result).get().extracting(storage -> storage.getRegion().getName())
+                        .isEqualTo("Moscow"),
+                () -> assertThat(statements.count()).isZero()
+        );
+    }
+
+    @Test
+    @DisplayName("""
+            find by name
+            | created category is found
+            | name was looked up before the category existed
+            """)
+    void findByName_createdCategoryFound_nameLookedUpBeforeCreation() {
+        Optional<Category> missing = categoryRepository.findByName("juice");
+        categoryRepository.saveAndFlush(Category.builder().name("juice").build());
+
+        Optional<Category> result = categoryRepository.findByName("juice");
+
+        assertAll(
+                () -> assertThat(missing).isEmpty(),
+                () -> assertThat(result).get().extracting(Category::getName).isEqualTo("juice")
+        );
+    }
+
+    @Test
+    @DisplayName("""
+            find by name
+            | lookup misses the cache
+            | storage was not looked up before
+            """)
+    void findByName_lookupMissesCache_storageNotLookedUpBefore() {
+        Optional<Storage> result = storageRepository.findByName("Sochi-str");
+
+        assertAll(
+                () -> assertThat(result).get().extracting(Storage::getId).isEqualTo(1),
+                () -> assertThat(statistics.getNaturalIdCacheMissCount()).isEqualTo(1)
+        );
+    }
+}
@@ -4,10 +4,12 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.jdbc.Sql;
 import ru.lazarenko.warehouse.entity.Region;
 
+import java.util.List;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -67,4 +69,18 @@ class RegionRepositoryTest {
 
         assertThat(optionalResult).isEmpty();
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("""
+            find page after
+            | first page limited by page size
+            | no cursor
+            """)
+    void findPageAfter_firstPageLimited_noCursor() {
+        List<Region> result = underTest.findPageAfter(0, PageRequest.of(0, 1));
+
+        assertThat(result)
+                .extracting(Region::getId)
+                .containsExactly(1);
+    }
+}
@@ -0,0 +1,46 @@
+package ru.lazarenko.warehouse.repository;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+
+@DataJpaTest
+class ResourceVersionRepositoryTest {
+    @Autowired
+    ResourceVersionRepository underTest;
+
+    @Test
+    @DisplayName("""
+            increment
+            | version of the resource increased
+            | resource has a version
+            """)
+    void increment_versionIncreased_resourceHasVersion() {
+        long before = underTest.findVersion("categories").orElseThrow();
+
+        int updated = underTest.increment("categories");
+
+        assertAll(
+                () -> assertThat(updated).isEqualTo(1),
+                () -> assertThat(underTest.findVersion("categories")).contains(before + 1),
+                () -> assertThat(underTest.findVersion("products")).contains(0L)
+        );
+    }
+
+    @Test
+    @DisplayName("""
+            increment
+            | no rows updated
+            | resource has no version
+            """)
+    void increment_noRowsUpdated_resourceHasNoVersion() {
+        assertAll(
+                () -> assertThat(underTest.increment("unknown")).isZero(),
+                () -> assertThat(underTest.findVersion("unknown")).isEmpty()
+        );
+    }
+}
@@ -0,0 +1,97 @@
+package ru.lazarenko.warehouse.repository;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.test.annotation.DirtiesContext;
+import ru.lazarenko.warehouse.entity.SchedulerLock;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.springframework.test.annotation.DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD;
+
+@DataJpaTest
+@DirtiesContext(classMode = AFTER_EACH_TEST_METHOD)
+class SchedulerLockRepositoryTest {
+    @Autowired
+    SchedulerLockRepository underTest;
+
+    @Autowired
+    TestEntityManager entityManager;
+
+    LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.MILLIS);
+
+    @BeforeEach
+    void prepare() {
+        underTest.saveAndFlush(SchedulerLock.builder()
+                .name("job")
+                .owner("node-1")
+                .token(3L)
+                .expiresAt(now.plusMinutes(1))
+                .build());
+    }
+
+    @Test
+    @DisplayName("acquire | not acquired | lease of another node not expired")
+    void acquire_notAcquired_leaseNotExpired() {
+        int result = underTest.acquire("job", "node-2", 60_000_000L);
+
+        assertThat(result).isEqualTo(0);
+    }
+
+    @Test
+    @DisplayName("acquire | acquired with next token | lease expired")
+    void acquire_acquiredWithNextToken_leaseExpired() {
+        underTest.findById("job").orElseThrow().setExpiresAt(now.minusSeconds(1));
+        entityManager.flush();
+
+        int result = underTest.acquire("job", "node-2", 60_000_000L);
+        entityManager.clear();
+
+        SchedulerLock lock = underTest.findById("job").orElseThrow();
+        assertAll(
+                () -> assertThat(result).isEqualTo(1),
+                () -> assertThat(lock.getOwner()).isEqualTo("node-2"),
+                () -> assertThat(lock.getToken()).isEqualTo(4L),
+                () -> assertThat(lock.getExpiresAt()).isAfter(now.plusSeconds(30)),
+                () -> assertThat(underTest.findTokenByName("job")).contains(4L)
+        );
+    }
+
+    @Test
+    @DisplayName("renew | not renewed | token is stale")
+    void renew_notRenewed_tokenIsStale() {
+        int result = underTest.renew("job", "node-1", 2L, 300_000_000L);
+
+        assertThat(result).isEqualTo(0);
+    }
+
+    @Test
+    @DisplayName("renew | lease extended | owner and token match")
+    void renew_leaseExtended_ownerAndTokenMatch() {
+        int result = underTest.renew("job", "node-1", 3L, 300_000_000L);
+        entityManager.clear();
+
+        assertAll(
+                () -> assertThat(result).isEqualTo(1),
+                () -> assertThat(underTest.findById("job").orElseThrow().getExpiresAt())
+                        .isAfter(now.plusMinutes(4))
+        );
+    }
+
+    @Test
+    @DisplayName("find held token | token found only for the holder | owner and token given")
+    void findHeldToken_tokenFoundOnlyForHolder_ownerAndTokenGiven() {
+        assertAll(
+                () -> assertThat(underTest.findHeldToken("job", "node-1", 3L)).contains(3L),
+                () -> assertThat(underTest.findHeldToken("job", "node-1", 2L)).isEmpty(),
+                () -> assertThat(underTest.findHeldToken("job", "node-2", 3L)).isEmpty()
+        );
+    }
+}
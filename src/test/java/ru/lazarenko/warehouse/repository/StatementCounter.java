@@ -0,0 +1,22 @@
+package ru.lazarenko.warehouse.repository;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+
+import javax.persistence.EntityManagerFactory;
+
+/**
+ * Counts the JDBC statements prepared since construction, so that tests can pin the fetch plan of a query.
+ */
+class StatementCounter {
+    private final Statistics statistics;
+
+    StatementCounter(EntityManagerFactory entityManagerFactory) {
+        statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+    }
+
+    long count() {
+        return statistics.getPrepareStatementCount();
+    }
+}
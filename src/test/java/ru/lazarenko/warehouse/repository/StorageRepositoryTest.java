@@ -4,13 +4,20 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.jdbc.Sql;
 import ru.lazarenko.warehouse.entity.Storage;
+import ru.lazarenko.warehouse.model.StorageView;
 
+import javax.persistence.EntityManagerFactory;
+
+import java.util.List;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.junit.jupiter.api.Assertions.assertAll;
 import static org.springframework.test.annotation.DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD;
 
 @DataJpaTest
@@ -20,6 +27,9 @@ class StorageRepositoryTest {
     @Autowired
     StorageRepository underTest;
 
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
     @Test
     @DisplayName("find by name | optional not empty | storage exists")
     void findByName_optionalNotEmpty_storageExists() {
@@ -42,4 +52,48 @@ class StorageRepositoryTest {
 
         assertThat(optionalResult).isEmpty();
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("""
+            find page after
+            | storages with greater ids and their regions
+            | cursor after the first storage
+            """)
+    void findPageAfter_greaterIdsWithRegions_cursorAfterFirstStorage() {
+        List<Storage> result = underTest.findPageAfter(1, PageRequest.of(0, 10));
+
+        assertThat(result)
+                .extracting(Storage::getId, storage -> storage.getRegion().getName())
+                .containsExactly(tuple(2, "Moscow"), tuple(3, "Moscow"));
+    }
+
+    @Test
+    @DisplayName("""
+            find page after
+            | one statement with regions
+            | storages of two regions on the page
+            """)
+    void findPageAfter_oneStatementWithRegions_storagesOfTwoRegions() {
+        StatementCounter statements = new StatementCounter(entityManagerFactory);
+
+        List<Storage> result = underTest.findPageAfter(0, PageRequest.of(0, 10));
+
+        assertAll(
+                () -> assertThat(result).extracting(storage -> storage.getRegion().getName())
+                        .containsOnly("Sochi", "Moscow"),
+                () -> assertThat(statements.count()).isEqualTo(1)
+        );
+    }
+
+    @Test
+    @DisplayName("""
+            find views by region id
+            | only storages of the region in id order
+            | storages of two regions exist
+            """)
+    void findViewsByRegionId_onlyStoragesOfRegion_storagesOfTwoRegionsExist() {
+        List<StorageView> result = underTest.findViewsByRegionId(2);
+
+        assertThat(result).containsExactly(new StorageView(2, "Moscow-str-1", 2), new StorageView(3, "Moscow-str-2", 2));
+    }
+}
@@ -4,6 +4,7 @@ import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.jdbc.Sql;
 import ru.lazarenko.warehouse.entity.User;
@@ -44,9 +45,16 @@ class UserRepositoryTest {
     }
 
     @Test
-    @DisplayName("find all with roles | optional not empty | user exists")
-    void findAllWithRoles_optionalNotEmpty_userExists() {
-        List<User> result = underTest.findAllWithRoles();
+    @DisplayName("find id page after | ids in order | users exist")
+    void findIdPageAfter_idsInOrder_usersExist() {
+        assertThat(underTest.findIdPageAfter(0, PageRequest.of(0, 10))).containsExactly(1);
+        assertThat(underTest.findIdPageAfter(1, PageRequest.of(0, 10))).isEmpty();
+    }
+
+    @Test
+    @DisplayName("find all with roles by id in | users with roles | user exists")
+    void findAllWithRolesByIdIn_usersWithRoles_userExists() {
+        List<User> result = underTest.findAllWithRolesByIdIn(List.of(1));
 
         assertThat(result).isNotEmpty();
         assertThat(result.get(0).getUsername()).isEqualTo("admin");
@@ -0,0 +1,205 @@
+package ru.lazarenko.warehouse.scheduled;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.lazarenko.warehouse.entity.HistoryArchiveDay;
+import ru.lazarenko.warehouse.entity.OperationHistory;
+import ru.lazarenko.warehouse.entity.Product;
+import ru.lazarenko.warehouse.entity.Storage;
+import ru.lazarenko.warehouse.model.OperationEvent;
+import ru.lazarenko.warehouse.model.OperationType;
+import ru.lazarenko.warehouse.repository.HistoryArchiveDayRepository;
+import ru.lazarenko.warehouse.repository.HistorySegmentRepository;
+import ru.lazarenko.warehouse.repository.OperationHistoryRepository;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.reset;
+import static org.springframework.test.annotation.DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD;
+
+@DataJpaTest
+@Import({HistoryArchiveWriter.class, HistorySegmentRepository.class})
+@Sql("classpath:repository/data.sql")
+@DirtiesContext(classMode = AFTER_EACH_TEST_METHOD)
+class HistoryArchiveWriterTest {
+    private static final LocalDate DAY = LocalDate.of(2021, 3, 10);
+
+    @TempDir
+    static Path archiveDirectory;
+
+    @Autowired
+    HistoryArchiveWriter underTest;
+
+    @Autowired
+    HistorySegmentRepository historySegmentRepository;
+
+    @Autowired
+    OperationHistoryRepository operationHistoryRepository;
+
+    @SpyBean
+    HistoryArchiveDayRepository historyArchiveDayRepository;
+
+    @Autowired
+    TestEntityManager entityManager;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Test
+    @DisplayName("""
+            archive day
+            | histories of the day moved to the segment, other days stay in the table
+            | histories of three days
+            """)
+    void archiveDay_historiesOfDayMovedToSegment_historiesOfThreeDays() {
+        history(1, 1, DAY.minusDays(1).atTime(23, 59));
+        history(1, 1, DAY.atTime(8, 0));
+        history(2, 2, DAY.atTime(9, 30));
+        history(3, 1, DAY.atTime(17, 15));
+        history(1, 3, DAY.plusDays(1).atStartOfDay());
+        entityManager.flush();
+        long before = operationHistoryRepository.count();
+
+        int result = underTest.archiveDay(DAY);
+
+        HistoryArchiveDay archiveDay = historyArchiveDayRepository.findById(DAY).orElseThrow();
+        List<OperationEvent> archived = historySegmentRepository.read(List.of(archiveDay.getLocation()),
+                DAY.atStartOfDay(), DAY.plusDays(1).atStartOfDay(), null);
+        assertAll(
+                () -> assertThat(result).isEqualTo(3),
+                () -> assertThat(operationHistoryRepository.count()).isEqualTo(before - 3),
+                () -> assertThat(archived)
+                        .extracting(OperationEvent::getProductId, OperationEvent::getStorageId, OperationEvent::getDate)
+                        .containsExactly(
+                                tuple(1, 1, DAY.atTime(8, 0)),
+                                tuple(2, 2, DAY.atTime(9, 30)),
+                                tuple(3, 1, DAY.atTime(17, 15))),
+                () -> assertThat(archiveDay.getRowCount()).isEqualTo(3),
+                () -> assertThat(historyArchiveDayRepository.findLastArchiveDate()).contains(DAY)
+        );
+    }
+
+    @Test
+    @DisplayName("""
+            archive day
+            | late histories merged into the segment of the day
+            | day already archived
+            """)
+    void archiveDay_lateHistoriesMergedIntoSegment_dayAlreadyArchived() {
+        history(1, 1, DAY.atTime(8, 0));
+        history(2, 2, DAY.atTime(9, 30));
+        entityManager.flush();
+        underTest.archiveDay(DAY);
+        history(3, 1, DAY.atTime(8, 30));
+        entityManager.flush();
+
+        int result = underTest.archiveDay(DAY);
+
+        HistoryArchiveDay archiveDay = historyArchiveDayRepository.findById(DAY).orElseThrow();
+        assertAll(
+                () -> assertThat(result).isEqualTo(1),
+                () -> assertThat(archiveDay.getRowCount()).isEqualTo(3),
+                () -> assertThat(historySegmentRepository.read(List.of(archiveDay.getLocation()), DAY.atStartOfDay(),
+                        DAY.plusDays(1).atStartOfDay(), null))
+                        .extracting(OperationEvent::getProductId, OperationEvent::getDate)
+                        .containsExactly(
+                                tuple(1, DAY.atTime(8, 0)),
+                                tuple(3, DAY.atTime(8, 30)),
+                                tuple(2, DAY.atTime(9, 30)))
+        );
+    }
+
+    @Test
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    @DisplayName("""
+            archive day
+            | recorded segment kept, late histories stay in the table and are merged once by the next run
+            | merge rolled back
+            """)
+    void archiveDay_segmentKeptAndHistoriesMergedOnce_mergeRolledBack() {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.executeWithoutResult(status -> {
+            history(1, 1, DAY.atTime(8, 0));
+            history(2, 2, DAY.atTime(9, 30));
+        });
+        underTest.archiveDay(DAY);
+        String location = historyArchiveDayRepository.findById(DAY).orElseThrow().getLocation();
+        transaction.executeWithoutResult(status -> history(3, 1, DAY.atTime(8, 30)));
+        long before = operationHistoryRepository.count();
+        doThrow(new IllegalStateException("commit failed"))
+                .when(historyArchiveDayRepository).save(any());
+
+        assertThrows(IllegalStateException.class, () -> underTest.archiveDay(DAY));
+        reset(historyArchiveDayRepository);
+        HistoryArchiveDay afterRollback = historyArchiveDayRepository.findById(DAY).orElseThrow();
+        long afterRollbackRows = operationHistoryRepository.count();
+        List<OperationEvent> afterRollbackSegment = historySegmentRepository.read(List.of(location),
+                DAY.atStartOfDay(), DAY.plusDays(1).atStartOfDay(), null);
+        int result = underTest.archiveDay(DAY);
+
+        HistoryArchiveDay archiveDay = historyArchiveDayRepository.findById(DAY).orElseThrow();
+        assertAll(
+                () -> assertThat(afterRollback.getLocation()).isEqualTo(location),
+                () -> assertThat(afterRollbackRows).isEqualTo(before),
+                () -> assertThat(afterRollbackSegment).hasSize(2),
+                () -> assertThat(result).isEqualTo(1),
+                () -> assertThat(archiveDay.getRowCount()).isEqualTo(3),
+                () -> assertThat(historySegmentRepository.read(List.of(archiveDay.getLocation()), DAY.atStartOfDay(),
+                        DAY.plusDays(1).atStartOfDay(), null))
+                        .extracting(OperationEvent::getProductId, OperationEvent::getDate)
+                        .containsExactly(
+                                tuple(1, DAY.atTime(8, 0)),
+                                tuple(3, DAY.atTime(8, 30)),
+                                tuple(2, DAY.atTime(9, 30)))
+        );
+    }
+
+    @Test
+    @DisplayName("archive day | nothing archived | no histories on the day")
+    void archiveDay_nothingArchived_noHistoriesOnDay() {
+        int result = underTest.archiveDay(DAY.minusYears(5));
+
+        assertAll(
+                () -> assertThat(result).isZero(),
+                () -> assertThat(historyArchiveDayRepository.findById(DAY.minusYears(5))).isEmpty()
+        );
+    }
+
+    @DynamicPropertySource
+    static void archiveProperties(DynamicPropertyRegistry registry) {
+        registry.add("my.archive.directory", archiveDirectory::toString);
+    }
+
+    private void history(Integer productId, Integer storageId, LocalDateTime date) {
+        entityManager.persist(OperationHistory.builder()
+                .product(entityManager.find(Product.class, productId))
+                .storage(entityManager.find(Storage.class, storageId))
+                .operation(OperationType.LOADING)
+                .count(10)
+                .date(date)
+                .build());
+    }
+}
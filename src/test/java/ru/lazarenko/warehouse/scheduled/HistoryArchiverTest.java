@@ -0,0 +1,131 @@
+package ru.lazarenko.warehouse.scheduled;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.util.ReflectionTestUtils;
+import ru.lazarenko.warehouse.entity.AnalysisCheckpoint;
+import ru.lazarenko.warehouse.repository.AnalysisCheckpointRepository;
+import ru.lazarenko.warehouse.repository.OperationHistoryRepository;
+import ru.lazarenko.warehouse.repository.SchedulerLockRepository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@SpringBootTest(properties = {"my.archive.age-days=180", "my.archive.shared-storage=true"})
+class HistoryArchiverTest {
+    @Autowired
+    HistoryArchiver underTest;
+
+    @MockBean
+    OperationHistoryRepository operationHistoryRepository;
+
+    @MockBean
+    AnalysisCheckpointRepository analysisCheckpointRepository;
+
+    @MockBean
+    HistoryArchiveWriter historyArchiveWriter;
+
+    @Autowired
+    SchedulerLockRepository schedulerLockRepository;
+
+    @AfterEach
+    void cleanUp() {
+        schedulerLockRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("""
+            archive
+            | days archived oldest first until no history is older than the age
+            | rollups are up to date
+            """)
+    void archive_daysArchivedOldestFirst_rollupsUpToDate() {
+        LocalDate cutoff = LocalDate.now().minusDays(180);
+        LocalDateTime oldest = cutoff.minusDays(10).atTime(10, 0);
+        checkpoint(LocalDateTime.now());
+        when(operationHistoryRepository.findFirstDateBefore(cutoff.atStartOfDay()))
+                .thenReturn(Optional.of(oldest), Optional.of(oldest.plusDays(1)), Optional.empty());
+
+        underTest.archive();
+
+        verify(historyArchiveWriter).archiveDay(oldest.toLocalDate());
+        verify(historyArchiveWriter).archiveDay(oldest.toLocalDate().plusDays(1));
+        verify(historyArchiveWriter, times(2)).archiveDay(any());
+    }
+
+    @Test
+    @DisplayName("""
+            archive
+            | only rolled up days archived
+            | rollups lag behind the age
+            """)
+    void archive_onlyRolledUpDaysArchived_rollupsLagBehind() {
+        LocalDateTime rolledUpTo = LocalDate.now().minusDays(400).atTime(15, 0);
+        checkpoint(rolledUpTo);
+        when(operationHistoryRepository.findFirstDateBefore(any()))
+                .thenReturn(Optional.empty());
+
+        underTest.archive();
+
+        verify(operationHistoryRepository).findFirstDateBefore(rolledUpTo.toLocalDate().atStartOfDay());
+        verify(historyArchiveWriter, never()).archiveDay(any());
+    }
+
+    @Test
+    @DisplayName("""
+            archive
+            | day before the checkpoint not archived
+            | checkpoint passed midnight less than the overlap ago
+            """)
+    void archive_dayBeforeCheckpointNotArchived_checkpointWithinOverlapAfterMidnight() {
+        LocalDateTime rolledUpTo = LocalDate.now().minusDays(400).atTime(0, 2);
+        checkpoint(rolledUpTo);
+        when(operationHistoryRepository.findFirstDateBefore(any()))
+                .thenReturn(Optional.empty());
+
+        underTest.archive();
+
+        verify(operationHistoryRepository).findFirstDateBefore(rolledUpTo.toLocalDate().minusDays(1).atStartOfDay());
+    }
+
+    @Test
+    @DisplayName("archive | nothing archived | rollups have not started yet")
+    void archive_nothingArchived_rollupsNotStarted() {
+        when(analysisCheckpointRepository.findById(any()))
+                .thenReturn(Optional.empty());
+
+        underTest.archive();
+
+        verify(operationHistoryRepository, never()).findFirstDateBefore(any());
+    }
+
+    @Test
+    @DisplayName("archive | nothing archived | archive directory is not shared storage")
+    void archive_nothingArchived_directoryNotSharedStorage() {
+        ReflectionTestUtils.setField(underTest, "sharedStorage", false);
+        checkpoint(LocalDateTime.now());
+
+        underTest.archive();
+
+        ReflectionTestUtils.setField(underTest, "sharedStorage", true);
+        verify(operationHistoryRepository, never()).findFirstDateBefore(any());
+        verify(historyArchiveWriter, never()).archiveDay(any());
+    }
+
+    private void checkpoint(LocalDateTime lastDate) {
+        when(analysisCheckpointRepository.findById(OperationRollupWriter.CHECKPOINT_NAME))
+                .thenReturn(Optional.of(AnalysisCheckpoint.builder()
+                        .name(OperationRollupWriter.CHECKPOINT_NAME)
+                        .lastDate(lastDate)
+                        .lastId(1)
+                        .build()));
+    }
+}
@@ -0,0 +1,165 @@
+package ru.lazarenko.warehouse.scheduled;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import ru.lazarenko.warehouse.entity.AnalysisCheckpoint;
+import ru.lazarenko.warehouse.model.HistoryPartition;
+import ru.lazarenko.warehouse.repository.AnalysisCheckpointRepository;
+import ru.lazarenko.warehouse.repository.HistoryPartitionRepository;
+import ru.lazarenko.warehouse.repository.SchedulerLockRepository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.*;
+
+@SpringBootTest(properties = {"my.partitions.months-ahead=2", "my.partitions.retention-months=12"})
+class HistoryPartitionMaintenanceTest {
+    private static final DateTimeFormatter NAME_FORMAT = DateTimeFormatter.ofPattern("'p'yyyyMM");
+    private static final LocalDate THIS_MONTH = LocalDate.now().withDayOfMonth(1);
+
+    @Autowired
+    HistoryPartitionMaintenance underTest;
+
+    @MockBean
+    HistoryPartitionRepository historyPartitionRepository;
+
+    @MockBean
+    AnalysisCheckpointRepository analysisCheckpointRepository;
+
+    @Autowired
+    SchedulerLockRepository schedulerLockRepository;
+
+    @BeforeEach
+    void prepare() {
+        clearInvocations(historyPartitionRepository);
+        when(historyPartitionRepository.supportsPartitions())
+                .thenReturn(true);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        schedulerLockRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("""
+            maintain partitions
+            | missing months up to months ahead are created in order
+            | only this month exists
+            """)
+    void maintainPartitions_missingMonthsCreated_onlyThisMonthExists() {
+        when(historyPartitionRepository.findPartitions())
+                .thenReturn(List.of(partition(THIS_MONTH), new HistoryPartition("p_future", null)));
+
+        underTest.maintainPartitions();
+
+        verify(historyPartitionRepository, times(1)).addPartitions(List.of(
+                partition(THIS_MONTH.plusMonths(1)),
+                partition(THIS_MONTH.plusMonths(2))));
+    }
+
+    @Test
+    @DisplayName("""
+            maintain partitions
+            | months from the oldest row of the future partition created in one split
+            | future partition holds rows of earlier months
+            """)
+    void maintainPartitions_monthsFromOldestRowCreatedInOneSplit_futurePartitionHoldsRows() {
+        when(historyPartitionRepository.findPartitions())
+                .thenReturn(List.of(new HistoryPartition("p_start", THIS_MONTH.minusMonths(5).atStartOfDay()),
+                        new HistoryPartition("p_future", null)));
+        when(historyPartitionRepository.findFirstDateInFuturePartition())
+                .thenReturn(Optional.of(THIS_MONTH.minusMonths(3).atStartOfDay().plusDays(10)));
+
+        underTest.maintainPartitions();
+
+        verify(historyPartitionRepository, times(1)).addPartitions(List.of(
+                partition(THIS_MONTH.minusMonths(3)),
+                partition(THIS_MONTH.minusMonths(2)),
+                partition(THIS_MONTH.minusMonths(1)),
+                partition(THIS_MONTH),
+                partition(THIS_MONTH.plusMonths(1)),
+                partition(THIS_MONTH.plusMonths(2))));
+    }
+
+    @Test
+    @DisplayName("""
+            maintain partitions
+            | only months older than retention and rolled up are archived
+            | expired months partly behind rollup checkpoint
+            """)
+    void maintainPartitions_expiredRolledUpMonthsArchived_checkpointInsideExpiredMonths() {
+        List<HistoryPartition> partitions = new ArrayList<>();
+        for (int i = 15; i >= -2; i--) {
+            partitions.add(partition(THIS_MONTH.minusMonths(i)));
+        }
+        when(historyPartitionRepository.findPartitions())
+                .thenReturn(partitions);
+        when(analysisCheckpointRepository.findById(OperationRollupWriter.CHECKPOINT_NAME))
+                .thenReturn(Optional.of(AnalysisCheckpoint.builder()
+                        .name(OperationRollupWriter.CHECKPOINT_NAME)
+                        .lastDate(THIS_MONTH.minusMonths(13).atStartOfDay().plusDays(3))
+                        .build()));
+
+        underTest.maintainPartitions();
+
+        verify(historyPartitionRepository).archivePartition(name(THIS_MONTH.minusMonths(15)));
+        verify(historyPartitionRepository).archivePartition(name(THIS_MONTH.minusMonths(14)));
+        verify(historyPartitionRepository, times(2)).archivePartition(anyString());
+        verify(historyPartitionRepository, never()).dropPartition(anyString());
+        verify(historyPartitionRepository, never()).addPartitions(anyList());
+    }
+
+    @Test
+    @DisplayName("""
+            maintain partitions
+            | nothing removed
+            | rollups have not started yet
+            """)
+    void maintainPartitions_nothingRemoved_rollupsNotStarted() {
+        when(historyPartitionRepository.findPartitions())
+                .thenReturn(List.of(partition(THIS_MONTH.minusMonths(20)), partition(THIS_MONTH.plusMonths(2))));
+        when(analysisCheckpointRepository.findById(any()))
+                .thenReturn(Optional.empty());
+
+        underTest.maintainPartitions();
+
+        verify(historyPartitionRepository, never()).archivePartition(anyString());
+        verify(historyPartitionRepository, never()).dropPartition(anyString());
+    }
+
+    @Test
+    @DisplayName("""
+            maintain partitions
+            | nothing done
+            | database does not support partitions
+            """)
+    void maintainPartitions_nothingDone_partitionsNotSupported() {
+        when(historyPartitionRepository.supportsPartitions())
+                .thenReturn(false);
+
+        underTest.maintainPartitions();
+
+        verify(historyPartitionRepository, never()).findPartitions();
+    }
+
+    private HistoryPartition partition(LocalDate month) {
+        return new HistoryPartition(name(month), month.plusMonths(1).atStartOfDay());
+    }
+
+    private String name(LocalDate month) {
+        return NAME_FORMAT.format(month);
+    }
+}
@@ -0,0 +1,140 @@
+package ru.lazarenko.warehouse.scheduled;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.dao.DataIntegrityViolationException;
+import ru.lazarenko.warehouse.model.LockLease;
+import ru.lazarenko.warehouse.service.SchedulerLockService;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.*;
+
+@SpringBootTest
+class LockedJobRunnerTest {
+    @Autowired
+    LockedJobRunner underTest;
+
+    @MockBean
+    SchedulerLockService schedulerLockService;
+
+    @Test
+    @DisplayName("""
+            run
+            | job not run
+            | lock is held by another node
+            """)
+    void run_jobNotRun_lockHeldByAnotherNode() {
+        List<LockLease> runs = new ArrayList<>();
+        when(schedulerLockService.tryAcquire(eq("job"), anyString(), any()))
+                .thenReturn(Optional.empty());
+
+        boolean result = underTest.run("job", runs::add);
+
+        verify(schedulerLockService, never()).release(any(), any());
+        assertAll(
+                () -> assertThat(result).isFalse(),
+                () -> assertThat(runs).isEmpty()
+        );
+    }
+
+    @Test
+    @DisplayName("""
+            run
+            | job run with lease and lease released
+            | lock is free, lock row created concurrently
+            """)
+    void run_jobRunAndLeaseReleased_lockIsFree() {
+        LockLease lease = new LockLease("job", "node", 7L);
+        List<LockLease> runs = new ArrayList<>();
+        doThrow(new DataIntegrityViolationException("duplicate"))
+                .when(schedulerLockService).createLockIfAbsent("job");
+        when(schedulerLockService.tryAcquire(eq("job"), anyString(), any()))
+                .thenReturn(Optional.of(lease));
+
+        boolean result = underTest.run("job", runs::add);
+
+        verify(schedulerLockService, times(1)).release(eq(lease), any());
+        assertAll(
+                () -> assertThat(result).isTrue(),
+                () -> assertThat(runs).containsExactly(lease)
+        );
+    }
+
+    @Test
+    @DisplayName("""
+            run
+            | lease released and exception rethrown
+            | job fails
+            """)
+    void run_leaseReleasedAndExceptionRethrown_jobFails() {
+        LockLease lease = new LockLease("job", "node", 7L);
+        when(schedulerLockService.tryAcquire(eq("job"), anyString(), any()))
+                .thenReturn(Optional.of(lease));
+
+        assertThrows(IllegalStateException.class, () -> underTest.run("job", acquired -> {
+            throw new IllegalStateException("failed");
+        }));
+
+        verify(schedulerLockService, times(1)).release(eq(lease), any());
+    }
+
+    @Test
+    @DisplayName("""
+            run
+            | lease released with the rest of the registered hold
+            | hold registered for the job
+            """)
+    void run_leaseReleasedWithRestOfHold_holdRegistered() {
+        LockLease lease = new LockLease("held-job", "node", 7L);
+        when(schedulerLockService.tryAcquire(eq("held-job"), anyString(), any()))
+                .thenReturn(Optional.of(lease));
+        underTest.registerJob("held-job", Duration.ofMinutes(2), Duration.ofMinutes(3));
+
+        underTest.run("held-job", acquired -> {
+        });
+
+        verify(schedulerLockService, times(1)).release(eq(lease),
+                argThat(holdFor -> holdFor.compareTo(Duration.ofMinutes(1)) > 0
+                        && holdFor.compareTo(Duration.ofMinutes(2)) <= 0));
+    }
+
+    @Test
+    @DisplayName("""
+            register job
+            | exception thrown
+            | hold is not shorter than the interval
+            """)
+    void registerJob_exceptionThrown_holdNotShorterThanInterval() {
+        assertAll(
+                () -> assertThrows(IllegalStateException.class,
+                        () -> underTest.registerJob("job", Duration.ofSeconds(150), Duration.ofMinutes(1))),
+                () -> assertThrows(IllegalStateException.class,
+                        () -> underTest.registerJob("job", Duration.ofMinutes(1), Duration.ofMinutes(1)))
+        );
+    }
+
+    @Test
+    @DisplayName("""
+            get cron interval
+            | shortest gap between runs
+            | daily and irregular expressions
+            """)
+    void getCronInterval_shortestGapBetweenRuns_dailyAndIrregularExpressions() {
+        assertAll(
+                () -> assertThat(LockedJobRunner.getCronInterval("0 0 3 * * *")).isEqualTo(Duration.ofDays(1)),
+                () -> assertThat(LockedJobRunner.getCronInterval("0 0,10 * * * *")).isEqualTo(Duration.ofMinutes(10))
+        );
+    }
+}
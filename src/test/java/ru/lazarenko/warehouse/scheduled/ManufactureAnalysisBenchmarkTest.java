@@ -0,0 +1,134 @@
+package ru.lazarenko.warehouse.scheduled;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.util.ReflectionTestUtils;
+import ru.lazarenko.warehouse.entity.Product;
+import ru.lazarenko.warehouse.entity.Storage;
+import ru.lazarenko.warehouse.model.OperationEvent;
+import ru.lazarenko.warehouse.model.OperationType;
+import ru.lazarenko.warehouse.repository.ManufactureAnalysisRepository;
+import ru.lazarenko.warehouse.repository.ProductRepository;
+import ru.lazarenko.warehouse.repository.StorageRepository;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+import static org.mockito.Mockito.when;
+
+/**
+ * Run with {@code mvn test -Dtest=ManufactureAnalysisBenchmarkTest -Dbenchmark=true}.
+ */
+@Slf4j
+@SpringBootTest
+@DirtiesContext
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class ManufactureAnalysisBenchmarkTest {
+    private static final int STORAGES = 64;
+    private static final int PRODUCTS = 1_000;
+    private static final int ROUNDS = 3;
+    private static final double MIN_EFFICIENCY = 0.7;
+
+    @Autowired
+    ManufactureAnalysisService underTest;
+
+    @Autowired
+    OperationWindowCounters operationWindowCounters;
+
+    @Autowired
+    ManufactureAnalysisRepository manufactureAnalysisRepository;
+
+    @Autowired
+    ProductRepository productRepository;
+
+    @Autowired
+    StorageRepository storageRepository;
+
+    @MockBean
+    OperationHistoryFeed operationHistoryFeed;
+
+    @Test
+    @DisplayName("""
+            create notice
+            | time per parallelism level
+            | generated 64 storages x 1000 products
+            """)
+    void createNotice_timePerParallelismLevel_generatedDataset() {
+        when(operationHistoryFeed.getChunkSize()).thenReturn(1000);
+        prepareDataset();
+
+        int cores = Runtime.getRuntime().availableProcessors();
+        assumeTrue(cores > 1, "parallel saving needs more than one core");
+        List<Integer> levels = IntStream.iterate(1, level -> level <= cores, level -> level * 2).boxed().toList();
+        long baseline = 0;
+        Map<Integer, Double> speedups = new LinkedHashMap<>();
+
+        for (Integer level : levels) {
+            ExecutorService executor = Executors.newFixedThreadPool(level, new CustomizableThreadFactory("analysis-"));
+            ReflectionTestUtils.setField(underTest, "parallelism", level);
+            ReflectionTestUtils.setField(underTest, "analysisExecutor", executor);
+
+            long best = Long.MAX_VALUE;
+            for (int round = 0; round < ROUNDS; round++) {
+                manufactureAnalysisRepository.deleteAllInBatch();
+                long start = System.nanoTime();
+                underTest.createNotice();
+                best = Math.min(best, System.nanoTime() - start);
+            }
+            executor.shutdown();
+
+            baseline = level == 1 ? best : baseline;
+            double speedup = (double) baseline / best;
+            speedups.put(level, speedup);
+            log.info("parallelism={} time={}ms speedup={}", level, best / 1_000_000,
+                    String.format("%.2f", speedup));
+            assertThat(manufactureAnalysisRepository.count()).isEqualTo((long) STORAGES * PRODUCTS);
+        }
+
+        log.info("parallelism | speedup | efficiency");
+        speedups.forEach((level, speedup) -> log.info("{} | {} | {}", level, String.format("%.2f", speedup),
+                String.format("%.2f", speedup / level)));
+        assertThat(speedups).allSatisfy((level, speedup) -> assertThat(speedup)
+                .as("speedup at parallelism %d", level)
+                .isGreaterThanOrEqualTo(MIN_EFFICIENCY * level));
+    }
+
+    private void prepareDataset() {
+        List<Storage> storages = new ArrayList<>();
+        for (int i = 0; i < STORAGES; i++) {
+            storages.add(Storage.builder().name("storage-" + i).build());
+        }
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < PRODUCTS; i++) {
+            products.add(Product.builder().name("product-" + i).build());
+        }
+        storageRepository.saveAll(storages);
+        productRepository.saveAll(products);
+
+        LocalDateTime now = LocalDateTime.now();
+        operationWindowCounters.clear();
+        for (Storage storage : storages) {
+            for (Product product : products) {
+                operationWindowCounters.record(new OperationEvent(null, product.getId(), storage.getId(),
+                        OperationType.LOADING, 100, now));
+                operationWindowCounters.record(new OperationEvent(null, product.getId(), storage.getId(),
+                        OperationType.SHIPMENT, 60, now));
+            }
+        }
+    }
+}
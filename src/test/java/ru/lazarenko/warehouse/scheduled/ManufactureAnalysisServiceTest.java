@@ -0,0 +1,282 @@
+package ru.lazarenko.warehouse.scheduled;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.boot.test.mock.mockito.SpyBean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
+import ru.lazarenko.warehouse.dto.ReportFilterDto;
+import ru.lazarenko.warehouse.dto.ReportPageDto;
+import ru.lazarenko.warehouse.entity.ManufactureAnalysis;
+import ru.lazarenko.warehouse.entity.Product;
+import ru.lazarenko.warehouse.entity.SchedulerLock;
+import ru.lazarenko.warehouse.entity.Storage;
+import ru.lazarenko.warehouse.model.ChangeType;
+import ru.lazarenko.warehouse.model.OperationTotals;
+import ru.lazarenko.warehouse.model.OperationType;
+import ru.lazarenko.warehouse.repository.ManufactureAnalysisRepository;
+import ru.lazarenko.warehouse.repository.ProductRepository;
+import ru.lazarenko.warehouse.repository.SchedulerLockRepository;
+import ru.lazarenko.warehouse.repository.StorageRepository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@SpringBootTest
+@RecordApplicationEvents
+class ManufactureAnalysisServiceTest {
+    @Autowired
+    ManufactureAnalysisService underTest;
+
+    @MockBean
+    ManufactureAnalysisRepository manufactureAnalysisRepository;
+
+    @SpyBean
+    ManufactureAnalysisWriter manufactureAnalysisWriter;
+
+    @MockBean
+    OperationHistoryFeed operationHistoryFeed;
+
+    @MockBean
+    ProductRepository productRepository;
+
+    @MockBean
+    StorageRepository storageRepository;
+
+    @MockBean
+    OperationWindowCounters operationWindowCounters;
+
+    @Autowired
+    SchedulerLockRepository schedulerLockRepository;
+
+    @Autowired
+    ApplicationEvents events;
+
+    @Captor
+    ArgumentCaptor<List<ManufactureAnalysis>> captor;
+
+    @BeforeEach
+    void prepare() {
+        when(productRepository.getReferenceById(anyInt()))
+                .thenAnswer(invocation -> Product.builder().id(invocation.getArgument(0)).build());
+        when(storageRepository.getReferenceById(anyInt()))
+                .thenAnswer(invocation -> Storage.builder().id(invocation.getArgument(0)).build());
+        when(operationHistoryFeed.getChunkSize())
+                .thenReturn(1000);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        schedulerLockRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("""
+            create notice
+            | late histories fed, then histories fed in chunks until the feed catches up
+            | two full chunks and one partial chunk
+            """)
+    void createNotice_historiesFedUntilCaughtUp_twoFullChunksAndPartialChunk() {
+        when(operationHistoryFeed.feedNextChunk(any()))
+                .thenReturn(1000, 1000, 15);
+        when(operationWindowCounters.getTotals(any()))
+                .thenReturn(List.of());
+
+        underTest.createNotice();
+
+        verify(operationHistoryFeed, times(1)).feedLateHistories(any());
+        verify(operationHistoryFeed, times(3)).feedNextChunk(any());
+        verify(manufactureAnalysisRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    @DisplayName("""
+            create notice
+            | one notice per product and storage, saved by storage partitions
+            | shipments more than 50%, less than 30%, between and without loadings
+            """)
+    void createNotice_oneNoticePerProductAndStorage_differentShipmentShares() {
+        when(operationWindowCounters.getTotals(any()))
+                .thenReturn(List.of(
+                        new OperationTotals(1, 1, 100L, 60L),
+                        new OperationTotals(1, 2, 100L, 10L),
+                        new OperationTotals(2, 1, 100L, 40L),
+                        new OperationTotals(3, 1, 0L, 5L),
+                        new OperationTotals(3, 2, 0L, 0L)));
+
+        underTest.createNotice();
+
+        verify(manufactureAnalysisRepository, times(2))
+                .saveAll(captor.capture());
+        List<ManufactureAnalysis> result = captor.getAllValues().stream()
+                .flatMap(List::stream)
+                .toList();
+
+        assertAll(
+                () -> assertThat(result.size()).isEqualTo(3),
+                () -> assertThat(captor.getAllValues())
+                        .allMatch(partition -> partition.stream()
+                                .map(notice -> notice.getStorage().getId())
+                                .distinct()
+                                .count() == 1),
+                () -> assertThat(result)
+                        .extracting(notice -> notice.getProduct().getId(), notice -> notice.getStorage().getId(),
+                                ManufactureAnalysis::getChangeType)
+                        .containsExactlyInAnyOrder(
+                                tuple(1, 1, ChangeType.INCREASE),
+                                tuple(1, 2, ChangeType.DECREASE),
+                                tuple(3, 1, ChangeType.INCREASE)),
+                () -> assertThat(result)
+                        .allMatch(notice -> notice.getOperation() == OperationType.LOADING)
+        );
+    }
+
+    @Test
+    @DisplayName("""
+            create notice
+            | other partitions saved, exception thrown and completion not published
+            | saving of one partition failed
+            """)
+    void createNotice_otherPartitionsSavedAndExceptionThrown_savingOfOnePartitionFailed() {
+        when(operationWindowCounters.getTotals(any()))
+                .thenReturn(List.of(
+                        new OperationTotals(1, 1, 100L, 60L),
+                        new OperationTotals(1, 2, 100L, 10L)));
+        doThrow(new IllegalStateException("failed"))
+                .when(manufactureAnalysisWriter)
+                .saveNotices(argThat(partition -> partition.get(0).getStorageId() == 1), any(), any());
+
+        assertThrows(CompletionException.class, () -> underTest.createNotice());
+
+        verify(manufactureAnalysisRepository, times(1))
+                .saveAll(captor.capture());
+        assertAll(
+                () -> assertThat(captor.getValue())
+                        .extracting(notice -> notice.getStorage().getId())
+                        .containsExactly(2),
+                () -> assertThat(events.stream(ManufactureAnalysisCompletedEvent.class)).isEmpty()
+        );
+    }
+
+    @Test
+    @DisplayName("""
+            create notice
+            | no notices
+            | operations do not exist
+            """)
+    void createNotice_noNotices_operationsDoNotExist() {
+        when(operationWindowCounters.getTotals(any()))
+                .thenReturn(List.of());
+
+        underTest.createNotice();
+
+        verify(manufactureAnalysisRepository, never())
+                .saveAll(anyList());
+    }
+
+    @Test
+    @DisplayName("""
+            create notice
+            | job skipped
+            | lock is held by another node
+            """)
+    void createNotice_jobSkipped_lockHeldByAnotherNode() {
+        schedulerLockRepository.save(SchedulerLock.builder()
+                .name(ManufactureAnalysisService.ANALYSIS_LOCK)
+                .owner("other-node")
+                .token(5L)
+                .expiresAt(LocalDateTime.now().plusHours(1))
+                .build());
+
+        underTest.createNotice();
+
+        verify(operationHistoryFeed, never()).feedNextChunk(any());
+        verify(manufactureAnalysisRepository, never()).saveAll(anyList());
+    }
+
+    @Test
+    @DisplayName("""
+            delete expired analyses
+            | batches deleted until a batch is not full
+            | old analyses exist
+            """)
+    void deleteExpiredAnalyses_batchesDeletedUntilNotFull_oldAnalysesExist() {
+        doReturn(1000, 1000, 7)
+                .when(manufactureAnalysisWriter).deleteAnalysesBefore(any(), anyInt(), any());
+
+        underTest.deleteExpiredAnalyses();
+
+        verify(manufactureAnalysisWriter, times(3))
+                .deleteAnalysesBefore(eq(LocalDate.now().minusDays(35)), eq(1000), any());
+    }
+
+    @Test
+    @DisplayName("""
+            get report page
+            | next cursor is the last analysis of the page
+            | page is full
+            """)
+    void getReportPage_nextCursorIsLastAnalysis_pageIsFull() {
+        LocalDate today = LocalDate.now();
+        when(manufactureAnalysisRepository.findPage(any(), any(), any(), any(), any(), any(), any(), any(), any()))
+                .thenReturn(List.of(
+                        ManufactureAnalysis.builder().id(3).reportDate(today.minusDays(1)).build(),
+                        ManufactureAnalysis.builder().id(7).reportDate(today).build()));
+
+        ReportPageDto result = underTest.getReportPage(ReportFilterDto.builder()
+                .storageId(1)
+                .from(today.minusDays(1))
+                .size(2)
+                .build());
+
+        assertAll(
+                () -> assertThat(result.getItems()).hasSize(2),
+                () -> assertThat(result.getNextAfterDate()).isEqualTo(today),
+                () -> assertThat(result.getNextAfterId()).isEqualTo(7)
+        );
+        verify(manufactureAnalysisRepository).findPage(1, null, null, null, today.minusDays(1), today,
+                null, 0, PageRequest.of(0, 2));
+    }
+
+    @Test
+    @DisplayName("""
+            get report page
+            | next cursor is absent
+            | page is not full
+            """)
+    void getReportPage_nextCursorAbsent_pageIsNotFull() {
+        when(manufactureAnalysisRepository.findPage(any(), any(), any(), any(), any(), any(), any(), any(), any()))
+                .thenReturn(List.of(ManufactureAnalysis.builder().id(3).reportDate(LocalDate.now()).build()));
+
+        ReportPageDto result = underTest.getReportPage(ReportFilterDto.builder()
+                .changeType(ChangeType.INCREASE)
+                .build());
+
+        assertAll(
+                () -> assertThat(result.getItems()).hasSize(1),
+                () -> assertThat(result.getNextAfterDate()).isNull(),
+                () -> assertThat(result.getNextAfterId()).isNull()
+        );
+        verify(manufactureAnalysisRepository).findPage(any(), any(), any(), any(), any(), any(),
+                any(), any(), eq(PageRequest.of(0, 100)));
+    }
+}
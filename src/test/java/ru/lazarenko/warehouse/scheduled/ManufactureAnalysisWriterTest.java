@@ -0,0 +1,188 @@
+package ru.lazarenko.warehouse.scheduled;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.Pageable;
+import ru.lazarenko.warehouse.entity.ManufactureAnalysis;
+import ru.lazarenko.warehouse.entity.Product;
+import ru.lazarenko.warehouse.entity.Storage;
+import ru.lazarenko.warehouse.exception.LockLostException;
+import ru.lazarenko.warehouse.model.AnalysisState;
+import ru.lazarenko.warehouse.model.ChangeType;
+import ru.lazarenko.warehouse.model.LockLease;
+import ru.lazarenko.warehouse.model.OperationTotals;
+import ru.lazarenko.warehouse.model.OperationType;
+import ru.lazarenko.warehouse.repository.ManufactureAnalysisRepository;
+import ru.lazarenko.warehouse.repository.ProductRepository;
+import ru.lazarenko.warehouse.repository.StorageRepository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@SpringBootTest
+class ManufactureAnalysisWriterTest {
+    @Autowired
+    ManufactureAnalysisWriter underTest;
+
+    @MockBean
+    ManufactureAnalysisRepository manufactureAnalysisRepository;
+
+    @MockBean
+    ProductRepository productRepository;
+
+    @MockBean
+    StorageRepository storageRepository;
+
+    @MockBean
+    LockedJobRunner lockedJobRunner;
+
+    @Captor
+    ArgumentCaptor<List<ManufactureAnalysis>> captor;
+
+    LockLease lease = new LockLease(ManufactureAnalysisService.ANALYSIS_LOCK, "node-1", 1L);
+
+    @BeforeEach
+    void prepare() {
+        when(productRepository.getReferenceById(anyInt()))
+                .thenAnswer(invocation -> Product.builder().id(invocation.getArgument(0)).build());
+        when(storageRepository.getReferenceById(anyInt()))
+                .thenAnswer(invocation -> Storage.builder().id(invocation.getArgument(0)).build());
+    }
+
+    @Test
+    @DisplayName("""
+            save notices
+            | new pairs inserted, changed pairs updated, unchanged pairs skipped
+            | notices of the report date partly exist
+            """)
+    void saveNotices_upsertByPair_noticesPartlyExist() {
+        LocalDate reportDate = LocalDate.now();
+        when(manufactureAnalysisRepository.findStates(eq(reportDate), eq(OperationType.LOADING), anyCollection()))
+                .thenReturn(List.of(
+                        new AnalysisState(10, 1, 1, ChangeType.INCREASE),
+                        new AnalysisState(11, 2, 1, ChangeType.INCREASE)));
+        when(manufactureAnalysisRepository.updateChangeType(ChangeType.DECREASE, List.of(11)))
+                .thenReturn(1);
+
+        int result = underTest.saveNotices(List.of(
+                new OperationTotals(1, 1, 100L, 60L),
+                new OperationTotals(2, 1, 100L, 10L),
+                new OperationTotals(3, 1, 100L, 90L),
+                new OperationTotals(4, 1, 100L, 40L)), reportDate, lease);
+
+        verify(lockedJobRunner, times(1)).checkHeld(lease);
+        verify(manufactureAnalysisRepository, times(1)).updateChangeType(ChangeType.DECREASE, List.of(11));
+        verify(manufactureAnalysisRepository, times(1)).saveAll(captor.capture());
+        assertAll(
+                () -> assertThat(result).isEqualTo(2),
+                () -> assertThat(captor.getValue())
+                        .extracting(notice -> notice.getProduct().getId(), notice -> notice.getStorage().getId(),
+                                ManufactureAnalysis::getChangeType)
+                        .containsExactly(tuple(3, 1, ChangeType.INCREASE))
+        );
+    }
+
+    @Test
+    @DisplayName("""
+            save notices
+            | only notices of re-evaluated pairs deleted
+            | recommendation withdrawn for one pair, other pair of storage has no totals
+            """)
+    void saveNotices_onlyReevaluatedNoticesDeleted_recommendationWithdrawn() {
+        LocalDate reportDate = LocalDate.now();
+        when(manufactureAnalysisRepository.findStates(eq(reportDate), eq(OperationType.LOADING), anyCollection()))
+                .thenReturn(List.of(
+                        new AnalysisState(10, 1, 1, ChangeType.INCREASE),
+                        new AnalysisState(11, 2, 1, ChangeType.DECREASE)));
+        when(manufactureAnalysisRepository.deleteAllByIds(List.of(10)))
+                .thenReturn(1);
+
+        int result = underTest.saveNotices(List.of(new OperationTotals(1, 1, 100L, 40L)), reportDate, lease);
+
+        verify(manufactureAnalysisRepository, times(1)).deleteAllByIds(List.of(10));
+        verify(manufactureAnalysisRepository, never()).deleteAllByIds(argThat(ids -> ids.contains(11)));
+        verify(manufactureAnalysisRepository, never()).updateChangeType(any(), anyCollection());
+        verify(manufactureAnalysisRepository, never()).saveAll(anyList());
+        assertThat(result).isEqualTo(1);
+    }
+
+    @Test
+    @DisplayName("""
+            save notices
+            | nothing written
+            | no recommendations and no notices in partition
+            """)
+    void saveNotices_nothingWritten_noRecommendationsAndNoNotices() {
+        int result = underTest.saveNotices(List.of(new OperationTotals(1, 1, 100L, 40L)), LocalDate.now(),
+                lease);
+
+        verify(manufactureAnalysisRepository, never()).deleteAllByIds(anyCollection());
+        verify(manufactureAnalysisRepository, never()).updateChangeType(any(), anyCollection());
+        verify(manufactureAnalysisRepository, never()).saveAll(anyList());
+        assertThat(result).isEqualTo(0);
+    }
+
+    @Test
+    @DisplayName("""
+            save notices
+            | nothing written and exception thrown
+            | lease taken over by another node
+            """)
+    void saveNotices_nothingWrittenAndExceptionThrown_leaseTakenOver() {
+        doThrow(new LockLostException("lost"))
+                .when(lockedJobRunner).checkHeld(lease);
+
+        assertThrows(LockLostException.class, () -> underTest.saveNotices(
+                List.of(new OperationTotals(1, 1, 100L, 60L)), LocalDate.now(), lease));
+
+        verifyNoInteractions(manufactureAnalysisRepository);
+    }
+
+    @Test
+    @DisplayName("""
+            delete analyses before
+            | found page deleted
+            | old analyses exist
+            """)
+    void deleteAnalysesBefore_foundPageDeleted_oldAnalysesExist() {
+        LocalDate date = LocalDate.now().minusDays(35);
+        when(manufactureAnalysisRepository.findIdsByReportDateBefore(eq(date), any(Pageable.class)))
+                .thenReturn(List.of(1, 2, 3));
+        when(manufactureAnalysisRepository.deleteAllByIds(List.of(1, 2, 3)))
+                .thenReturn(3);
+
+        int result = underTest.deleteAnalysesBefore(date, 3, lease);
+
+        verify(lockedJobRunner, times(1)).checkHeld(lease);
+        assertThat(result).isEqualTo(3);
+    }
+
+    @Test
+    @DisplayName("""
+            delete analyses before
+            | nothing deleted
+            | old analyses do not exist
+            """)
+    void deleteAnalysesBefore_nothingDeleted_oldAnalysesDoNotExist() {
+        when(manufactureAnalysisRepository.findIdsByReportDateBefore(any(), any(Pageable.class)))
+                .thenReturn(List.of());
+
+        int result = underTest.deleteAnalysesBefore(LocalDate.now(), 1000, lease);
+
+        verify(manufactureAnalysisRepository, never()).deleteAllByIds(anyCollection());
+        assertThat(result).isEqualTo(0);
+    }
+}
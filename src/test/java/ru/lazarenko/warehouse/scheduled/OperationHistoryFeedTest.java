@@ -0,0 +1,258 @@
+package ru.lazarenko.warehouse.scheduled;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Captor;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.util.ReflectionTestUtils;
+import ru.lazarenko.warehouse.entity.AnalysisCheckpoint;
+import ru.lazarenko.warehouse.exception.LockLostException;
+import ru.lazarenko.warehouse.model.LockLease;
+import ru.lazarenko.warehouse.model.OperationEvent;
+import ru.lazarenko.warehouse.model.OperationType;
+import ru.lazarenko.warehouse.repository.AnalysisCheckpointRepository;
+import ru.lazarenko.warehouse.repository.OperationHistoryRepository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@SpringBootTest
+class OperationHistoryFeedTest {
+    @Autowired
+    OperationHistoryFeed underTest;
+
+    @MockBean
+    OperationHistoryRepository operationHistoryRepository;
+
+    @MockBean
+    AnalysisCheckpointRepository analysisCheckpointRepository;
+
+    @MockBean
+    OperationWindowCounters operationWindowCounters;
+
+    @MockBean
+    LockedJobRunner lockedJobRunner;
+
+    LockLease lease = new LockLease("manufacture-analysis", "node", 1L);
+
+    @Captor
+    ArgumentCaptor<AnalysisCheckpoint> captor;
+
+    @BeforeEach
+    void prepare() {
+        underTest.rebuildWindows();
+    }
+
+    @AfterEach
+    void restoreChunkSize() {
+        ReflectionTestUtils.setField(underTest, "chunkSize", 1000);
+    }
+
+    @Test
+    @DisplayName("""
+            feed next chunk
+            | histories recorded and checkpoint moved to last history
+            | checkpoint exists
+            """)
+    void feedNextChunk_checkpointMovedToLastHistory_checkpointExists() {
+        LocalDateTime checkpointDate = LocalDateTime.now().minusMinutes(1);
+        AnalysisCheckpoint checkpoint = AnalysisCheckpoint.builder()
+                .name(OperationHistoryFeed.CHECKPOINT_NAME)
+                .lastDate(checkpointDate)
+                .lastId(10)
+                .build();
+        List<OperationEvent> events = List.of(
+                new OperationEvent(11, 1, 1, OperationType.LOADING, 10, checkpointDate),
+                new OperationEvent(12, 1, 1, OperationType.SHIPMENT, 5, checkpointDate.plusSeconds(20)));
+
+        when(analysisCheckpointRepository.findById(OperationHistoryFeed.CHECKPOINT_NAME))
+                .thenReturn(Optional.of(checkpoint));
+        when(operationHistoryRepository.findEventsAfterCheckpoint(eq(checkpointDate), eq(10), any(), any(Pageable.class)))
+                .thenReturn(events);
+
+        int result = underTest.feedNextChunk(lease);
+
+        verify(analysisCheckpointRepository, times(1)).save(captor.capture());
+        verify(operationWindowCounters, times(1)).recordAfterCommit(events);
+        assertAll(
+                () -> assertThat(result).isEqualTo(2),
+                () -> assertThat(captor.getValue().getLastId()).isEqualTo(12),
+                () -> assertThat(captor.getValue().getLastDate()).isEqualTo(checkpointDate.plusSeconds(20))
+        );
+    }
+
+    @Test
+    @DisplayName("""
+            feed next chunk
+            | histories read from window start
+            | checkpoint does not exist
+            """)
+    void feedNextChunk_historiesReadFromWindowStart_checkpointDoesNotExist() {
+        LocalDateTime before = LocalDateTime.now().minusMinutes(3);
+        ArgumentCaptor<LocalDateTime> dateCaptor = ArgumentCaptor.forClass(LocalDateTime.class);
+
+        when(analysisCheckpointRepository.findById(OperationHistoryFeed.CHECKPOINT_NAME))
+                .thenReturn(Optional.empty());
+        when(operationHistoryRepository.findEventsAfterCheckpoint(any(), anyInt(), any(), any(Pageable.class)))
+                .thenReturn(List.of());
+
+        int result = underTest.feedNextChunk(lease);
+
+        verify(operationHistoryRepository, times(1))
+                .findEventsAfterCheckpoint(dateCaptor.capture(), eq(0), any(), any(Pageable.class));
+        verify(analysisCheckpointRepository, never()).save(any());
+        verify(operationWindowCounters, never()).recordAfterCommit(any());
+        assertAll(
+                () -> assertThat(result).isEqualTo(0),
+                () -> assertThat(dateCaptor.getValue()).isAfterOrEqualTo(before),
+                () -> assertThat(dateCaptor.getValue()).isBefore(LocalDateTime.now().minusMinutes(2))
+        );
+    }
+
+    @Test
+    @DisplayName("""
+            feed next chunk
+            | lock lost exception, checkpoint not moved
+            | lease taken over by another node
+            """)
+    void feedNextChunk_lockLostException_leaseTakenOver() {
+        LocalDateTime checkpointDate = LocalDateTime.now().minusMinutes(1);
+        when(analysisCheckpointRepository.findById(OperationHistoryFeed.CHECKPOINT_NAME))
+                .thenReturn(Optional.empty());
+        when(operationHistoryRepository.findEventsAfterCheckpoint(any(), anyInt(), any(), any(Pageable.class)))
+                .thenReturn(List.of(new OperationEvent(11, 1, 1, OperationType.LOADING, 10, checkpointDate)));
+        doThrow(new LockLostException("lost"))
+                .when(lockedJobRunner).renew(lease);
+
+        assertThrows(LockLostException.class, () -> underTest.feedNextChunk(lease));
+
+        verify(analysisCheckpointRepository, never()).save(any());
+        verify(operationWindowCounters, never()).recordAfterCommit(any());
+    }
+
+    @Test
+    @DisplayName("""
+            rebuild windows
+            | histories up to checkpoint recorded
+            | checkpoint exists
+            """)
+    void rebuildWindows_historiesUpToCheckpointRecorded_checkpointExists() {
+        LocalDateTime checkpointDate = LocalDateTime.now().minusMinutes(1);
+        AnalysisCheckpoint checkpoint = AnalysisCheckpoint.builder()
+                .name(OperationHistoryFeed.CHECKPOINT_NAME)
+                .lastDate(checkpointDate)
+                .lastId(10)
+                .build();
+        OperationEvent event = new OperationEvent(10, 1, 1, OperationType.LOADING, 10, checkpointDate);
+
+        when(analysisCheckpointRepository.findById(OperationHistoryFeed.CHECKPOINT_NAME))
+                .thenReturn(Optional.of(checkpoint));
+        when(operationHistoryRepository.findEventsUpToCheckpoint(any(), eq(Integer.MAX_VALUE), eq(checkpointDate),
+                eq(10), any(Pageable.class)))
+                .thenReturn(List.of(event));
+
+        underTest.rebuildWindows();
+
+        verify(operationWindowCounters, atLeastOnce()).clear();
+        verify(operationWindowCounters, times(1)).record(event);
+    }
+
+    @Test
+    @DisplayName("""
+            feed late histories
+            | only histories not fed yet recorded
+            | history committed behind the checkpoint
+            """)
+    void feedLateHistories_onlyHistoriesNotFedYetRecorded_historyCommittedBehindCheckpoint() {
+        LocalDateTime checkpointDate = LocalDateTime.now().minusMinutes(1);
+        AnalysisCheckpoint checkpoint = AnalysisCheckpoint.builder()
+                .name(OperationHistoryFeed.CHECKPOINT_NAME)
+                .lastDate(checkpointDate.minusSeconds(30))
+                .lastId(10)
+                .build();
+        OperationEvent fed1 = new OperationEvent(11, 1, 1, OperationType.LOADING, 10, checkpointDate.minusSeconds(10));
+        OperationEvent fed2 = new OperationEvent(12, 1, 1, OperationType.SHIPMENT, 5, checkpointDate);
+        OperationEvent late = new OperationEvent(13, 1, 1, OperationType.LOADING, 7, checkpointDate.minusSeconds(20));
+
+        when(analysisCheckpointRepository.findById(OperationHistoryFeed.CHECKPOINT_NAME))
+                .thenReturn(Optional.of(checkpoint));
+        when(operationHistoryRepository.findEventsAfterCheckpoint(any(), anyInt(), any(), any(Pageable.class)))
+                .thenReturn(List.of(fed1, fed2));
+        underTest.feedNextChunk(lease);
+
+        when(operationHistoryRepository.findEventsUpToCheckpoint(eq(checkpointDate.minusSeconds(300)),
+                eq(Integer.MAX_VALUE), eq(checkpointDate), eq(12), any(Pageable.class)))
+                .thenReturn(List.of(fed1, late, fed2));
+
+        int result = underTest.feedLateHistories(lease);
+
+        verify(operationWindowCounters, times(1)).recordAfterCommit(List.of(late));
+        assertThat(result).isEqualTo(1);
+        assertThat(underTest.feedLateHistories(lease)).isEqualTo(0);
+    }
+
+    @Test
+    @DisplayName("""
+            feed late histories
+            | overlap read in chunks after the last history of the previous chunk
+            | overlap longer than one chunk
+            """)
+    void feedLateHistories_overlapReadInChunks_overlapLongerThanChunk() {
+        ReflectionTestUtils.setField(underTest, "chunkSize", 2);
+        LocalDateTime checkpointDate = LocalDateTime.now().minusMinutes(1);
+        AnalysisCheckpoint checkpoint = AnalysisCheckpoint.builder()
+                .name(OperationHistoryFeed.CHECKPOINT_NAME)
+                .lastDate(checkpointDate)
+                .lastId(13)
+                .build();
+        OperationEvent first = new OperationEvent(11, 1, 1, OperationType.LOADING, 10, checkpointDate.minusSeconds(20));
+        OperationEvent second = new OperationEvent(12, 1, 1, OperationType.SHIPMENT, 5, checkpointDate.minusSeconds(10));
+        OperationEvent third = new OperationEvent(13, 1, 1, OperationType.LOADING, 7, checkpointDate);
+
+        when(analysisCheckpointRepository.findById(OperationHistoryFeed.CHECKPOINT_NAME))
+                .thenReturn(Optional.of(checkpoint));
+        when(operationHistoryRepository.findEventsUpToCheckpoint(eq(checkpointDate.minusSeconds(300)),
+                eq(Integer.MAX_VALUE), eq(checkpointDate), eq(13), any(Pageable.class)))
+                .thenReturn(List.of(first, second));
+        when(operationHistoryRepository.findEventsUpToCheckpoint(eq(second.getDate()), eq(12), eq(checkpointDate),
+                eq(13), any(Pageable.class)))
+                .thenReturn(List.of(third));
+
+        int result = underTest.feedLateHistories(lease);
+
+        verify(operationHistoryRepository, times(2))
+                .findEventsUpToCheckpoint(any(), any(), any(), any(), any(Pageable.class));
+        verify(operationWindowCounters, times(1)).recordAfterCommit(List.of(first, second, third));
+        assertThat(result).isEqualTo(3);
+        assertThat(underTest.feedLateHistories(lease)).isEqualTo(0);
+    }
+
+    @Test
+    @DisplayName("""
+            feed late histories
+            | nothing read
+            | checkpoint does not exist
+            """)
+    void feedLateHistories_nothingRead_checkpointDoesNotExist() {
+        when(analysisCheckpointRepository.findById(OperationHistoryFeed.CHECKPOINT_NAME))
+                .thenReturn(Optional.empty());
+
+        int result = underTest.feedLateHistories(lease);
+
+        verify(operationHistoryRepository, never()).findEventsUpToCheckpoint(any(), any(), any(), any(), any());
+        assertThat(result).isEqualTo(0);
+    }
+}
@@ -0,0 +1,108 @@
+package ru.lazarenko.warehouse.scheduled;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import ru.lazarenko.warehouse.dto.OperationTrendDto;
+import ru.lazarenko.warehouse.dto.TrendFilterDto;
+import ru.lazarenko.warehouse.model.OperationType;
+import ru.lazarenko.warehouse.model.RollupGranularity;
+import ru.lazarenko.warehouse.repository.OperationRollupRepository;
+import ru.lazarenko.warehouse.repository.SchedulerLockRepository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@SpringBootTest
+class OperationRollupServiceTest {
+    @Autowired
+    OperationRollupService underTest;
+
+    @MockBean
+    OperationRollupRepository operationRollupRepository;
+
+    @MockBean
+    OperationRollupWriter operationRollupWriter;
+
+    @Autowired
+    SchedulerLockRepository schedulerLockRepository;
+
+    @AfterEach
+    void cleanUp() {
+        schedulerLockRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("""
+            roll up
+            | histories are rolled up in chunks until the rollups catch up
+            | two full chunks and one partial chunk
+            """)
+    void rollUp_rolledUpUntilCaughtUp_twoFullChunksAndPartialChunk() {
+        when(operationRollupWriter.getChunkSize())
+                .thenReturn(1000);
+        when(operationRollupWriter.rollUpNextChunk(any()))
+                .thenReturn(1000, 1000, 3);
+
+        underTest.rollUp();
+
+        verify(operationRollupWriter, times(3)).rollUpNextChunk(any());
+    }
+
+    @Test
+    @DisplayName("""
+            roll up
+            | overlap taken for rolled up first, late histories rolled up in the next run
+            | same node holds the lock in consecutive runs
+            """)
+    void rollUp_lateHistoriesRolledUpInNextRun_sameNodeHoldsLock() {
+        when(operationRollupWriter.getChunkSize())
+                .thenReturn(1000);
+        when(operationRollupWriter.rollUpNextChunk(any()))
+                .thenReturn(0);
+
+        underTest.rollUp();
+        underTest.rollUp();
+
+        InOrder inOrder = inOrder(operationRollupWriter);
+        inOrder.verify(operationRollupWriter).markOverlapRolledUp();
+        inOrder.verify(operationRollupWriter).rollUpNextChunk(any());
+        inOrder.verify(operationRollupWriter).rollUpLateHistories(any());
+        inOrder.verify(operationRollupWriter).rollUpNextChunk(any());
+        verify(operationRollupWriter, times(1)).markOverlapRolledUp();
+    }
+
+    @Test
+    @DisplayName("get trends | rollups read for whole days of the range | date range is given")
+    void getTrends_rollupsReadForWholeDays_dateRangeGiven() {
+        OperationTrendDto trend = OperationTrendDto.builder()
+                .bucketStart(LocalDate.of(2023, 5, 1).atStartOfDay())
+                .storageId(1)
+                .operation(OperationType.SHIPMENT)
+                .count(15L)
+                .records(2L)
+                .build();
+        when(operationRollupRepository.findTrends(any(), any(), any(), any(), any(), any()))
+                .thenReturn(List.of(trend));
+
+        List<OperationTrendDto> result = underTest.getTrends(TrendFilterDto.builder()
+                .granularity(RollupGranularity.DAY)
+                .from(LocalDate.of(2023, 5, 1))
+                .to(LocalDate.of(2023, 5, 31))
+                .storageId(1)
+                .operation(OperationType.SHIPMENT)
+                .build());
+
+        assertThat(result).containsExactly(trend);
+        verify(operationRollupRepository).findTrends(RollupGranularity.DAY, LocalDate.of(2023, 5, 1).atStartOfDay(),
+                LocalDate.of(2023, 6, 1).atStartOfDay(), 1, null, OperationType.SHIPMENT);
+    }
+}
@@ -0,0 +1,230 @@
+package ru.lazarenko.warehouse.scheduled;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.lazarenko.warehouse.entity.AnalysisCheckpoint;
+import ru.lazarenko.warehouse.entity.OperationHistory;
+import ru.lazarenko.warehouse.entity.OperationRollup;
+import ru.lazarenko.warehouse.entity.Product;
+import ru.lazarenko.warehouse.entity.Storage;
+import ru.lazarenko.warehouse.exception.LockLostException;
+import ru.lazarenko.warehouse.model.LockLease;
+import ru.lazarenko.warehouse.model.OperationType;
+import ru.lazarenko.warehouse.model.RollupGranularity;
+import ru.lazarenko.warehouse.model.RollupKey;
+import ru.lazarenko.warehouse.repository.AnalysisCheckpointRepository;
+import ru.lazarenko.warehouse.repository.OperationHistoryRepository;
+import ru.lazarenko.warehouse.repository.OperationRollupRepository;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doThrow;
+import static org.springframework.test.annotation.DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD;
+
+@DataJpaTest(properties = {"my.scheduler.chunk-size=7", "my.scheduler.settle-delay-seconds=0"})
+@Import(OperationRollupWriter.class)
+@Sql("classpath:repository/data.sql")
+@DirtiesContext(classMode = AFTER_EACH_TEST_METHOD)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class OperationRollupWriterTest {
+    @Autowired
+    OperationRollupWriter underTest;
+
+    @Autowired
+    OperationHistoryRepository operationHistoryRepository;
+
+    @Autowired
+    OperationRollupRepository operationRollupRepository;
+
+    @Autowired
+    AnalysisCheckpointRepository analysisCheckpointRepository;
+
+    @Autowired
+    TestEntityManager entityManager;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @MockBean
+    LockedJobRunner lockedJobRunner;
+
+    LockLease lease = new LockLease(OperationRollupService.ROLLUP_LOCK, "node", 1L);
+
+    @Test
+    @DisplayName("""
+            roll up next chunk
+            | hourly and daily rollups equal sums of raw histories
+            | histories rolled up in several chunks and runs
+            """)
+    void rollUpNextChunk_rollupsEqualRawSums_severalChunksAndRuns() {
+        saveHistories(40, 48, new Random(42));
+        rollUpAll();
+        saveHistories(25, 0, new Random(7));
+        rollUpAll();
+
+        Map<RollupKey, Long> expected = rawSums();
+        Map<RollupKey, Long> actual = rolledUpSums();
+        long records = operationRollupRepository.findAll().stream()
+                .filter(rollup -> rollup.getGranularity() == RollupGranularity.DAY)
+                .mapToLong(OperationRollup::getRecords)
+                .sum();
+
+        assertAll(
+                () -> assertThat(actual).isEqualTo(expected),
+                () -> assertThat(records).isEqualTo(operationHistoryRepository.count())
+        );
+    }
+
+    @Test
+    @DisplayName("""
+            roll up late histories
+            | history rolled up once, rollups equal sums of raw histories
+            | history committed behind the checkpoint
+            """)
+    void rollUpLateHistories_historyRolledUpOnce_historyCommittedBehindCheckpoint() {
+        saveHistories(10, 0, new Random(3));
+        rollUpAll();
+        LocalDateTime checkpointDate = analysisCheckpointRepository.findById(OperationRollupWriter.CHECKPOINT_NAME)
+                .orElseThrow()
+                .getLastDate();
+        new TransactionTemplate(transactionManager).executeWithoutResult(status ->
+                entityManager.persist(OperationHistory.builder()
+                        .product(entityManager.find(Product.class, 1))
+                        .storage(entityManager.find(Storage.class, 1))
+                        .operation(OperationType.LOADING)
+                        .count(42)
+                        .date(checkpointDate.minusSeconds(1))
+                        .build()));
+
+        int late = underTest.rollUpLateHistories(lease);
+        int again = underTest.rollUpLateHistories(lease);
+
+        assertAll(
+                () -> assertThat(late).isEqualTo(1),
+                () -> assertThat(again).isZero(),
+                () -> assertThat(rolledUpSums()).isEqualTo(rawSums())
+        );
+    }
+
+    @Test
+    @DisplayName("""
+            roll up late histories
+            | nothing rolled up
+            | overlap taken for rolled up after the job was taken over
+            """)
+    void rollUpLateHistories_nothingRolledUp_overlapMarkedAfterTakeover() {
+        saveHistories(10, 0, new Random(5));
+        rollUpAll();
+
+        underTest.markOverlapRolledUp();
+        int result = underTest.rollUpLateHistories(lease);
+
+        assertAll(
+                () -> assertThat(result).isZero(),
+                () -> assertThat(rolledUpSums()).isEqualTo(rawSums())
+        );
+    }
+
+    @Test
+    @DisplayName("""
+            roll up next chunk
+            | nothing rolled up and checkpoint not moved
+            | lock lost before commit
+            """)
+    void rollUpNextChunk_nothingRolledUp_lockLost() {
+        saveHistories(5, 0, new Random(1));
+        doThrow(new LockLostException("Lock 'operation-rollup' is lost"))
+                .when(lockedJobRunner).renew(any());
+
+        assertThrows(LockLostException.class, () -> underTest.rollUpNextChunk(lease));
+
+        assertAll(
+                () -> assertThat(operationRollupRepository.count()).isZero(),
+                () -> assertThat(analysisCheckpointRepository.findById(OperationRollupWriter.CHECKPOINT_NAME))
+                        .isEmpty()
+        );
+    }
+
+    @Test
+    @DisplayName("""
+            roll up next chunk
+            | nothing rolled up
+            | histories are newer than the settle delay
+            """)
+    void rollUpNextChunk_nothingRolledUp_historiesAreNewerThanSettleDelay() {
+        analysisCheckpointRepository.save(AnalysisCheckpoint.builder()
+                .name(OperationRollupWriter.CHECKPOINT_NAME)
+                .lastDate(LocalDateTime.now().plusMinutes(1))
+                .lastId(0)
+                .build());
+        saveHistories(5, 0, new Random(1));
+
+        int result = underTest.rollUpNextChunk(lease);
+
+        assertAll(
+                () -> assertThat(result).isZero(),
+                () -> assertThat(operationRollupRepository.count()).isZero()
+        );
+    }
+
+    private Map<RollupKey, Long> rawSums() {
+        Map<RollupKey, Long> sums = new HashMap<>();
+        for (OperationHistory history : operationHistoryRepository.findAll()) {
+            for (RollupGranularity granularity : RollupGranularity.values()) {
+                sums.merge(new RollupKey(granularity, granularity.getBucketStart(history.getDate()),
+                                history.getProduct().getId(), history.getStorage().getId(), history.getOperation()),
+                        (long) history.getCount(), Long::sum);
+            }
+        }
+        return sums;
+    }
+
+    private Map<RollupKey, Long> rolledUpSums() {
+        Map<RollupKey, Long> sums = new HashMap<>();
+        for (OperationRollup rollup : operationRollupRepository.findAll()) {
+            sums.put(new RollupKey(rollup.getGranularity(), rollup.getBucketStart(), rollup.getProduct().getId(),
+                    rollup.getStorage().getId(), rollup.getOperation()), rollup.getCount());
+        }
+        return sums;
+    }
+
+    private void rollUpAll() {
+        int chunk;
+        do {
+            chunk = underTest.rollUpNextChunk(lease);
+        } while (chunk == underTest.getChunkSize());
+    }
+
+    private void saveHistories(int count, int hoursAgo, Random random) {
+        LocalDateTime now = LocalDateTime.now().minusSeconds(1);
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            for (int i = 0; i < count; i++) {
+                entityManager.persist(OperationHistory.builder()
+                        .product(entityManager.find(Product.class, 1 + random.nextInt(4)))
+                        .storage(entityManager.find(Storage.class, 1 + random.nextInt(3)))
+                        .operation(random.nextBoolean() ? OperationType.LOADING : OperationType.SHIPMENT)
+                        .count(1 + random.nextInt(100))
+                        .date(now.minusHours(hoursAgo + random.nextInt(24)))
+                        .build());
+            }
+        });
+    }
+}
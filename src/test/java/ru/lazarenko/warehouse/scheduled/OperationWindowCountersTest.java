@@ -0,0 +1,127 @@
+package ru.lazarenko.warehouse.scheduled;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.jdbc.Sql;
+import ru.lazarenko.warehouse.entity.OperationHistory;
+import ru.lazarenko.warehouse.entity.Product;
+import ru.lazarenko.warehouse.entity.Storage;
+import ru.lazarenko.warehouse.model.OperationEvent;
+import ru.lazarenko.warehouse.model.OperationTotals;
+import ru.lazarenko.warehouse.model.OperationType;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.springframework.test.annotation.DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD;
+
+@DataJpaTest
+@Import(OperationWindowCounters.class)
+@Sql("classpath:repository/data.sql")
+@DirtiesContext(classMode = AFTER_EACH_TEST_METHOD)
+class OperationWindowCountersTest {
+    @Autowired
+    OperationWindowCounters underTest;
+
+    @Autowired
+    TestEntityManager entityManager;
+
+    @Test
+    @DisplayName("""
+            get totals
+            | same totals and recommendations as batch query
+            | random operations inside and outside of window
+            """)
+    void getTotals_sameAsBatchQuery_randomOperations() {
+        LocalDateTime now = LocalDateTime.now();
+        Random random = new Random(42);
+
+        for (int i = 0; i < 500; i++) {
+            OperationHistory history = OperationHistory.builder()
+                    .product(entityManager.find(Product.class, 1 + random.nextInt(4)))
+                    .storage(entityManager.find(Storage.class, 1 + random.nextInt(3)))
+                    .operation(random.nextBoolean() ? OperationType.LOADING : OperationType.SHIPMENT)
+                    .count(1 + random.nextInt(100))
+                    .date(now.minusSeconds(random.nextBoolean() ? 1 + random.nextInt(170) : 200 + random.nextInt(200)))
+                    .build();
+            entityManager.persist(history);
+            underTest.record(new OperationEvent(history.getId(), history.getProduct().getId(), history.getStorage().getId(),
+                    history.getOperation(), history.getCount(), history.getDate()));
+        }
+        entityManager.flush();
+
+        List<OperationTotals> expected = findTotalsAfter(now.minusMinutes(3));
+        List<OperationTotals> result = underTest.getTotals(now);
+
+        assertAll(
+                () -> assertThat(result).hasSameSizeAs(expected),
+                () -> assertThat(result)
+                        .usingRecursiveFieldByFieldElementComparator()
+                        .containsExactlyInAnyOrderElementsOf(expected),
+                () -> assertThat(result)
+                        .extracting(OperationTotals::getRecommendation)
+                        .containsExactlyInAnyOrderElementsOf(expected.stream()
+                                .map(OperationTotals::getRecommendation)
+                                .toList())
+        );
+    }
+
+    @Test
+    @DisplayName("""
+            get totals
+            | empty result list
+            | operations are older than window
+            """)
+    void getTotals_emptyResultList_operationsOlderThanWindow() {
+        LocalDateTime now = LocalDateTime.now();
+        underTest.record(new OperationEvent(null, 1, 1, OperationType.LOADING, 10, now.minusMinutes(10)));
+        underTest.record(new OperationEvent(null, 1, 1, OperationType.SHIPMENT, 10, now.minusMinutes(4)));
+
+        assertThat(underTest.getTotals(now)).isEmpty();
+    }
+
+    @Test
+    @DisplayName("""
+            get totals
+            | older buckets are dropped
+            | window moves forward
+            """)
+    void getTotals_olderBucketsDropped_windowMovesForward() {
+        LocalDateTime now = LocalDateTime.now();
+        underTest.record(new OperationEvent(null, 1, 1, OperationType.LOADING, 10, now.minusMinutes(2)));
+        underTest.record(new OperationEvent(null, 1, 1, OperationType.SHIPMENT, 4, now));
+
+        List<OperationTotals> current = underTest.getTotals(now);
+        List<OperationTotals> later = underTest.getTotals(now.plusMinutes(2));
+
+        assertAll(
+                () -> assertThat(current).singleElement()
+                        .extracting(OperationTotals::getLoading, OperationTotals::getShipment)
+                        .containsExactly(10L, 4L),
+                () -> assertThat(later).singleElement()
+                        .extracting(OperationTotals::getLoading, OperationTotals::getShipment)
+                        .containsExactly(0L, 4L)
+        );
+    }
+
+    private List<OperationTotals> findTotalsAfter(LocalDateTime time) {
+        return entityManager.getEntityManager()
+                .createQuery("select new ru.lazarenko.warehouse.model.OperationTotals(h.product.id, h.storage.id, " +
+                        "sum(case when h.operation = ru.lazarenko.warehouse.model.OperationType.LOADING " +
+                        "then h.count else 0 end), " +
+                        "sum(case when h.operation = ru.lazarenko.warehouse.model.OperationType.SHIPMENT " +
+                        "then h.count else 0 end)) " +
+                        "from OperationHistory h where h.date > :time group by h.product.id, h.storage.id",
+                        OperationTotals.class)
+                .setParameter("time", time)
+                .getResultList();
+    }
+}
@@ -0,0 +1,92 @@
+package ru.lazarenko.warehouse.scheduled;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.annotation.DirtiesContext;
+import ru.lazarenko.warehouse.dto.ReportDto;
+import ru.lazarenko.warehouse.model.ChangeType;
+import ru.lazarenko.warehouse.model.ReportSnapshot;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.mockito.Mockito.*;
+
+@SpringBootTest
+@DirtiesContext(classMode = DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD)
+class ReportSnapshotServiceTest {
+    @Autowired
+    ReportSnapshotService underTest;
+
+    @Autowired
+    ApplicationEventPublisher eventPublisher;
+
+    @MockBean
+    ManufactureAnalysisService manufactureAnalysisService;
+
+    @Test
+    @DisplayName("""
+            get snapshot
+            | report queried once and same snapshot returned
+            | no analysis run between reads
+            """)
+    void getSnapshot_reportQueriedOnce_noAnalysisRunBetweenReads() {
+        when(manufactureAnalysisService.getReport())
+                .thenReturn(List.of(ReportDto.builder().id(1).changeType(ChangeType.INCREASE).build()));
+
+        ReportSnapshot first = underTest.getSnapshot();
+        ReportSnapshot second = underTest.getSnapshot();
+
+        verify(manufactureAnalysisService, times(1)).getReport();
+        assertAll(
+                () -> assertThat(second).isSameAs(first),
+                () -> assertThat(new String(first.getBody())).contains("\"changeType\":\"INCREASE\""),
+                () -> assertThat(first.getEtag()).startsWith("\"").endsWith("\"")
+        );
+    }
+
+    @Test
+    @DisplayName("""
+            get snapshot
+            | new version and etag
+            | analysis run completed with changed report
+            """)
+    void getSnapshot_newVersionAndEtag_analysisRunCompleted() {
+        when(manufactureAnalysisService.getReport())
+                .thenReturn(List.of(ReportDto.builder().id(1).changeType(ChangeType.INCREASE).build()))
+                .thenReturn(List.of(ReportDto.builder().id(1).changeType(ChangeType.DECREASE).build()));
+
+        ReportSnapshot before = underTest.getSnapshot();
+        eventPublisher.publishEvent(new ManufactureAnalysisCompletedEvent(LocalDate.now()));
+        ReportSnapshot after = underTest.getSnapshot();
+
+        verify(manufactureAnalysisService, times(2)).getReport();
+        assertAll(
+                () -> assertThat(after.getVersion()).isEqualTo(before.getVersion() + 1),
+                () -> assertThat(after.getEtag()).isNotEqualTo(before.getEtag())
+        );
+    }
+
+    @Test
+    @DisplayName("""
+            get snapshot
+            | same etag
+            | analysis run completed without report changes
+            """)
+    void getSnapshot_sameEtag_analysisRunWithoutChanges() {
+        when(manufactureAnalysisService.getReport())
+                .thenReturn(List.of());
+
+        ReportSnapshot before = underTest.getSnapshot();
+        eventPublisher.publishEvent(new ManufactureAnalysisCompletedEvent(LocalDate.now()));
+        ReportSnapshot after = underTest.getSnapshot();
+
+        assertThat(after.getEtag()).isEqualTo(before.getEtag());
+    }
+}
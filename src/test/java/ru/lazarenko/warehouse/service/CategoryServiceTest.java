@@ -6,10 +6,14 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
 import ru.lazarenko.warehouse.dto.CategoryDto;
 import ru.lazarenko.warehouse.dto.info.ResponseDto;
 import ru.lazarenko.warehouse.entity.Category;
 import ru.lazarenko.warehouse.exception.NoUniqueObjectException;
+import ru.lazarenko.warehouse.model.ReferenceView;
 import ru.lazarenko.warehouse.repository.CategoryRepository;
 import ru.lazarenko.warehouse.service.mapper.CategoryMapper;
 
@@ -24,16 +28,23 @@ import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
 @SpringBootTest
+@RecordApplicationEvents
 class CategoryServiceTest {
     @Autowired
     CategoryService underTest;
 
+    @Autowired
+    ApplicationEvents events;
+
     @MockBean
     CategoryRepository categoryRepository;
 
     @MockBean
     CategoryMapper categoryMapper;
 
+    @MockBean
+    ReferenceNameIndex referenceNameIndex;
+
     Category category1;
     Category category2;
 
@@ -81,36 +92,38 @@ class CategoryServiceTest {
         verify(categoryRepository, times(1))
                 .save(any(Category.class));
         assertThat(result.getMessage()).isEqualTo("Category successful created: id='1'");
+        assertThat(events.stream(ResourceChangedEvent.class))
+                .containsExactly(new ResourceChangedEvent("categories"));
     }
 
     @Test
-    @DisplayName("get all categories | result list is empty | categories do not exist")
-    void getAllCategories_resultListIsEmpty_regionsDoNotExist() {
-        when(categoryRepository.findAll())
+    @DisplayName("get categories after | result list is empty | categories do not exist")
+    void getCategoriesAfter_resultListIsEmpty_regionsDoNotExist() {
+        when(categoryRepository.findPageAfter(0, PageRequest.of(0, 100)))
                 .thenReturn(List.of());
 
-        List<CategoryDto> result = underTest.getAllCategories();
+        List<CategoryDto> result = underTest.getCategoriesAfter(0, 100);
         verify(categoryRepository, times(1))
-                .findAll();
+                .findPageAfter(0, PageRequest.of(0, 100));
 
         assertThat(result.size()).isEqualTo(0);
     }
 
     @Test
-    @DisplayName("get all categories | result list is not empty | categories exist")
-    void getAllCategories_resultListIsNotEmpty_regionsExist() {
+    @DisplayName("get categories after | result list is not empty | categories exist")
+    void getCategoriesAfter_resultListIsNotEmpty_regionsExist() {
         List<Category> categories = List.of(category1, category2);
         List<CategoryDto> categoryDtos = List.of(categoryResponseDto1, categoryResponseDto2);
 
-        when(categoryRepository.findAll())
+        when(categoryRepository.findPageAfter(0, PageRequest.of(0, 100)))
                 .thenReturn(categories);
 
         when(categoryMapper.toCategoryDtoList(anyList()))
                 .thenReturn(categoryDtos);
 
-        List<CategoryDto> result = underTest.getAllCategories();
+        List<CategoryDto> result = underTest.getCategoriesAfter(0, 100);
         verify(categoryRepository, times(1))
-                .findAll();
+                .findPageAfter(0, PageRequest.of(0, 100));
 
         assertAll(
                 () -> assertThat(result.size()).isEqualTo(2),
@@ -176,4 +189,38 @@ class CategoryServiceTest {
                 () -> assertThat(result.getName()).isEqualTo("coffee")
         );
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("""
+            check exist and get category by name
+            | category read by id
+            | name is indexed
+            """)
+    void checkExistAndGetCategoryByName_categoryReadById_nameIsIndexed() {
+        when(referenceNameIndex.getCategory(anyString()))
+                .thenReturn(Optional.of(new ReferenceView(1, "coffee")));
+        when(categoryRepository.findById(anyInt()))
+                .thenReturn(Optional.of(category1));
+
+        Category result = underTest.checkExistAndGetCategoryByName("Coffee");
+
+        verify(categoryRepository).findById(1);
+        verify(categoryRepository, never()).findByName(anyString());
+        assertThat(result.getName()).isEqualTo("coffee");
+    }
+
+    @Test
+    @DisplayName("""
+            check exist and get category by name
+            | category indexed
+            | name is not indexed and category exists
+            """)
+    void checkExistAndGetCategoryByName_categoryIndexed_nameIsNotIndexedAndCategoryExists() {
+        when(categoryRepository.findByName(anyString()))
+                .thenReturn(Optional.of(category2));
+
+        underTest.checkExistAndGetCategoryByName("tea");
+
+        verify(referenceNameIndex).putCategory(new ReferenceView(2, "tea"));
+    }
+}
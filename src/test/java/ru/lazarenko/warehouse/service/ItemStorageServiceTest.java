@@ -6,13 +6,18 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
-import ru.lazarenko.warehouse.dto.info.ResponseDto;
+import org.springframework.data.domain.PageRequest;
 import ru.lazarenko.warehouse.dto.product.ProductDto;
+import ru.lazarenko.warehouse.dto.storage.InventoryFilterDto;
 import ru.lazarenko.warehouse.dto.storage.LoadingShipmentRequest;
 import ru.lazarenko.warehouse.dto.storage.StorageDto;
 import ru.lazarenko.warehouse.entity.*;
 import ru.lazarenko.warehouse.exception.NoFoundElementException;
+import ru.lazarenko.warehouse.model.InventorySort;
+import ru.lazarenko.warehouse.model.ItemStorageKey;
 import ru.lazarenko.warehouse.model.OperationType;
+import ru.lazarenko.warehouse.model.RegionView;
+import ru.lazarenko.warehouse.model.StorageView;
 import ru.lazarenko.warehouse.repository.ItemStorageRepository;
 import ru.lazarenko.warehouse.service.mapper.ProductMapper;
 import ru.lazarenko.warehouse.service.mapper.StorageMapper;
@@ -47,15 +52,16 @@ class ItemStorageServiceTest {
     ProductMapper productMapper;
 
     Region region;
+    RegionView regionView;
     Storage storage;
     Category category;
     Product product;
     ProductDto productDto;
-    ItemStorage itemStorage;
 
     @BeforeEach
     void prepare() {
         region = Region.builder().id(1).name("Sochi").build();
+        regionView = new RegionView(1, "Sochi", List.of(new StorageView(1, "Sochi-str-1", 1)));
 
         storage = Storage.builder()
                 .id(1)
@@ -76,70 +82,54 @@ class ItemStorageServiceTest {
                 .name("latte")
                 .price(new BigDecimal(180))
                 .build();
-
-        itemStorage = ItemStorage.builder()
-                .id(10)
-                .storage(storage)
-                .product(product)
-                .count(100)
-                .build();
     }
 
     @Test
-    void createItem() {
-        when(itemStorageRepository.save(any(ItemStorage.class)))
-                .thenReturn(itemStorage);
+    @DisplayName("""
+            create empty items
+            | missing items created in one call
+            | pairs are given
+            """)
+    void createEmptyItems_missingItemsCreatedInOneCall_pairsAreGiven() {
+        List<ItemStorageKey> keys = List.of(new ItemStorageKey(1, 1), new ItemStorageKey(2, 1));
 
-        ResponseDto result = underTest.createItem(itemStorage);
+        underTest.createEmptyItems(keys);
 
         verify(itemStorageRepository, times(1))
-                .save(any(ItemStorage.class));
-
-        assertThat(result.getMessage())
-                .isEqualTo("Total count of product with id='1' on storage with id='1': 100");
-        assertThat(result.getStatus()).isEqualTo("CREATED");
+                .createMissingItems(keys);
     }
 
     @Test
     @DisplayName("""
-            get item by productId and storageId
-            | empty optional
-            | item does not exist
+            get inventory
+            | first page query without cursor and next page query after it
+            | count order with and without cursor
             """)
-    void getItemByProductIdAndStorageId_emptyOptional_itemDoesNotExist() {
-        Integer productId = 1;
-        Integer storageId = 1;
-        when(itemStorageRepository.findByProductIdAndStorageId(anyInt(), anyInt()))
-                .thenReturn(Optional.empty());
-
-        Optional<ItemStorage> optionalResult = underTest.getItemByProductIdAndStorageId(productId, storageId);
+    void getInventory_firstAndNextPageQueries_countOrderWithAndWithoutCursor() {
+        underTest.getInventory(1, InventoryFilterDto.builder().sort(InventorySort.COUNT).build(), 10);
+        underTest.getInventory(1, InventoryFilterDto.builder().sort(InventorySort.COUNT).afterCount(25).afterId(3)
+                .build(), 10);
 
         verify(itemStorageRepository, times(1))
-                .findByProductIdAndStorageId(anyInt(), anyInt());
-
-        assertThat(optionalResult).isEmpty();
+                .findFirstInventoryPageByCount(1, PageRequest.of(0, 10));
+        verify(itemStorageRepository, times(1))
+                .findInventoryPageByCountAfter(1, 25, 3, PageRequest.of(0, 10));
     }
 
     @Test
     @DisplayName("""
-            get item by productId and storageId
-            | not empty optional
-            | item exist
+            get inventory
+            | first page query without cursor and next page query after it
+            | name order with and without cursor
             """)
-    void getItemByProductIdAndStorageId_optionalNotEmpty_itemExists() {
-        Integer productId = 1;
-        Integer storageId = 1;
-        when(itemStorageRepository.findByProductIdAndStorageId(anyInt(), anyInt()))
-                .thenReturn(Optional.of(itemStorage));
-
-        Optional<ItemStorage> optionalResult = underTest.getItemByProductIdAndStorageId(productId, storageId);
+    void getInventory_firstAndNextPageQueries_nameOrderWithAndWithoutCursor() {
+        underTest.getInventory(1, InventoryFilterDto.builder().build(), 10);
+        underTest.getInventory(1, InventoryFilterDto.builder().afterName("latte").afterId(3).build(), 10);
 
         verify(itemStorageRepository, times(1))
-                .findByProductIdAndStorageId(anyInt(), anyInt());
-
-        assertThat(optionalResult).isNotEmpty();
-        assertThat(optionalResult.get().getProduct().getName()).isEqualTo("latte");
-        assertThat(optionalResult.get().getStorage().getName()).isEqualTo("Sochi-str-1");
+                .findFirstInventoryPageByName(1, PageRequest.of(0, 10));
+        verify(itemStorageRepository, times(1))
+                .findInventoryPageByNameAfter(1, "latte", 3, PageRequest.of(0, 10));
     }
 
     @Test
@@ -233,20 +223,6 @@ class ItemStorageServiceTest {
         assertThat(result.get(0).getName()).isEqualTo("latte");
     }
 
-    @Test
-    void createItemAndGetSaved() {
-        when(itemStorageRepository.save(any(ItemStorage.class)))
-                .thenReturn(itemStorage);
-
-        ItemStorage result = underTest.updateItemAndGetSaved(itemStorage);
-
-        verify(itemStorageRepository, times(1))
-                .save(any(ItemStorage.class));
-
-        assertThat(result.getId()).isEqualTo(10);
-        assertThat(result.getCount()).isEqualTo(100);
-    }
-
     @Test
     @DisplayName("""
             find storages for shipment
@@ -333,7 +309,7 @@ class ItemStorageServiceTest {
         when(productService.checkExistAndGetProductById(anyInt()))
                 .thenReturn(product);
 
-        when(regionService.getRegionWithStoragesByName(anyString()))
+        when(regionService.getRegionViewByName(anyString()))
                 .thenReturn(Optional.empty());
 
         assertThrows(NoFoundElementException.class,
@@ -357,10 +333,10 @@ class ItemStorageServiceTest {
         when(productService.checkExistAndGetProductById(anyInt()))
                 .thenReturn(product);
 
-        when(regionService.getRegionWithStoragesByName(anyString()))
-                .thenReturn(Optional.of(region));
+        when(regionService.getRegionViewByName(anyString()))
+                .thenReturn(Optional.of(regionView));
 
-        when(storageMapper.toStorageDtoList(anyList()))
+        when(storageMapper.toStorageDtoList(any(RegionView.class)))
                 .thenReturn(List.of(StorageDto.builder()
                         .id(1)
                         .name("Sochi-str-1")
@@ -389,10 +365,10 @@ class ItemStorageServiceTest {
         when(productService.checkExistAndGetProductById(anyInt()))
                 .thenReturn(product);
 
-        when(regionService.getRegionWithStoragesByName(anyString()))
-                .thenReturn(Optional.of(region));
+        when(regionService.getRegionViewByName(anyString()))
+                .thenReturn(Optional.of(regionView));
 
-        when(storageMapper.toStorageDtoList(anyList()))
+        when(storageMapper.toStorageDtoList(any(RegionView.class)))
                 .thenReturn(List.of(StorageDto.builder()
                         .id(1)
                         .name("Sochi-str-1")
@@ -1,5 +1,6 @@
 package ru.lazarenko.warehouse.service;
 
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
@@ -7,17 +8,34 @@ import org.mockito.Captor;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import ru.lazarenko.warehouse.dto.HistoryFilterDto;
+import ru.lazarenko.warehouse.dto.HistoryRecordDto;
 import ru.lazarenko.warehouse.dto.OperationHistoryDto;
 import ru.lazarenko.warehouse.entity.*;
+import ru.lazarenko.warehouse.model.HistoryFormat;
+import ru.lazarenko.warehouse.model.OperationEvent;
 import ru.lazarenko.warehouse.model.OperationType;
+import ru.lazarenko.warehouse.repository.HistoryArchiveDayRepository;
+import ru.lazarenko.warehouse.repository.HistorySegmentRepository;
 import ru.lazarenko.warehouse.repository.OperationHistoryRepository;
 import ru.lazarenko.warehouse.service.mapper.OperationMapper;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
 import static org.mockito.Mockito.*;
 
 @SpringBootTest
@@ -31,6 +49,12 @@ class OperationHistoryServiceTest {
     @MockBean
     OperationMapper operationMapper;
 
+    @MockBean
+    HistorySegmentRepository historySegmentRepository;
+
+    @MockBean
+    HistoryArchiveDayRepository historyArchiveDayRepository;
+
     @Captor
     ArgumentCaptor<OperationHistory> captor;
 
@@ -79,4 +103,134 @@ class OperationHistoryServiceTest {
         assertThat(value.getDate()).isEqualTo(operationDto.getDate());
         assertThat(value.getOperation()).isEqualTo(OperationType.LOADING);
     }
-}
\ No newline at end of file
+
+    @BeforeEach
+    void prepare() {
+        when(operationMapper.toHistoryRecordDto(any()))
+                .thenAnswer(invocation -> {
+                    OperationEvent event = invocation.getArgument(0);
+                    return HistoryRecordDto.builder()
+                            .id(event.getId())
+                            .date(event.getDate())
+                            .productId(event.getProductId())
+                            .storageId(event.getStorageId())
+                            .operation(event.getOperation())
+                            .count(event.getCount())
+                            .build();
+                });
+    }
+
+    @Test
+    @DisplayName("""
+            export history
+            | archived days written from segments and later days from the table as ndjson
+            | range spans the last archived day
+            """)
+    void exportHistory_archivedDaysFromSegmentsAndLaterFromTable_rangeSpansLastArchivedDay() throws IOException {
+        LocalDateTime archivedUntil = LocalDateTime.of(2023, 5, 3, 0, 0);
+        OperationEvent cold = new OperationEvent(1, 1, 2, OperationType.LOADING, 10, archivedUntil.minusHours(1));
+        OperationEvent hot = new OperationEvent(2, 1, 2, OperationType.SHIPMENT, 5, archivedUntil.plusHours(1));
+
+        when(historyArchiveDayRepository.findLastArchiveDate())
+                .thenReturn(Optional.of(LocalDate.of(2023, 5, 2)));
+        when(historyArchiveDayRepository.findAllInPeriod(LocalDate.of(2023, 5, 1), LocalDate.of(2023, 5, 3)))
+                .thenReturn(List.of(archiveDay(LocalDate.of(2023, 5, 1)), archiveDay(LocalDate.of(2023, 5, 2))));
+        doAnswer(invocation -> {
+            invocation.<Consumer<OperationEvent>>getArgument(4).accept(cold);
+            return null;
+        }).when(historySegmentRepository).forEach(any(), any(), any(), any(), any());
+        when(operationHistoryRepository.streamEventsInPeriod(any(), any(), any(), any(), any()))
+                .thenReturn(Stream.of(hot));
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        underTest.exportHistory(HistoryFilterDto.builder()
+                .from(LocalDate.of(2023, 5, 1))
+                .to(LocalDate.of(2023, 5, 10))
+                .storageId(2)
+                .build(), output);
+
+        List<String> lines = output.toString(StandardCharsets.UTF_8).lines().toList();
+        assertAll(
+                () -> assertThat(lines).hasSize(2),
+                () -> assertThat(lines.get(0)).contains("\"id\":1", "\"operation\":\"LOADING\""),
+                () -> assertThat(lines.get(1)).contains("\"id\":2", "\"operation\":\"SHIPMENT\"")
+        );
+        verify(historySegmentRepository).forEach(eq(List.of("2023-05-01.seg", "2023-05-02.seg")),
+                eq(LocalDateTime.of(2023, 5, 1, 0, 0)), eq(archivedUntil), eq(2), any());
+        verify(operationHistoryRepository).streamEventsInPeriod(archivedUntil, LocalDateTime.of(2023, 5, 11, 0, 0),
+                2, null, null);
+    }
+
+    @Test
+    @DisplayName("""
+            export history
+            | csv with header, only the table is read
+            | nothing archived
+            """)
+    void exportHistory_csvOnlyTableRead_nothingArchived() throws IOException {
+        when(historyArchiveDayRepository.findLastArchiveDate())
+                .thenReturn(Optional.empty());
+        when(operationHistoryRepository.streamEventsInPeriod(any(), any(), any(), any(), any()))
+                .thenReturn(Stream.of(new OperationEvent(7, 3, 1, OperationType.LOADING, 4,
+                        LocalDateTime.of(2023, 5, 1, 10, 15))));
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        underTest.exportHistory(HistoryFilterDto.builder()
+                .from(LocalDate.of(2023, 5, 1))
+                .to(LocalDate.of(2023, 5, 1))
+                .productId(3)
+                .operation(OperationType.LOADING)
+                .format(HistoryFormat.CSV)
+                .build(), output);
+
+        assertThat(output.toString(StandardCharsets.UTF_8).lines().toList())
+                .containsExactly("id,date,productId,storageId,operation,count", "7,2023-05-01T10:15,3,1,LOADING,4");
+        verify(historySegmentRepository, never()).forEach(any(), any(), any(), any(), any());
+        verify(operationHistoryRepository).streamEventsInPeriod(LocalDateTime.of(2023, 5, 1, 0, 0),
+                LocalDateTime.of(2023, 5, 2, 0, 0), null, 3, OperationType.LOADING);
+    }
+
+    @Test
+    @DisplayName("""
+            export history
+            | only the segments are read, filtered by product and operation
+            | whole range is archived
+            """)
+    void exportHistory_onlySegmentsReadAndFiltered_wholeRangeArchived() throws IOException {
+        when(historyArchiveDayRepository.findLastArchiveDate())
+                .thenReturn(Optional.of(LocalDate.of(2023, 5, 31)));
+        when(historyArchiveDayRepository.findAllInPeriod(any(), any()))
+                .thenReturn(List.of(archiveDay(LocalDate.of(2023, 5, 2)), archiveDay(LocalDate.of(2023, 5, 3))));
+        doAnswer(invocation -> {
+            Consumer<OperationEvent> consumer = invocation.getArgument(4);
+            consumer.accept(new OperationEvent(1, 1, 2, OperationType.LOADING, 10, LocalDateTime.of(2023, 5, 2, 0, 0)));
+            consumer.accept(new OperationEvent(2, 2, 2, OperationType.LOADING, 10, LocalDateTime.of(2023, 5, 2, 0, 0)));
+            consumer.accept(new OperationEvent(3, 1, 2, OperationType.SHIPMENT, 10, LocalDateTime.of(2023, 5, 3, 0, 0)));
+            return null;
+        }).when(historySegmentRepository).forEach(any(), any(), any(), any(), any());
+
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        underTest.exportHistory(HistoryFilterDto.builder()
+                .from(LocalDate.of(2023, 5, 1))
+                .to(LocalDate.of(2023, 5, 31))
+                .productId(1)
+                .operation(OperationType.LOADING)
+                .format(HistoryFormat.CSV)
+                .build(), output);
+
+        assertThat(output.toString(StandardCharsets.UTF_8).lines().toList())
+                .containsExactly("id,date,productId,storageId,operation,count", "1,2023-05-02T00:00,1,2,LOADING,10");
+        verify(historyArchiveDayRepository).findAllInPeriod(LocalDate.of(2023, 5, 1), LocalDate.of(2023, 6, 1));
+        verify(historySegmentRepository).forEach(eq(List.of("2023-05-02.seg", "2023-05-03.seg")),
+                eq(LocalDateTime.of(2023, 5, 1, 0, 0)), eq(LocalDateTime.of(2023, 6, 1, 0, 0)), isNull(), any());
+        verify(operationHistoryRepository, never()).streamEventsInPeriod(any(), any(), any(), any(), any());
+    }
+
+    private HistoryArchiveDay archiveDay(LocalDate day) {
+        return HistoryArchiveDay.builder()
+                .archiveDate(day)
+                .location(day + ".seg")
+                .rowCount(1)
+                .build();
+    }
+}
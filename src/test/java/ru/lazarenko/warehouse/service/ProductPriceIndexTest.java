@@ -0,0 +1,198 @@
+package ru.lazarenko.warehouse.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.transaction.TestTransaction;
+import org.springframework.test.util.ReflectionTestUtils;
+import ru.lazarenko.warehouse.entity.Category;
+import ru.lazarenko.warehouse.entity.Product;
+import ru.lazarenko.warehouse.repository.ProductRepository;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.springframework.test.annotation.DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD;
+
+@DataJpaTest
+@Import(ProductPriceIndex.class)
+@Sql("classpath:repository/data.sql")
+@DirtiesContext(classMode = AFTER_EACH_TEST_METHOD)
+class ProductPriceIndexTest {
+    @Autowired
+    ProductPriceIndex underTest;
+
+    @Autowired
+    ProductRepository productRepository;
+
+    @Autowired
+    TestEntityManager entityManager;
+
+    @BeforeEach
+    void prepare() {
+        underTest.reload();
+    }
+
+    @Test
+    @DisplayName("""
+            find ids
+            | ids in price and id order within the bounds
+            | products of the same price exist
+            """)
+    void findIds_idsInPriceAndIdOrderWithinBounds_productsOfSamePriceExist() {
+        assertAll(
+                () -> assertThat(underTest.findIds(new BigDecimal(100), new BigDecimal(150), null, null, 0, 10))
+                        .contains(List.of(2, 1, 4)),
+                () -> assertThat(underTest.findIds(new BigDecimal(0), new BigDecimal(1000), null, null, 0, 2))
+                        .contains(List.of(3, 2)),
+                () -> assertThat(underTest.findIds(new BigDecimal("100.01"), new BigDecimal("149.99"), null, null, 0, 10))
+                        .contains(List.of()),
+                () -> assertThat(underTest.findIds(new BigDecimal(1000), new BigDecimal(2000), null, null, 0, 10))
+                        .contains(List.of())
+        );
+    }
+
+    @Test
+    @DisplayName("""
+            find ids
+            | only ids after the cursor and of the category
+            | cursor and category are given
+            """)
+    void findIds_onlyIdsAfterCursorAndOfCategory_cursorAndCategoryGiven() {
+        assertAll(
+                () -> assertThat(underTest.findIds(new BigDecimal(0), new BigDecimal(1000), null,
+                        new BigDecimal(150), 1, 10)).contains(List.of(4)),
+                () -> assertThat(underTest.findIds(new BigDecimal(0), new BigDecimal(1000), 1, null, 0, 10))
+                        .contains(List.of(3, 4)),
+                () -> assertThat(underTest.findIds(new BigDecimal(0), new BigDecimal(1000), 2,
+                        new BigDecimal(100), 2, 10)).contains(List.of(1))
+        );
+    }
+
+    @Test
+    @DisplayName("""
+            find ids
+            | same ids as the database in the same order
+            | many products with random prices and categories
+            """)
+    void findIds_sameIdsAsDatabase_manyProductsWithRandomPrices() {
+        Category coffee = entityManager.find(Category.class, 1);
+        Random random = new Random(25);
+        for (int i = 0; i < 500; i++) {
+            entityManager.persist(Product.builder()
+                    .name("product-" + i)
+                    .price(BigDecimal.valueOf(random.nextInt(20_000), 2))
+                    .category(random.nextBoolean() ? coffee : null)
+                    .build());
+        }
+        entityManager.flush();
+        underTest.reload();
+
+        for (int i = 0; i < 20; i++) {
+            BigDecimal min = BigDecimal.valueOf(random.nextInt(100));
+            BigDecimal max = min.add(BigDecimal.valueOf(random.nextInt(100)));
+            Integer categoryId = random.nextBoolean() ? 1 : null;
+
+            List<Integer> expected = productRepository
+                    .findPriceRangePage(min, max, categoryId, null, 0, Pageable.unpaged()).stream()
+                    .map(Product::getId)
+                    .toList();
+
+            assertThat(underTest.findIds(min, max, categoryId, null, 0, Integer.MAX_VALUE)).contains(expected);
+        }
+    }
+
+    @Test
+    @DisplayName("""
+            put product
+            | product found only after commit
+            | transaction is committed
+            """)
+    void putProduct_productFoundOnlyAfterCommit_transactionIsCommitted() {
+        underTest.putProduct(1000, new BigDecimal(120), 1);
+
+        assertThat(underTest.findIds(new BigDecimal(100), new BigDecimal(150), null, null, 0, 10))
+                .contains(List.of(2, 1, 4));
+
+        TestTransaction.flagForCommit();
+        TestTransaction.end();
+
+        assertThat(underTest.findIds(new BigDecimal(100), new BigDecimal(150), null, null, 0, 10))
+                .contains(List.of(2, 1000, 1, 4));
+    }
+
+    @Test
+    @DisplayName("""
+            put product
+            | product not found
+            | transaction is rolled back
+            """)
+    void putProduct_productNotFound_transactionIsRolledBack() {
+        underTest.putProduct(1000, new BigDecimal(120), 1);
+
+        TestTransaction.end();
+
+        assertThat(underTest.findIds(new BigDecimal(100), new BigDecimal(150), null, null, 0, 10))
+                .contains(List.of(2, 1, 4));
+    }
+
+    @Test
+    @DisplayName("""
+            put product
+            | same ids as the database in the same order
+            | products put before and after the delta is merged
+            """)
+    void putProduct_sameIdsAsDatabase_productsPutBeforeAndAfterDeltaMerged() {
+        TestTransaction.end();
+        ReflectionTestUtils.setField(underTest, "maxDelta", 3);
+
+        underTest.putProduct(1000, new BigDecimal(150), 1);
+        underTest.putProduct(1001, new BigDecimal(50), null);
+        underTest.putProduct(1002, new BigDecimal(120), 2);
+
+        assertThat(underTest.findIds(new BigDecimal(0), new BigDecimal(1000), null, null, 0, 10))
+                .contains(List.of(3, 1001, 2, 1002, 1, 4, 1000));
+
+        underTest.putProduct(1003, new BigDecimal(100), 2);
+        underTest.putProduct(1, new BigDecimal(150), 2);
+
+        assertAll(
+                () -> assertThat(underTest.findIds(new BigDecimal(0), new BigDecimal(1000), null, null, 0, 10))
+                        .contains(List.of(3, 1001, 2, 1003, 1002, 1, 4, 1000)),
+                () -> assertThat(underTest.findIds(new BigDecimal(100), new BigDecimal(150), 2,
+                        new BigDecimal(100), 2, 10)).contains(List.of(1003, 1002, 1)),
+                () -> assertThat(underTest.findIds(new BigDecimal(0), new BigDecimal(1000), null,
+                        new BigDecimal(150), 1, 2)).contains(List.of(4, 1000))
+        );
+    }
+
+    @Test
+    @DisplayName("""
+            put product
+            | index not used until reload
+            | index is full
+            """)
+    void putProduct_indexNotUsedUntilReload_indexIsFull() {
+        TestTransaction.end();
+        ReflectionTestUtils.setField(underTest, "maxEntries", 4);
+
+        underTest.putProduct(1, new BigDecimal(150), 2);
+
+        assertThat(underTest.findIds(new BigDecimal(100), new BigDecimal(150), null, null, 0, 10))
+                .contains(List.of(2, 1, 4));
+
+        underTest.putProduct(1000, new BigDecimal(120), 1);
+
+        assertThat(underTest.findIds(new BigDecimal(100), new BigDecimal(150), null, null, 0, 10)).isEmpty();
+    }
+}
@@ -6,6 +6,10 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
 import ru.lazarenko.warehouse.dto.CategoryDto;
 import ru.lazarenko.warehouse.dto.info.ResponseDto;
 import ru.lazarenko.warehouse.dto.product.PriceRangeDto;
@@ -26,10 +30,14 @@ import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
 @SpringBootTest
+@RecordApplicationEvents
 class ProductServiceTest {
     @Autowired
     ProductService underTest;
 
+    @Autowired
+    ApplicationEvents events;
+
     @MockBean
     ProductRepository productRepository;
 
@@ -39,6 +47,9 @@ class ProductServiceTest {
     @MockBean
     ProductMapper productMapper;
 
+    @MockBean
+    ProductPriceIndex productPriceIndex;
+
     Category category;
     Product product1;
     Product product2;
@@ -113,34 +124,38 @@ class ProductServiceTest {
 
         verify(productRepository, times(1))
                 .save(any(Product.class));
+        verify(productPriceIndex, times(1))
+                .putProduct(2, new BigDecimal(150), 1);
         assertThat(result.getStatus()).isEqualTo("CREATED");
         assertThat(result.getMessage()).isEqualTo("Product successful created: id='2'");
+        assertThat(events.stream(ResourceChangedEvent.class))
+                .containsExactly(new ResourceChangedEvent("products"));
     }
 
     @Test
-    @DisplayName("get all products | empty result list | products do not exist")
-    void getAllProducts_resultListIsEmpty_productsDoNotExist() {
-        when(productRepository.findAll())
+    @DisplayName("get products after | empty result list | products do not exist")
+    void getProductsAfter_resultListIsEmpty_productsDoNotExist() {
+        when(productRepository.findPageAfter(0, null, PageRequest.of(0, 100)))
                 .thenReturn(List.of());
 
-        List<ProductDto> result = underTest.getAllProducts();
+        List<ProductDto> result = underTest.getProductsAfter(null, 0, 100);
 
         assertThat(result).isEmpty();
     }
 
     @Test
-    @DisplayName("get all products | result list not empty | products exist")
-    void getAllProducts_resultListIsNotEmpty_productsExist() {
-        when(productRepository.findAll())
+    @DisplayName("get products after | result list not empty | products exist")
+    void getProductsAfter_resultListIsNotEmpty_productsExist() {
+        when(productRepository.findPageAfter(0, null, PageRequest.of(0, 100)))
                 .thenReturn(List.of(product1, product2));
 
         when(productMapper.toProductDtoList(anyList()))
                 .thenReturn(List.of(productDto1, productDto2));
 
-        List<ProductDto> result = underTest.getAllProducts();
+        List<ProductDto> result = underTest.getProductsAfter(null, 0, 100);
 
         verify(productRepository, times(1))
-                .findAll();
+                .findPageAfter(0, null, PageRequest.of(0, 100));
 
         assertThat(result).isNotEmpty();
         assertThat(result.size()).isEqualTo(2);
@@ -183,13 +198,15 @@ class ProductServiceTest {
                 .max(100)
                 .build();
 
-        when(productRepository.findProductsByMinAndMaxPrice(any(BigDecimal.class), any(BigDecimal.class)))
+        when(productRepository.findPriceRangePage(any(BigDecimal.class), any(BigDecimal.class), any(), any(), anyInt(),
+                any(Pageable.class)))
                 .thenReturn(List.of());
 
         List<ProductDto> result = underTest.getProductsByPriceRange(request);
 
         verify(productRepository, times(1))
-                .findProductsByMinAndMaxPrice(any(BigDecimal.class), any(BigDecimal.class));
+                .findPriceRangePage(any(BigDecimal.class), any(BigDecimal.class), any(), any(), anyInt(),
+                        any(Pageable.class));
 
         assertThat(result).isEmpty();
     }
@@ -202,7 +219,8 @@ class ProductServiceTest {
                 .max(200)
                 .build();
 
-        when(productRepository.findProductsByMinAndMaxPrice(any(BigDecimal.class), any(BigDecimal.class)))
+        when(productRepository.findPriceRangePage(any(BigDecimal.class), any(BigDecimal.class), any(), any(), anyInt(),
+                any(Pageable.class)))
                 .thenReturn(List.of(product2));
 
         when(productMapper.toProductDtoList(anyList()))
@@ -211,7 +229,8 @@ class ProductServiceTest {
         List<ProductDto> result = underTest.getProductsByPriceRange(request);
 
         verify(productRepository, times(1))
-                .findProductsByMinAndMaxPrice(any(BigDecimal.class), any(BigDecimal.class));
+                .findPriceRangePage(any(BigDecimal.class), any(BigDecimal.class), any(), any(), anyInt(),
+                        any(Pageable.class));
 
         assertThat(result).isNotEmpty();
         assertThat(result.size()).isEqualTo(1);
@@ -220,55 +239,55 @@ class ProductServiceTest {
     }
 
     @Test
-    @DisplayName("get products by category | NoFoundElementException| category do not exist")
-    void getProductsByCategory_noFoundElementException_categoryDoNotExist() {
+    @DisplayName("get products after with category | NoFoundElementException| category do not exist")
+    void getProductsAfterWithCategory_noFoundElementException_categoryDoNotExist() {
         String categoryName = "unknown";
 
         doThrow(NoFoundElementException.class)
                 .when(categoryService)
                 .checkExistAndGetCategoryByName(categoryName);
 
-        assertThrows(NoFoundElementException.class, () -> underTest.getProductsByCategory(categoryName));
+        assertThrows(NoFoundElementException.class, () -> underTest.getProductsAfter(categoryName, 0, 100));
     }
 
 
     @Test
-    @DisplayName("get products by category | empty result list | products do not exist and category exist")
-    void getProductsByCategory_resultListIsEmpty_productsDoNotExist() {
+    @DisplayName("get products after with category | empty result list | products do not exist and category exist")
+    void getProductsAfterWithCategory_resultListIsEmpty_productsDoNotExist() {
         String categoryName = "tea";
 
         when(categoryService.checkExistAndGetCategoryByName(categoryName))
                 .thenReturn(Category.builder().id(1).name("tea").build());
 
-        when(productRepository.findAllByCategoryId(anyInt()))
+        when(productRepository.findPageAfter(0, 1, PageRequest.of(0, 100)))
                 .thenReturn(List.of());
 
-        List<ProductDto> result = underTest.getProductsByCategory(categoryName);
+        List<ProductDto> result = underTest.getProductsAfter(categoryName, 0, 100);
 
         verify(productRepository, times(1))
-                .findAllByCategoryId(anyInt());
+                .findPageAfter(0, 1, PageRequest.of(0, 100));
 
         assertThat(result).isEmpty();
     }
 
     @Test
-    @DisplayName("get products by category | result list not empty | products exist and category exist")
-    void getProductsByCategory_resultListIsNotEmpty_productsExist() {
+    @DisplayName("get products after with category | result list not empty | products exist and category exist")
+    void getProductsAfterWithCategory_resultListIsNotEmpty_productsExist() {
         String categoryName = "coffee";
 
         when(categoryService.checkExistAndGetCategoryByName(categoryName))
                 .thenReturn(category);
 
-        when(productRepository.findAllByCategoryId(anyInt()))
+        when(productRepository.findPageAfter(0, 1, PageRequest.of(0, 100)))
                 .thenReturn(List.of(product1, product2));
 
         when(productMapper.toProductDtoList(anyList()))
                 .thenReturn(List.of(productDto1, productDto2));
 
-        List<ProductDto> result = underTest.getProductsByCategory(categoryName);
+        List<ProductDto> result = underTest.getProductsAfter(categoryName, 0, 100);
 
         verify(productRepository, times(1))
-                .findAllByCategoryId(anyInt());
+                .findPageAfter(0, 1, PageRequest.of(0, 100));
 
         assertThat(result).isNotEmpty();
         assertThat(result.size()).isEqualTo(2);
@@ -277,4 +296,60 @@ class ProductServiceTest {
         assertThat(result.get(1).getName()).isEqualTo("cappuccino");
         assertThat(result.get(1).getCategory().getName()).isEqualTo("coffee");
     }
-}
\ No newline at end of file
+
+    @Test
+    @DisplayName("""
+            get products by price range
+            | products in index order
+            | price index is loaded
+            """)
+    void getProductsByPriceRange_productsInIndexOrder_priceIndexIsLoaded() {
+        PriceRangeDto request = PriceRangeDto.builder()
+                .min(100)
+                .max(200)
+                .category("coffee")
+                .afterPrice(new BigDecimal(100))
+                .afterId(7)
+                .size(2)
+                .build();
+
+        when(categoryService.checkExistAndGetCategoryByName("coffee"))
+                .thenReturn(category);
+        when(productPriceIndex.findIds(BigDecimal.valueOf(100), BigDecimal.valueOf(200), 1, new BigDecimal(100), 7, 2))
+                .thenReturn(Optional.of(List.of(2, 1)));
+        when(productRepository.findAllWithCategoryByIdIn(List.of(2, 1)))
+                .thenReturn(List.of(product1, product2));
+        when(productMapper.toProductDtoList(anyList()))
+                .thenAnswer(invocation -> invocation.<List<Product>>getArgument(0).stream()
+                        .map(product -> ProductDto.builder().id(product.getId()).build())
+                        .toList());
+
+        List<ProductDto> result = underTest.getProductsByPriceRange(request);
+
+        verify(productRepository, never())
+                .findPriceRangePage(any(), any(), any(), any(), any(), any());
+        assertThat(result).extracting(ProductDto::getId).containsExactly(2, 1);
+    }
+
+    @Test
+    @DisplayName("""
+            get products by price range
+            | no products read
+            | price index has no products in range
+            """)
+    void getProductsByPriceRange_noProductsRead_priceIndexHasNoProductsInRange() {
+        PriceRangeDto request = PriceRangeDto.builder()
+                .min(1000)
+                .max(2000)
+                .build();
+
+        when(productPriceIndex.findIds(any(), any(), any(), any(), anyInt(), anyInt()))
+                .thenReturn(Optional.of(List.of()));
+
+        underTest.getProductsByPriceRange(request);
+
+        verify(productRepository, never()).findAllWithCategoryByIdIn(anyList());
+        verify(productRepository, never())
+                .findPriceRangePage(any(), any(), any(), any(), any(), any());
+    }
+}
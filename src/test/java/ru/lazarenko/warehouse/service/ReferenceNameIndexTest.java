@@ -0,0 +1,152 @@
+package ru.lazarenko.warehouse.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.jdbc.Sql;
+import org.springframework.test.context.transaction.TestTransaction;
+import ru.lazarenko.warehouse.entity.Category;
+import ru.lazarenko.warehouse.model.ReferenceView;
+import ru.lazarenko.warehouse.model.StorageView;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.springframework.test.annotation.DirtiesContext.ClassMode.AFTER_EACH_TEST_METHOD;
+
+@DataJpaTest
+@Import(ReferenceNameIndex.class)
+@Sql("classpath:repository/data.sql")
+@TestPropertySource(properties = "my.cache.names.max-entries=3")
+@DirtiesContext(classMode = AFTER_EACH_TEST_METHOD)
+class ReferenceNameIndexTest {
+    @Autowired
+    ReferenceNameIndex underTest;
+
+    @Autowired
+    TestEntityManager entityManager;
+
+    @BeforeEach
+    void prepare() {
+        underTest.reload();
+    }
+
+    @Test
+    @DisplayName("""
+            reload
+            | names found in any case
+            | reference data exists
+            """)
+    void reload_namesFoundInAnyCase_referenceDataExists() {
+        assertAll(
+                () -> assertThat(underTest.getCategory("Coffee")).contains(new ReferenceView(1, "coffee")),
+                () -> assertThat(underTest.getStorage("sochi-STR")).contains(new StorageView(1, "Sochi-str", 1)),
+                () -> assertThat(underTest.getRegion("MOSCOW")).contains(new ReferenceView(2, "Moscow")),
+                () -> assertThat(underTest.getCategory("juice")).isEmpty()
+        );
+    }
+
+    @Test
+    @DisplayName("""
+            reload
+            | category found
+            | category inserted after previous reload
+            """)
+    void reload_categoryFound_categoryInsertedAfterPreviousReload() {
+        entityManager.persistAndFlush(Category.builder().name("juice").build());
+
+        assertThat(underTest.getCategory("juice")).isEmpty();
+
+        underTest.reload();
+
+        assertThat(underTest.getCategory("juice")).isPresent();
+    }
+
+    @Test
+    @DisplayName("""
+            put category
+            | category found only after commit
+            | transaction is committed
+            """)
+    void putCategory_categoryFoundOnlyAfterCommit_transactionIsCommitted() {
+        underTest.putCategory(new ReferenceView(1000, "juice"));
+
+        assertThat(underTest.getCategory("juice")).isEmpty();
+
+        TestTransaction.flagForCommit();
+        TestTransaction.end();
+
+        assertThat(underTest.getCategory("juice")).contains(new ReferenceView(1000, "juice"));
+    }
+
+    @Test
+    @DisplayName("""
+            put category
+            | category not found
+            | transaction is rolled back
+            """)
+    void putCategory_categoryNotFound_transactionIsRolledBack() {
+        underTest.putCategory(new ReferenceView(1000, "juice"));
+
+        TestTransaction.end();
+
+        assertThat(underTest.getCategory("juice")).isEmpty();
+    }
+
+    @Test
+    @DisplayName("""
+            put category
+            | only categories within the bound are indexed
+            | index is full
+            """)
+    void putCategory_onlyCategoriesWithinBoundIndexed_indexIsFull() {
+        TestTransaction.end();
+
+        underTest.putCategory(new ReferenceView(1000, "juice"));
+        underTest.putCategory(new ReferenceView(1001, "milk"));
+        underTest.putCategory(new ReferenceView(1, "coffee"));
+
+        assertAll(
+                () -> assertThat(underTest.getCategory("juice")).isPresent(),
+                () -> assertThat(underTest.getCategory("milk")).isEmpty(),
+                () -> assertThat(underTest.getCategory("coffee")).isPresent()
+        );
+    }
+
+    @Test
+    @DisplayName("""
+            put storage
+            | storage not indexed and regions kept
+            | storages index is full
+            """)
+    void putStorage_storageNotIndexedAndRegionsKept_storagesIndexIsFull() {
+        TestTransaction.end();
+
+        underTest.putStorage(new StorageView(1000, "Sochi-str-2", 1));
+
+        assertAll(
+                () -> assertThat(underTest.getStorage("Sochi-str-2")).isEmpty(),
+                () -> assertThat(underTest.getRegion("Sochi")).isPresent(),
+                () -> assertThat(underTest.getRegion("Moscow")).isPresent()
+        );
+    }
+
+    @Test
+    @DisplayName("""
+            put region
+            | region found
+            | region created without transaction
+            """)
+    void putRegion_regionFound_regionCreatedWithoutTransaction() {
+        TestTransaction.end();
+
+        underTest.putRegion(new ReferenceView(1000, "Kazan"));
+
+        assertThat(underTest.getRegion("kazan")).contains(new ReferenceView(1000, "Kazan"));
+    }
+}
@@ -6,12 +6,19 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
 import ru.lazarenko.warehouse.dto.RegionDto;
 import ru.lazarenko.warehouse.dto.info.ResponseDto;
 import ru.lazarenko.warehouse.entity.Region;
 import ru.lazarenko.warehouse.entity.Storage;
 import ru.lazarenko.warehouse.exception.NoUniqueObjectException;
+import ru.lazarenko.warehouse.model.ReferenceView;
+import ru.lazarenko.warehouse.model.RegionView;
+import ru.lazarenko.warehouse.model.StorageView;
 import ru.lazarenko.warehouse.repository.RegionRepository;
+import ru.lazarenko.warehouse.repository.StorageRepository;
 import ru.lazarenko.warehouse.service.mapper.RegionMapper;
 
 import java.util.List;
@@ -24,16 +31,26 @@ import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.*;
 
 @SpringBootTest
+@RecordApplicationEvents
 class RegionServiceTest {
     @Autowired
     RegionService underTest;
 
+    @Autowired
+    ApplicationEvents events;
+
     @MockBean
     RegionRepository regionRepository;
 
     @MockBean
     RegionMapper regionMapper;
 
+    @MockBean
+    StorageRepository storageRepository;
+
+    @MockBean
+    ReferenceNameIndex referenceNameIndex;
+
     RegionDto regionRequestDto1;
     RegionDto regionRequestDto2;
     Region region1;
@@ -85,36 +102,38 @@ class RegionServiceTest {
         verify(regionRepository, times(1))
                 .save(any(Region.class));
         assertThat(result.getMessage()).isEqualTo("Region successful created: id='1'");
+        assertThat(events.stream(ResourceChangedEvent.class))
+                .containsExactly(new ResourceChangedEvent("regions"));
     }
 
     @Test
-    @DisplayName("get all regions | result list is empty | regions do not exist")
-    void getAllRegions_resultListIsEmpty_regionsDoNotExist() {
-        when(regionRepository.findAll())
+    @DisplayName("get regions after | result list is empty | regions do not exist")
+    void getRegionsAfter_resultListIsEmpty_regionsDoNotExist() {
+        when(regionRepository.findPageAfter(0, PageRequest.of(0, 100)))
                 .thenReturn(List.of());
 
-        List<RegionDto> result = underTest.getAllRegions();
+        List<RegionDto> result = underTest.getRegionsAfter(0, 100);
         verify(regionRepository, times(1))
-                .findAll();
+                .findPageAfter(0, PageRequest.of(0, 100));
 
         assertThat(result.size()).isEqualTo(0);
     }
 
     @Test
-    @DisplayName("get all regions | result list is not empty | regions exist")
-    void getAllRegions_resultListIsNotEmpty_regionsExist() {
+    @DisplayName("get regions after | result list is not empty | regions exist")
+    void getRegionsAfter_resultListIsNotEmpty_regionsExist() {
         List<Region> regions = List.of(region1, region2);
         List<RegionDto> regionDtos = List.of(regionResponseDto1, regionResponseDto2);
 
-        when(regionRepository.findAll())
+        when(regionRepository.findPageAfter(0, PageRequest.of(0, 100)))
                 .thenReturn(regions);
 
         when(regionMapper.toRegionDtoList(anyList()))
                 .thenReturn(regionDtos);
 
-        List<RegionDto> result = underTest.getAllRegions();
+        List<RegionDto> result = underTest.getRegionsAfter(0, 100);
         verify(regionRepository, times(1))
-                .findAll();
+                .findPageAfter(0, PageRequest.of(0, 100));
 
         assertAll(
                 () -> assertThat(result.size()).isEqualTo(2),
@@ -216,62 +235,96 @@ class RegionServiceTest {
     }
 
     @Test
-    @DisplayName("get region with storage by name | optional is empty | region does not exist")
-    void getRegionWithStoragesByName_optionalIsEmpty_regionExist() {
+    @DisplayName("""
+            check exist and get region by name
+            | region read by id
+            | name is indexed
+            """)
+    void checkExistAndGetRegionByName_regionReadById_nameIsIndexed() {
+        when(referenceNameIndex.getRegion(anyString()))
+                .thenReturn(Optional.of(new ReferenceView(2, "Sochi")));
+        when(regionRepository.findById(anyInt()))
+                .thenReturn(Optional.of(region2));
+
+        Region result = underTest.checkExistAndGetRegionByName("sochi");
+
+        verify(regionRepository).findById(2);
+        verify(regionRepository, never()).findByName(anyString());
+        assertThat(result.getName()).isEqualTo("Sochi");
+    }
+
+    @Test
+    @DisplayName("check unique name | NoUniqueObjectException | region name is indexed")
+    void checkUniqueName_noUniqueObjectException_regionNameIsIndexed() {
+        when(referenceNameIndex.getRegion(anyString()))
+                .thenReturn(Optional.of(new ReferenceView(2, "Sochi")));
+
+        assertThrows(NoUniqueObjectException.class, () -> underTest.checkUniqueName("Sochi"));
+        verify(regionRepository, never()).findByName(anyString());
+    }
+
+    @Test
+    @DisplayName("get region view by name | optional is empty | region does not exist")
+    void getRegionViewByName_optionalIsEmpty_regionDoesNotExist() {
         String name = "Krasnodar";
 
         when(regionRepository.findWithStoragesByName(anyString()))
                 .thenReturn(Optional.empty());
 
-        Optional<Region> optionalResult = underTest.getRegionWithStoragesByName(name);
+        Optional<RegionView> optionalResult = underTest.getRegionViewByName(name);
 
         verify(regionRepository, times(1))
                 .findWithStoragesByName(anyString());
+        verify(referenceNameIndex, never()).putRegion(any());
 
         assertThat(optionalResult).isEmpty();
     }
 
     @Test
     @DisplayName("""
-            get region with storage by name
-            | optional is not empty and region contains empty list storages
-            | region exist, storage does not exist
+            get region view by name
+            | region read with storages and indexed
+            | region is not indexed
             """)
-    void getRegionWithStoragesByName_optionalIsEmptyAndEmptyListStorages_regionExistAndStorageDoesNotExist() {
-        String name = "Moscow";
+    void getRegionViewByName_regionReadWithStoragesAndIndexed_regionIsNotIndexed() {
+        String name = "Sochi";
+        RegionView view = new RegionView(2, "Sochi", List.of(new StorageView(1, "Sochi-str-1", 2)));
 
         when(regionRepository.findWithStoragesByName(anyString()))
-                .thenReturn(Optional.of(region1));
+                .thenReturn(Optional.of(region2));
+        when(regionMapper.toRegionView(any(Region.class)))
+                .thenReturn(view);
 
-        Optional<Region> optionalResult = underTest.getRegionWithStoragesByName(name);
+        Optional<RegionView> optionalResult = underTest.getRegionViewByName(name);
 
         verify(regionRepository, times(1))
                 .findWithStoragesByName(anyString());
+        verify(referenceNameIndex).putRegion(new ReferenceView(2, "Sochi"));
 
         assertThat(optionalResult).isNotEmpty();
-        assertThat(optionalResult.get().getStorages()).isEmpty();
+        assertThat(optionalResult.get().getStorages()).extracting(StorageView::getName)
+                .containsExactly("Sochi-str-1");
     }
 
     @Test
     @DisplayName("""
-            get region with storage by name
-            | optional is not empty and region contains not empty list storages
-            | region exist, storage does not exist
+            get region view by name
+            | storages read by region id
+            | region is indexed
             """)
-    void getRegionWithStoragesByName_optionalIsNotEmptyAndNotEmptyListStorages_regionExistAndStoragesExist() {
-        String name = "Sochi";
+    void getRegionViewByName_storagesReadByRegionId_regionIsIndexed() {
+        List<StorageView> storages = List.of(new StorageView(2, "Moscow-str-1", 1),
+                new StorageView(3, "Moscow-str-2", 1));
 
-        when(regionRepository.findWithStoragesByName(anyString()))
-                .thenReturn(Optional.of(region2));
+        when(referenceNameIndex.getRegion(anyString()))
+                .thenReturn(Optional.of(new ReferenceView(1, "Moscow")));
+        when(storageRepository.findViewsByRegionId(anyInt()))
+                .thenReturn(storages);
 
-        Optional<Region> optionalResult = underTest.getRegionWithStoragesByName(name);
+        Optional<RegionView> optionalResult = underTest.getRegionViewByName("Moscow");
 
-        verify(regionRepository, times(1))
-                .findWithStoragesByName(anyString());
-
-        assertThat(optionalResult).isNotEmpty();
-        assertThat(optionalResult.get().getName()).isEqualTo("Sochi");
-        assertThat(optionalResult.get().getStorages()).isNotEmpty();
-        assertThat(optionalResult.get().getStorages().get(0).getName()).isEqualTo("Sochi-str-1");
+        verify(regionRepository, never()).findWithStoragesByName(anyString());
+        verify(storageRepository).findViewsByRegionId(1);
+        assertThat(optionalResult).contains(new RegionView(1, "Moscow", storages));
     }
-}
\ No newline at end of file
+}
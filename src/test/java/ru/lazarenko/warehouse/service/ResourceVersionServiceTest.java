@@ -0,0 +1,77 @@
+package ru.lazarenko.warehouse.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import ru.lazarenko.warehouse.repository.ResourceVersionRepository;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.*;
+
+@SpringBootTest(properties = "my.cache.versions.ttl=1m")
+class ResourceVersionServiceTest {
+    @Autowired
+    ResourceVersionService underTest;
+
+    @MockBean
+    ResourceVersionRepository resourceVersionRepository;
+
+    @BeforeEach
+    void prepare() {
+        underTest.onResourceChangeCommitted(new ResourceChangedEvent("categories"));
+    }
+
+    @Test
+    @DisplayName("""
+            get version
+            | version read from the database once
+            | version requested twice within the time to live
+            """)
+    void getVersion_readOnce_requestedTwiceWithinTtl() {
+        when(resourceVersionRepository.findVersion("categories"))
+                .thenReturn(Optional.of(3L));
+
+        long first = underTest.getVersion("categories");
+        long second = underTest.getVersion("categories");
+
+        verify(resourceVersionRepository, times(1)).findVersion("categories");
+        assertAll(
+                () -> assertThat(first).isEqualTo(3L),
+                () -> assertThat(second).isEqualTo(3L)
+        );
+    }
+
+    @Test
+    @DisplayName("""
+            get version
+            | new version read from the database
+            | change of the resource committed on this node
+            """)
+    void getVersion_newVersionRead_changeCommitted() {
+        when(resourceVersionRepository.findVersion("categories"))
+                .thenReturn(Optional.of(3L), Optional.of(4L));
+        underTest.getVersion("categories");
+
+        underTest.onResourceChangeCommitted(new ResourceChangedEvent("categories"));
+        long result = underTest.getVersion("categories");
+
+        verify(resourceVersionRepository, times(2)).findVersion("categories");
+        assertThat(result).isEqualTo(4L);
+    }
+
+    @Test
+    @DisplayName("get version | exception thrown | resource has no version")
+    void getVersion_exceptionThrown_resourceHasNoVersion() {
+        when(resourceVersionRepository.findVersion("unknown"))
+                .thenReturn(Optional.empty());
+
+        assertThrows(IllegalStateException.class, () -> underTest.getVersion("unknown"));
+    }
+}
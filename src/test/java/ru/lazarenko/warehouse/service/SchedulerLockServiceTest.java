@@ -0,0 +1,116 @@
+package ru.lazarenko.warehouse.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.lazarenko.warehouse.exception.LockLostException;
+import ru.lazarenko.warehouse.model.LockLease;
+import ru.lazarenko.warehouse.repository.SchedulerLockRepository;
+
+import java.time.Duration;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class SchedulerLockServiceTest {
+    @Autowired
+    SchedulerLockService underTest;
+
+    @Autowired
+    SchedulerLockRepository schedulerLockRepository;
+
+    @AfterEach
+    void cleanUp() {
+        schedulerLockRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("""
+            try acquire
+            | only one node holds the lease, another node takes over after expiry
+            | two nodes compete for the lock
+            """)
+    void tryAcquire_oneHolderAndTakeoverAfterExpiry_twoNodes() throws InterruptedException {
+        underTest.createLockIfAbsent("job");
+
+        Optional<LockLease> first = underTest.tryAcquire("job", "node-1", Duration.ofMillis(200));
+        Optional<LockLease> competing = underTest.tryAcquire("job", "node-2", Duration.ofMillis(200));
+        Thread.sleep(300);
+        Optional<LockLease> takeover = underTest.tryAcquire("job", "node-2", Duration.ofMinutes(1));
+
+        assertAll(
+                () -> assertThat(first).isPresent(),
+                () -> assertThat(competing).isEmpty(),
+                () -> assertThat(takeover).isPresent(),
+                () -> assertThat(takeover.orElseThrow().getToken()).isEqualTo(first.orElseThrow().getToken() + 1),
+                () -> assertThrows(LockLostException.class,
+                        () -> underTest.renew(first.orElseThrow(), Duration.ofMinutes(1))),
+                () -> assertDoesNotThrow(() -> underTest.renew(takeover.orElseThrow(), Duration.ofMinutes(1)))
+        );
+    }
+
+    @Test
+    @DisplayName("""
+            release
+            | lock can be acquired by another node
+            | lease released
+            """)
+    void release_lockAcquiredByAnotherNode_leaseReleased() {
+        underTest.createLockIfAbsent("job");
+        LockLease lease = underTest.tryAcquire("job", "node-1", Duration.ofMinutes(1)).orElseThrow();
+
+        underTest.release(lease, Duration.ZERO);
+
+        assertThat(underTest.tryAcquire("job", "node-2", Duration.ofMinutes(1))).isPresent();
+    }
+
+    @Test
+    @DisplayName("""
+            release
+            | lock not acquired by another node
+            | lease held at least for the given duration
+            """)
+    void release_lockNotAcquiredByAnotherNode_leaseHeldForDuration() {
+        underTest.createLockIfAbsent("job");
+        LockLease lease = underTest.tryAcquire("job", "node-1", Duration.ofMinutes(1)).orElseThrow();
+
+        underTest.release(lease, Duration.ofMinutes(1));
+
+        assertThat(underTest.tryAcquire("job", "node-2", Duration.ofMinutes(1))).isEmpty();
+    }
+
+    @Test
+    @DisplayName("""
+            check held
+            | exception thrown only for the previous holder
+            | lease taken over after expiry
+            """)
+    void checkHeld_exceptionThrownForPreviousHolder_leaseTakenOver() {
+        underTest.createLockIfAbsent("job");
+        LockLease first = underTest.tryAcquire("job", "node-1", Duration.ZERO).orElseThrow();
+        LockLease takeover = underTest.tryAcquire("job", "node-2", Duration.ofMinutes(1)).orElseThrow();
+
+        assertAll(
+                () -> assertThrows(LockLostException.class, () -> underTest.checkHeld(first)),
+                () -> assertDoesNotThrow(() -> underTest.checkHeld(takeover))
+        );
+    }
+
+    @Test
+    @DisplayName("""
+            create lock if absent
+            | existing lock kept
+            | lock already exists
+            """)
+    void createLockIfAbsent_existingLockKept_lockExists() {
+        underTest.createLockIfAbsent("job");
+        underTest.tryAcquire("job", "node-1", Duration.ofMinutes(1));
+
+        assertDoesNotThrow(() -> underTest.createLockIfAbsent("job"));
+        assertThat(schedulerLockRepository.findTokenByName("job")).contains(1L);
+    }
+}
@@ -0,0 +1,145 @@
+package ru.lazarenko.warehouse.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.lazarenko.warehouse.entity.Category;
+import ru.lazarenko.warehouse.entity.ItemStorage;
+import ru.lazarenko.warehouse.entity.Product;
+import ru.lazarenko.warehouse.entity.Storage;
+import ru.lazarenko.warehouse.repository.CategoryRepository;
+import ru.lazarenko.warehouse.repository.ItemStorageRepository;
+import ru.lazarenko.warehouse.repository.ProductRepository;
+import ru.lazarenko.warehouse.repository.StorageRepository;
+
+import javax.persistence.EntityManagerFactory;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Run with {@code mvn test -Dtest=SingleFlightBenchmarkTest -Dbenchmark=true}.
+ */
+@Slf4j
+@SpringBootTest
+@DirtiesContext
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class SingleFlightBenchmarkTest {
+    private static final int DEVICES = 200;
+    private static final int PRODUCTS = 1_000;
+    private static final int ROUNDS = 3;
+
+    @Autowired
+    ProductService productService;
+
+    @Autowired
+    StorageService storageService;
+
+    @Autowired
+    SingleFlight singleFlight;
+
+    @Autowired
+    CategoryRepository categoryRepository;
+
+    @Autowired
+    ProductRepository productRepository;
+
+    @Autowired
+    StorageRepository storageRepository;
+
+    @Autowired
+    ItemStorageRepository itemStorageRepository;
+
+    @Autowired
+    EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Test
+    @DisplayName("""
+            shift start
+            | statements and time with and without single flight
+            | 200 devices request products and storage products at once
+            """)
+    void shiftStart_statementsAndTimeWithAndWithoutSingleFlight_devicesRequestAtOnce() throws Exception {
+        Integer storageId = prepareDataset();
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        long[] statements = new long[2];
+        for (boolean enabled : new boolean[]{false, true}) {
+            ReflectionTestUtils.setField(singleFlight, "enabled", enabled);
+            ExecutorService devices = Executors.newFixedThreadPool(DEVICES);
+
+            long best = Long.MAX_VALUE;
+            statistics.clear();
+            for (int round = 0; round < ROUNDS; round++) {
+                long start = System.nanoTime();
+                herd(devices, storageId);
+                best = Math.min(best, System.nanoTime() - start);
+            }
+            devices.shutdown();
+
+            statements[enabled ? 1 : 0] = statistics.getPrepareStatementCount();
+            log.info("singleFlight={} devices={} statements={} time={}ms", enabled, DEVICES,
+                    statistics.getPrepareStatementCount() / ROUNDS, best / 1_000_000);
+        }
+
+        assertThat(statements[1]).isLessThan(statements[0]);
+    }
+
+    /**
+     * Every device asks for the first products page and the products of its storage after one common signal.
+     */
+    private void herd(ExecutorService devices, Integer storageId) throws Exception {
+        CountDownLatch signal = new CountDownLatch(1);
+        List<Future<Integer>> responses = new ArrayList<>();
+        for (int i = 0; i < DEVICES; i++) {
+            responses.add(devices.submit(() -> {
+                signal.await();
+                return productService.getProductsAfter(null, 0, 500).size()
+                        + storageService.getAllProductsByStorageId(storageId).size();
+            }));
+        }
+
+        signal.countDown();
+        for (Future<Integer> response : responses) {
+            assertThat(response.get()).isEqualTo(500 + PRODUCTS);
+        }
+    }
+
+    private Integer prepareDataset() {
+        return new TransactionTemplate(transactionManager).execute(status -> saveDataset());
+    }
+
+    private Integer saveDataset() {
+        Category category = categoryRepository.save(Category.builder().name("benchmark").build());
+        Storage storage = storageRepository.save(Storage.builder().name("benchmark-storage").build());
+
+        List<Product> products = new ArrayList<>();
+        for (int i = 0; i < PRODUCTS; i++) {
+            products.add(Product.builder().name("product-" + i).price(BigDecimal.TEN).category(category).build());
+        }
+        productRepository.saveAll(products);
+
+        itemStorageRepository.saveAll(products.stream()
+                .map(product -> ItemStorage.builder().product(product).storage(storage).count(10).build())
+                .toList());
+        return storage.getId();
+    }
+}
@@ -0,0 +1,153 @@
+package ru.lazarenko.warehouse.service;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.lazarenko.warehouse.exception.NoFoundElementException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertAll;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@SpringBootTest
+class SingleFlightTest {
+    private static final int READERS = 8;
+
+    @Autowired
+    SingleFlight underTest;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Test
+    @DisplayName("""
+            read
+            | one load and the same result for every caller
+            | identical reads arrive while the first one runs
+            """)
+    void read_oneLoadAndSameResult_identicalReadsArriveWhileFirstRuns() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+        Map<Integer, Object> results = new ConcurrentHashMap<>();
+
+        runConcurrently(() -> {
+            loads.incrementAndGet();
+            await(release);
+            return new ArrayList<>(List.of(1, 2));
+        }, release, results);
+
+        assertAll(
+                () -> assertThat(loads.get()).isEqualTo(1),
+                () -> assertThat(results).hasSize(READERS),
+                () -> assertThat(results.values()).allMatch(result -> result == results.get(0)),
+                () -> assertThrows(UnsupportedOperationException.class, () -> ((List<Object>) results.get(0)).add(3))
+        );
+    }
+
+    @Test
+    @DisplayName("""
+            read
+            | exception of the load thrown to every caller
+            | identical reads arrive while the failing one runs
+            """)
+    void read_exceptionThrownToEveryCaller_identicalReadsArriveWhileFailingOneRuns() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger loads = new AtomicInteger();
+        Map<Integer, Object> results = new ConcurrentHashMap<>();
+
+        runConcurrently(() -> {
+            loads.incrementAndGet();
+            await(release);
+            throw new NoFoundElementException("Category with name='juice' not found");
+        }, release, results);
+
+        assertAll(
+                () -> assertThat(loads.get()).isEqualTo(1),
+                () -> assertThat(results.values())
+                        .hasSize(READERS)
+                        .allMatch(NoFoundElementException.class::isInstance)
+        );
+    }
+
+    @Test
+    @DisplayName("""
+            read
+            | loaded again
+            | previous read of the key completed
+            """)
+    void read_loadedAgain_previousReadCompleted() {
+        AtomicInteger loads = new AtomicInteger();
+
+        underTest.read("key", () -> List.of(loads.incrementAndGet()));
+        List<Integer> result = underTest.read("key", () -> List.of(loads.incrementAndGet()));
+
+        assertThat(result).containsExactly(2);
+    }
+
+    @Test
+    @DisplayName("""
+            read
+            | loaded in the transaction of the caller
+            | caller is in a transaction
+            """)
+    void read_loadedInTransactionOfCaller_callerInTransaction() {
+        TransactionTemplate transaction = new TransactionTemplate(transactionManager);
+        transaction.setName("caller");
+
+        List<String> result = transaction.execute(status -> underTest.read("key",
+                () -> List.of(String.valueOf(TransactionSynchronizationManager.getCurrentTransactionName()))));
+
+        assertThat(result).containsExactly("caller");
+    }
+
+    /**
+     * Starts the first reader, then the others once the first one is loading, and releases the load
+     * when all of them wait.
+     */
+    private void runConcurrently(Supplier<List<Object>> loader, CountDownLatch release, Map<Integer, Object> results)
+            throws InterruptedException {
+        List<Thread> readers = new ArrayList<>();
+        for (int i = 0; i < READERS; i++) {
+            int reader = i;
+            readers.add(new Thread(() -> {
+                try {
+                    results.put(reader, underTest.read("key", loader));
+                } catch (RuntimeException e) {
+                    results.put(reader, e);
+                }
+            }));
+        }
+
+        for (Thread reader : readers) {
+            reader.start();
+            while (reader.getState() != Thread.State.WAITING) {
+                Thread.onSpinWait();
+            }
+        }
+        release.countDown();
+        for (Thread reader : readers) {
+            reader.join();
+        }
+    }
+
+    private void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -6,16 +6,28 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.event.ApplicationEvents;
+import org.springframework.test.context.event.RecordApplicationEvents;
 import ru.lazarenko.warehouse.dto.RegionDto;
 import ru.lazarenko.warehouse.dto.info.ResponseDto;
 import ru.lazarenko.warehouse.dto.product.ProductDto;
 import ru.lazarenko.warehouse.dto.storage.ChangeItemStorageRequest;
+import ru.lazarenko.warehouse.dto.storage.InventoryFilterDto;
+import ru.lazarenko.warehouse.dto.storage.InventoryItemDto;
+import ru.lazarenko.warehouse.dto.storage.InventoryPageDto;
+import ru.lazarenko.warehouse.dto.storage.StockMovementBatchRequest;
+import ru.lazarenko.warehouse.dto.storage.StockMovementRequest;
 import ru.lazarenko.warehouse.dto.storage.StorageDto;
 import ru.lazarenko.warehouse.entity.*;
 import ru.lazarenko.warehouse.exception.NoFoundElementException;
 import ru.lazarenko.warehouse.exception.NoUniqueObjectException;
 import ru.lazarenko.warehouse.exception.ProductCountException;
+import ru.lazarenko.warehouse.model.InventorySort;
+import ru.lazarenko.warehouse.model.ItemStorageCount;
+import ru.lazarenko.warehouse.model.ItemStorageKey;
 import ru.lazarenko.warehouse.model.OperationType;
+import ru.lazarenko.warehouse.model.StorageView;
 import ru.lazarenko.warehouse.repository.StorageRepository;
 import ru.lazarenko.warehouse.service.mapper.StorageMapper;
 
@@ -23,19 +35,25 @@ import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertAll;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
 
 @SpringBootTest
+@RecordApplicationEvents
 class StorageServiceTest {
     @Autowired
     StorageService underTest;
 
+    @Autowired
+    ApplicationEvents events;
+
     @MockBean
     StorageRepository storageRepository;
 
@@ -57,6 +75,9 @@ class StorageServiceTest {
     @MockBean
     OperationHistoryService operationHistoryService;
 
+    @MockBean
+    ReferenceNameIndex referenceNameIndex;
+
     Category category;
     Product product;
     Region region;
@@ -172,9 +193,13 @@ class StorageServiceTest {
 
         verify(storageRepository, times(1))
                 .save(any(Storage.class));
+        verify(referenceNameIndex, times(1))
+                .putStorage(new StorageView(1, "Sochi-str-1", region.getId()));
 
         assertThat(result.getStatus()).isEqualTo("CREATED");
         assertThat(result.getMessage()).isEqualTo("Storage successful created: id='1'");
+        assertThat(events.stream(ResourceChangedEvent.class))
+                .containsExactly(new ResourceChangedEvent("storages"));
     }
 
     @Test
@@ -248,6 +273,20 @@ class StorageServiceTest {
                 .findByName(anyString());
     }
 
+    @Test
+    @DisplayName("""
+            check unique name
+            | noUniqueObjectException without database lookup
+            | storage name is indexed
+            """)
+    void checkUniqueName_noUniqueObjectException_storageNameIsIndexed() {
+        when(referenceNameIndex.getStorage(anyString()))
+                .thenReturn(Optional.of(new StorageView(1, "Sochi-str-1", 1)));
+
+        assertThrows(NoUniqueObjectException.class, () -> underTest.checkUniqueName("SOCHI-STR-1"));
+        verify(storageRepository, never()).findByName(anyString());
+    }
+
     @Test
     @DisplayName("""
             get all products by storageId
@@ -259,8 +298,8 @@ class StorageServiceTest {
                 .thenReturn(Optional.empty());
 
         assertThrows(NoFoundElementException.class, () -> underTest.getAllProductsByStorageId(any()));
-        verify(itemStorageService, times(0))
-                .getProductsByStorageId(anyInt());
+        verify(storageRepository, times(1))
+                .findById(any());
     }
 
     @Test
@@ -304,6 +343,8 @@ class StorageServiceTest {
 
         assertThat(result.size()).isEqualTo(1);
         assertThat(result.get(0).getName()).isEqualTo("cappuccino");
+        verify(storageRepository, never())
+                .findById(anyInt());
     }
 
     @Test
@@ -402,37 +443,41 @@ class StorageServiceTest {
 
         assertThat(result.size()).isEqualTo(1);
         assertThat(result.get(0).getName()).isEqualTo("cappuccino");
+        verify(storageRepository, never())
+                .findById(anyInt());
+        verify(categoryService, never())
+                .checkExistAndGetCategoryByName(anyString());
     }
 
     @Test
-    void getAllStorages_emptyResultList_storagesDoNotExist() {
-        when(storageRepository.findAll())
+    void getStoragesAfter_emptyResultList_storagesDoNotExist() {
+        when(storageRepository.findPageAfter(0, PageRequest.of(0, 100)))
                 .thenReturn(List.of());
 
-        List<StorageDto> result = underTest.getAllStorages();
+        List<StorageDto> result = underTest.getStoragesAfter(0, 100);
 
         verify(storageRepository, times(1))
-                .findAll();
+                .findPageAfter(0, PageRequest.of(0, 100));
         assertThat(result).isEmpty();
     }
 
     @Test
     @DisplayName("""
-            get all storages
+            get storages after
             | not empty result list
             | storages exist
             """)
-    void getAllStorages_resultListIsNotEmpty_storagesExist() {
-        when(storageRepository.findAll())
+    void getStoragesAfter_resultListIsNotEmpty_storagesExist() {
+        when(storageRepository.findPageAfter(0, PageRequest.of(0, 100)))
                 .thenReturn(List.of(storage));
 
         when(storageMapper.toStorageDtoList(anyList()))
                 .thenReturn(List.of(storageDto));
 
-        List<StorageDto> result = underTest.getAllStorages();
+        List<StorageDto> result = underTest.getStoragesAfter(0, 100);
 
         verify(storageRepository, times(1))
-                .findAll();
+                .findPageAfter(0, PageRequest.of(0, 100));
 
         assertThat(result).isNotEmpty();
         assertThat(result.get(0).getName()).isEqualTo("Sochi-str-1");
@@ -451,6 +496,9 @@ class StorageServiceTest {
                 .count(10)
                 .build();
 
+        when(itemStorageService.lockCount(anyInt(), anyInt()))
+                .thenReturn(Optional.empty());
+
         when(storageRepository.findById(anyInt()))
                 .thenReturn(Optional.empty());
 
@@ -458,7 +506,9 @@ class StorageServiceTest {
                 () -> underTest.increaseProductInStorage(changeItemRequest));
 
         verify(itemStorageService, times(0))
-                .createItem(any(ItemStorage.class));
+                .createEmptyItems(anyCollection());
+        verify(operationHistoryService, times(0))
+                .saveOperationHistory(any());
     }
 
     @Test
@@ -474,6 +524,9 @@ class StorageServiceTest {
                 .count(10)
                 .build();
 
+        when(itemStorageService.lockCount(anyInt(), anyInt()))
+                .thenReturn(Optional.empty());
+
         when(storageRepository.findById(anyInt()))
                 .thenReturn(Optional.of(storage));
 
@@ -485,7 +538,9 @@ class StorageServiceTest {
                 () -> underTest.increaseProductInStorage(changeItemRequest));
 
         verify(itemStorageService, times(0))
-                .createItem(any(ItemStorage.class));
+                .createEmptyItems(anyCollection());
+        verify(operationHistoryService, times(0))
+                .saveOperationHistory(any());
     }
 
     @Test
@@ -501,26 +556,25 @@ class StorageServiceTest {
                 .count(10)
                 .build();
 
+        when(itemStorageService.lockCount(anyInt(), anyInt()))
+                .thenReturn(Optional.empty(), Optional.of(0));
+
         when(storageRepository.findById(anyInt()))
                 .thenReturn(Optional.of(storage));
 
         when(productService.checkExistAndGetProductById(anyInt()))
                 .thenReturn(product);
 
-        when(itemStorageService.getItemByProductIdAndStorageId(anyInt(), anyInt()))
-                .thenReturn(Optional.empty());
-
-        when(itemStorageService.createItem(any(ItemStorage.class)))
-                .thenReturn(ResponseDto.builder()
-                        .message("Total count of product with id='%s' on storage with id='%s': %s"
-                                .formatted(product.getId(), storage.getId(), changeItemRequest.getCount()))
-                        .build());
-
         ResponseDto result = underTest.increaseProductInStorage(changeItemRequest);
 
         verify(itemStorageService, times(1))
-                .createItem(any(ItemStorage.class));
+                .createEmptyItems(List.of(new ItemStorageKey(1, 1)));
+        verify(itemStorageService, times(1))
+                .increaseCount(1, 1, 10);
+        verify(operationHistoryService, times(1))
+                .saveOperationHistory(any());
 
+        assertThat(result.getStatus()).isEqualTo("CREATED");
         assertThat(result.getMessage())
                 .isEqualTo("Total count of product with id='1' on storage with id='1': 10");
     }
@@ -529,35 +583,61 @@ class StorageServiceTest {
     @DisplayName("""
             increase product in storage
             | successfully increase
-            | storage and product exist, and item exist
+            | item was created by concurrent request
             """)
-    void increaseProductInStorage_successfullyIncrease_storageAndProductExistItemExist() {
+    void increaseProductInStorage_successfullyIncrease_itemCreatedConcurrently() {
         ChangeItemStorageRequest changeItemRequest = ChangeItemStorageRequest.builder()
                 .productId(1)
                 .storageId(1)
                 .count(10)
                 .build();
 
+        when(itemStorageService.lockCount(anyInt(), anyInt()))
+                .thenReturn(Optional.empty(), Optional.of(25));
+
         when(storageRepository.findById(anyInt()))
                 .thenReturn(Optional.of(storage));
 
         when(productService.checkExistAndGetProductById(anyInt()))
                 .thenReturn(product);
 
-        when(itemStorageService.getItemByProductIdAndStorageId(anyInt(), anyInt()))
-                .thenReturn(Optional.of(itemStorage));
+        ResponseDto result = underTest.increaseProductInStorage(changeItemRequest);
+
+        verify(itemStorageService, times(1))
+                .increaseCount(1, 1, 10);
+
+        assertThat(result.getMessage())
+                .isEqualTo("Total count of product with id='1' on storage with id='1': 35");
+    }
+
+    @Test
+    @DisplayName("""
+            increase product in storage
+            | successfully increase without lookups and further reads
+            | storage and product exist, and item exist
+            """)
+    void increaseProductInStorage_successfullyIncrease_storageAndProductExistItemExist() {
+        ChangeItemStorageRequest changeItemRequest = ChangeItemStorageRequest.builder()
+                .productId(1)
+                .storageId(1)
+                .count(10)
+                .build();
 
-        when(itemStorageService.createItem(any(ItemStorage.class)))
-                .thenReturn(ResponseDto.builder()
-                        .message("Total count of product with id='%s' on storage with id='%s': %s"
-                                .formatted(product.getId(), storage.getId(),
-                                        itemStorage.getCount() + changeItemRequest.getCount()))
-                        .build());
+        when(itemStorageService.lockCount(anyInt(), anyInt()))
+                .thenReturn(Optional.of(150));
 
         ResponseDto result = underTest.increaseProductInStorage(changeItemRequest);
 
         verify(itemStorageService, times(1))
-                .createItem(any(ItemStorage.class));
+                .lockCount(1, 1);
+        verify(itemStorageService, times(1))
+                .increaseCount(1, 1, 10);
+        verify(itemStorageService, times(0))
+                .createEmptyItems(anyCollection());
+        verify(storageRepository, times(0))
+                .findById(anyInt());
+        verify(operationHistoryService, times(1))
+                .saveOperationHistory(any());
 
         assertThat(result.getMessage())
                 .isEqualTo("Total count of product with id='1' on storage with id='1': 160");
@@ -576,6 +656,9 @@ class StorageServiceTest {
                 .count(10)
                 .build();
 
+        when(itemStorageService.lockCount(anyInt(), anyInt()))
+                .thenReturn(Optional.empty());
+
         when(storageRepository.findById(anyInt()))
                 .thenReturn(Optional.empty());
 
@@ -583,7 +666,9 @@ class StorageServiceTest {
                 () -> underTest.decreaseProductInStorage(changeItemRequest));
 
         verify(itemStorageService, times(0))
-                .updateItemAndGetSaved(any(ItemStorage.class));
+                .decreaseCount(anyInt(), anyInt(), anyInt());
+        verify(operationHistoryService, times(0))
+                .saveOperationHistory(any());
     }
 
     @Test
@@ -599,6 +684,9 @@ class StorageServiceTest {
                 .count(10)
                 .build();
 
+        when(itemStorageService.lockCount(anyInt(), anyInt()))
+                .thenReturn(Optional.empty());
+
         when(storageRepository.findById(anyInt()))
                 .thenReturn(Optional.of(storage));
 
@@ -609,8 +697,8 @@ class StorageServiceTest {
         assertThrows(NoFoundElementException.class,
                 () -> underTest.decreaseProductInStorage(changeItemRequest));
 
-        verify(itemStorageService, times(0))
-                .updateItemAndGetSaved(any(ItemStorage.class));
+        verify(operationHistoryService, times(0))
+                .saveOperationHistory(any());
     }
 
     @Test
@@ -626,26 +714,28 @@ class StorageServiceTest {
                 .count(10)
                 .build();
 
+        when(itemStorageService.lockCount(anyInt(), anyInt()))
+                .thenReturn(Optional.empty());
+
         when(storageRepository.findById(anyInt()))
                 .thenReturn(Optional.of(storage));
 
         when(productService.checkExistAndGetProductById(anyInt()))
                 .thenReturn(product);
 
-        when(itemStorageService.getItemByProductIdAndStorageId(anyInt(), anyInt()))
-                .thenReturn(Optional.empty());
-
-        assertThrows(NoFoundElementException.class,
+        NoFoundElementException exception = assertThrows(NoFoundElementException.class,
                 () -> underTest.decreaseProductInStorage(changeItemRequest));
 
-        verify(itemStorageService, times(0))
-                .updateItemAndGetSaved(any(ItemStorage.class));
+        assertThat(exception.getMessage())
+                .isEqualTo("Product with id='1' in storage with id='1' not found");
+        verify(operationHistoryService, times(0))
+                .saveOperationHistory(any());
     }
 
     @Test
     @DisplayName("""
             decrease product in storage
-            | successfully decrease
+            | successfully decrease without lookups and further reads
             | storage, product, item exist, and count in storage is enough
             """)
     void decreaseProductInStorage_successfullyDecrease_storageAndProductExistItemExistAndCountIsEnough() {
@@ -655,22 +745,22 @@ class StorageServiceTest {
                 .count(10)
                 .build();
 
-        when(storageRepository.findById(anyInt()))
-                .thenReturn(Optional.of(storage));
-
-        when(productService.checkExistAndGetProductById(anyInt()))
-                .thenReturn(product);
-
-        when(itemStorageService.getItemByProductIdAndStorageId(anyInt(), anyInt()))
-                .thenReturn(Optional.of(itemStorage));
+        when(itemStorageService.lockCount(anyInt(), anyInt()))
+                .thenReturn(Optional.of(150));
 
-        when(itemStorageService.updateItemAndGetSaved(any(ItemStorage.class)))
-                .thenReturn(itemStorage);
+        when(itemStorageService.decreaseCount(anyInt(), anyInt(), anyInt()))
+                .thenReturn(1);
 
         ResponseDto result = underTest.decreaseProductInStorage(changeItemRequest);
 
         verify(itemStorageService, times(1))
-                .updateItemAndGetSaved(any(ItemStorage.class));
+                .lockCount(1, 1);
+        verify(itemStorageService, times(1))
+                .decreaseCount(1, 1, 10);
+        verify(storageRepository, times(0))
+                .findById(anyInt());
+        verify(operationHistoryService, times(1))
+                .saveOperationHistory(any());
 
         assertThat(result.getMessage())
                 .isEqualTo("Total count of product with id='1' on storage with id='1': 140");
@@ -689,16 +779,240 @@ class StorageServiceTest {
                 .count(200)
                 .build();
 
+        when(itemStorageService.lockCount(anyInt(), anyInt()))
+                .thenReturn(Optional.of(150));
+
+        ProductCountException exception = assertThrows(ProductCountException.class,
+                () -> underTest.decreaseProductInStorage(changeItemRequest));
+
+        assertThat(exception.getMessage())
+                .isEqualTo("Count of product with id='1' less than 200. Actual count of product is 150");
+        verify(itemStorageService, times(0))
+                .decreaseCount(anyInt(), anyInt(), anyInt());
+        verify(operationHistoryService, times(0))
+                .saveOperationHistory(any());
+    }
+
+    @Test
+    @DisplayName("""
+            apply movement batch
+            | result for every line in request order
+            | lines with unknown ids, enough and not enough count
+            """)
+    void applyMovementBatch_resultForEveryLine_linesWithUnknownIdsAndNotEnoughCount() {
+        StockMovementBatchRequest request = StockMovementBatchRequest.builder()
+                .movements(List.of(
+                        movement(OperationType.LOADING, 1, 99, 10),
+                        movement(OperationType.LOADING, 99, 1, 10),
+                        movement(OperationType.SHIPMENT, 1, 1, 10),
+                        movement(OperationType.SHIPMENT, 1, 1, 500),
+                        movement(OperationType.LOADING, 1, 1, 20)))
+                .build();
+
+        when(productService.getExistingProductIds(anyCollection()))
+                .thenReturn(Set.of(1));
+
+        when(storageRepository.findExistingIds(anyCollection()))
+                .thenReturn(Set.of(1));
+
+        when(itemStorageService.getCounts(anyCollection()))
+                .thenReturn(List.of(new ItemStorageCount(1, 1, 150)), List.of(new ItemStorageCount(1, 1, 160)));
+
+        when(itemStorageService.changeCounts(anyList()))
+                .thenReturn(new int[]{1, 0, 1});
+
+        List<ResponseDto> result = underTest.applyMovementBatch(request);
+
+        verify(itemStorageService, times(0))
+                .createEmptyItems(anyCollection());
+        verify(operationHistoryService, times(1))
+                .saveOperationHistories(argThat(histories -> histories.size() == 2
+                        && histories.get(0).getOperation() == OperationType.SHIPMENT
+                        && histories.get(1).getOperation() == OperationType.LOADING));
+
+        assertAll(
+                () -> assertThat(result.size()).isEqualTo(5),
+                () -> assertThat(result.get(0).getStatus()).isEqualTo("NOT_FOUND"),
+                () -> assertThat(result.get(0).getMessage()).isEqualTo("Storage with id='99' not found"),
+                () -> assertThat(result.get(1).getStatus()).isEqualTo("NOT_FOUND"),
+                () -> assertThat(result.get(1).getMessage()).isEqualTo("Product with id='99' not found"),
+                () -> assertThat(result.get(2).getStatus()).isEqualTo("OK"),
+                () -> assertThat(result.get(2).getMessage())
+                        .isEqualTo("Total count of product with id='1' on storage with id='1': 140"),
+                () -> assertThat(result.get(3).getStatus()).isEqualTo("BAD_REQUEST"),
+                () -> assertThat(result.get(3).getMessage())
+                        .isEqualTo("Count of product with id='1' less than 500. Actual count of product is 140"),
+                () -> assertThat(result.get(4).getStatus()).isEqualTo("CREATED"),
+                () -> assertThat(result.get(4).getMessage())
+                        .isEqualTo("Total count of product with id='1' on storage with id='1': 160")
+        );
+    }
+
+    @Test
+    @DisplayName("""
+            apply movement batch
+            | empty item created before loading
+            | item does not exist
+            """)
+    void applyMovementBatch_emptyItemCreatedBeforeLoading_itemDoesNotExist() {
+        StockMovementBatchRequest request = StockMovementBatchRequest.builder()
+                .movements(List.of(
+                        movement(OperationType.LOADING, 1, 1, 20),
+                        movement(OperationType.LOADING, 1, 1, 5)))
+                .build();
+
+        when(productService.getExistingProductIds(anyCollection()))
+                .thenReturn(Set.of(1));
+
+        when(storageRepository.findExistingIds(anyCollection()))
+                .thenReturn(Set.of(1));
+
+        when(itemStorageService.getCounts(anyCollection()))
+                .thenReturn(List.of(), List.of(new ItemStorageCount(1, 1, 25)));
+
+        when(itemStorageService.changeCounts(anyList()))
+                .thenReturn(new int[]{1, 1});
+
+        List<ResponseDto> result = underTest.applyMovementBatch(request);
+
+        verify(itemStorageService, times(1))
+                .createEmptyItems(Set.of(new ItemStorageKey(1, 1)));
+
+        assertAll(
+                () -> assertThat(result.get(0).getMessage())
+                        .isEqualTo("Total count of product with id='1' on storage with id='1': 20"),
+                () -> assertThat(result.get(1).getMessage())
+                        .isEqualTo("Total count of product with id='1' on storage with id='1': 25")
+        );
+    }
+
+    @Test
+    @DisplayName("""
+            apply movement batch
+            | missing items created in one call and counts read for the moved pairs only
+            | loadings of several new pairs
+            """)
+    void applyMovementBatch_missingItemsCreatedInOneCall_loadingsOfSeveralNewPairs() {
+        StockMovementBatchRequest request = StockMovementBatchRequest.builder()
+                .movements(List.of(
+                        movement(OperationType.LOADING, 1, 1, 20),
+                        movement(OperationType.LOADING, 2, 1, 5),
+                        movement(OperationType.LOADING, 1, 2, 7)))
+                .build();
+
+        when(productService.getExistingProductIds(anyCollection()))
+                .thenReturn(Set.of(1, 2));
+
+        when(storageRepository.findExistingIds(anyCollection()))
+                .thenReturn(Set.of(1, 2));
+
+        when(itemStorageService.getCounts(anyCollection()))
+                .thenReturn(List.of(new ItemStorageCount(2, 1, 10)),
+                        List.of(new ItemStorageCount(1, 1, 20), new ItemStorageCount(2, 1, 15),
+                                new ItemStorageCount(1, 2, 7)));
+
+        when(itemStorageService.changeCounts(anyList()))
+                .thenReturn(new int[]{1, 1, 1});
+
+        underTest.applyMovementBatch(request);
+
+        verify(itemStorageService, times(1))
+                .createEmptyItems(Set.of(new ItemStorageKey(1, 1), new ItemStorageKey(1, 2)));
+        verify(itemStorageService, times(2))
+                .getCounts(Set.of(new ItemStorageKey(1, 1), new ItemStorageKey(2, 1), new ItemStorageKey(1, 2)));
+    }
+
+    private StockMovementRequest movement(OperationType operation, Integer productId, Integer storageId, Integer count) {
+        return StockMovementRequest.builder()
+                .operation(operation)
+                .item(ChangeItemStorageRequest.builder()
+                        .productId(productId)
+                        .storageId(storageId)
+                        .count(count)
+                        .build())
+                .build();
+    }
+
+    @Test
+    @DisplayName("""
+            get inventory page
+            | next cursor is the count and id of the last item
+            | page sorted by count is full
+            """)
+    void getInventoryPage_nextCursorIsCountAndIdOfLastItem_pageByCountIsFull() {
+        InventoryFilterDto filter = InventoryFilterDto.builder()
+                .sort(InventorySort.COUNT)
+                .size(2)
+                .build();
+        when(itemStorageService.getInventory(1, filter, 2))
+                .thenReturn(List.of(
+                        InventoryItemDto.builder().productId(4).name("cappuccino").count(5).build(),
+                        InventoryItemDto.builder().productId(2).name("green tea").count(7).build()));
+
+        InventoryPageDto result = underTest.getInventoryPage(1, filter);
+
+        assertAll(
+                () -> assertThat(result.getItems()).hasSize(2),
+                () -> assertThat(result.getNextAfterCount()).isEqualTo(7),
+                () -> assertThat(result.getNextAfterName()).isNull(),
+                () -> assertThat(result.getNextAfterId()).isEqualTo(2)
+        );
+        verify(storageRepository, never()).findById(anyInt());
+    }
+
+    @Test
+    @DisplayName("""
+            get inventory page
+            | next cursor is absent
+            | page sorted by name is not full
+            """)
+    void getInventoryPage_nextCursorAbsent_pageByNameIsNotFull() {
+        InventoryFilterDto filter = InventoryFilterDto.builder().build();
+        when(itemStorageService.getInventory(eq(1), eq(filter), anyInt()))
+                .thenReturn(List.of(InventoryItemDto.builder().productId(4).name("cappuccino").count(5).build()));
+
+        InventoryPageDto result = underTest.getInventoryPage(1, filter);
+
+        assertAll(
+                () -> assertThat(result.getItems()).hasSize(1),
+                () -> assertThat(result.getNextAfterName()).isNull(),
+                () -> assertThat(result.getNextAfterId()).isNull()
+        );
+        verify(itemStorageService).getInventory(1, filter, 100);
+    }
+
+    @Test
+    @DisplayName("""
+            get inventory page
+            | noFoundElementException
+            | first page is empty and storage does not exist
+            """)
+    void getInventoryPage_noFoundElementException_firstPageEmptyAndStorageDoesNotExist() {
+        when(itemStorageService.getInventory(anyInt(), any(), anyInt()))
+                .thenReturn(List.of());
         when(storageRepository.findById(anyInt()))
-                .thenReturn(Optional.of(storage));
+                .thenReturn(Optional.empty());
 
-        when(productService.checkExistAndGetProductById(anyInt()))
-                .thenReturn(product);
+        assertThrows(NoFoundElementException.class,
+                () -> underTest.getInventoryPage(100, InventoryFilterDto.builder().build()));
+    }
+
+    @Test
+    @DisplayName("""
+            get inventory page
+            | empty page without storage lookup
+            | page after the last item
+            """)
+    void getInventoryPage_emptyPageWithoutStorageLookup_pageAfterLastItem() {
+        when(itemStorageService.getInventory(anyInt(), any(), anyInt()))
+                .thenReturn(List.of());
 
-        when(itemStorageService.getItemByProductIdAndStorageId(anyInt(), anyInt()))
-                .thenReturn(Optional.of(itemStorage));
+        InventoryPageDto result = underTest.getInventoryPage(1, InventoryFilterDto.builder()
+                .afterName("herbal tea")
+                .afterId(1)
+                .build());
 
-        assertThrows(ProductCountException.class,
-                () -> underTest.decreaseProductInStorage(changeItemRequest));
+        assertThat(result.getItems()).isEmpty();
+        verify(storageRepository, never()).findById(anyInt());
     }
-}
\ No newline at end of file
+}
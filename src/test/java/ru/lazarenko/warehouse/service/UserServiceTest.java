@@ -5,6 +5,7 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import ru.lazarenko.warehouse.dto.UserDto;
 import ru.lazarenko.warehouse.dto.registration.UserRegisterRequest;
@@ -128,22 +129,22 @@ class UserServiceTest {
     }
 
     @Test
-    @DisplayName("get all users | empty result list | users do not exist")
-    void getAllUsers_emptyResultList_usersDoNotExist() {
-        when(userRepository.findAllWithRoles())
+    @DisplayName("get users after | empty result list | users do not exist")
+    void getUsersAfter_emptyResultList_usersDoNotExist() {
+        when(userRepository.findIdPageAfter(0, PageRequest.of(0, 100)))
                 .thenReturn(List.of());
 
-        List<UserDto> result = underTest.getAllUsers();
+        List<UserDto> result = underTest.getUsersAfter(0, 100);
 
-        verify(userRepository, times(1))
-                .findAllWithRoles();
+        verify(userRepository, never())
+                .findAllWithRolesByIdIn(anyCollection());
 
         assertThat(result).isEmpty();
     }
 
     @Test
-    @DisplayName("get all users | not empty result list | users exist")
-    void getAllUsers_resultListNotEmpty_usersExist() {
+    @DisplayName("get users after | not empty result list | users exist")
+    void getUsersAfter_resultListNotEmpty_usersExist() {
         Role roleAdmin = new Role();
         roleAdmin.setName(UserRole.ADMIN);
 
@@ -164,16 +165,18 @@ class UserServiceTest {
                 .roles(List.of(roleAdmin, roleManager))
                 .build();
 
-        when(userRepository.findAllWithRoles())
+        when(userRepository.findIdPageAfter(0, PageRequest.of(0, 100)))
+                .thenReturn(List.of(1));
+        when(userRepository.findAllWithRolesByIdIn(List.of(1)))
                 .thenReturn(List.of(user));
 
         when(userMapper.toUserDtoList(anyList()))
                 .thenReturn(List.of(userDto));
 
-        List<UserDto> result = underTest.getAllUsers();
+        List<UserDto> result = underTest.getUsersAfter(0, 100);
 
         verify(userRepository, times(1))
-                .findAllWithRoles();
+                .findAllWithRolesByIdIn(List.of(1));
 
         assertThat(result).isNotEmpty();
         assertThat(result.get(0).getId()).isEqualTo(1);
@@ -1,50 +1,59 @@
-INSERT INTO categories (name)
-VALUES ('coffee'),
-       ('tea');
-
-INSERT INTO products (name, price, category_id)
-VALUES ('herbal tea', 150, 2),
-       ('green tea', 100, 2),
-       ('americano', 50, 1),
-       ('cappuccino', 150, 1);
-
-INSERT INTO regions (name)
-VALUES ('Sochi'),
-       ('Moscow');
-
-INSERT INTO storages (name, region_id)
-VALUES ('Sochi-str', 1),
-       ('Moscow-str-1', 2),
-       ('Moscow-str-2', 2);
-
-INSERT INTO items_storage (product_id, storage_id, count)
-VALUES (1, 1, 100),
-       (2, 1, 100),
-       (3, 1, 100),
-       (4, 1, 100),
-       (1, 2, 25),
-       (3, 2, 50),
-       (2, 3, 25),
-       (4, 3, 25);
-
-INSERT INTO roles (name)
-VALUES ('ADMIN'),
-       ('MANAGER');
-
-INSERT INTO users (username)
-VALUES ('admin');
+INSERT INTO categories (id, name)
+VALUES (1, 'coffee'),
+       (2, 'tea');
+
+INSERT INTO products (id, name, price, category_id)
+VALUES (1, 'herbal tea', 150, 2),
+       (2, 'green tea', 100, 2),
+       (3, 'americano', 50, 1),
+       (4, 'cappuccino', 150, 1);
+
+INSERT INTO regions (id, name)
+VALUES (1, 'Sochi'),
+       (2, 'Moscow');
+
+INSERT INTO storages (id, name, region_id)
+VALUES (1, 'Sochi-str', 1),
+       (2, 'Moscow-str-1', 2),
+       (3, 'Moscow-str-2', 2);
+
+INSERT INTO items_storage (id, product_id, storage_id, count, product_name)
+VALUES (1, 1, 1, 100, 'herbal tea'),
+       (2, 2, 1, 100, 'green tea'),
+       (3, 3, 1, 100, 'americano'),
+       (4, 4, 1, 100, 'cappuccino'),
+       (5, 1, 2, 25, 'herbal tea'),
+       (6, 3, 2, 50, 'americano'),
+       (7, 2, 3, 25, 'green tea'),
+       (8, 4, 3, 25, 'cappuccino');
+
+INSERT INTO roles (id, name)
+VALUES (1, 'ADMIN'),
+       (2, 'MANAGER');
+
+INSERT INTO users (id, username)
+VALUES (1, 'admin');
 
 INSERT INTO users_roles (user_id, role_id)
 VALUES (1,1),
        (1, 2);
 
 
-INSERT INTO operation_histories (product_id, storage_id, operation, count, date)
-VALUES (1, 1, 'LOADING', 100, '2023-06-10 10:00:00'),
-       (2, 1, 'LOADING', 100, '2023-06-10 10:00:00'),
-       (3, 1, 'LOADING', 100, '2023-06-10 10:00:00'),
-       (4, 1, 'LOADING', 100, '2023-06-10 10:00:00'),
-       (1, 2, 'LOADING', 25, '2023-06-12 10:00:00'),
-       (3, 2, 'LOADING', 50, '2023-06-12 10:00:00'),
-       (2, 3, 'LOADING', 25, '2023-06-13 10:00:00'),
-       (4, 3, 'LOADING', 25, '2023-06-13 10:00:00');
\ No newline at end of file
+INSERT INTO operation_histories (id, product_id, storage_id, operation, count, date)
+VALUES (1, 1, 1, 'LOADING', 100, '2023-06-10 10:00:00'),
+       (2, 2, 1, 'LOADING', 100, '2023-06-10 10:00:00'),
+       (3, 3, 1, 'LOADING', 100, '2023-06-10 10:00:00'),
+       (4, 4, 1, 'LOADING', 100, '2023-06-10 10:00:00'),
+       (5, 1, 2, 'LOADING', 25, '2023-06-12 10:00:00'),
+       (6, 3, 2, 'LOADING', 50, '2023-06-12 10:00:00'),
+       (7, 2, 3, 'LOADING', 25, '2023-06-13 10:00:00'),
+       (8, 4, 3, 'LOADING', 25, '2023-06-13 10:00:00');
+
+ALTER SEQUENCE categories_seq RESTART WITH 1000;
+ALTER SEQUENCE products_seq RESTART WITH 1000;
+ALTER SEQUENCE regions_seq RESTART WITH 1000;
+ALTER SEQUENCE storages_seq RESTART WITH 1000;
+ALTER SEQUENCE items_storage_seq RESTART WITH 1000;
+ALTER SEQUENCE roles_seq RESTART WITH 1000;
+ALTER SEQUENCE users_seq RESTART WITH 1000;
+ALTER SEQUENCE operation_histories_seq RESTART WITH 1000;